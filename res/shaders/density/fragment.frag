@@ -0,0 +1,22 @@
+#version 330
+
+uniform sampler2D density;
+uniform float maxDensity;
+uniform vec4 edgeColor;
+uniform bool doUniqueColor;
+
+in vec2 texCoord;
+out vec4 outputColor;
+
+void main()
+{
+    // density tiles can not be picked
+    if (doUniqueColor) discard;
+
+    float value = texture(density, texCoord).r;
+    if (value <= 0) discard;
+
+    // logarithmic scale, such that sparse regions remain visible
+    float alpha = log(1.0 + value) / log(1.0 + maxDensity);
+    outputColor = vec4(edgeColor.rgb, alpha * edgeColor.a);
+}
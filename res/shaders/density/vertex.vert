@@ -0,0 +1,19 @@
+#version 330
+
+// shared by all shaders, see CameraUniforms
+layout (std140) uniform Camera {
+    mat4 viewMatrix;
+    mat4 projectionMatrix;
+};
+uniform vec4 bounds;// (minX, minY, maxX, maxY) of the density map
+
+out vec2 texCoord;
+
+void main(){
+    // a quad of 4 vertices, drawn as a triangle strip without vertex attributes
+    vec2 corner = vec2(gl_VertexID & 1, gl_VertexID >> 1);
+    vec2 position = mix(bounds.xy, bounds.zw, corner);
+
+    gl_Position = projectionMatrix * viewMatrix * vec4(position, 0.0, 1.0);
+    texCoord = corner;
+}
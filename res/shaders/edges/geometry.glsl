@@ -15,8 +15,11 @@ out vec4 fragColor;
 vec4 color;
 bool shouldGradient;
 
-uniform mat4 viewMatrix;
-uniform mat4 projectionMatrix;
+// shared by all shaders, see CameraUniforms
+layout (std140) uniform Camera {
+    mat4 viewMatrix;
+    mat4 projectionMatrix;
+};
 uniform float nodeRadius;
 uniform float edgeSize;
 uniform float headSize;
@@ -35,10 +38,12 @@ vec3 bezierDerivative(vec3 A, vec3 B, vec3 C, float u){
 }
 
 vec4 numberToColor(int i) {
-    int bitSize = (1 << 6);
-    int r = (i % bitSize) << 2;
-    int g = (((i >> 6) % bitSize) << 2);
-    int b = (((i >> 12) % bitSize) << 2);
+    // 24-bit id, 8 bits per channel; exact as long as the click buffer has 8-bit channels and blending is off
+    // ids that do not fit are drawn as the background, such that they are not picked instead of another element
+    if (i < 0 || i > 0xFFFFFF) i = 0;
+    int r = i & 0xFF;
+    int g = (i >> 8) & 0xFF;
+    int b = (i >> 16) & 0xFF;
 
     return vec4(r / 255.0, g / 255.0, b / 255.0, 1.0);
 }
@@ -1,8 +1,7 @@
 #version 330
 
-layout (location = 0) in vec3 a_in;
-layout (location = 1) in vec3 b_in;
-layout (location = 2) in vec3 c_in;
+layout (location = 0) in int source_in;// node id of the start
+layout (location = 1) in int target_in;// node id of the end
 layout (location = 3) in vec4 color_in;
 
 out vec3 a;// start
@@ -12,11 +11,12 @@ out vec4 geoColor;
 out int geoID;
 
 uniform int edgeIndexOffset;
+uniform samplerBuffer nodePositions;
 
 void main(){
-    a = a_in;
-    b = b_in;
-    c = c_in;
+    a = texelFetch(nodePositions, source_in).xyz;
+    c = texelFetch(nodePositions, target_in).xyz;
+    b = mix(a, c, 0.5);
     geoColor = color_in;
     geoID = gl_VertexID + edgeIndexOffset + 1;
 }
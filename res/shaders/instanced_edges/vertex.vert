@@ -0,0 +1,113 @@
+#version 330
+
+layout (location = 0) in int edgeID;// per instance, the id of the edge
+layout (location = 3) in vec4 color_in;
+
+out vec4 fragColor;
+
+// shared by all shaders, see CameraUniforms
+layout (std140) uniform Camera {
+    mat4 viewMatrix;
+    mat4 projectionMatrix;
+};
+uniform isamplerBuffer edgeSources;
+uniform isamplerBuffer edgeTargets;
+uniform samplerBuffer nodePositions;
+uniform int edgeIndexOffset;
+uniform float nodeRadius;
+uniform float edgeSize;
+uniform float headSize;
+uniform bool doUniqueColor;
+uniform bool doGradient;
+uniform int numTailSections;
+uniform int numHeadSections;
+
+// outside the clip volume, for removing all vertices of an edge
+const vec4 CLIPPED = vec4(2.0, 2.0, 2.0, 1.0);
+
+vec3 bezier(vec3 A, vec3 B, vec3 C, float u){
+    float uinv = 1 - u;
+    return A * uinv * uinv + B * 2 * uinv * u + C * u * u;
+}
+vec3 bezierDerivative(vec3 A, vec3 B, vec3 C, float u){
+    float uinv = 1 - u;
+    return (B - A) * 2 * uinv + (C - B) * 2 * u;
+}
+
+vec4 numberToColor(int i) {
+    // 24-bit id, 8 bits per channel; exact as long as the click buffer has 8-bit channels and blending is off
+    // ids that do not fit are drawn as the background, such that they are not picked instead of another element
+    if (i < 0 || i > 0xFFFFFF) i = 0;
+    int r = i & 0xFF;
+    int g = (i >> 8) & 0xFF;
+    int b = (i >> 16) & 0xFF;
+
+    return vec4(r / 255.0, g / 255.0, b / 255.0, 1.0);
+}
+
+// every instance is a triangle strip of 2 * (numTailSections + numHeadSections + 1) + 1 vertices, with the same shape
+// as the edges drawn by the geometry shader in shaders/edges
+void main(){
+    vec4 color;
+    bool shouldGradient;
+
+    if (doUniqueColor){
+        if (color_in.a < 0.099) {
+            gl_Position = CLIPPED;
+            return;
+        }
+        color = numberToColor(edgeID + edgeIndexOffset + 1);
+        shouldGradient = false;
+
+    } else {
+        color = color_in;
+        shouldGradient = doGradient;
+    }
+    fragColor = color;
+
+    vec3 a = texelFetch(nodePositions, texelFetch(edgeSources, edgeID).x).xyz;
+    vec3 c = texelFetch(nodePositions, texelFetch(edgeTargets, edgeID).x).xyz;
+    vec3 b = mix(a, c, 0.5);
+
+    float headHSize = 0.5 * headSize;
+    float tailHSize = 0.5 * edgeSize;
+    float adjustedRadius = (headSize > 0) ? nodeRadius : sqrt(nodeRadius * nodeRadius - headHSize * headHSize);
+
+    vec3 aPos = a + normalize(b - a) * adjustedRadius;
+    vec3 bPos = b;
+    vec3 cPos = c - normalize(c - b) * nodeRadius;
+
+    int numEdgeSections = numHeadSections + numTailSections;
+    float sectionScalar = 1.0 / numEdgeSections;
+    int section = gl_VertexID / 2;
+
+    if (section > numEdgeSections) {
+        // the tip of the arrow
+        gl_Position = projectionMatrix * viewMatrix * vec4(cPos, 1.0);
+        return;
+    }
+
+    float fraction;
+    float width;
+    if (section <= numTailSections) {
+        // the last tail section ends where the head starts
+        fraction = section * sectionScalar;
+        width = tailHSize;
+
+    } else {
+        int i = section - 1;
+        fraction = i * sectionScalar;
+        width = (numEdgeSections - i) * (headHSize / numHeadSections);
+    }
+
+    vec3 vector = bezier(aPos, bPos, cPos, fraction);
+    vec3 direction = bezierDerivative(aPos, bPos, cPos, fraction);
+
+    vec4 scPos = viewMatrix * vec4(vector, 1.0);
+    vec4 scDir = viewMatrix * vec4(direction, 0.0);
+    vec4 perpendicular = vec4(normalize(vec2(scDir.y, -scDir.x)) * width, 0, 0);
+    float side = (gl_VertexID % 2 == 0) ? 1.0 : -1.0;
+
+    gl_Position = projectionMatrix * (scPos + side * perpendicular);
+    if (shouldGradient) fragColor = vec4(color.xyz, (1 - fraction) * color.a);
+}
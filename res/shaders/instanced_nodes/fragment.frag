@@ -0,0 +1,25 @@
+#version 330
+
+const float THICKNESS = 0.15f;
+
+uniform bool doUniqueColor;
+
+in vec2 corner;
+flat in vec4 fragColor;
+flat in vec4 fragBorder;
+
+out vec4 outputColor;
+
+void main()
+{
+    // the distance field of a unit circle
+    float distanceFromMiddle = length(corner);
+    if (distanceFromMiddle > 1.0) discard;
+
+    if (doUniqueColor || distanceFromMiddle < (1 - THICKNESS)){
+        outputColor = fragColor;
+
+    } else {
+        outputColor = fragBorder;
+    }
+}
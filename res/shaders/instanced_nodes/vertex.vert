@@ -0,0 +1,47 @@
+#version 330
+
+layout (location = 0) in int nodeID;// per instance, the id of the node
+layout (location = 2) in vec4 border;// outer border color
+
+// shared by all shaders, see CameraUniforms
+layout (std140) uniform Camera {
+    mat4 viewMatrix;
+    mat4 projectionMatrix;
+};
+uniform samplerBuffer nodePositions;
+uniform samplerBuffer nodeColors;
+uniform float nodeRadius;
+uniform bool doUniqueColor;
+
+out vec2 corner;// position on the quad, in [-1, 1]
+flat out vec4 fragColor;
+flat out vec4 fragBorder;
+
+vec4 numberToColor(int i) {
+    // 24-bit id, 8 bits per channel; exact as long as the click buffer has 8-bit channels and blending is off
+    // ids that do not fit are drawn as the background, such that they are not picked instead of another element
+    if (i < 0 || i > 0xFFFFFF) i = 0;
+    int r = i & 0xFF;
+    int g = (i >> 8) & 0xFF;
+    int b = (i >> 16) & 0xFF;
+
+    return vec4(r / 255.0, g / 255.0, b / 255.0, 1.0);
+}
+
+void main(){
+    // a triangle strip of 4 vertices
+    corner = vec2((gl_VertexID & 1) * 2 - 1, (gl_VertexID >> 1) * 2 - 1);
+
+    vec3 center = texelFetch(nodePositions, nodeID).xyz;
+    vec4 viewCenter = viewMatrix * vec4(center, 1.0);
+    gl_Position = projectionMatrix * (viewCenter + vec4(corner * nodeRadius, 0.0, 0.0));
+
+    if (doUniqueColor){
+        fragColor = numberToColor(nodeID + 1);
+        fragBorder = fragColor;
+
+    } else {
+        fragColor = texelFetch(nodeColors, nodeID);
+        fragBorder = border;
+    }
+}
@@ -13,9 +13,14 @@ smooth out float distanceFromMiddle;
 out vec4 fragColor;
 out vec4 fragBorder;
 
-uniform mat4 projectionMatrix;
+// shared by all shaders, see CameraUniforms
+layout (std140) uniform Camera {
+    mat4 viewMatrix;
+    mat4 projectionMatrix;
+};
 uniform float nodeRadius;
 uniform bool doUniqueColor;
+uniform int nodeSegments;// number of sides of the circle, a divisor of nrOfOffsets
 
 const int nrOfOffsets = 16;
 const vec2[] offsets = vec2[](
@@ -41,10 +46,12 @@ vec4 color;
 vec4 border;
 
 vec4 numberToColor(int i) {
-    int bitSize = (1 << 6);
-    int r = (i % bitSize) << 2;
-    int g = (((i >> 6) % bitSize) << 2);
-    int b = (((i >> 12) % bitSize) << 2);
+    // 24-bit id, 8 bits per channel; exact as long as the click buffer has 8-bit channels and blending is off
+    // ids that do not fit are drawn as the background, such that they are not picked instead of another element
+    if (i < 0 || i > 0xFFFFFF) i = 0;
+    int r = i & 0xFF;
+    int g = (i >> 8) & 0xFF;
+    int b = (i >> 16) & 0xFF;
 
     return vec4(r / 255.0, g / 255.0, b / 255.0, 1.0);
 }
@@ -75,7 +82,8 @@ void main() {
         border = geoBorder[0];
     }
 
-    for (int i = 0; i < nrOfOffsets; i++){
+    int step = nrOfOffsets / nodeSegments;
+    for (int i = 0; i < nrOfOffsets; i += step){
         emitOffset(offsets[i]);
         emitMiddle();
     }
@@ -4,8 +4,11 @@ layout (location = 0) in vec3 center;// position of the middle of the triangle a
 layout (location = 1) in vec4 color;// inner color
 layout (location = 2) in vec4 border;// outer border color
 
-uniform mat4 viewMatrix;
-uniform mat4 projectionMatrix;
+// shared by all shaders, see CameraUniforms
+layout (std140) uniform Camera {
+    mat4 viewMatrix;
+    mat4 projectionMatrix;
+};
 
 out vec4 geoMiddle;
 out vec4 geoColor;
@@ -0,0 +1,12 @@
+#version 330
+
+uniform bool doRound;
+
+flat in vec4 fragColor;
+out vec4 outputColor;
+
+void main()
+{
+    if (doRound && length(gl_PointCoord - vec2(0.5)) > 0.5) discard;
+    outputColor = fragColor;
+}
@@ -0,0 +1,31 @@
+#version 330
+
+layout (location = 0) in vec3 center;
+layout (location = 1) in vec4 color;
+
+// shared by all shaders, see CameraUniforms
+layout (std140) uniform Camera {
+    mat4 viewMatrix;
+    mat4 projectionMatrix;
+};
+uniform float pointSize;
+uniform bool doUniqueColor;
+
+flat out vec4 fragColor;
+
+vec4 numberToColor(int i) {
+    // 24-bit id, 8 bits per channel; exact as long as the click buffer has 8-bit channels and blending is off
+    // ids that do not fit are drawn as the background, such that they are not picked instead of another element
+    if (i < 0 || i > 0xFFFFFF) i = 0;
+    int r = i & 0xFF;
+    int g = (i >> 8) & 0xFF;
+    int b = (i >> 16) & 0xFF;
+
+    return vec4(r / 255.0, g / 255.0, b / 255.0, 1.0);
+}
+
+void main(){
+    gl_Position = projectionMatrix * viewMatrix * vec4(center, 1.0);
+    gl_PointSize = pointSize;
+    fragColor = doUniqueColor ? numberToColor(gl_VertexID + 1) : color;
+}
@@ -27,8 +27,11 @@ public class Boot {
         }
 
         new FlagManager()
-                .addFlag("debug", () -> Logger.doPrintCallsites = true,
-                        "Sets logging to DEBUG level")
+                .addFlag("debug", () -> {
+                            Logger.doPrintCallsites = true;
+                            settings.SHADER_HOT_RELOAD = true;
+                        },
+                        "Sets logging to DEBUG level, and reloads shaders when their files change")
                 .addFlag("quiet", () -> Logger.setLoggingLevel(Logger.INFO),
                         "Sets logging to INFO level")
                 .addFlag("silent", () -> Logger.setLoggingLevel(Logger.ERROR),
@@ -41,6 +44,31 @@ public class Boot {
                                 "By default, it writes to a generated new file"
                 )
 
+                .addFlag("headless", () -> settings.HEADLESS = true,
+                        "Renders into an offscreen framebuffer, without opening a window or requiring a display"
+                )
+                .addFlag("renderThread", () -> settings.RENDER_THREAD = true,
+                        "Renders on a separate thread, such that input is processed while a frame is rendered"
+                )
+                .addParameterFlag("graph", file -> settings.GRAPH_FILE = Paths.get(file),
+                        "Opens the graph in the given file at startup"
+                )
+                .addParameterFlag("export", directory -> settings.EXPORT_DIRECTORY = Paths.get(directory),
+                        "Writes the rendered frames as png files to the given directory, and quits after the number " +
+                                "of frames given by -frames"
+                )
+                .addParameterFlag("frames", n -> settings.EXPORT_FRAMES = Integer.parseInt(n),
+                        "The number of frames written by -export, by default 1"
+                )
+
+                .addParameterFlag("benchmark", file -> {
+                            settings.BENCHMARK_GRAPH = Paths.get(file);
+                            settings.V_SYNC = false;
+                        },
+                        "Loads the graph in the given file, compares the frame times of the geometry shader and the " +
+                                "instanced render paths, and quits. Set LIBGL_ALWAYS_SOFTWARE=1 to use Mesa's software renderer"
+                )
+
                 .addFlag("lwjglDebug", () -> Configuration.DEBUG.set(true),
                         "Activates logging of underlying libraries")
                 .addFlag("untimed", () -> Logger.doPrintTimeStamps = false,
@@ -50,7 +50,8 @@ public interface Camera extends ToolElement, MouseListener {
      * viewspace.
      */
     default Matrix4f getViewProjection(GLFWWindow window) {
-        float ratio = (float) window.getWidth() / window.getHeight();
+        long size = window.getSize();
+        float ratio = (float) GLFWWindow.widthOf(size) / GLFWWindow.heightOf(size);
         Matrix4f vpMatrix = getProjectionMatrix(ratio);
         return getViewMatrix(vpMatrix);
     }
@@ -64,8 +65,16 @@ public interface Camera extends ToolElement, MouseListener {
     }
 
     default Matrix4f getProjectionMatrix(float aspectRatio) {
-        Matrix4f vpMatrix = new Matrix4f();
+        return getProjectionMatrix(aspectRatio, new Matrix4f());
+    }
 
+    /**
+     * writes the projection matrix of this camera into the given matrix, overwriting its contents
+     * @param aspectRatio the width of the viewport divided by its height
+     * @param vpMatrix    the matrix to write to
+     * @return vpMatrix
+     */
+    default Matrix4f getProjectionMatrix(float aspectRatio, Matrix4f vpMatrix) {
         if (isIsometric()) {
             float visionSize = (vectorToFocus().length() - Settings.Z_NEAR) / 2;
             vpMatrix.setOrthoSymmetric(aspectRatio * visionSize, visionSize, Settings.Z_NEAR, Settings.Z_FAR);
@@ -78,11 +87,16 @@ public interface Camera extends ToolElement, MouseListener {
     boolean isIsometric();
 
     default Vector2f project(Vector3fc vector, GLFWWindow window) {
+        long size = window.getSize();
+        int width = GLFWWindow.widthOf(size);
+        int height = GLFWWindow.heightOf(size);
+
         // view + projection transform
-        Vector3f scPos = new Vector3f(vector).mulPosition(getViewProjection(window));
+        Matrix4f viewProjection = getViewMatrix(getProjectionMatrix((float) width / height));
+        Vector3f scPos = new Vector3f(vector).mulPosition(viewProjection);
         // window transform
-        float xPix = (scPos.x + 1) * window.getWidth() * 0.5f;
-        float yPix = (scPos.y - 1) * window.getHeight() * -0.5f;
+        float xPix = (scPos.x + 1) * width * 0.5f;
+        float yPix = (scPos.y - 1) * height * -0.5f;
 
         return new Vector2f(xPix, yPix);
     }
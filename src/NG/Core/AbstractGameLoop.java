@@ -1,8 +1,8 @@
 package NG.Core;
 
 import NG.DataStructures.Generic.AveragingQueue;
+import NG.DataStructures.Generic.TripleBuffer;
 import NG.Tools.Logger;
-import NG.Tools.Timer;
 
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.CountDownLatch;
@@ -18,12 +18,15 @@ public abstract class AbstractGameLoop extends Thread {
     private final Supplier<String> tickCounter;
     private final Supplier<String> possessionCounter;
     private float targetDeltaMillis;
+    private final FramePacer pacer;
     private CountDownLatch pauseBlock = new CountDownLatch(0);
     private boolean shouldStop = false;
     private boolean isPaused = true;
     private ConcurrentLinkedQueue<Runnable> postLoopActions = new ConcurrentLinkedQueue<>();
     private AveragingQueue avgTPS;
     private AveragingQueue avgPoss;
+    /** the averages of {@link #avgTPS} and {@link #avgPoss}, published by this loop and read by the hud */
+    private final TripleBuffer<float[]> statistics = new TripleBuffer<>(() -> new float[2]);
 
     /**
      * creates a new, paused gameloop
@@ -34,12 +37,13 @@ public abstract class AbstractGameLoop extends Thread {
         super(name);
         if (targetTps == 0) pauseBlock = new CountDownLatch(1);
         this.targetDeltaMillis = 1000f / targetTps;
+        this.pacer = new FramePacer(Math.max(targetTps, 1));
 
         avgTPS = new AveragingQueue(targetTps / 2);
         avgPoss = new AveragingQueue(targetTps / 10);
 
-        tickCounter = () -> String.format("%s TPS: %1.01f", name, avgTPS.average());
-        possessionCounter = () -> String.format("%s POSS: %3d%%", name, (int) (100 * avgPoss.average()));
+        tickCounter = () -> String.format("%s TPS: %1.01f", name, statistics.read()[0]);
+        possessionCounter = () -> String.format("%s POSS: %3d%%", name, (int) (100 * statistics.read()[1]));
     }
 
     /**
@@ -72,13 +76,11 @@ public abstract class AbstractGameLoop extends Thread {
 
         try {
             pauseBlock.await();
-            Timer loopTimer = new Timer();
+            pacer.restart();
+            long loopStart = pacer.now();
             isPaused = false;
 
             while (!shouldStop || Thread.interrupted()) {
-                // start measuring how long a gameloop takes
-                loopTimer.updateLoopTime();
-
                 // do stuff
                 update(deltaTime);
                 if (Thread.interrupted()) break;
@@ -87,25 +89,30 @@ public abstract class AbstractGameLoop extends Thread {
                 runPostLoopActions();
                 if (Thread.interrupted()) break;
 
-                // number of milliseconds remaining in this loop
-                float remainingTime = targetDeltaMillis - loopTimer.getMillisSinceLastUpdate();
-
-                // sleep at least 0 milliseconds
-                long correctedTime = (long) Math.max(remainingTime, 0);
-                Thread.sleep(correctedTime);
+                long workDuration = pacer.now() - loopStart;
+                long loopEnd = pacer.await();
 
                 // store the duration and set this as length of next update
-                loopTimer.updateLoopTime();
-                deltaTime = loopTimer.getElapsedSeconds();
+                long loopDuration = Math.max(loopEnd - loopStart, 1);
+                deltaTime = loopDuration * 1e-9f;
+                loopStart = loopEnd;
 
                 // update Ticks per Second
-                float realTPS = 1000f / loopTimer.getElapsedMillis();
-                avgTPS.add(realTPS);
-                avgPoss.add((targetDeltaMillis - remainingTime) / targetDeltaMillis);
+                avgTPS.add(1e9f / loopDuration);
+                avgPoss.add((float) workDuration / pacer.getPeriodNanos());
+                float[] stats = statistics.getWriteBuffer();
+                stats[0] = avgTPS.average();
+                stats[1] = avgPoss.average();
+                statistics.publish();
 
                 // wait if the game is paused
                 isPaused = true;
-                pauseBlock.await();
+                if (pauseBlock.getCount() > 0) {
+                    pauseBlock.await();
+                    // the time spent paused is not part of the next update
+                    pacer.restart();
+                    loopStart = pacer.now();
+                }
                 isPaused = false;
             }
 
@@ -151,6 +158,11 @@ public abstract class AbstractGameLoop extends Thread {
         postLoopActions.offer(action);
     }
 
+    /** @return true if any action given to {@link #defer(Runnable)} has not been executed yet */
+    protected boolean hasDeferredActions() {
+        return !postLoopActions.isEmpty();
+    }
+
     @Override
     public String toString() {
         return getName();
@@ -181,5 +193,6 @@ public abstract class AbstractGameLoop extends Thread {
 
     public void setTPS(int TPS) {
         this.targetDeltaMillis = 1000f / TPS;
+        pacer.setRate(TPS);
     }
 }
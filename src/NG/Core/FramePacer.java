@@ -0,0 +1,194 @@
+package NG.Core;
+
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.LongSupplier;
+
+/**
+ * Waits until the deadline of the next frame of a loop with a fixed frame rate. The operating system may wake a sleeping
+ * thread a millisecond or more too late, hence the pacer sleeps until a margin before the deadline, and parks in ever
+ * shorter steps for the remainder. The margin follows how late coarse sleeps have been woken up.
+ * <p>
+ * Deadlines are a fixed period apart, such that a frame that ends early or late does not shift the frames after it.
+ * When a frame misses its deadline by more than a period, the schedule restarts from that moment instead of rushing to
+ * catch up. The clock and the way of waiting are given to the constructor, such that the pacing can be verified with a
+ * simulated clock.
+ */
+public class FramePacer {
+    /** the smallest margin before the deadline at which coarse sleeping stops */
+    public static final long MIN_SLEEP_MARGIN_NANOS = 1_000_000;
+    /** the largest margin, for systems of which the sleep granularity is very coarse */
+    public static final long MAX_SLEEP_MARGIN_NANOS = 20_000_000;
+    /** remaining time below which the pacer spins instead of parking, as parking takes about as long */
+    public static final long SPIN_NANOS = 50_000;
+
+    private final LongSupplier clock;
+    private final Waiter waiter;
+    private long periodNanos;
+    private long deadline;
+    private long sleepMarginNanos = 2 * MIN_SLEEP_MARGIN_NANOS;
+    private long lastDriftNanos = 0;
+    private double averageDriftNanos = 0;
+
+    /**
+     * creates a pacer on the system clock that sleeps the current thread
+     * @param framesPerSecond the number of frames per second
+     */
+    public FramePacer(float framesPerSecond) {
+        this(framesPerSecond, System::nanoTime, Waiter.SYSTEM);
+    }
+
+    /**
+     * @param framesPerSecond the number of frames per second
+     * @param clock           a monotonic clock in nanoseconds
+     * @param waiter          the way the pacer waits, which is expected to let the clock advance
+     */
+    public FramePacer(float framesPerSecond, LongSupplier clock, Waiter waiter) {
+        this.clock = clock;
+        this.waiter = waiter;
+        setRate(framesPerSecond);
+        restart();
+    }
+
+    /** changes the number of frames per second, taking effect from the next frame */
+    public void setRate(float framesPerSecond) {
+        assert framesPerSecond > 0 : framesPerSecond;
+        this.periodNanos = (long) (1e9 / framesPerSecond);
+    }
+
+    /** sets the deadline to one period from now */
+    public void restart() {
+        deadline = clock.getAsLong() + periodNanos;
+    }
+
+    /** @return the current time of the clock of this pacer in nanoseconds */
+    public long now() {
+        return clock.getAsLong();
+    }
+
+    /** @return the time until the deadline of the current frame, which is negative when the deadline has passed */
+    public long remainingNanos() {
+        return deadline - clock.getAsLong();
+    }
+
+    /**
+     * waits until the deadline of the current frame, and sets the deadline of the next frame
+     * @return the time at which the wait ended
+     * @throws InterruptedException if the thread was interrupted while waiting
+     */
+    public long await() throws InterruptedException {
+        long now = clock.getAsLong();
+
+        long sleepTime = coarseSleepNanos(now);
+        if (sleepTime > 0) {
+            waiter.sleep(sleepTime);
+            long wakeTime = clock.getAsLong();
+            adaptMargin(wakeTime - now - sleepTime);
+            now = wakeTime;
+        }
+
+        long remaining = deadline - now;
+        while (remaining > 0) {
+            if (remaining > SPIN_NANOS) {
+                // a park may be woken late as well, hence halving the remainder bounds the overshoot
+                waiter.park(remaining / 2);
+            } else {
+                waiter.spin();
+            }
+            now = clock.getAsLong();
+            remaining = deadline - now;
+        }
+
+        advance(now);
+        return now;
+    }
+
+    /**
+     * @param now the current time
+     * @return how long the pacer should sleep coarsely before parking for the remainder, or 0 if it should not sleep
+     */
+    long coarseSleepNanos(long now) {
+        return Math.max(deadline - now - sleepMarginNanos, 0);
+    }
+
+    /**
+     * adjusts the margin before the deadline to how late a coarse sleep woke up. The margin grows immediately, and
+     * shrinks slowly, such that an occasional quick wake does not cause the next late one to miss the deadline.
+     * @param oversleptNanos the time between the requested and the actual end of a sleep
+     */
+    void adaptMargin(long oversleptNanos) {
+        long wanted = oversleptNanos + oversleptNanos / 2;
+        if (wanted > sleepMarginNanos) {
+            sleepMarginNanos = wanted;
+        } else {
+            sleepMarginNanos -= (sleepMarginNanos - wanted) / 16;
+        }
+        sleepMarginNanos = Math.max(MIN_SLEEP_MARGIN_NANOS, Math.min(sleepMarginNanos, MAX_SLEEP_MARGIN_NANOS));
+    }
+
+    /**
+     * records how far the given time is past the current deadline, and moves the deadline one period ahead. If the
+     * deadline is still not in the future, the schedule restarts from the given time.
+     * @param now the end of the current frame
+     */
+    void advance(long now) {
+        lastDriftNanos = now - deadline;
+        averageDriftNanos += (lastDriftNanos - averageDriftNanos) / 16;
+
+        deadline += periodNanos;
+        if (deadline <= now) deadline = now + periodNanos;
+    }
+
+    /** @return the time on the clock at which the current frame should end */
+    long getDeadline() {
+        return deadline;
+    }
+
+    /** @return the margin before the deadline at which coarse sleeping stops */
+    public long getSleepMarginNanos() {
+        return sleepMarginNanos;
+    }
+
+    /** @return how late the last frame ended compared to its deadline, in nanoseconds */
+    public long getLastDriftNanos() {
+        return lastDriftNanos;
+    }
+
+    /** @return a moving average of {@link #getLastDriftNanos()} */
+    public double getAverageDriftNanos() {
+        return averageDriftNanos;
+    }
+
+    public long getPeriodNanos() {
+        return periodNanos;
+    }
+
+    /**
+     * The ways in which a {@link FramePacer} gives up the processor
+     */
+    public interface Waiter {
+        /** sleeps on the timers of the operating system */
+        Waiter SYSTEM = new Waiter() {
+            @Override
+            public void sleep(long nanos) throws InterruptedException {
+                Thread.sleep(nanos / 1_000_000, (int) (nanos % 1_000_000));
+            }
+
+            @Override
+            public void park(long nanos) throws InterruptedException {
+                LockSupport.parkNanos(nanos);
+                if (Thread.interrupted()) throw new InterruptedException();
+            }
+        };
+
+        /** waits for about the given time, possibly longer */
+        void sleep(long nanos) throws InterruptedException;
+
+        /** waits for about the given time, with a finer granularity than {@link #sleep(long)} */
+        void park(long nanos) throws InterruptedException;
+
+        /** waits as short as possible, without giving up the processor */
+        default void spin() {
+            Thread.onSpinWait();
+        }
+    }
+}
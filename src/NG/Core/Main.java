@@ -6,9 +6,11 @@ import java.util.concurrent.FutureTask;
 
 import NG.Camera.Camera;
 import NG.GUIMenu.FrameManagers.UIFrameManager;
+import NG.Graph.Graph;
 import NG.InputHandling.KeyControl;
 import NG.InputHandling.MouseTools.MouseToolCallbacks;
 import NG.Rendering.GLFWWindow;
+import NG.Rendering.RenderLoop;
 import NG.Settings.Settings;
 
 public interface Main {
@@ -25,6 +27,21 @@ public interface Main {
 
     public UIFrameManager gui();
 
+    public Camera camera();
+
+    public RenderLoop renderer();
+
+    /**
+     * @return the graph that is currently opened, or null if no graph has been loaded
+     */
+    public Graph graph();
+
+    /**
+     * replaces the currently opened graph with the given graph. May be called from any thread.
+     * @param graph the new graph
+     */
+    public void setGraph(Graph graph);
+
     /**
      * Schedules the specified action to be executed in the OpenGL context. The
      * action is guaranteed to be executed
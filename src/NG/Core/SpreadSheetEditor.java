@@ -5,8 +5,14 @@ import NG.Camera.PointCenteredCamera;
 import NG.GUIMenu.FrameManagers.FrameManagerImpl;
 import NG.GUIMenu.FrameManagers.UIFrameManager;
 import NG.GUIMenu.Menu;
+import NG.Graph.Graph;
+import NG.Graph.GraphLoader;
+import NG.Graph.Layout.GraphLayout;
+import NG.Graph.Rendering.GraphRenderer;
+import NG.Graph.Rendering.RenderBenchmark;
 import NG.InputHandling.KeyControl;
 import NG.InputHandling.MouseTools.MouseToolCallbacks;
+import NG.Rendering.FrameExporter;
 import NG.Rendering.GLFWWindow;
 import NG.Rendering.RenderLoop;
 import NG.Settings.Settings;
@@ -20,8 +26,9 @@ import NG.Tools.Vectors;
  */
 public class SpreadSheetEditor implements Main {
     private static final Version VERSION = new Version(0, 3);
+    /** the maximum time the event thread waits for events before checking whether the tool is closed */
+    private static final double EVENT_TIMEOUT_SECONDS = 0.5;
 
-    private final Thread mainThread;
     public final RenderLoop renderer;
 
     private final UIFrameManager frameManager;
@@ -29,8 +36,11 @@ public class SpreadSheetEditor implements Main {
     private final GLFWWindow window;
     private final MouseToolCallbacks inputHandler;
     private final KeyControl keyControl;
+    private final GraphRenderer graphRenderer;
     private Camera camera;
     private Menu menu;
+    private volatile Graph graph;
+    private GraphLayout layout;
 
     public SpreadSheetEditor(Settings settings) throws Exception {
         Logger.INFO.print("Starting up...");
@@ -50,8 +60,8 @@ public class SpreadSheetEditor implements Main {
         inputHandler = new MouseToolCallbacks();
         keyControl = inputHandler.getKeyControl();
         frameManager = new FrameManagerImpl();
-        mainThread = Thread.currentThread();
         camera = new PointCenteredCamera(Vectors.O);
+        graphRenderer = new GraphRenderer();
     }
 
     /**
@@ -63,9 +73,12 @@ public class SpreadSheetEditor implements Main {
         Logger.DEBUG.print("Initializing...");
         // init all fields
         renderer.init(this);
+        camera.init(this);
         inputHandler.init(this);
         frameManager.init(this);
+        graphRenderer.init(this);
 
+        graphRenderer.addTo(renderer);
         renderer.addHudItem(frameManager::draw);
 
         menu = new Menu(this);
@@ -79,7 +92,24 @@ public class SpreadSheetEditor implements Main {
 
         Logger.INFO.print("Finished startup\n");
 
-        renderer.run();
+        if (settings.GRAPH_FILE != null) {
+            setGraph(GraphLoader.load(settings.GRAPH_FILE.toFile()));
+        }
+        if (settings.EXPORT_DIRECTORY != null) {
+            new FrameExporter(renderer, window, settings.EXPORT_DIRECTORY.toFile(), settings.EXPORT_FRAMES).start();
+        } else if (settings.HEADLESS) {
+            Logger.WARN.print("Running headless without -export; close the tool by stopping the process");
+        }
+        if (settings.BENCHMARK_GRAPH != null) {
+            setGraph(GraphLoader.load(settings.BENCHMARK_GRAPH.toFile()));
+            new RenderBenchmark(this, settings.BENCHMARK_FRAMES).start();
+        }
+
+        if (settings.RENDER_THREAD) {
+            runRenderThread();
+        } else {
+            renderer.run();
+        }
 
         window.close();
 
@@ -88,10 +118,31 @@ public class SpreadSheetEditor implements Main {
         Logger.INFO.print("Tool has been closed successfully");
     }
 
+    /**
+     * runs the render loop on a thread of its own, while this thread processes the window events until the render loop
+     * stops. This way, input is handled immediately instead of once per frame.
+     */
+    private void runRenderThread() throws InterruptedException {
+        window.releaseContext();
+        renderer.start();
+
+        while (renderer.isAlive()) {
+            window.waitEvents(EVENT_TIMEOUT_SECONDS);
+            if (window.shouldClose()) renderer.stopLoop();
+        }
+
+        renderer.join();
+        window.makeContextCurrent();
+    }
+
     public Camera camera() {
         return camera;
     }
 
+    public RenderLoop renderer() {
+        return renderer;
+    }
+
     public Settings settings() {
         return settings;
     }
@@ -116,7 +167,25 @@ public class SpreadSheetEditor implements Main {
         return frameManager;
     }
 
-    private void cleanup() {
+    public Graph graph() {
+        return graph;
+    }
+
+    public synchronized void setGraph(Graph graph) {
+        if (layout != null) layout.stopLoop();
+
+        GraphLayout newLayout = new GraphLayout(graph, settings);
+        this.layout = newLayout;
+        this.graph = graph;
+        executeOnRenderThread(() -> graphRenderer.setGraph(newLayout));
+        newLayout.start();
+
+        Logger.INFO.print("Opened " + graph);
+    }
+
+    private synchronized void cleanup() {
+        if (layout != null) layout.stopLoop();
+        graphRenderer.cleanup();
         inputHandler.cleanup();
         window.cleanup();
     }
@@ -129,7 +198,7 @@ public class SpreadSheetEditor implements Main {
      * @param action the action to execute
      */
     public void executeOnRenderThread(Runnable action) {
-        if (Thread.currentThread() == mainThread) {
+        if (Thread.currentThread() == window.getOpenGLThread()) {
             action.run();
         } else {
             renderer.defer(action);
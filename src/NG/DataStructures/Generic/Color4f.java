@@ -256,6 +256,19 @@ public class Color4f implements Serializable {
         colorBuffer.put((byte) (alpha * 255));
     }
 
+    /**
+     * packs this color in an integer with 8 bits per component, with red in the lowest byte. On little-endian systems,
+     * the bytes of the result are in RGBA order, which matches a vertex attribute of 4 normalized unsigned bytes.
+     * @return (alpha << 24 | blue << 16 | green << 8 | red)
+     */
+    public int toABGR() {
+        int r = Math.round(red * 255);
+        int g = Math.round(green * 255);
+        int b = Math.round(blue * 255);
+        int a = Math.round(alpha * 255);
+        return (a << 24) | (b << 16) | (g << 8) | r;
+    }
+
     @Override
     public String toString() {
         return "Color (" +
@@ -280,6 +293,11 @@ public class Color4f implements Serializable {
         return rgb(ired, igreen, iblue, 1f);
     }
 
+    /** @see #toABGR() */
+    public static Color4f fromABGR(int abgr) {
+        return rgb(abgr & 0xFF, (abgr >>> 8) & 0xFF, (abgr >>> 16) & 0xFF, (abgr >>> 24) / 255f);
+    }
+
     public static Color4f randomBetween(Color4f color1, Color4f color2) {
         float red = Toolbox.randomBetween(color1.red, color2.red);
         float green = Toolbox.randomBetween(color1.green, color2.green);
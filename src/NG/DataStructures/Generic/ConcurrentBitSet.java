@@ -0,0 +1,79 @@
+package NG.DataStructures.Generic;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A fixed-size set of non-negative integers, stored as one bit per possible element. Bits can be set concurrently from
+ * multiple threads without locking. Clearing and iterating are not thread-safe with respect to concurrent setting.
+ */
+public class ConcurrentBitSet {
+    private final AtomicLongArray words;
+    private final int capacity;
+
+    /**
+     * @param capacity one more than the highest element that can be stored
+     */
+    public ConcurrentBitSet(int capacity) {
+        this.capacity = capacity;
+        this.words = new AtomicLongArray((int) (((long) capacity + 63) >>> 6));
+    }
+
+    /** adds the given element to this set. Safe to call concurrently */
+    public void set(int index) {
+        assert index >= 0 && index < capacity : index;
+        int wordIndex = index >>> 6;
+        long mask = 1L << index; // shift is taken modulo 64
+
+        long word = words.get(wordIndex);
+        // avoid contention when the bit is already set, which is common when many pixels share an id
+        while ((word & mask) == 0) {
+            long witness = words.compareAndExchange(wordIndex, word, word | mask);
+            if (witness == word) return;
+            word = witness;
+        }
+    }
+
+    public boolean get(int index) {
+        assert index >= 0 && index < capacity : index;
+        return (words.get(index >>> 6) & (1L << index)) != 0;
+    }
+
+    /**
+     * @param fromIndex the first index to check, inclusive
+     * @return the lowest element in this set that is at least fromIndex, or -1 if there is none
+     */
+    public int nextSetBit(int fromIndex) {
+        if (fromIndex >= capacity) return -1;
+        int wordIndex = fromIndex >>> 6;
+        long word = words.get(wordIndex) & (-1L << fromIndex);
+
+        while (word == 0) {
+            wordIndex++;
+            if (wordIndex == words.length()) return -1;
+            word = words.get(wordIndex);
+        }
+
+        return (wordIndex << 6) + Long.numberOfTrailingZeros(word);
+    }
+
+    /** @return the number of elements in this set */
+    public int cardinality() {
+        int count = 0;
+        for (int i = 0; i < words.length(); i++) {
+            count += Long.bitCount(words.get(i));
+        }
+        return count;
+    }
+
+    /** removes all elements from this set, without releasing memory */
+    public void clear() {
+        for (int i = 0; i < words.length(); i++) {
+            words.set(i, 0);
+        }
+    }
+
+    /** @return one more than the highest element that can be stored */
+    public int capacity() {
+        return capacity;
+    }
+}
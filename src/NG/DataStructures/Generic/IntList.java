@@ -0,0 +1,94 @@
+package NG.DataStructures.Generic;
+
+import java.util.Arrays;
+
+/**
+ * A growable list of primitive integers, for collecting large amounts of indices without boxing every element.
+ */
+public class IntList {
+    private int[] elements;
+    private int size = 0;
+
+    public IntList() {
+        this(16);
+    }
+
+    /**
+     * @param capacity the initial expected maximum number of entries
+     */
+    public IntList(int capacity) {
+        elements = new int[Math.max(capacity, 1)];
+    }
+
+    /** appends the given value to the end of this list. Runs in amortized constant time */
+    public void add(int value) {
+        if (size == elements.length) grow(size + 1);
+        elements[size++] = value;
+    }
+
+    public int get(int index) {
+        assert index < size : index + " >= " + size;
+        return elements[index];
+    }
+
+    public void set(int index, int value) {
+        assert index < size : index + " >= " + size;
+        elements[index] = value;
+    }
+
+    /** removes and returns the last element of this list */
+    public int removeLast() {
+        assert size > 0 : "empty list";
+        return elements[--size];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /** removes all elements, but keeps the allocated capacity */
+    public void clear() {
+        size = 0;
+    }
+
+    /**
+     * ensures that at least the given number of elements can be stored without reallocation
+     * @param capacity the minimum capacity
+     */
+    public void ensureCapacity(int capacity) {
+        if (capacity > elements.length) grow(capacity);
+    }
+
+    /**
+     * gives direct access to the backing array. Only the first {@link #size()} elements are valid, and the array is
+     * replaced when this list grows.
+     */
+    public int[] backingArray() {
+        return elements;
+    }
+
+    /** @return a copy of the elements of this list, of exactly {@link #size()} length */
+    public int[] toArray() {
+        return Arrays.copyOf(elements, size);
+    }
+
+    private void grow(int minCapacity) {
+        // grow by 1.5, capped on the maximum array size
+        long newCapacity = Math.max(minCapacity, elements.length + (elements.length >> 1));
+        if (newCapacity > Integer.MAX_VALUE - 8) {
+            if (minCapacity > Integer.MAX_VALUE - 8) throw new OutOfMemoryError("IntList too large");
+            newCapacity = Integer.MAX_VALUE - 8;
+        }
+        elements = Arrays.copyOf(elements, (int) newCapacity);
+    }
+
+    @Override
+    public String toString() {
+        if (size > 20) return "IntList (" + size + " elements)";
+        return Arrays.toString(toArray());
+    }
+}
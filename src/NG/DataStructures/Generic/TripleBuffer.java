@@ -0,0 +1,76 @@
+package NG.DataStructures.Generic;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Hands over values from one producer thread to one consumer thread without locking. Three instances of the value are
+ * kept: the producer writes into the back buffer, the consumer reads the front buffer, and the middle buffer holds the
+ * most recently published value. Publishing swaps the back buffer with the middle buffer, and reading swaps the middle
+ * buffer with the front buffer if a new value was published since. Neither side ever waits for the other, and the
+ * consumer skips values that are overwritten before it reads.
+ * <p>
+ * The producer may read the buffer it published last, as the consumer does not write to it either. The producer must
+ * not use a buffer after writing into the next write buffer, and the consumer must not use a buffer after the next call
+ * to {@link #read()}.
+ * @param <T> the type of the buffers, which is usually mutable and reused
+ */
+public class TripleBuffer<T> {
+    private static final int INDEX_MASK = 0b011;
+    /** set in {@link #middle} if the middle buffer has been published and not yet read */
+    private static final int NEW_VALUE = 0b100;
+
+    private final Object[] buffers = new Object[3];
+    private final AtomicInteger middle = new AtomicInteger(1);
+    /** only accessed by the producer */
+    private int back = 2;
+    /** only accessed by the consumer */
+    private int front = 0;
+
+    /**
+     * creates a triple buffer of which all three buffers are created with the given factory. Until the first value is
+     * published, {@link #read()} returns one of these.
+     * @param factory a supplier of new, independent buffers
+     */
+    public TripleBuffer(Supplier<T> factory) {
+        for (int i = 0; i < buffers.length; i++) {
+            buffers[i] = factory.get();
+        }
+    }
+
+    /**
+     * @return the buffer the producer may write into, which is not accessed by the consumer until it is published.
+     * Returns the same buffer until {@link #publish()} is called.
+     */
+    @SuppressWarnings("unchecked")
+    public T getWriteBuffer() {
+        return (T) buffers[back];
+    }
+
+    /**
+     * makes the write buffer available to the consumer, replacing any published value that has not been read. Must
+     * only be called by the producer.
+     */
+    public void publish() {
+        int previous = middle.getAndSet(back | NEW_VALUE);
+        back = previous & INDEX_MASK;
+    }
+
+    /**
+     * @return the most recently published buffer. It remains unchanged until the next call to this method. Must only
+     * be called by the consumer.
+     */
+    @SuppressWarnings("unchecked")
+    public T read() {
+        if ((middle.get() & NEW_VALUE) != 0) {
+            int previous = middle.getAndSet(front);
+            front = previous & INDEX_MASK;
+        }
+        return (T) buffers[front];
+    }
+
+    /** @return true if a value has been published that has not been read */
+    public boolean hasNewValue() {
+        return (middle.get() & NEW_VALUE) != 0;
+    }
+}
@@ -4,6 +4,7 @@ import NG.GUIMenu.Rendering.NGFonts;
 import NG.GUIMenu.Rendering.SFrameLookAndFeel;
 import NG.GUIMenu.SComponentProperties;
 
+import java.util.Objects;
 import java.util.function.Supplier;
 
 /**
@@ -11,6 +12,7 @@ import java.util.function.Supplier;
  */
 public class SActiveTextArea extends STextComponent {
     private final Supplier<String> supplier;
+    private String lastText = null;
 
     public SActiveTextArea(Supplier<String> supplier, SComponentProperties props) {
         super("", props);
@@ -34,4 +36,13 @@ public class SActiveTextArea extends STextComponent {
     public String getText() {
         return supplier.get();
     }
+
+    @Override
+    public void checkForChanges() {
+        String text = supplier.get();
+        if (!Objects.equals(text, lastText)) {
+            lastText = text;
+            markDirty();
+        }
+    }
 }
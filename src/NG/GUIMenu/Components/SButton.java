@@ -98,11 +98,13 @@ public class SButton extends STextComponent implements MouseReleaseListener, Mou
     @Override
     public void onClick(int button, int xSc, int ySc) {
         isPressed = true;
+        markDirty();
     }
 
     @Override
     public void onRelease(int button) {
         isPressed = false;
+        markDirty();
 
         if (button == GLFW_MOUSE_BUTTON_LEFT) {
             leftClickListeners.forEach(Runnable::run);
@@ -55,13 +55,17 @@ public class SCloseButton extends SComponent implements MouseReleaseListener, Mo
 
     @Override
     public void onClick(int button, int x, int y) {
-        if (button == GLFW_MOUSE_BUTTON_LEFT) state = true;
+        if (button == GLFW_MOUSE_BUTTON_LEFT) {
+            state = true;
+            markDirty();
+        }
     }
 
     @Override
     public void onRelease(int button) {
         if (state && button == GLFW_MOUSE_BUTTON_LEFT) {
             state = false;
+            markDirty();
             closeAction.run();
         }
     }
@@ -1,5 +1,6 @@
 package NG.GUIMenu.Components;
 
+import NG.GUIMenu.DirtyRegion;
 import NG.GUIMenu.Rendering.SFrameLookAndFeel;
 import org.joml.Vector2i;
 import org.joml.Vector2ic;
@@ -19,6 +20,8 @@ public abstract class SComponent {
     private SComponent parent = null;
     private boolean wantHzGrow = true;
     private boolean wantVtGrow = true;
+    /** the damage reported by this component and its children, only used when this has no parent */
+    private DirtyRegion damage = null;
 
     /**
      * @return minimum width of this component in pixels. The final width can be assumed to be at least this size unless
@@ -36,12 +39,63 @@ public abstract class SComponent {
      * sets the layout validity flag of this component and all of its parents to false.
      */
     protected final void invalidateLayout() {
+        markDirty();
+        invalidateChain();
+    }
+
+    private void invalidateChain() {
         if (layoutIsValid) {
             layoutIsValid = false;
-            if (parent != null) parent.invalidateLayout();
+            if (parent != null) parent.invalidateChain();
+        }
+    }
+
+    /**
+     * reports that the appearance of this component has changed, such that the area it covers must be redrawn.
+     * Components that change their appearance without changing their layout should call this method.
+     */
+    protected void markDirty() {
+        damage(0, 0, dimensions.x, dimensions.y);
+    }
+
+    /**
+     * reports the given rectangle, relative to this component, up the parent chain. The topmost component collects the
+     * rectangle in screen coordinates.
+     */
+    private void damage(int x, int y, int width, int height) {
+        if (width <= 0 || height <= 0) return;
+        x += position.x;
+        y += position.y;
+
+        SComponent p = parent;
+        if (p != null) {
+            p.damage(x, y, width, height);
+
+        } else {
+            DirtyRegion region = damage;
+            if (region == null) region = damage = new DirtyRegion();
+            region.add(x, y, width, height);
         }
     }
 
+    /**
+     * moves the damage reported by this component and its children into the given region. Only a component without
+     * parent collects damage.
+     * @param target the region that receives the damaged area in screen coordinates
+     */
+    public void collectDamage(DirtyRegion target) {
+        DirtyRegion region = damage;
+        if (region != null) target.take(region);
+    }
+
+    /**
+     * checks for changes of the appearance of this component that are not reported by a method call, such as the
+     * result of a supplier, and calls {@link #markDirty()} if anything changed. This is called once per frame, before
+     * the damage is collected. Components with children must forward this call to their children.
+     */
+    public void checkForChanges() {
+    }
+
     /**
      * restores the validity of the layout of this component.
      * @see #doValidateLayout()
@@ -125,7 +179,10 @@ public abstract class SComponent {
 
     /** Adds the given x and y to the position, like a call of {@code setPosition(getX() + xDelta, getY() + yDelta);} */
     public void addToPosition(int xDelta, int yDelta) {
+        if (xDelta == 0 && yDelta == 0) return;
+        markDirty();
         position.add(xDelta, yDelta);
+        markDirty();
     }
 
     /**
@@ -134,7 +191,10 @@ public abstract class SComponent {
      * @return this
      */
     public final SComponent setPosition(int x, int y) {
+        if (position.x == x && position.y == y) return this;
+        markDirty();
         position.set(x, y);
+        markDirty();
         return this;
     }
 
@@ -149,7 +209,10 @@ public abstract class SComponent {
         width = Math.max(width, minWidth());
         height = Math.max(height, minHeight());
 
-        dimensions.set(width, height);
+        if (width != dimensions.x || height != dimensions.y) {
+            markDirty();
+            dimensions.set(width, height);
+        }
         invalidateLayout();
         return this;
     }
@@ -177,8 +240,7 @@ public abstract class SComponent {
 
     /** @see #setPosition(int, int) */
     public final SComponent setPosition(Vector2ic position) {
-        this.position.set(position);
-        return this;
+        return setPosition(position.x(), position.y());
     }
 
     public Vector2i getScreenPosition() {
@@ -219,6 +281,7 @@ public abstract class SComponent {
      *                  component will not be drawn.
      */
     public void setVisible(boolean doVisible) {
+        if (doVisible != isVisible) markDirty();
         isVisible = doVisible;
         if (doVisible) validateLayout();
     }
@@ -229,6 +292,9 @@ public abstract class SComponent {
 
     public void setParent(SComponent parent) {
         this.parent = parent;
+        // damage is now reported to the new parent
+        damage = null;
+        markDirty();
     }
 
     /**
@@ -249,6 +315,7 @@ public abstract class SComponent {
      * @param hovered true if the mouse is on this component, false if not
      */
     public void setHovered(boolean hovered) {
+        if (hovered != isHovered) markDirty();
         isHovered = hovered;
     }
 
@@ -63,6 +63,13 @@ public abstract class SContainer extends SComponent {
         invalidateLayout();
     }
 
+    @Override
+    public void checkForChanges() {
+        for (SComponent component : children()) {
+            component.checkForChanges();
+        }
+    }
+
     public void drawChildren(SFrameLookAndFeel lookFeel, Vector2ic offset) {
         for (SComponent component : children()) {
             if (component.isVisible() && component.getWidth() != 0 && component.getHeight() != 0) {
@@ -59,6 +59,11 @@ public abstract class SDecorator extends SComponent {
         setSize(getWidth(), getHeight());
     }
 
+    @Override
+    public void checkForChanges() {
+        contents.checkForChanges();
+    }
+
     @Override
     public void draw(SFrameLookAndFeel design, Vector2ic screenPosition) {
         contents.draw(design, screenPosition);
@@ -165,6 +165,7 @@ public class SDropDown extends SComponent implements MouseClickListener {
 
     @Override
     public void onClick(int button, int xSc, int ySc) {
+        markDirty();
         if (isOpened) {
             close();
 
@@ -181,12 +182,14 @@ public class SDropDown extends SComponent implements MouseClickListener {
 
     public void setCurrent(int index) {
         current = index;
+        markDirty();
         stateChangeListeners.forEach(c -> c.accept(current));
     }
 
     private void close() {
         optionPane.setVisible(false);
         isOpened = false;
+        markDirty();
     }
 
     private class DropDownOptions extends SDecorator implements MouseClickListener {
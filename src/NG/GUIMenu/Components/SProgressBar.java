@@ -5,6 +5,7 @@ import NG.GUIMenu.SComponentProperties;
 import org.joml.Vector2i;
 import org.joml.Vector2ic;
 
+import java.util.Objects;
 import java.util.function.Supplier;
 
 import static NG.GUIMenu.Rendering.SFrameLookAndFeel.UIComponent.PANEL;
@@ -17,6 +18,7 @@ public class SProgressBar extends SComponent {
     private int minWidth;
     private int minHeight;
     private final Supplier<Float> progress;
+    private Float lastProgress = null;
 
     public SProgressBar(Supplier<Float> progress, SComponentProperties properties) {
         this.progress = progress;
@@ -42,6 +44,15 @@ public class SProgressBar extends SComponent {
         return minHeight;
     }
 
+    @Override
+    public void checkForChanges() {
+        Float current = progress.get();
+        if (!Objects.equals(current, lastProgress)) {
+            lastProgress = current;
+            markDirty();
+        }
+    }
+
     @Override
     public void draw(SFrameLookAndFeel design, Vector2ic screenPosition) {
         design.draw(PANEL, screenPosition, getSize());
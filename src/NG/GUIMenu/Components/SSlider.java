@@ -127,6 +127,7 @@ public class SSlider extends SComponent implements MouseDragListener, MouseClick
     public void setCurrent(float newValue) {
         if (current != newValue) {
             current = newValue;
+            markDirty();
             changeListeners.forEach(l -> l.onChange(newValue));
         }
     }
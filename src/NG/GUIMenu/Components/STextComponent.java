@@ -68,6 +68,7 @@ public abstract class STextComponent extends SComponent {
 
     public void setText(String text) {
         textWidthIsInvalid = !text.equals(this.text);
+        if (textWidthIsInvalid) markDirty();
         this.text = text;
     }
 
@@ -72,11 +72,13 @@ public class SToggleButton extends STextComponent implements MouseClickListener,
     @Override
     public void onClick(int button, int xSc, int ySc) {
         isPressed = !state;
+        markDirty();
     }
 
     @Override
     public void onRelease(int button) {
         setActive(!state);
+        markDirty();
     }
 
     /**
@@ -89,6 +91,7 @@ public class SToggleButton extends STextComponent implements MouseClickListener,
 
     public void setColor(Color4f color) {
         this.color = color;
+        markDirty();
     }
 
     public boolean isActive() {
@@ -99,6 +102,7 @@ public class SToggleButton extends STextComponent implements MouseClickListener,
         if (this.state != state) {
             this.state = state;
             this.isPressed = state;
+            markDirty();
 
             for (Consumer<Boolean> c : stateChangeListeners) {
                 c.accept(state);
@@ -0,0 +1,105 @@
+package NG.GUIMenu;
+
+/**
+ * An area of the screen that must be redrawn, kept as the bounding box of all rectangles added to it. An empty region
+ * covers nothing. All methods are thread-safe, such that components may report changes from any thread.
+ */
+public class DirtyRegion {
+    private int xMin = Integer.MAX_VALUE;
+    private int yMin = Integer.MAX_VALUE;
+    private int xMax = Integer.MIN_VALUE;
+    private int yMax = Integer.MIN_VALUE;
+
+    /**
+     * extends this region to include the given rectangle. Empty rectangles are ignored.
+     * @param x      screen x coordinate of the left side
+     * @param y      screen y coordinate of the top side
+     * @param width  width of the rectangle in pixels
+     * @param height height of the rectangle in pixels
+     */
+    public synchronized void add(int x, int y, int width, int height) {
+        if (width <= 0 || height <= 0) return;
+
+        xMin = Math.min(xMin, x);
+        yMin = Math.min(yMin, y);
+        xMax = Math.max(xMax, x + width);
+        yMax = Math.max(yMax, y + height);
+    }
+
+    /**
+     * extends this region to include the other region
+     * @param other another region, which is not changed
+     */
+    public void add(DirtyRegion other) {
+        int x, y, width, height;
+        synchronized (other) {
+            if (other.isEmpty()) return;
+            x = other.xMin;
+            y = other.yMin;
+            width = other.getWidth();
+            height = other.getHeight();
+        }
+        add(x, y, width, height);
+    }
+
+    /**
+     * extends this region to include the other region, and clears the other region.
+     * @param other another region
+     */
+    public void take(DirtyRegion other) {
+        int x, y, width, height;
+        synchronized (other) {
+            if (other.isEmpty()) return;
+            x = other.xMin;
+            y = other.yMin;
+            width = other.getWidth();
+            height = other.getHeight();
+            other.clear();
+        }
+        add(x, y, width, height);
+    }
+
+    /** @return true if this region covers no pixels */
+    public synchronized boolean isEmpty() {
+        return xMax <= xMin || yMax <= yMin;
+    }
+
+    /**
+     * @return true if this region overlaps the given rectangle
+     */
+    public synchronized boolean intersects(int x, int y, int width, int height) {
+        return !isEmpty() && x < xMax && x + width > xMin && y < yMax && y + height > yMin;
+    }
+
+    /** makes this region empty */
+    public synchronized void clear() {
+        xMin = Integer.MAX_VALUE;
+        yMin = Integer.MAX_VALUE;
+        xMax = Integer.MIN_VALUE;
+        yMax = Integer.MIN_VALUE;
+    }
+
+    /** @return the left side of this region, or {@link Integer#MAX_VALUE} if it is empty */
+    public synchronized int getX() {
+        return xMin;
+    }
+
+    /** @return the top side of this region, or {@link Integer#MAX_VALUE} if it is empty */
+    public synchronized int getY() {
+        return yMin;
+    }
+
+    public synchronized int getWidth() {
+        return isEmpty() ? 0 : xMax - xMin;
+    }
+
+    public synchronized int getHeight() {
+        return isEmpty() ? 0 : yMax - yMin;
+    }
+
+    @Override
+    public synchronized String toString() {
+        if (isEmpty()) return "DirtyRegion[empty]";
+        return "DirtyRegion[" + xMin + ", " + yMin + ", " + getWidth() + " x " + getHeight() + "]";
+    }
+}
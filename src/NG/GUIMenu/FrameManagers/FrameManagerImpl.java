@@ -5,6 +5,8 @@ import NG.Core.Version;
 import NG.GUIMenu.Components.SComponent;
 import NG.GUIMenu.Components.SFiller;
 import NG.GUIMenu.Components.SFrame;
+import NG.GUIMenu.DirtyRegion;
+import NG.GUIMenu.Rendering.FingerprintLookAndFeel;
 import NG.GUIMenu.Rendering.NVGOverlay;
 import NG.GUIMenu.Rendering.SFrameLookAndFeel;
 import NG.GUIMenu.Rendering.WindowsLF;
@@ -12,6 +14,7 @@ import NG.InputHandling.*;
 import NG.Rendering.GLFWWindow;
 import NG.Tools.Logger;
 import org.joml.Vector2i;
+import org.joml.Vector2ic;
 
 import java.util.*;
 
@@ -32,10 +35,15 @@ public class FrameManagerImpl implements UIFrameManager {
     private SComponent hoveredComponent;
 
     private SFrameLookAndFeel lookAndFeel;
+    private FingerprintLookAndFeel fingerprint;
+    /** the cached images of the main panel and the frames, only accessed on the rendering thread */
+    private final Map<SComponent, Layer> layers = new IdentityHashMap<>();
+    /** the screen area that changed since the last call to draw */
+    private final DirtyRegion damage = new DirtyRegion();
 
     public FrameManagerImpl() {
         this.frames = new ArrayDeque<>();
-        lookAndFeel = new WindowsLF();
+        setLookAndFeel(new WindowsLF());
         mainPanel = new SFiller(0, 0);
     }
 
@@ -52,6 +60,7 @@ public class FrameManagerImpl implements UIFrameManager {
     @Override
     public void setMainGUI(SComponent container) {
         this.mainPanel = container;
+        damageScreen();
 
         if (root != null) {
             GLFWWindow window = root.window();
@@ -68,11 +77,22 @@ public class FrameManagerImpl implements UIFrameManager {
             mainPanel.setSize(window.getWidth(), window.getHeight());
         }
 
+        // everything reported up to now is drawn in this frame
+        collectDamage();
+        damage.clear();
+
         lookAndFeel.setPainter(painter);
+        boolean retained = root.settings().RETAINED_GUI;
+        if (!retained) disposeLayers();
+
         mainPanel.validateLayout();
-        mainPanel.draw(lookAndFeel, new Vector2i(0, 0));
+        if (retained) {
+            drawRetained(painter, mainPanel, new Vector2i(0, 0));
+        } else {
+            mainPanel.draw(lookAndFeel, new Vector2i(0, 0));
+        }
 
-        frames.removeIf(SFrame::isDisposed);
+        frames.removeIf(this::removeDisposed);
 
         Iterator<SFrame> itr = frames.descendingIterator();
         while (itr.hasNext()) {
@@ -80,22 +100,126 @@ public class FrameManagerImpl implements UIFrameManager {
 
             if (f.isVisible()) {
                 f.validateLayout();
-                f.draw(lookAndFeel, f.getPosition());
 
-                // if anything caused invalidation of the layout (e.g. text size information) then redraw this frame
-                while (!f.layoutIsValid()) {
-                    f.validateLayout();
+                if (retained) {
+                    drawRetained(painter, f, f.getPosition());
+
+                } else {
                     f.draw(lookAndFeel, f.getPosition());
+
+                    // if anything caused invalidation of the layout (e.g. text size information) then redraw this frame
+                    while (!f.layoutIsValid()) {
+                        f.validateLayout();
+                        f.draw(lookAndFeel, f.getPosition());
+                    }
                 }
             }
         }
 
+        // the layers of frames that are no longer drawn
+        if (retained) {
+            layers.entrySet().removeIf(entry -> {
+                SComponent component = entry.getKey();
+                boolean isUsed = component == mainPanel || component.isVisible() && frames.contains(component);
+                if (!isUsed) entry.getValue().image.dispose();
+                return !isUsed;
+            });
+        }
+
         if (modalComponent != null) {
             modalComponent.validateLayout();
             modalComponent.draw(lookAndFeel, modalComponent.getScreenPosition());
         }
     }
 
+    /**
+     * Returns the area of the screen that changed since the last call to {@link #draw(NVGOverlay.Painter)}. Changes of
+     * components that are not reported by a method call, such as a changed supplier result, are checked here.
+     * @return a new region with the screen area that must be redrawn, which is empty if nothing changed
+     */
+    @Override
+    public DirtyRegion getDamage() {
+        mainPanel.checkForChanges();
+        for (SFrame frame : frames) {
+            frame.checkForChanges();
+        }
+        SComponent modal = modalComponent;
+        if (modal != null) modal.checkForChanges();
+
+        if (root != null) {
+            GLFWWindow window = root.window();
+            if (window.getWidth() != mainPanel.getWidth() || window.getHeight() != mainPanel.getHeight()) {
+                damageScreen();
+            }
+        }
+
+        collectDamage();
+        DirtyRegion result = new DirtyRegion();
+        result.add(damage);
+        return result;
+    }
+
+    /** moves the damage reported by all components into {@link #damage} */
+    private void collectDamage() {
+        mainPanel.collectDamage(damage);
+        for (SFrame frame : frames) {
+            frame.collectDamage(damage);
+        }
+        SComponent modal = modalComponent;
+        if (modal != null) modal.collectDamage(damage);
+    }
+
+    /** marks the area of the given top-level component as damaged */
+    private void damage(SComponent component) {
+        damage.add(component.getX(), component.getY(), component.getWidth(), component.getHeight());
+    }
+
+    /** marks the entire screen as damaged */
+    private void damageScreen() {
+        // before initialisation nothing has been drawn
+        if (root == null) return;
+        GLFWWindow window = root.window();
+        damage.add(0, 0, window.getWidth(), window.getHeight());
+    }
+
+    /** @return true if the given frame is disposed, after collecting its damage */
+    private boolean removeDisposed(SFrame frame) {
+        if (!frame.isDisposed()) return false;
+        frame.collectDamage(damage);
+        return true;
+    }
+
+    /**
+     * draws the given component from its cached image, and renders the image again only if the fingerprint of the
+     * component changed since the last frame
+     */
+    private void drawRetained(NVGOverlay.Painter painter, SComponent component, Vector2ic position) {
+        Layer layer = layers.computeIfAbsent(component, c -> new Layer());
+
+        // if anything caused invalidation of the layout (e.g. text size information) then draw again
+        do {
+            component.validateLayout();
+            fingerprint.reset(position.x(), position.y());
+            component.draw(fingerprint, position);
+        } while (!component.layoutIsValid());
+
+        long newFingerprint = fingerprint.getFingerprint();
+        boolean redraw = !layer.isDrawn || newFingerprint != layer.fingerprint;
+        layer.fingerprint = newFingerprint;
+        layer.isDrawn = true;
+
+        painter.drawRetained(
+                layer.image, position.x(), position.y(), component.getWidth(), component.getHeight(), redraw,
+                p -> component.draw(lookAndFeel, position)
+        );
+    }
+
+    private void disposeLayers() {
+        if (layers.isEmpty()) return;
+        layers.values().forEach(l -> l.image.dispose());
+        layers.clear();
+    }
+
     @Override
     public boolean removeElement(SComponent component) {
         if (component instanceof SFrame) {
@@ -127,6 +251,7 @@ public class FrameManagerImpl implements UIFrameManager {
         }
 
         frame.setPosition(x, y);
+        damage(frame);
     }
 
     @Override
@@ -147,11 +272,13 @@ public class FrameManagerImpl implements UIFrameManager {
         }
 
         frames.addFirst(frame);
+        damage(frame);
     }
 
     @Override
     public void setLookAndFeel(SFrameLookAndFeel lookAndFeel) {
         this.lookAndFeel = lookAndFeel;
+        this.fingerprint = new FingerprintLookAndFeel(lookAndFeel);
     }
 
     @Override
@@ -166,7 +293,9 @@ public class FrameManagerImpl implements UIFrameManager {
 
     @Override
     public void setModalListener(SComponent listener) {
+        if (modalComponent != null) damage(modalComponent);
         modalComponent = listener;
+        if (listener != null) damage(listener);
     }
 
     @Override
@@ -179,11 +308,13 @@ public class FrameManagerImpl implements UIFrameManager {
         frames.forEach(SFrame::dispose);
         frames.clear();
         mainPanel = new SFiller(0, 0);
+        damageScreen();
     }
 
     @Override
     public void cleanup() {
         clear();
+        disposeLayers();
     }
 
     @Override
@@ -209,6 +340,7 @@ public class FrameManagerImpl implements UIFrameManager {
             if (modalComponent.contains(xSc, ySc)) {
                 processClick(button, modalComponent, xSc, ySc);
             }
+            damage(modalComponent);
             modalComponent = null;
 
         } else {
@@ -336,4 +468,13 @@ public class FrameManagerImpl implements UIFrameManager {
         }
         ;
     }
+
+    /**
+     * The cached image of a component, with the fingerprint of its contents when the image was rendered
+     */
+    private static class Layer {
+        final NVGOverlay.RetainedImage image = new NVGOverlay.RetainedImage();
+        long fingerprint;
+        boolean isDrawn = false;
+    }
 }
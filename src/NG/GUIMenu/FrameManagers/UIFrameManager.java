@@ -3,6 +3,7 @@ package NG.GUIMenu.FrameManagers;
 import NG.Core.ToolElement;
 import NG.GUIMenu.Components.SComponent;
 import NG.GUIMenu.Components.SFrame;
+import NG.GUIMenu.DirtyRegion;
 import NG.GUIMenu.Rendering.NVGOverlay;
 import NG.GUIMenu.Rendering.SFrameLookAndFeel;
 import NG.InputHandling.KeyTypeListener;
@@ -30,6 +31,12 @@ public interface UIFrameManager
      */
     void draw(NVGOverlay.Painter painter);
 
+    /**
+     * @return the union of the screen areas that changed since the last call to {@link #draw(NVGOverlay.Painter)}, in
+     * screen coordinates. If the result is empty, drawing again gives the same image.
+     */
+    DirtyRegion getDamage();
+
     default void addFrame(SFrame frame) {
         frame.validateLayout();
 
@@ -3,9 +3,16 @@ package NG.GUIMenu;
 import NG.Core.Main;
 import NG.GUIMenu.Components.*;
 import NG.GUIMenu.FrameManagers.UIFrameManager;
+import NG.Graph.Analytics.*;
+import NG.Graph.Graph;
+import NG.Graph.GraphLoader;
+import NG.InputHandling.MouseTools.RegionSelectTool;
 import NG.Tools.Directory;
+import NG.Tools.Logger;
+import NG.Tools.Toolbox;
 import java.awt.*;
 import java.io.File;
+import java.io.IOException;
 import java.nio.file.Paths;
 import java.util.function.Consumer;
 
@@ -15,11 +22,14 @@ import java.util.function.Consumer;
 public class Menu extends SDecorator {
     public static final SComponentProperties BUTTON_PROPS = new SComponentProperties(180, 25, true, false);
     public static final int SPACE_BETWEEN_UI_SECTIONS = 10;
+    private static final int BETWEENNESS_SAMPLES = 64;
 
     private final Main main;
+    private final RegionSelectTool regionSelectTool;
 
     public Menu(Main main) {
         this.main = main;
+        this.regionSelectTool = new RegionSelectTool(main);
         reloadUI();
     }
 
@@ -31,6 +41,18 @@ public class Menu extends SDecorator {
                         new SFiller(),
                         new SPanel(
                                 SContainer.column(
+                                        new SButton("Load Graph", () -> openFileDialog(this::loadGraph, GraphLoader.FILE_FILTER), BUTTON_PROPS),
+                                        new SFiller(0, SPACE_BETWEEN_UI_SECTIONS).setGrowthPolicy(false, false),
+                                        regionSelectTool.button("Select Region", BUTTON_PROPS),
+                                        new SToggleButton("Instanced Rendering", BUTTON_PROPS, main.settings().INSTANCED_RENDERING)
+                                                .addStateChangeListener(on -> main.settings().INSTANCED_RENDERING = on),
+                                        new SToggleButton("Record Frames", BUTTON_PROPS, main.window().isRecording())
+                                                .addStateChangeListener(this::setRecording),
+                                        new SFiller(0, SPACE_BETWEEN_UI_SECTIONS).setGrowthPolicy(false, false),
+                                        new SButton("Color Components", () -> analyse("Components", this::colorComponents), BUTTON_PROPS),
+                                        new SButton("Color PageRank", () -> analyse("PageRank", this::colorPageRank), BUTTON_PROPS),
+                                        new SButton("Color Betweenness", () -> analyse("Betweenness", this::colorBetweenness), BUTTON_PROPS),
+                                        new SButton("Color BFS Distance", () -> analyse("BFS", this::colorDistance), BUTTON_PROPS),
                                         new SFiller(0, SPACE_BETWEEN_UI_SECTIONS).setGrowthPolicy(false, false)
                                 )
                         )
@@ -39,6 +61,78 @@ public class Menu extends SDecorator {
         );
     }
 
+    /** starts recording to a new directory, or stops the current recording */
+    private void setRecording(boolean doRecord) {
+        if (doRecord) {
+            String name = String.format("recording_%1$tY%1$tm%1$td_%1$tH%1$tM%1$tS", System.currentTimeMillis());
+            main.window().startRecording(Directory.screenshots.getFile(name));
+        } else {
+            main.window().stopRecording();
+        }
+    }
+
+    private void loadGraph(File file) {
+        new Thread(() -> {
+            try {
+                long startTime = System.currentTimeMillis();
+                Graph graph = GraphLoader.load(file);
+                Logger.INFO.printf("Loaded %s in %d ms", file.getName(), System.currentTimeMillis() - startTime);
+                main.setGraph(graph);
+
+            } catch (IOException | RuntimeException e) {
+                Toolbox.display(e);
+            }
+        }, "Graph loader").start();
+    }
+
+    /** runs the given analysis on the current graph on a new thread */
+    private void analyse(String name, Consumer<Graph> analysis) {
+        Graph graph = main.graph();
+        if (graph == null) {
+            Logger.WARN.print("No graph has been loaded");
+            return;
+        }
+
+        new Thread(() -> {
+            try {
+                long startTime = System.currentTimeMillis();
+                analysis.accept(graph);
+                Logger.INFO.printf("Computed %s in %d ms", name, System.currentTimeMillis() - startTime);
+
+            } catch (RuntimeException e) {
+                Toolbox.display(e);
+            }
+        }, name).start();
+    }
+
+    private void colorComponents(Graph graph) {
+        int[] components = ConnectedComponents.compute(graph);
+        Logger.INFO.print("Found " + ConnectedComponents.count(components) + " connected components");
+        NodeColoring.byCategory(graph, components);
+    }
+
+    private void colorPageRank(Graph graph) {
+        NodeColoring.byValue(graph, PageRank.compute(graph), true);
+    }
+
+    private void colorBetweenness(Graph graph) {
+        NodeColoring.byValue(graph, Betweenness.approximate(graph, BETWEENNESS_SAMPLES, 0), true);
+    }
+
+    /** colors the distance from the node with the highest out-degree */
+    private void colorDistance(Graph graph) {
+        if (graph.nodeCount() == 0) return;
+
+        int[] degrees = graph.outDegrees();
+        int source = 0;
+        for (int i = 1; i < degrees.length; i++) {
+            if (degrees[i] > degrees[source]) source = i;
+        }
+
+        Logger.INFO.print("Distances from " + graph.getLabel(source));
+        NodeColoring.byValue(graph, BreadthFirstSearch.distances(graph, source));
+    }
+
     private void openFileDialog(Consumer<File> action, String extension) {
         FileDialog fd = new FileDialog((Frame) null, "Choose a file", FileDialog.LOAD);
         fd.setFile(extension);
@@ -0,0 +1,102 @@
+package NG.GUIMenu.Rendering;
+
+import NG.Core.Main;
+import NG.Core.Version;
+import NG.DataStructures.Generic.Color4f;
+import org.joml.Vector2ic;
+
+import java.util.Objects;
+
+/**
+ * A look-and-feel that draws nothing, but computes a hash of everything that is drawn with it. Two passes over a
+ * component with an equal fingerprint produce the same image, such that a cached image of the component can be reused.
+ * Positions are hashed relative to an origin, such that moving a component as a whole does not change its fingerprint.
+ * Text widths are measured with the look-and-feel that does the actual drawing.
+ */
+public class FingerprintLookAndFeel implements SFrameLookAndFeel {
+    private static final long MULTIPLIER = 0x9E3779B97F4A7C15L;
+
+    private final SFrameLookAndFeel measure;
+    private long hash;
+    private int xOrigin;
+    private int yOrigin;
+
+    /**
+     * @param measure the look-and-feel used to measure text
+     */
+    public FingerprintLookAndFeel(SFrameLookAndFeel measure) {
+        this.measure = measure;
+    }
+
+    /**
+     * starts a new fingerprint
+     * @param xOrigin the x screen coordinate that positions are relative to
+     * @param yOrigin the y screen coordinate that positions are relative to
+     */
+    public void reset(int xOrigin, int yOrigin) {
+        this.xOrigin = xOrigin;
+        this.yOrigin = yOrigin;
+        this.hash = 1;
+    }
+
+    /** @return the hash of everything drawn since the last call to {@link #reset(int, int)} */
+    public long getFingerprint() {
+        // final mix, such that similar sequences of draws do not collide
+        long h = hash * MULTIPLIER;
+        return h ^ (h >>> 32);
+    }
+
+    private void add(long value) {
+        hash = (hash ^ value) * MULTIPLIER;
+    }
+
+    private void add(Vector2ic pos, Vector2ic dim) {
+        add(pos.x() - xOrigin);
+        add(pos.y() - yOrigin);
+        add(dim.x());
+        add(dim.y());
+    }
+
+    @Override
+    public void draw(UIComponent type, Vector2ic pos, Vector2ic dim, Color4f color) {
+        add(type.ordinal());
+        add(pos, dim);
+        add(Objects.hashCode(color));
+    }
+
+    @Override
+    public void drawText(Vector2ic pos, Vector2ic dim, String text, NGFonts.TextType type, Alignment align) {
+        add(-1 - type.ordinal());
+        add(pos, dim);
+        add(Objects.hashCode(text));
+        add(align.ordinal());
+    }
+
+    @Override
+    public int getTextWidth(String text, NGFonts.TextType textType) {
+        return measure.getTextWidth(text, textType);
+    }
+
+    @Override
+    public void init(Main root) {
+    }
+
+    @Override
+    public NVGOverlay.Painter getPainter() {
+        return measure.getPainter();
+    }
+
+    @Override
+    public void setPainter(NVGOverlay.Painter painter) {
+        // this look-and-feel does not paint
+    }
+
+    @Override
+    public void cleanup() {
+    }
+
+    @Override
+    public Version getVersionNumber() {
+        return measure.getVersionNumber();
+    }
+}
@@ -0,0 +1,469 @@
+package NG.GUIMenu.Rendering;
+
+import NG.Tools.Logger;
+import org.lwjgl.system.MemoryUtil;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.*;
+
+import static org.lwjgl.nanovg.NanoVG.*;
+import static org.lwjgl.nanovg.NanoVGGL3.nvglImageHandle;
+import static org.lwjgl.opengl.GL11.*;
+
+/**
+ * Loads the images drawn by the {@link NVGOverlay}. Every image is identified by a key, such that requesting the same
+ * image twice gives the same {@link Image}, which is loaded once. Images are decoded on background threads when they
+ * are first drawn, and uploaded at the start of a later frame, on the rendering thread. Until then, drawing the image
+ * draws nothing.
+ * <p>
+ * Images of at most {@link #MAX_ATLAS_ENTRY_SIZE} pixels on either side, such as icons, are packed together into atlas
+ * pages. Textures are kept as long as they fit in the memory budget, after which the least recently drawn textures are
+ * released. An image of which the texture was released is loaded again when it is drawn again. Textures that were
+ * drawn in the previous frame are never released, hence the budget may be exceeded when many images are visible.
+ */
+public class ImageManager {
+    /** images of which both sides are at most this many pixels are packed into atlas pages */
+    public static final int MAX_ATLAS_ENTRY_SIZE = 128;
+    /** the width and height of an atlas page in pixels */
+    public static final int ATLAS_SIZE = 1024;
+    /** pixels around every atlas entry that repeat its border, such that filtering does not mix neighbouring entries */
+    private static final int PADDING = 1;
+    private static final int BYTES_PER_PIXEL = 4;
+    /** the number of bytes uploaded per frame, such that loading many images does not stall a single frame */
+    private static final long UPLOAD_BYTES_PER_FRAME = 8L << 20;
+
+    private final Map<String, Image> images = new ConcurrentHashMap<>();
+    private final Queue<Image> decoded = new ConcurrentLinkedQueue<>();
+    private final List<Runnable> loadListeners = new CopyOnWriteArrayList<>();
+    private final ExecutorService decoder;
+    /** all textures in order of last use, least recent first. Only accessed on the rendering thread */
+    private final Map<Texture, Texture> textures = new LinkedHashMap<>(16, 0.75f, true);
+    private final List<AtlasPage> pages = new ArrayList<>();
+    private long budgetBytes = 64L << 20;
+    private long usedBytes = 0;
+    private int frame = 0;
+    private long vg;
+
+    public ImageManager() {
+        int nrOfThreads = Math.max(1, Math.min(Runtime.getRuntime().availableProcessors() / 2, 4));
+        decoder = Executors.newFixedThreadPool(nrOfThreads, task -> {
+            Thread thread = new Thread(task, "Image decoder");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * @param file an image file in a format supported by {@link ImageIO}
+     * @return the image of the given file. Every call with the same file returns the same image
+     */
+    public Image get(Path file) {
+        Path path = file.toAbsolutePath().normalize();
+        return get("file:" + path, () -> Files.readAllBytes(path));
+    }
+
+    /**
+     * returns the image of the given key, or creates one that is read from the given source. Can be used for images that
+     * are not files, such as images embedded in a sheet.
+     * @param key    a name that identifies the image
+     * @param source supplies the encoded image. It is called on a background thread, every time the image is loaded
+     * @return the image of the given key
+     */
+    public Image get(String key, Callable<byte[]> source) {
+        return images.computeIfAbsent(key, k -> new Image(k, source));
+    }
+
+    /**
+     * sets the number of bytes of texture memory that may be used for images
+     * @param bytes the budget in bytes
+     */
+    public void setBudget(long bytes) {
+        this.budgetBytes = bytes;
+    }
+
+    /** @return the number of bytes of texture memory used for images */
+    public long getUsedBytes() {
+        return usedBytes;
+    }
+
+    /**
+     * adds an action that is executed when images have been decoded or uploaded. Images are uploaded at the start of a
+     * frame, hence a listener should request a new frame. Listeners may be executed on any thread.
+     */
+    public void addLoadListener(Runnable listener) {
+        loadListeners.add(listener);
+    }
+
+    /**
+     * uploads decoded images, and releases textures exceeding the budget. Must be called on the rendering thread at the
+     * start of every frame, before any image is drawn.
+     * @param vg the NanoVG context
+     */
+    void update(long vg) {
+        this.vg = vg;
+        frame++;
+
+        long uploaded = 0;
+        Image image;
+        while (uploaded < UPLOAD_BYTES_PER_FRAME && (image = decoded.poll()) != null) {
+            uploaded += upload(image);
+        }
+        // more images, or the images that became available
+        if (uploaded > 0 || !decoded.isEmpty()) notifyListeners();
+
+        evict();
+    }
+
+    /**
+     * marks the given image as used in this frame, and starts loading it if it is not loaded. Must be called on the
+     * rendering thread.
+     * @param image the image to draw
+     * @return true if the image can be drawn
+     */
+    boolean use(Image image) {
+        switch (image.state) {
+            case UNLOADED:
+                image.state = State.DECODING;
+                decoder.execute(() -> decode(image));
+                return false;
+
+            case READY:
+                Texture texture = textures.get(image.texture); // updates the order of use
+                texture.lastUsedFrame = frame;
+                return true;
+
+            default:
+                return false;
+        }
+    }
+
+    /** decodes the given image into padded RGBA pixels, on a background thread */
+    private void decode(Image image) {
+        try {
+            BufferedImage source = ImageIO.read(new ByteArrayInputStream(image.source.call()));
+            if (source == null) throw new IOException("Unsupported image format");
+
+            int width = source.getWidth();
+            int height = source.getHeight();
+            int padding = isAtlasEntry(width, height) ? PADDING : 0;
+            int[] argb = source.getRGB(0, 0, width, height, null, 0, width);
+
+            int paddedWidth = width + 2 * padding;
+            int paddedHeight = height + 2 * padding;
+            ByteBuffer pixels = MemoryUtil.memAlloc(paddedWidth * paddedHeight * BYTES_PER_PIXEL);
+            for (int y = 0; y < paddedHeight; y++) {
+                int sourceY = Math.max(0, Math.min(y - padding, height - 1));
+                for (int x = 0; x < paddedWidth; x++) {
+                    int sourceX = Math.max(0, Math.min(x - padding, width - 1));
+                    int color = argb[sourceY * width + sourceX];
+                    pixels.put((byte) (color >> 16)).put((byte) (color >> 8)).put((byte) color).put((byte) (color >> 24));
+                }
+            }
+            pixels.flip();
+
+            image.width = width;
+            image.height = height;
+            image.pixels = pixels;
+
+        } catch (Exception ex) {
+            Logger.ERROR.print("Could not load image " + image.key + ": " + ex);
+        }
+
+        // cleanup() shuts the decoder down while holding this lock, and frees what is in the queue afterwards
+        boolean isQueued;
+        synchronized (decoded) {
+            isQueued = !decoder.isShutdown();
+            if (isQueued) decoded.add(image);
+        }
+
+        if (isQueued) {
+            notifyListeners();
+
+        } else {
+            if (image.pixels != null) MemoryUtil.memFree(image.pixels);
+            image.pixels = null;
+            image.state = State.UNLOADED;
+        }
+    }
+
+    /**
+     * creates a texture of the given decoded image, or adds it to an atlas page
+     * @return the number of bytes uploaded
+     */
+    private long upload(Image image) {
+        ByteBuffer pixels = image.pixels;
+        image.pixels = null;
+        if (pixels == null) {
+            image.state = State.FAILED;
+            return 0;
+        }
+
+        try {
+            int width = image.width;
+            int height = image.height;
+            Texture texture;
+
+            if (isAtlasEntry(width, height)) {
+                AtlasPage page = findPage(width + 2 * PADDING, height + 2 * PADDING);
+                if (page == null) {
+                    image.state = State.FAILED;
+                    return 0;
+                }
+
+                int x = page.lastX;
+                int y = page.lastY;
+                int previousTexture = glGetInteger(GL_TEXTURE_BINDING_2D);
+                glBindTexture(GL_TEXTURE_2D, nvglImageHandle(vg, page.id));
+                glTexSubImage2D(GL_TEXTURE_2D, 0, x, y, width + 2 * PADDING, height + 2 * PADDING, GL_RGBA, GL_UNSIGNED_BYTE, pixels);
+                glBindTexture(GL_TEXTURE_2D, previousTexture);
+
+                image.x = x + PADDING;
+                image.y = y + PADDING;
+                texture = page;
+                textures.get(page); // updates the order of use, as the page is marked as used below
+
+            } else {
+                int id = nvgCreateImageRGBA(vg, width, height, NVG_IMAGE_GENERATE_MIPMAPS, pixels);
+                if (id == 0) {
+                    Logger.ERROR.print("Could not create a texture for image " + image.key);
+                    image.state = State.FAILED;
+                    return 0;
+                }
+
+                // mipmaps take a third of the image
+                texture = new Texture(id, width, height, (long) width * height * BYTES_PER_PIXEL * 4 / 3);
+                usedBytes += texture.bytes;
+                textures.put(texture, texture);
+                image.x = 0;
+                image.y = 0;
+            }
+
+            texture.images.add(image);
+            texture.lastUsedFrame = frame;
+            image.texture = texture;
+            image.state = State.READY;
+            return pixels.remaining();
+
+        } finally {
+            MemoryUtil.memFree(pixels);
+        }
+    }
+
+    /**
+     * finds room for an entry of the given size, creating a new page if no page has room
+     * @return the page, of which {@link AtlasPage#lastX} and {@link AtlasPage#lastY} hold the position of the entry, or
+     * null if no page could be created
+     */
+    private AtlasPage findPage(int width, int height) {
+        for (AtlasPage page : pages) {
+            if (page.allocate(width, height)) return page;
+        }
+
+        ByteBuffer empty = MemoryUtil.memCalloc(ATLAS_SIZE * ATLAS_SIZE * BYTES_PER_PIXEL);
+        int id = nvgCreateImageRGBA(vg, ATLAS_SIZE, ATLAS_SIZE, 0, empty);
+        MemoryUtil.memFree(empty);
+        if (id == 0) {
+            Logger.ERROR.print("Could not create an image atlas");
+            return null;
+        }
+
+        AtlasPage page = new AtlasPage(id);
+        pages.add(page);
+        usedBytes += page.bytes;
+        textures.put(page, page);
+
+        boolean success = page.allocate(width, height);
+        assert success : width + " x " + height;
+        return page;
+    }
+
+    /** releases the least recently drawn textures until the budget is met */
+    private void evict() {
+        Iterator<Texture> iterator = textures.keySet().iterator();
+        while (usedBytes > budgetBytes && iterator.hasNext()) {
+            Texture texture = iterator.next();
+            // textures are in order of use, hence all remaining textures were drawn in the previous frame as well
+            if (texture.lastUsedFrame >= frame - 1) break;
+
+            iterator.remove();
+            delete(texture);
+            Logger.DEBUG.print("Released " + texture.images.size() + " images to meet the image budget");
+        }
+    }
+
+    private void delete(Texture texture) {
+        nvgDeleteImage(vg, texture.id);
+        usedBytes -= texture.bytes;
+        //noinspection SuspiciousMethodCalls
+        pages.remove(texture);
+
+        for (Image image : texture.images) {
+            image.texture = null;
+            image.state = State.UNLOADED;
+        }
+        texture.images.clear();
+    }
+
+    private void notifyListeners() {
+        for (Runnable listener : loadListeners) {
+            listener.run();
+        }
+    }
+
+    /** releases all textures and stops decoding. Must be called on the rendering thread */
+    public void cleanup() {
+        synchronized (decoded) {
+            decoder.shutdownNow();
+        }
+
+        for (Texture texture : textures.keySet()) {
+            delete(texture);
+        }
+        textures.clear();
+
+        Image image;
+        while ((image = decoded.poll()) != null) {
+            if (image.pixels != null) MemoryUtil.memFree(image.pixels);
+            image.pixels = null;
+            image.state = State.UNLOADED;
+        }
+    }
+
+    private static boolean isAtlasEntry(int width, int height) {
+        return width <= MAX_ATLAS_ENTRY_SIZE && height <= MAX_ATLAS_ENTRY_SIZE;
+    }
+
+    private enum State {
+        UNLOADED, DECODING, READY, FAILED
+    }
+
+    /**
+     * An image that may be drawn with {@link NVGOverlay.Painter#drawImage(Image, int, int, int, int, float)}. Obtained
+     * from {@link ImageManager#get(Path)}.
+     */
+    public static final class Image {
+        private final String key;
+        private final Callable<byte[]> source;
+        private volatile State state = State.UNLOADED;
+        private volatile int width = 0;
+        private volatile int height = 0;
+        /** set by the decoder, and taken by the upload */
+        private ByteBuffer pixels;
+        /** only accessed on the rendering thread */
+        private Texture texture;
+        private int x;
+        private int y;
+
+        private Image(String key, Callable<byte[]> source) {
+            this.key = key;
+            this.source = source;
+        }
+
+        /** @return true if the image has been loaded, and is drawn when drawing it */
+        public boolean isReady() {
+            return state == State.READY;
+        }
+
+        /** @return true if the image could not be loaded */
+        public boolean hasFailed() {
+            return state == State.FAILED;
+        }
+
+        /** @return the width of the image in pixels, or 0 if it has not been decoded yet */
+        public int getWidth() {
+            return width;
+        }
+
+        /** @return the height of the image in pixels, or 0 if it has not been decoded yet */
+        public int getHeight() {
+            return height;
+        }
+
+        /** @return the texture holding this image. Only valid after {@link ImageManager#use(Image)} returned true */
+        Texture getTexture() {
+            return texture;
+        }
+
+        /** @return the x position of this image in its texture */
+        int getTextureX() {
+            return x;
+        }
+
+        /** @return the y position of this image in its texture */
+        int getTextureY() {
+            return y;
+        }
+
+        @Override
+        public String toString() {
+            return key;
+        }
+    }
+
+    /**
+     * A NanoVG image holding one or more images
+     */
+    static class Texture {
+        final int id;
+        final int width;
+        final int height;
+        final long bytes;
+        final List<Image> images = new ArrayList<>();
+        int lastUsedFrame;
+
+        Texture(int id, int width, int height, long bytes) {
+            this.id = id;
+            this.width = width;
+            this.height = height;
+            this.bytes = bytes;
+        }
+    }
+
+    /**
+     * A texture of which the area is divided into shelves: rows of entries, as high as the highest entry in them.
+     * Entries are placed in the first shelf that is high enough without wasting more than half of its height.
+     */
+    private static class AtlasPage extends Texture {
+        /** the y position, height and used width of every shelf */
+        private final List<int[]> shelves = new ArrayList<>();
+        private int usedHeight = 0;
+        /** the position of the most recently allocated entry */
+        int lastX;
+        int lastY;
+
+        AtlasPage(int id) {
+            super(id, ATLAS_SIZE, ATLAS_SIZE, (long) ATLAS_SIZE * ATLAS_SIZE * BYTES_PER_PIXEL);
+        }
+
+        /**
+         * reserves room for an entry of the given size
+         * @return true if the entry fits, in which case its position is stored in {@link #lastX} and {@link #lastY}
+         */
+        boolean allocate(int width, int height) {
+            for (int[] shelf : shelves) {
+                int shelfY = shelf[0], shelfHeight = shelf[1], shelfWidth = shelf[2];
+                if (height <= shelfHeight && height * 2 >= shelfHeight && shelfWidth + width <= ATLAS_SIZE) {
+                    lastX = shelfWidth;
+                    lastY = shelfY;
+                    shelf[2] += width;
+                    return true;
+                }
+            }
+
+            if (usedHeight + height > ATLAS_SIZE) return false;
+
+            shelves.add(new int[]{usedHeight, height, width});
+            lastX = 0;
+            lastY = usedHeight;
+            usedHeight += height;
+            return true;
+        }
+    }
+}
@@ -1,12 +1,14 @@
 package NG.GUIMenu.Rendering;
 
 import NG.DataStructures.Generic.Color4f;
+import NG.DataStructures.Generic.IntList;
 import NG.Tools.Logger;
 import NG.Tools.Vectors;
 import org.joml.Vector2i;
 import org.joml.Vector3f;
 import org.joml.Vector3fc;
 import org.lwjgl.nanovg.NVGColor;
+import org.lwjgl.nanovg.NVGLUFramebuffer;
 import org.lwjgl.nanovg.NVGPaint;
 
 import java.io.IOException;
@@ -21,6 +23,7 @@ import java.util.function.Consumer;
 import static org.lwjgl.nanovg.NanoVG.*;
 import static org.lwjgl.nanovg.NanoVGGL3.*;
 import static org.lwjgl.opengl.GL11.*;
+import static org.lwjgl.opengl.GL30.*;
 import static org.lwjgl.system.MemoryUtil.NULL;
 
 /**
@@ -34,7 +37,11 @@ public final class NVGOverlay {
     private long vg;
     private NVGColor nvgColorBuffer;
     private NVGPaint paint;
-    private Map<Path, Integer> imageBuffer = new HashMap<>();
+    /** images created by {@link Painter#createImage(Path, int)}, by path and flags */
+    private final Map<String, Integer> imageBuffer = new HashMap<>();
+    private final ImageManager images = new ImageManager();
+    /** the lines of {@link Painter#printRoll()}, reused every frame */
+    private final TextRun printRollRun = new TextRun();
 
     public enum Alignment {
         ALIGN_LEFT, ALIGN_RIGHT, ALIGN_TOP, ALIGN_BOTTOM
@@ -74,6 +81,15 @@ public final class NVGOverlay {
         } finally {
             drawBufferLock.unlock();
         }
+
+        images.cleanup();
+        imageBuffer.values().forEach(id -> nvgDeleteImage(vg, id));
+        imageBuffer.clear();
+    }
+
+    /** @return the images that can be drawn with {@link Painter#drawImage(ImageManager.Image, int, int, int, int, float)} */
+    public ImageManager getImages() {
+        return images;
     }
 
     public void addHudItem(Consumer<Painter> render) {
@@ -126,6 +142,7 @@ public final class NVGOverlay {
     private synchronized void draw(int windowWidth, int windowHeight, Painter painter) {
         // this should be the case
         glViewport(0, 0, windowWidth, windowHeight);
+        images.update(vg);
         // Begin NanoVG frame
         nvgBeginFrame(vg, windowWidth, windowHeight, 1);
 
@@ -279,6 +296,42 @@ public final class NVGOverlay {
             nvgStroke(vg);
         }
 
+        /**
+         * draws all rectangles of the given batch. Rectangles are filled with one path per color, and stroked with one
+         * path in the basic stroke style, such that the number of NanoVG draw calls does not depend on the number of
+         * rectangles.
+         * @param batch    the rectangles to draw. The batch is not cleared
+         * @param doStroke whether to draw the outline of the rectangles
+         */
+        public void rectangles(RectangleBatch batch, boolean doStroke) {
+            for (Map.Entry<Color4f, IntList> group : batch.groups.entrySet()) {
+                IntList coordinates = group.getValue();
+                if (coordinates.isEmpty()) continue;
+
+                nvgBeginPath(vg);
+                addRectangles(coordinates);
+                nvgFillColor(vg, toBuffer(group.getKey()));
+                nvgFill(vg);
+            }
+
+            if (doStroke) {
+                nvgBeginPath(vg);
+                for (IntList coordinates : batch.groups.values()) {
+                    addRectangles(coordinates);
+                }
+                nvgStroke(vg);
+            }
+
+            restoreColors();
+        }
+
+        /** adds the rectangles given as (x, y, width, height) quadruples to the current path */
+        private void addRectangles(IntList coordinates) {
+            for (int i = 0; i < coordinates.size(); i += 4) {
+                nvgRect(vg, coordinates.get(i), coordinates.get(i + 1), coordinates.get(i + 2), coordinates.get(i + 3));
+            }
+        }
+
         /**
          * Draws a polygon by drawing a line along the given points, connecting the last point with the first.After this
          * method call, the colors are reset to the basic colors
@@ -295,6 +348,15 @@ public final class NVGOverlay {
             restoreColors();
         }
 
+        /** @see #polygon(Color4f, Color4f, int, Vector2i...) */
+        public void polygon(Color4f fillColor, Color4f strokeColor, int strokeWidth, PointBuffer points) {
+            nvgFillColor(vg, toBuffer(fillColor));
+            nvgStrokeColor(vg, toBuffer(strokeColor));
+            nvgStrokeWidth(vg, strokeWidth);
+            polygon(points);
+            restoreColors();
+        }
+
         /**
          * Draws a polygon by drawing a line along the given points, connecting the last point with the first.
          * @param points the points used to draw this polygon
@@ -311,6 +373,23 @@ public final class NVGOverlay {
             nvgStroke(vg);
         }
 
+        /**
+         * Draws a polygon by drawing a line along the given points, connecting the last point with the first.
+         * @param points the points used to draw this polygon
+         */
+        public void polygon(PointBuffer points) {
+            int last = points.size() - 1;
+            nvgBeginPath(vg);
+
+            nvgMoveTo(vg, points.x(last), points.y(last));
+            for (int i = 0; i < points.size(); i++) {
+                nvgLineTo(vg, points.x(i), points.y(i));
+            }
+
+            nvgFill(vg);
+            nvgStroke(vg);
+        }
+
         /**
          * draw a line along the given coordinates
          * @param points (x, y) pairs of screen coordinates
@@ -329,6 +408,21 @@ public final class NVGOverlay {
             restoreColors();
         }
 
+        /** @see #line(int, Color4f, Vector2i...) */
+        public void line(int strokeWidth, Color4f strokeColor, PointBuffer points) {
+            nvgStrokeColor(vg, toBuffer(strokeColor));
+            nvgStrokeWidth(vg, strokeWidth);
+            nvgBeginPath(vg);
+            nvgMoveTo(vg, points.x(0), points.y(0));
+
+            for (int i = 1; i < points.size(); i++) {
+                nvgLineTo(vg, points.x(i), points.y(i));
+            }
+
+            nvgStroke(vg);
+            restoreColors();
+        }
+
         // non-shape functions
 
         /**
@@ -361,6 +455,29 @@ public final class NVGOverlay {
             nvgFillColor(vg, toBuffer(fillColor));
         }
 
+        /**
+         * writes all strings of the given run, setting the font, size, alignment and color only once. Strings are not
+         * wrapped.
+         * @param size      font size in pixels
+         * @param font      the font to use
+         * @param alignment the alignment of every string relative to its position
+         * @param color     the color of the text
+         * @param run       the strings to write. The run is not cleared
+         * @see #text(int, int, float, NGFonts, EnumSet, Color4f, String, float)
+         */
+        public void textRun(float size, NGFonts font, EnumSet<Alignment> alignment, Color4f color, TextRun run) {
+            nvgFontSize(vg, size);
+            nvgFontFace(vg, font.name);
+            nvgTextAlign(vg, getAlignFlags(alignment));
+            nvgFillColor(vg, toBuffer(color));
+
+            for (int i = 0; i < run.size(); i++) {
+                nvgText(vg, run.positions.get(2 * i), run.positions.get(2 * i + 1), run.texts.get(i));
+            }
+
+            nvgFillColor(vg, toBuffer(fillColor));
+        }
+
         private int getAlignFlags(EnumSet<Alignment> alignment) {
             int alignFlags = 0;
 
@@ -383,6 +500,20 @@ public final class NVGOverlay {
             return alignFlags;
         }
 
+        /**
+         * for debugging purposes. Prints every online print of the {@link Logger} in the upper left corner of the
+         * screen, as a single text run
+         */
+        public void printRoll() {
+            TextRun run = printRollRun;
+            run.clear();
+            Logger.putOnlinePrint(text -> {
+                run.add(xPrintRoll, yPrintRoll + ((printRollSize + 5) * printRollEntry), text);
+                printRollEntry++;
+            });
+            textRun(printRollSize, NGFonts.LUCIDA_CONSOLE, EnumSet.of(Alignment.ALIGN_LEFT), textColor, run);
+        }
+
         /** for debugging purposes. Prints the given text in the upper left corner of the screen */
         public void printRoll(String text) {
             int y = yPrintRoll + ((printRollSize + 5) * printRollEntry);
@@ -424,11 +555,52 @@ public final class NVGOverlay {
         }
 
         /**
-         * create an image based on file location
+         * create an image based on file location. The image is loaded on the first call, and later calls with the same
+         * file and flags return the same image. Images that are drawn often should rather be drawn with {@link
+         * #drawImage(ImageManager.Image, int, int, int, int, float)}, which does not block on loading
          * @return the nvg id
          */
         public int createImage(Path filePath, int imageFlags) {
-            return nvgCreateImage(vg, filePath.toString(), imageFlags);
+            String key = filePath.toAbsolutePath().normalize() + "#" + imageFlags;
+            Integer id = imageBuffer.get(key);
+            if (id == null || id == 0) {
+                id = nvgCreateImage(vg, filePath.toString(), imageFlags);
+                imageBuffer.put(key, id);
+            }
+            return id;
+        }
+
+        /**
+         * draws the given image, stretched to the given area. If the image is not loaded yet, loading is started and
+         * nothing is drawn. A component drawing an image should thus mark itself dirty once {@link
+         * ImageManager.Image#isReady()} changes.
+         * @param image  an image of {@link #getImages()}
+         * @param x      the x screen coordinate of the image
+         * @param y      the y screen coordinate of the image
+         * @param width  the width of the image on the screen in pixels
+         * @param height the height of the image on the screen in pixels
+         * @param alpha  the opacity of the image
+         * @return true if the image was drawn
+         */
+        public boolean drawImage(ImageManager.Image image, int x, int y, int width, int height, float alpha) {
+            if (!images.use(image)) return false;
+
+            ImageManager.Texture texture = image.getTexture();
+            float xScale = (float) width / image.getWidth();
+            float yScale = (float) height / image.getHeight();
+            // the pattern covers the whole texture, positioned such that the image falls in the area
+            NVGPaint p = nvgImagePattern(vg,
+                    x - image.getTextureX() * xScale, y - image.getTextureY() * yScale,
+                    texture.width * xScale, texture.height * yScale, 0, texture.id, alpha, paint
+            );
+
+            nvgBeginPath(vg);
+            nvgRect(vg, x, y, width, height);
+            nvgFillPaint(vg, p);
+            nvgFill(vg);
+
+            restoreColors();
+            return true;
         }
 
         /**
@@ -462,6 +634,67 @@ public final class NVGOverlay {
             restoreColors();
         }
 
+        /**
+         * draws the contents of the given image at the given position. If {@code redraw} is true or the size of the
+         * image changed, the image is first rendered again by drawing the given content into it. This interrupts the
+         * current frame, and should thus only happen when the content changed.
+         * @param image   the image to draw, holding the result of an earlier call
+         * @param x       the x screen coordinate of the image
+         * @param y       the y screen coordinate of the image
+         * @param width   the width of the image in pixels
+         * @param height  the height of the image in pixels
+         * @param redraw  whether the content changed since the image was rendered
+         * @param content draws the content in screen coordinates. Anything outside the image is clipped
+         */
+        public void drawRetained(
+                RetainedImage image, int x, int y, int width, int height, boolean redraw, Consumer<Painter> content
+        ) {
+            if (width <= 0 || height <= 0) return;
+
+            if (image.framebuffer == null || image.width != width || image.height != height) {
+                image.dispose();
+                // nanovg renders premultiplied colors, bottom row first
+                image.framebuffer = nvgluCreateFramebuffer(vg, width, height, NVG_IMAGE_PREMULTIPLIED | NVG_IMAGE_FLIPY);
+                if (image.framebuffer == null) {
+                    Logger.ERROR.print("Could not create a framebuffer of " + width + " x " + height);
+                    content.accept(this);
+                    return;
+                }
+                image.vg = vg;
+                image.width = width;
+                image.height = height;
+                redraw = true;
+            }
+
+            if (redraw) {
+                nvgEndFrame(vg);
+                int screenFramebuffer = glGetInteger(GL_FRAMEBUFFER_BINDING);
+
+                glBindFramebuffer(GL_FRAMEBUFFER, image.framebuffer.fbo());
+                glViewport(0, 0, width, height);
+                glClearColor(0, 0, 0, 0);
+                glClear(GL_COLOR_BUFFER_BIT | GL_STENCIL_BUFFER_BIT);
+
+                nvgBeginFrame(vg, width, height, 1);
+                nvgTranslate(vg, -x, -y);
+                restoreColors();
+                content.accept(this);
+                nvgEndFrame(vg);
+
+                glBindFramebuffer(GL_FRAMEBUFFER, screenFramebuffer);
+                glViewport(0, 0, windowWidth, windowHeight);
+                nvgBeginFrame(vg, windowWidth, windowHeight, 1);
+            }
+
+            NVGPaint p = nvgImagePattern(vg, x, y, width, height, 0, image.framebuffer.image(), 1, paint);
+            nvgBeginPath(vg);
+            nvgRect(vg, x, y, width, height);
+            nvgFillPaint(vg, p);
+            nvgFill(vg);
+
+            restoreColors();
+        }
+
         /**
          * @param text any string
          * @return the width of the text displayed in pixels
@@ -473,4 +706,126 @@ public final class NVGOverlay {
         }
 
     }
+
+    /**
+     * A reusable list of integer screen coordinates, to describe shapes without creating an object per point
+     */
+    public static class PointBuffer {
+        private final IntList coordinates = new IntList();
+
+        /** appends a point */
+        public PointBuffer add(int x, int y) {
+            coordinates.add(x);
+            coordinates.add(y);
+            return this;
+        }
+
+        public int x(int index) {
+            return coordinates.get(2 * index);
+        }
+
+        public int y(int index) {
+            return coordinates.get(2 * index + 1);
+        }
+
+        /** @return the number of points */
+        public int size() {
+            return coordinates.size() / 2;
+        }
+
+        /** removes all points, keeping the memory for reuse */
+        public PointBuffer clear() {
+            coordinates.clear();
+            return this;
+        }
+    }
+
+    /**
+     * A reusable collection of filled rectangles, grouped by color.
+     * @see Painter#rectangles(RectangleBatch, boolean)
+     */
+    public static class RectangleBatch {
+        /** for every color the x, y, width and height of every rectangle */
+        private final Map<Color4f, IntList> groups = new LinkedHashMap<>();
+
+        public void add(int x, int y, int width, int height, Color4f fillColor) {
+            assert width >= 0 && height >= 0 : width + " x " + height;
+            IntList coordinates = groups.computeIfAbsent(fillColor, c -> new IntList());
+            coordinates.add(x);
+            coordinates.add(y);
+            coordinates.add(width);
+            coordinates.add(height);
+        }
+
+        /** removes all rectangles, keeping the memory of colors that are reused */
+        public void clear() {
+            groups.values().removeIf(IntList::isEmpty);
+            groups.values().forEach(IntList::clear);
+        }
+
+        /** @return the number of rectangles in this batch */
+        public int size() {
+            int size = 0;
+            for (IntList coordinates : groups.values()) {
+                size += coordinates.size() / 4;
+            }
+            return size;
+        }
+
+        /** @return the number of colors of which this batch has rectangles, which is the number of fills it takes */
+        public int colorCount() {
+            int count = 0;
+            for (IntList coordinates : groups.values()) {
+                if (!coordinates.isEmpty()) count++;
+            }
+            return count;
+        }
+
+        /** @return the number of colors for which memory is kept, including those without rectangles */
+        int groupCount() {
+            return groups.size();
+        }
+    }
+
+    /**
+     * A reusable collection of strings with their positions, which are written in the same style.
+     * @see Painter#textRun(float, NGFonts, EnumSet, Color4f, TextRun)
+     */
+    public static class TextRun {
+        private final IntList positions = new IntList();
+        private final List<String> texts = new ArrayList<>();
+
+        public void add(int x, int y, String text) {
+            positions.add(x);
+            positions.add(y);
+            texts.add(text);
+        }
+
+        public int size() {
+            return texts.size();
+        }
+
+        public void clear() {
+            positions.clear();
+            texts.clear();
+        }
+    }
+
+    /**
+     * An offscreen image of which the contents are kept between frames.
+     * @see Painter#drawRetained(RetainedImage, int, int, int, int, boolean, Consumer)
+     */
+    public static class RetainedImage {
+        private NVGLUFramebuffer framebuffer = null;
+        private long vg;
+        private int width;
+        private int height;
+
+        /** releases the image. It may be used again, in which case it is recreated */
+        public void dispose() {
+            if (framebuffer == null) return;
+            nvgluDeleteFramebuffer(vg, framebuffer);
+            framebuffer = null;
+        }
+    }
 }
@@ -4,7 +4,6 @@ import NG.Core.Main;
 import NG.Core.Version;
 import NG.DataStructures.Generic.Color4f;
 import NG.Tools.Logger;
-import org.joml.Vector2i;
 import org.joml.Vector2ic;
 
 import java.util.EnumSet;
@@ -31,7 +30,17 @@ public class WindowsLF implements SFrameLookAndFeel {
     private static final Color4f BUTTON_COLOR = Color4f.LIGHT_GREY;
     private static final Color4f SELECTION_COLOR = BUTTON_COLOR.darken(0.1f);
     private static final Color4f INPUT_FIELD_COLOR = Color4f.LIGHT_GREY;
+    private static final Color4f RED_TEXT_COLOR = new Color4f(0.8f, 0.1f, 0.1f);
 
+    private static final EnumSet<NVGOverlay.Alignment> LEFT_MIDDLE_FLAGS = EnumSet.of(ALIGN_LEFT);
+    private static final EnumSet<NVGOverlay.Alignment> LEFT_TOP_FLAGS = EnumSet.of(ALIGN_TOP, ALIGN_LEFT);
+    private static final EnumSet<NVGOverlay.Alignment> CENTER_MIDDLE_FLAGS = EnumSet.noneOf(NVGOverlay.Alignment.class);
+    private static final EnumSet<NVGOverlay.Alignment> CENTER_TOP_FLAGS = EnumSet.of(ALIGN_TOP);
+    private static final EnumSet<NVGOverlay.Alignment> RIGHT_MIDDLE_FLAGS = EnumSet.of(ALIGN_RIGHT);
+    private static final EnumSet<NVGOverlay.Alignment> RIGHT_TOP_FLAGS = EnumSet.of(ALIGN_TOP, ALIGN_RIGHT);
+
+    /** reused for the outline of every button and panel */
+    private final NVGOverlay.PointBuffer outline = new NVGOverlay.PointBuffer();
     private NVGOverlay.Painter hud;
 
     @Override
@@ -112,35 +121,35 @@ public class WindowsLF implements SFrameLookAndFeel {
     }
 
     private void drawButtonRectangle(int x, int y, int width, int height, Color4f color) {
-        int xMax2 = x + width;
-        int yMax2 = y + height;
-
-        hud.polygon(color, STROKE_COLOR, STROKE_WIDTH,
-                new Vector2i(x + BUTTON_INDENT, y),
-                new Vector2i(xMax2 - BUTTON_INDENT, y),
-                new Vector2i(xMax2, y + BUTTON_INDENT),
-                new Vector2i(xMax2, yMax2 - BUTTON_INDENT),
-                new Vector2i(xMax2 - BUTTON_INDENT, yMax2),
-                new Vector2i(x + BUTTON_INDENT, yMax2),
-                new Vector2i(x, yMax2 - BUTTON_INDENT),
-                new Vector2i(x, y + BUTTON_INDENT)
-        );
+        int xMax = x + width;
+        int yMax = y + height;
+
+        outline.clear()
+                .add(x + BUTTON_INDENT, y)
+                .add(xMax - BUTTON_INDENT, y)
+                .add(xMax, y + BUTTON_INDENT)
+                .add(xMax, yMax - BUTTON_INDENT)
+                .add(xMax - BUTTON_INDENT, yMax)
+                .add(x + BUTTON_INDENT, yMax)
+                .add(x, yMax - BUTTON_INDENT)
+                .add(x, y + BUTTON_INDENT);
+        hud.polygon(color, STROKE_COLOR, STROKE_WIDTH, outline);
     }
 
     private void drawRoundedRectangle(int x, int y, int width, int height, Color4f color) {
         int xMax = x + width;
         int yMax = y + height;
 
-        hud.polygon(color, STROKE_COLOR, STROKE_WIDTH,
-                new Vector2i(x + INDENT, y),
-                new Vector2i(xMax - INDENT, y),
-                new Vector2i(xMax, y + INDENT),
-                new Vector2i(xMax, yMax - INDENT),
-                new Vector2i(xMax - INDENT, yMax),
-                new Vector2i(x + INDENT, yMax),
-                new Vector2i(x, yMax - INDENT),
-                new Vector2i(x, y + INDENT)
-        );
+        outline.clear()
+                .add(x + INDENT, y)
+                .add(xMax - INDENT, y)
+                .add(xMax, y + INDENT)
+                .add(xMax, yMax - INDENT)
+                .add(xMax - INDENT, yMax)
+                .add(x + INDENT, yMax)
+                .add(x, yMax - INDENT)
+                .add(x, y + INDENT);
+        hud.polygon(color, STROKE_COLOR, STROKE_WIDTH, outline);
     }
 
     @Override
@@ -163,39 +172,39 @@ public class WindowsLF implements SFrameLookAndFeel {
                 actualSize = TEXT_SIZE_LARGE;
                 break;
             case RED:
-                textColor = new Color4f(0.8f, 0.1f, 0.1f);
+                textColor = RED_TEXT_COLOR;
                 break;
         }
 
         switch (align) {
             case LEFT_MIDDLE:
                 hud.text(x, y + (height / 2), actualSize,
-                        font, EnumSet.of(ALIGN_LEFT), textColor, text, width
+                        font, LEFT_MIDDLE_FLAGS, textColor, text, width
                 );
                 break;
             case LEFT_TOP:
                 hud.text(x, y, actualSize,
-                        font, EnumSet.of(ALIGN_TOP, ALIGN_LEFT), textColor, text, width
+                        font, LEFT_TOP_FLAGS, textColor, text, width
                 );
                 break;
             case CENTER_MIDDLE:
                 hud.text(x, y + (height / 2), actualSize,
-                        font, EnumSet.noneOf(NVGOverlay.Alignment.class), textColor, text, width
+                        font, CENTER_MIDDLE_FLAGS, textColor, text, width
                 );
                 break;
             case CENTER_TOP:
                 hud.text(x, y, actualSize,
-                        font, EnumSet.of(ALIGN_TOP), textColor, text, width
+                        font, CENTER_TOP_FLAGS, textColor, text, width
                 );
                 break;
             case RIGHT_MIDDLE:
                 hud.text(x, y + (height / 2), actualSize,
-                        font, EnumSet.of(ALIGN_RIGHT), textColor, text, width
+                        font, RIGHT_MIDDLE_FLAGS, textColor, text, width
                 );
                 break;
             case RIGHT_TOP:
                 hud.text(x, y, actualSize,
-                        font, EnumSet.of(ALIGN_TOP, ALIGN_RIGHT), textColor, text, width
+                        font, RIGHT_TOP_FLAGS, textColor, text, width
                 );
                 break;
             default:
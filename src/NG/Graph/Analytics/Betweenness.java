@@ -0,0 +1,100 @@
+package NG.Graph.Analytics;
+
+import NG.Graph.Graph;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+/**
+ * Approximates betweenness centrality with Brandes' algorithm from a random sample of source nodes. Edges are
+ * unweighted and directed. Every sample is processed by one task with its own arrays, and the partial results are
+ * summed.
+ */
+public final class Betweenness {
+    private Betweenness() {
+    }
+
+    /**
+     * @param graph   the graph
+     * @param samples the number of source nodes to sample. If this is at least the number of nodes, the result is
+     *                exact
+     * @param seed    the seed for choosing the samples
+     * @return the estimated betweenness of every node, scaled to the full number of sources
+     */
+    public static double[] approximate(Graph graph, int samples, long seed) {
+        int nrOfNodes = graph.nodeCount();
+        if (nrOfNodes == 0) return new double[0];
+
+        int[] sources;
+        if (samples >= nrOfNodes) {
+            sources = IntStream.range(0, nrOfNodes).toArray();
+        } else {
+            Random random = new Random(seed);
+            sources = random.ints(0, nrOfNodes).distinct().limit(samples).toArray();
+        }
+        double scale = (double) nrOfNodes / sources.length;
+
+        double[] centrality = Arrays.stream(sources).parallel()
+                .mapToObj(source -> dependencies(graph, source))
+                .reduce((a, b) -> {
+                    for (int i = 0; i < a.length; i++) {
+                        a[i] += b[i];
+                    }
+                    return a;
+                })
+                .orElseGet(() -> new double[nrOfNodes]);
+
+        for (int i = 0; i < nrOfNodes; i++) {
+            centrality[i] *= scale;
+        }
+        return centrality;
+    }
+
+    /** computes the dependency of the given source on every node, by one BFS and one backward pass */
+    private static double[] dependencies(Graph graph, int source) {
+        int nrOfNodes = graph.nodeCount();
+        int[] distance = new int[nrOfNodes];
+        // the number of shortest paths grows exponentially on lattice-like graphs, and overflows any integer type
+        double[] pathCount = new double[nrOfNodes];
+        double[] dependency = new double[nrOfNodes];
+        // nodes in order of non-decreasing distance
+        int[] order = new int[nrOfNodes];
+
+        Arrays.fill(distance, -1);
+        distance[source] = 0;
+        pathCount[source] = 1;
+        order[0] = source;
+        int head = 0;
+        int tail = 1;
+
+        while (head < tail) {
+            int node = order[head++];
+            for (int e = graph.offsets[node]; e < graph.offsets[node + 1]; e++) {
+                int target = graph.targets[e];
+                if (distance[target] < 0) {
+                    distance[target] = distance[node] + 1;
+                    order[tail++] = target;
+                }
+                if (distance[target] == distance[node] + 1) {
+                    pathCount[target] += pathCount[node];
+                }
+            }
+        }
+
+        // accumulate in reverse order, using the in-neighbours as predecessors
+        for (int k = tail - 1; k > 0; k--) {
+            int node = order[k];
+            double share = (1 + dependency[node]) / pathCount[node];
+            for (int p = graph.reverseOffsets[node]; p < graph.reverseOffsets[node + 1]; p++) {
+                int predecessor = graph.reverseSources[p];
+                if (distance[predecessor] == distance[node] - 1) {
+                    dependency[predecessor] += pathCount[predecessor] * share;
+                }
+            }
+        }
+
+        dependency[source] = 0;
+        return dependency;
+    }
+}
@@ -0,0 +1,95 @@
+package NG.Graph.Analytics;
+
+import NG.Graph.Graph;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.stream.IntStream;
+
+/**
+ * Direction-optimizing breadth-first search over the outgoing edges of a graph. Small frontiers are expanded top-down,
+ * by visiting the out-neighbours of every frontier node. Large frontiers are expanded bottom-up, by letting every
+ * unvisited node look for a frontier node among its in-neighbours, which stops at the first hit. Both steps run in
+ * parallel.
+ */
+public final class BreadthFirstSearch {
+    /** distance of nodes that can not be reached from the source */
+    public static final int UNREACHABLE = -1;
+    /** switch to bottom-up when the frontier has more than 1/ALPHA of the unexplored edges */
+    private static final int ALPHA = 14;
+    /** switch back to top-down when the frontier has less than 1/BETA of the nodes */
+    private static final int BETA = 24;
+
+    private BreadthFirstSearch() {
+    }
+
+    /**
+     * computes the number of edges on the shortest path from the source to every node
+     * @param graph  the graph to search
+     * @param source the node to start from
+     * @return the distance of every node, or {@link #UNREACHABLE}
+     */
+    public static int[] distances(Graph graph, int source) {
+        int nrOfNodes = graph.nodeCount();
+        AtomicIntegerArray distance = new AtomicIntegerArray(nrOfNodes);
+        for (int i = 0; i < nrOfNodes; i++) {
+            distance.set(i, UNREACHABLE);
+        }
+        distance.set(source, 0);
+
+        int[] frontier = {source};
+        long unexploredEdges = graph.edgeCount();
+        boolean bottomUp = false;
+        int depth = 0;
+
+        while (frontier.length > 0) {
+            long frontierEdges = Arrays.stream(frontier).parallel().mapToLong(graph::outDegree).sum();
+            unexploredEdges -= frontierEdges;
+
+            if (!bottomUp && frontierEdges > unexploredEdges / ALPHA) {
+                bottomUp = true;
+            } else if (bottomUp && frontier.length < nrOfNodes / BETA) {
+                bottomUp = false;
+            }
+
+            int nextDepth = depth + 1;
+            frontier = bottomUp ?
+                    bottomUpStep(graph, distance, depth, nextDepth) :
+                    topDownStep(graph, distance, frontier, nextDepth);
+            depth = nextDepth;
+        }
+
+        int[] result = new int[nrOfNodes];
+        for (int i = 0; i < nrOfNodes; i++) {
+            result[i] = distance.get(i);
+        }
+        return result;
+    }
+
+    private static int[] topDownStep(Graph graph, AtomicIntegerArray distance, int[] frontier, int nextDepth) {
+        return Arrays.stream(frontier).parallel()
+                .flatMap(node -> IntStream.range(graph.offsets[node], graph.offsets[node + 1])
+                        .map(e -> graph.targets[e])
+                        // only the thread that claims a node adds it to the next frontier
+                        .filter(target -> distance.compareAndSet(target, UNREACHABLE, nextDepth))
+                )
+                .toArray();
+    }
+
+    private static int[] bottomUpStep(Graph graph, AtomicIntegerArray distance, int depth, int nextDepth) {
+        return IntStream.range(0, graph.nodeCount()).parallel()
+                .filter(node -> {
+                    if (distance.get(node) != UNREACHABLE) return false;
+
+                    for (int p = graph.reverseOffsets[node]; p < graph.reverseOffsets[node + 1]; p++) {
+                        if (distance.get(graph.reverseSources[p]) == depth) {
+                            // each node is only written by its own iteration
+                            distance.set(node, nextDepth);
+                            return true;
+                        }
+                    }
+                    return false;
+                })
+                .toArray();
+    }
+}
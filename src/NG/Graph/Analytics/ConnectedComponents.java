@@ -0,0 +1,68 @@
+package NG.Graph.Analytics;
+
+import NG.Graph.Graph;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.stream.IntStream;
+
+/**
+ * Computes the weakly connected components of a graph with a lock-free union-find. All edges are processed in parallel;
+ * a union links the root with the higher id below the root with the lower id using compare-and-set, such that every
+ * component ends up with its lowest node id as root.
+ */
+public final class ConnectedComponents {
+    private ConnectedComponents() {
+    }
+
+    /**
+     * @param graph the graph
+     * @return for every node, the lowest node id in its component
+     */
+    public static int[] compute(Graph graph) {
+        int nrOfNodes = graph.nodeCount();
+        AtomicIntegerArray parent = new AtomicIntegerArray(nrOfNodes);
+        IntStream.range(0, nrOfNodes).parallel().forEach(i -> parent.set(i, i));
+
+        IntStream.range(0, nrOfNodes).parallel().forEach(source -> {
+            for (int e = graph.offsets[source]; e < graph.offsets[source + 1]; e++) {
+                union(parent, source, graph.targets[e]);
+            }
+        });
+
+        int[] component = new int[nrOfNodes];
+        IntStream.range(0, nrOfNodes).parallel().forEach(i -> component[i] = find(parent, i));
+        return component;
+    }
+
+    /** @return the number of distinct components in the result of {@link #compute(Graph)} */
+    public static int count(int[] component) {
+        // every component has exactly one node that is its own root
+        return (int) IntStream.range(0, component.length).parallel().filter(i -> component[i] == i).count();
+    }
+
+    private static int find(AtomicIntegerArray parent, int node) {
+        int current = node;
+        while (true) {
+            int p = parent.get(current);
+            if (p == current) return current;
+
+            // path halving; failing to compress is harmless
+            int grandparent = parent.get(p);
+            parent.compareAndSet(current, p, grandparent);
+            current = grandparent;
+        }
+    }
+
+    private static void union(AtomicIntegerArray parent, int a, int b) {
+        while (true) {
+            int rootA = find(parent, a);
+            int rootB = find(parent, b);
+            if (rootA == rootB) return;
+
+            int high = Math.max(rootA, rootB);
+            int low = Math.min(rootA, rootB);
+            // only succeeds if high is still a root; otherwise retry with the new roots
+            if (parent.compareAndSet(high, high, low)) return;
+        }
+    }
+}
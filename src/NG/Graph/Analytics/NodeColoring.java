@@ -0,0 +1,89 @@
+package NG.Graph.Analytics;
+
+import NG.DataStructures.Generic.Color4f;
+import NG.Graph.Graph;
+
+import java.awt.*;
+import java.util.stream.IntStream;
+
+/**
+ * Writes analytics results into the node colors of a graph, such that these are shown by the node shader.
+ */
+public final class NodeColoring {
+    public static final Color4f LOW = Color4f.BLUE;
+    public static final Color4f HIGH = Color4f.RED;
+    public static final Color4f UNDEFINED = Color4f.GREY;
+
+    private NodeColoring() {
+    }
+
+    /**
+     * colors every node on a gradient from {@link #LOW} to {@link #HIGH}. Negative and NaN values are colored {@link
+     * #UNDEFINED}.
+     * <p>
+     * On a logarithmic scale, the smallest positive value maps to {@link #LOW} and the largest to {@link #HIGH}, such
+     * that the scale does not depend on the magnitude of the values: ranks that sum to 1 are spread as well as counts.
+     * Zero values are colored {@link #LOW}.
+     * @param graph       the graph to color
+     * @param values      a value for every node
+     * @param logarithmic if true, values are mapped on a logarithmic scale
+     */
+    public static void byValue(Graph graph, double[] values, boolean logarithmic) {
+        double max = IntStream.range(0, values.length).parallel()
+                .mapToDouble(i -> values[i])
+                .filter(v -> v >= 0)
+                .max().orElse(0);
+        double minPositive = IntStream.range(0, values.length).parallel()
+                .mapToDouble(i -> values[i])
+                .filter(v -> v > 0)
+                .min().orElse(0);
+        double scaledMax = logarithmic ? logScale(max, minPositive) : max;
+
+        int[] colors = graph.nodeColors;
+        int undefined = UNDEFINED.toABGR();
+        IntStream.range(0, values.length).parallel().forEach(i -> {
+            double value = values[i];
+            if (!(value >= 0)) {
+                colors[i] = undefined;
+                return;
+            }
+
+            double scaled = logarithmic ? logScale(value, minPositive) : value;
+            float fraction = scaledMax == 0 ? 0 : (float) (scaled / scaledMax);
+            colors[i] = LOW.interpolateTo(HIGH, fraction).toABGR();
+        });
+
+        graph.markColorsChanged();
+    }
+
+    /** @return the logarithm of value relative to the smallest positive value, or 0 if value is not positive */
+    private static double logScale(double value, double minPositive) {
+        return value > 0 ? Math.log(value / minPositive) : 0;
+    }
+
+    /** @see #byValue(Graph, double[], boolean) */
+    public static void byValue(Graph graph, int[] values) {
+        double[] asDouble = new double[values.length];
+        IntStream.range(0, values.length).parallel().forEach(i -> asDouble[i] = values[i]);
+        byValue(graph, asDouble, false);
+    }
+
+    /**
+     * colors every node by a category, where nodes of the same category get the same color
+     * @param graph    the graph to color
+     * @param category a category for every node
+     */
+    public static void byCategory(Graph graph, int[] category) {
+        int[] colors = graph.nodeColors;
+        IntStream.range(0, category.length).parallel().forEach(i -> colors[i] = categoryColor(category[i]));
+        graph.markColorsChanged();
+    }
+
+    /** @return a color for the given category, spreading consecutive categories over distinct hues */
+    private static int categoryColor(int category) {
+        // golden ratio spacing of hues
+        float hue = (category * 0.618034f) % 1f;
+        Color color = Color.getHSBColor(hue, 0.7f, 0.9f);
+        return new Color4f(color).toABGR();
+    }
+}
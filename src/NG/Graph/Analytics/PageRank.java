@@ -0,0 +1,74 @@
+package NG.Graph.Analytics;
+
+import NG.Graph.Graph;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/**
+ * Computes PageRank by power iteration. Every iteration pulls rank over the incoming edges of each node in parallel, so
+ * no synchronisation is needed. The rank of nodes without outgoing edges is spread evenly over all nodes.
+ */
+public final class PageRank {
+    public static final double DEFAULT_DAMPING = 0.85;
+    public static final double DEFAULT_TOLERANCE = 1e-6;
+    public static final int DEFAULT_MAX_ITERATIONS = 100;
+
+    private PageRank() {
+    }
+
+    /** @see #compute(Graph, double, double, int) */
+    public static double[] compute(Graph graph) {
+        return compute(graph, DEFAULT_DAMPING, DEFAULT_TOLERANCE, DEFAULT_MAX_ITERATIONS);
+    }
+
+    /**
+     * @param graph         the graph
+     * @param damping       the probability of following an edge rather than jumping to a random node
+     * @param tolerance     iteration stops when the sum of absolute rank changes is below this value
+     * @param maxIterations iteration stops after this many iterations, regardless of convergence
+     * @return the rank of every node, summing to 1
+     */
+    public static double[] compute(Graph graph, double damping, double tolerance, int maxIterations) {
+        int nrOfNodes = graph.nodeCount();
+        if (nrOfNodes == 0) return new double[0];
+
+        int[] outDegree = graph.outDegrees();
+        double[] rank = new double[nrOfNodes];
+        double[] next = new double[nrOfNodes];
+        // rank divided by out-degree, such that the inner loop only sums
+        double[] contribution = new double[nrOfNodes];
+        Arrays.fill(rank, 1.0 / nrOfNodes);
+
+        for (int iteration = 0; iteration < maxIterations; iteration++) {
+            double[] current = rank;
+            IntStream.range(0, nrOfNodes).parallel().forEach(i ->
+                    contribution[i] = outDegree[i] == 0 ? 0 : current[i] / outDegree[i]
+            );
+            double danglingRank = IntStream.range(0, nrOfNodes).parallel()
+                    .filter(i -> outDegree[i] == 0)
+                    .mapToDouble(i -> current[i])
+                    .sum();
+
+            double base = (1 - damping + damping * danglingRank) / nrOfNodes;
+            double[] target = next;
+            IntStream.range(0, nrOfNodes).parallel().forEach(i -> {
+                double sum = 0;
+                for (int p = graph.reverseOffsets[i]; p < graph.reverseOffsets[i + 1]; p++) {
+                    sum += contribution[graph.reverseSources[p]];
+                }
+                target[i] = base + damping * sum;
+            });
+
+            double delta = IntStream.range(0, nrOfNodes).parallel()
+                    .mapToDouble(i -> Math.abs(target[i] - current[i]))
+                    .sum();
+
+            next = rank;
+            rank = target;
+            if (delta < tolerance) break;
+        }
+
+        return rank;
+    }
+}
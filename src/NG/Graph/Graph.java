@@ -0,0 +1,190 @@
+package NG.Graph;
+
+import NG.DataStructures.Generic.Color4f;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+
+/**
+ * A directed graph in compressed sparse row form, with a compressed sparse column index for reverse adjacency. Nodes
+ * are identified by a dense id in [0, {@link #nodeCount()}), and edges by a dense id in [0, {@link #edgeCount()}).
+ * These ids are shared by the renderer, the layout and picking.
+ * <p>
+ * The outgoing edges of node {@code i} are the edge ids {@code offsets[i]} up to {@code offsets[i + 1]}, with target
+ * {@code targets[e]}. The incoming edges of node {@code i} are listed on positions {@code reverseOffsets[i]} up to
+ * {@code reverseOffsets[i + 1]}, where {@code reverseSources} holds the source node and {@code reverseEdges} the edge
+ * id. Both adjacency lists are sorted on node id.
+ * <p>
+ * Attributes are stored in primitive columns indexed by id. The structure of a graph is immutable, but attribute
+ * columns may be changed; changes to {@link #nodeColors} must be followed by {@link #markColorsChanged()}.
+ * @see GraphBuilder
+ */
+public class Graph {
+    public static final Color4f DEFAULT_NODE_COLOR = Color4f.LIGHT_GREY;
+
+    /** offsets[i] is the id of the first outgoing edge of node i. Has length nodeCount + 1 */
+    public final int[] offsets;
+    /** target node of each edge */
+    public final int[] targets;
+    /** reverseOffsets[i] is the position in the reverse arrays of the first incoming edge of node i */
+    public final int[] reverseOffsets;
+    /** source node of each incoming edge, grouped by target */
+    public final int[] reverseSources;
+    /** edge id of each incoming edge, grouped by target */
+    public final int[] reverseEdges;
+
+    /** weight of every edge, or null if all edges have weight 1 */
+    public final float[] edgeWeights;
+    /** color of every node, packed as by {@link Color4f#toABGR()} */
+    public final int[] nodeColors;
+    /** the label of each node */
+    private final String[] labels;
+
+    private volatile int colorVersion = 0;
+
+    /**
+     * creates a graph directly from its arrays. Use {@link GraphBuilder} to create a graph from an edge list.
+     */
+    Graph(
+            int[] offsets, int[] targets, int[] reverseOffsets, int[] reverseSources, int[] reverseEdges,
+            float[] edgeWeights, String[] labels
+    ) {
+        int nrOfNodes = labels.length;
+        assert offsets.length == nrOfNodes + 1 && reverseOffsets.length == nrOfNodes + 1;
+        assert offsets[nrOfNodes] == targets.length && reverseOffsets[nrOfNodes] == targets.length;
+        assert edgeWeights == null || edgeWeights.length == targets.length;
+
+        this.offsets = offsets;
+        this.targets = targets;
+        this.reverseOffsets = reverseOffsets;
+        this.reverseSources = reverseSources;
+        this.reverseEdges = reverseEdges;
+        this.edgeWeights = edgeWeights;
+        this.labels = labels;
+
+        this.nodeColors = new int[nrOfNodes];
+        Arrays.fill(nodeColors, DEFAULT_NODE_COLOR.toABGR());
+    }
+
+    public int nodeCount() {
+        return labels.length;
+    }
+
+    public int edgeCount() {
+        return targets.length;
+    }
+
+    public int outDegree(int node) {
+        return offsets[node + 1] - offsets[node];
+    }
+
+    public int inDegree(int node) {
+        return reverseOffsets[node + 1] - reverseOffsets[node];
+    }
+
+    /** @return the node where the given edge starts. Runs in O(log n) */
+    public int sourceOf(int edge) {
+        assert edge >= 0 && edge < edgeCount() : edge;
+        // find the last node with offsets[node] <= edge
+        int index = Arrays.binarySearch(offsets, edge);
+        if (index < 0) return -index - 2;
+        // skip nodes without outgoing edges
+        while (offsets[index + 1] == edge) index++;
+        return index;
+    }
+
+    /** @return the node where the given edge ends */
+    public int targetOf(int edge) {
+        return targets[edge];
+    }
+
+    public float weightOf(int edge) {
+        return edgeWeights == null ? 1f : edgeWeights[edge];
+    }
+
+    public String getLabel(int node) {
+        return labels[node];
+    }
+
+    /** executes the given action on the target of every outgoing edge of the given node */
+    public void forEachOutNeighbour(int node, IntConsumer action) {
+        for (int e = offsets[node]; e < offsets[node + 1]; e++) {
+            action.accept(targets[e]);
+        }
+    }
+
+    /** executes the given action on the source of every incoming edge of the given node */
+    public void forEachInNeighbour(int node, IntConsumer action) {
+        for (int i = reverseOffsets[node]; i < reverseOffsets[node + 1]; i++) {
+            action.accept(reverseSources[i]);
+        }
+    }
+
+    /**
+     * @return an array with the source node of every edge, computed in parallel. This is the expansion of {@link
+     * #offsets} into a list of the same length as {@link #targets}.
+     */
+    public int[] edgeSources() {
+        int[] sources = new int[edgeCount()];
+        IntStream.range(0, nodeCount()).parallel()
+                .forEach(i -> Arrays.fill(sources, offsets[i], offsets[i + 1], i));
+        return sources;
+    }
+
+    /** @return the out-degree of every node, computed in parallel */
+    public int[] outDegrees() {
+        int[] degrees = new int[nodeCount()];
+        IntStream.range(0, degrees.length).parallel().forEach(i -> degrees[i] = outDegree(i));
+        return degrees;
+    }
+
+    /** @return the in-degree of every node, computed in parallel */
+    public int[] inDegrees() {
+        int[] degrees = new int[nodeCount()];
+        IntStream.range(0, degrees.length).parallel().forEach(i -> degrees[i] = inDegree(i));
+        return degrees;
+    }
+
+    /** @return the highest sum of in- and out-degree of any node */
+    public int maxDegree() {
+        return IntStream.range(0, nodeCount()).parallel()
+                .map(i -> outDegree(i) + inDegree(i))
+                .max().orElse(0);
+    }
+
+    /**
+     * @return the edge id of the first edge from source to target, or -1 if no such edge exists. Runs in O(log
+     * outDegree)
+     */
+    public int findEdge(int source, int target) {
+        int index = Arrays.binarySearch(targets, offsets[source], offsets[source + 1], target);
+        if (index < 0) return -1;
+        while (index > offsets[source] && targets[index - 1] == target) index--;
+        return index;
+    }
+
+    public Color4f getNodeColor(int node) {
+        return Color4f.fromABGR(nodeColors[node]);
+    }
+
+    public void setNodeColor(int node, Color4f color) {
+        nodeColors[node] = color.toABGR();
+        markColorsChanged();
+    }
+
+    /** signals that {@link #nodeColors} has been modified */
+    public void markColorsChanged() {
+        colorVersion++;
+    }
+
+    /** @return a number that changes whenever the node colors change */
+    public int getColorVersion() {
+        return colorVersion;
+    }
+
+    @Override
+    public String toString() {
+        return "Graph (" + nodeCount() + " nodes, " + edgeCount() + " edges)";
+    }
+}
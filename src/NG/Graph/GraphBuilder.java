@@ -0,0 +1,187 @@
+package NG.Graph;
+
+import NG.DataStructures.Generic.IntList;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.stream.IntStream;
+
+/**
+ * Collects a stream of edges in primitive lists, and builds a {@link Graph} from these in parallel. The edges of the
+ * resulting graph are sorted on (source, target), hence the edge ids do not depend on the order of insertion.
+ */
+public class GraphBuilder {
+    private final NodeIdMap nodes;
+    private final IntList sources;
+    private final IntList targets;
+    /** weights of the edges, or null as long as all edges have weight 1 */
+    private float[] weights = null;
+
+    public GraphBuilder() {
+        this(1 << 10);
+    }
+
+    /**
+     * @param expectedEdges the initial expected maximum number of edges
+     */
+    public GraphBuilder(int expectedEdges) {
+        this.nodes = new NodeIdMap();
+        this.sources = new IntList(expectedEdges);
+        this.targets = new IntList(expectedEdges);
+    }
+
+    /** @return the id of the node with the given name, creating a new node if it did not exist */
+    public int node(String name) {
+        return nodes.intern(name);
+    }
+
+    /**
+     * @return the id of the node with the name given by the UTF-8 bytes {@code source[offset ... offset + length]},
+     * creating a new node if it did not exist
+     */
+    public int node(byte[] source, int offset, int length) {
+        return nodes.intern(source, offset, length);
+    }
+
+    public void addEdge(int source, int target) {
+        sources.add(source);
+        targets.add(target);
+
+        if (weights != null) setWeight(sources.size() - 1, 1f);
+    }
+
+    public void addEdge(int source, int target, float weight) {
+        sources.add(source);
+        targets.add(target);
+
+        if (weights != null || weight != 1f) setWeight(sources.size() - 1, weight);
+    }
+
+    private void setWeight(int edge, float weight) {
+        if (weights == null) {
+            weights = new float[Math.max(sources.backingArray().length, 16)];
+            Arrays.fill(weights, 0, edge, 1f);
+
+        } else if (edge >= weights.length) {
+            weights = Arrays.copyOf(weights, sources.backingArray().length);
+        }
+
+        weights[edge] = weight;
+    }
+
+    public int nodeCount() {
+        return nodes.size();
+    }
+
+    public int edgeCount() {
+        return sources.size();
+    }
+
+    /**
+     * builds the graph of all nodes and edges added so far.
+     * @return a new graph
+     */
+    public Graph build() {
+        return build(
+                nodes.toNames(), sources.backingArray(), targets.backingArray(), weights, sources.size()
+        );
+    }
+
+    /**
+     * builds a graph from an edge list. All phases run in parallel on the common fork-join pool.
+     * @param labels    the label of each node, defining the number of nodes
+     * @param sources   source node of every edge
+     * @param targets   target node of every edge
+     * @param weights   weight of every edge, or null if all edges have weight 1
+     * @param nrOfEdges the number of elements of sources, targets and weights to use
+     * @return a new graph
+     */
+    public static Graph build(String[] labels, int[] sources, int[] targets, float[] weights, int nrOfEdges) {
+        int nrOfNodes = labels.length;
+
+        // forward index
+        int[] offsets = countOffsets(sources, nrOfEdges, nrOfNodes);
+        int[] edgeTargets = new int[nrOfEdges];
+        float[] edgeWeights = weights == null ? null : new float[nrOfEdges];
+
+        AtomicIntegerArray cursors = new AtomicIntegerArray(Arrays.copyOf(offsets, nrOfNodes));
+        IntStream.range(0, nrOfEdges).parallel().forEach(e -> {
+            int position = cursors.getAndIncrement(sources[e]);
+            edgeTargets[position] = targets[e];
+            if (edgeWeights != null) edgeWeights[position] = weights[e];
+        });
+
+        // the scatter order is not deterministic, so sort each adjacency list
+        if (edgeWeights == null) {
+            IntStream.range(0, nrOfNodes).parallel()
+                    .forEach(i -> Arrays.sort(edgeTargets, offsets[i], offsets[i + 1]));
+        } else {
+            sortWeightedAdjacency(offsets, edgeTargets, edgeWeights);
+        }
+
+        // reverse index
+        int[] reverseOffsets = countOffsets(edgeTargets, nrOfEdges, nrOfNodes);
+        int[] reverseEdges = new int[nrOfEdges];
+        int[] reverseSources = new int[nrOfEdges];
+
+        AtomicIntegerArray reverseCursors = new AtomicIntegerArray(Arrays.copyOf(reverseOffsets, nrOfNodes));
+        IntStream.range(0, nrOfEdges).parallel().forEach(e -> {
+            int position = reverseCursors.getAndIncrement(edgeTargets[e]);
+            reverseEdges[position] = e;
+        });
+
+        // edge ids increase with their source, so sorting on edge id also sorts on source
+        IntStream.range(0, nrOfNodes).parallel()
+                .forEach(i -> Arrays.sort(reverseEdges, reverseOffsets[i], reverseOffsets[i + 1]));
+        fillReverseSources(offsets, reverseEdges, reverseSources);
+
+        return new Graph(offsets, edgeTargets, reverseOffsets, reverseSources, reverseEdges, edgeWeights, labels);
+    }
+
+    /**
+     * computes the CSR offsets of the given keys, such that offsets[k] is the number of keys smaller than k
+     */
+    private static int[] countOffsets(int[] keys, int nrOfKeys, int nrOfNodes) {
+        AtomicIntegerArray counts = new AtomicIntegerArray(nrOfNodes + 1);
+        IntStream.range(0, nrOfKeys).parallel().forEach(e -> counts.incrementAndGet(keys[e] + 1));
+
+        int[] offsets = new int[nrOfNodes + 1];
+        IntStream.range(0, nrOfNodes + 1).parallel().forEach(i -> offsets[i] = counts.get(i));
+        Arrays.parallelPrefix(offsets, Integer::sum);
+        return offsets;
+    }
+
+    /** sorts the adjacency list of each node on (target, weight), keeping targets and weights paired */
+    private static void sortWeightedAdjacency(int[] offsets, int[] targets, float[] weights) {
+        int nrOfNodes = offsets.length - 1;
+        IntStream.range(0, nrOfNodes).parallel().forEach(i -> {
+            int start = offsets[i];
+            int end = offsets[i + 1];
+            if (end - start < 2) return;
+
+            long[] keys = new long[end - start];
+            for (int e = start; e < end; e++) {
+                keys[e - start] = ((long) targets[e] << 32) | (Float.floatToRawIntBits(weights[e]) & 0xFFFFFFFFL);
+            }
+            Arrays.sort(keys);
+            for (int e = start; e < end; e++) {
+                long key = keys[e - start];
+                targets[e] = (int) (key >>> 32);
+                weights[e] = Float.intBitsToFloat((int) key);
+            }
+        });
+    }
+
+    /** sets reverseSources[p] to the source of edge reverseEdges[p], for all positions p */
+    private static void fillReverseSources(int[] offsets, int[] reverseEdges, int[] reverseSources) {
+        IntStream.range(0, reverseEdges.length).parallel().forEach(p -> {
+            int index = Arrays.binarySearch(offsets, reverseEdges[p]);
+            if (index < 0) {
+                index = -index - 2;
+            } else {
+                while (offsets[index + 1] == reverseEdges[p]) index++;
+            }
+            reverseSources[p] = index;
+        });
+    }
+}
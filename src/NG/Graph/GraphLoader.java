@@ -0,0 +1,681 @@
+package NG.Graph;
+
+import NG.DataStructures.Generic.IntList;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.function.IntFunction;
+
+/**
+ * Streams graph files into {@link Graph} objects. The parsers work directly on the bytes of the input, and collect
+ * edges in a {@link GraphBuilder}, such that no objects are created per edge; only one String per unique node name is
+ * created when building the graph.
+ * <p>
+ * Supported formats are edge lists (one {@code source target [weight]} triple per line, separated by tabs, commas,
+ * semicolons or spaces, with an optional header line of column names), GraphML ({@code <node id>} and {@code <edge source target>} elements) and DOT ({@code a -> b -> c;}
+ * statements, attributes are ignored).
+ */
+public final class GraphLoader {
+    /** file filter for the file dialog */
+    public static final String FILE_FILTER = "*.tsv;*.csv;*.txt;*.edges;*.graphml;*.xml;*.dot;*.gv";
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static final int EOF = -1;
+
+    public enum Format {
+        EDGE_LIST, GRAPHML, DOT;
+
+        /** guesses the format of a file based on its extension, defaulting to an edge list */
+        public static Format of(File file) {
+            String name = file.getName().toLowerCase(Locale.ROOT);
+            if (name.endsWith(".graphml") || name.endsWith(".xml")) return GRAPHML;
+            if (name.endsWith(".dot") || name.endsWith(".gv")) return DOT;
+            return EDGE_LIST;
+        }
+    }
+
+    private final ByteStream in;
+    private final GraphBuilder builder = new GraphBuilder();
+
+    /** reusable buffers for the current token */
+    private byte[] token = new byte[256];
+    private int tokenLength = 0;
+    private byte[] secondary = new byte[256];
+    private int secondaryLength = 0;
+
+    private GraphLoader(InputStream in) {
+        this.in = new ByteStream(in);
+    }
+
+    /**
+     * loads the given file, deducing the format from its extension
+     * @param file a file in any of the supported formats
+     * @return the graph described by the file
+     * @throws IOException if the file could not be read
+     */
+    public static Graph load(File file) throws IOException {
+        try (InputStream stream = new FileInputStream(file)) {
+            return load(stream, Format.of(file));
+        }
+    }
+
+    /**
+     * reads a graph in the given format from the stream. The stream is not closed.
+     * @param stream a stream of UTF-8 encoded bytes
+     * @param format the format of the stream
+     * @return the graph described by the stream
+     * @throws IOException if the stream throws an exception
+     */
+    public static Graph load(InputStream stream, Format format) throws IOException {
+        GraphLoader loader = new GraphLoader(stream);
+
+        switch (format) {
+            case EDGE_LIST:
+                loader.parseEdgeList();
+                break;
+            case GRAPHML:
+                loader.parseGraphML();
+                break;
+            case DOT:
+                loader.parseDOT();
+                break;
+        }
+
+        return loader.builder.build();
+    }
+
+    /**
+     * builds a graph from two columns of a table, where each row describes one edge. Rows where either cell is null or
+     * empty are skipped.
+     * @param nrOfRows     the number of rows to read
+     * @param sourceColumn maps a row index to the name of the source node
+     * @param targetColumn maps a row index to the name of the target node
+     * @return the graph described by the columns
+     */
+    public static Graph fromColumns(int nrOfRows, IntFunction<String> sourceColumn, IntFunction<String> targetColumn) {
+        GraphBuilder builder = new GraphBuilder(nrOfRows);
+
+        for (int row = 0; row < nrOfRows; row++) {
+            String source = sourceColumn.apply(row);
+            String target = targetColumn.apply(row);
+            if (source == null || source.isEmpty() || target == null || target.isEmpty()) continue;
+
+            builder.addEdge(builder.node(source), builder.node(target));
+        }
+
+        return builder.build();
+    }
+
+    private void addEdge(int source, int target) {
+        builder.addEdge(source, target);
+    }
+
+    private int internToken() {
+        return builder.node(token, 0, tokenLength);
+    }
+
+    private void appendToken(int b) {
+        if (tokenLength == token.length) token = Arrays.copyOf(token, token.length * 2);
+        token[tokenLength++] = (byte) b;
+    }
+
+    private void swapTokens() {
+        byte[] buffer = token;
+        token = secondary;
+        secondary = buffer;
+
+        int length = tokenLength;
+        tokenLength = secondaryLength;
+        secondaryLength = length;
+    }
+
+    private boolean tokenEquals(String ascii) {
+        if (tokenLength != ascii.length()) return false;
+        for (int i = 0; i < tokenLength; i++) {
+            if (token[i] != ascii.charAt(i)) return false;
+        }
+        return true;
+    }
+
+    private boolean secondaryEquals(String ascii) {
+        swapTokens();
+        boolean result = tokenEquals(ascii);
+        swapTokens();
+        return result;
+    }
+
+    /// EDGE LISTS ///
+
+    private static boolean isFieldSeparator(int c) {
+        return c == '\t' || c == ',' || c == ';' || c == ' ';
+    }
+
+    private static boolean isLineEnd(int c) {
+        return c == '\n' || c == '\r' || c == EOF;
+    }
+
+    private void parseEdgeList() throws IOException {
+        // the end of every field of the current line in the token buffer
+        IntList fieldEnds = new IntList();
+        boolean isFirstLine = true;
+
+        while (true) {
+            while (in.peek() == ' ') in.next();
+
+            int c = in.peek();
+            if (c == EOF) return;
+
+            if (c == '#' || c == '%') {
+                skipLine();
+                continue;
+            }
+            if (isLineEnd(c)) {
+                in.next(); // empty line
+                continue;
+            }
+
+            readLine(fieldEnds);
+            in.next(); // line end
+
+            boolean isHeader = isFirstLine && isHeader(fieldEnds);
+            isFirstLine = false;
+            if (isHeader || fieldEnds.size() < 2) continue;
+
+            int sourceEnd = fieldEnds.get(0);
+            int targetEnd = fieldEnds.get(1);
+            if (sourceEnd == 0 || targetEnd == sourceEnd) continue; // empty source or target
+
+            float weight = 1f;
+            if (fieldEnds.size() > 2) {
+                float value = parseFloat(targetEnd, fieldEnds.get(2));
+                if (!Float.isNaN(value)) weight = value;
+            } // other columns are ignored
+
+            int source = builder.node(token, 0, sourceEnd);
+            int target = builder.node(token, sourceEnd, targetEnd - sourceEnd);
+            builder.addEdge(source, target, weight);
+        }
+    }
+
+    /**
+     * reads the fields of one line of an edge list into the token buffer, up to the line end. Tabs, commas and
+     * semicolons separate exactly one pair of fields, such that empty fields keep their position. Spaces around fields
+     * are ignored, and a run of spaces separates fields when there is no other separator.
+     * @param fieldEnds receives the end of every field in the token buffer, where every field starts at the end of the
+     *                  previous field
+     */
+    private void readLine(IntList fieldEnds) throws IOException {
+        tokenLength = 0;
+        fieldEnds.clear();
+
+        while (true) {
+            readField();
+            fieldEnds.add(tokenLength);
+
+            while (in.peek() == ' ') in.next();
+            int c = in.peek();
+            if (isLineEnd(c)) return;
+
+            if (isFieldSeparator(c)) {
+                in.next();
+                while (in.peek() == ' ') in.next();
+            }
+        }
+    }
+
+    /**
+     * @return true if the fields in the token buffer are column names rather than an edge: if the source and target
+     * columns have common names, or the weight column has a common name
+     */
+    private boolean isHeader(IntList fieldEnds) {
+        if (fieldEnds.size() < 2) return false;
+
+        String source = new String(token, 0, fieldEnds.get(0), StandardCharsets.UTF_8).toLowerCase(Locale.ROOT);
+        String target = new String(token, fieldEnds.get(0), fieldEnds.get(1) - fieldEnds.get(0), StandardCharsets.UTF_8)
+                .toLowerCase(Locale.ROOT);
+        if (isHeaderName(source) && isHeaderName(target)) return true;
+        if (fieldEnds.size() < 3) return false;
+
+        String weight = new String(token, fieldEnds.get(1), fieldEnds.get(2) - fieldEnds.get(1), StandardCharsets.UTF_8)
+                .toLowerCase(Locale.ROOT);
+        return weight.equals("weight") || weight.equals("value") || weight.equals("cost");
+    }
+
+    private static boolean isHeaderName(String name) {
+        switch (name) {
+            case "source":
+            case "target":
+            case "from":
+            case "to":
+            case "src":
+            case "dst":
+            case "node1":
+            case "node2":
+            case "head":
+            case "tail":
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * appends one field of an edge list to the token buffer, where fields may be quoted with double quotes. An empty
+     * field appends nothing.
+     */
+    private void readField() throws IOException {
+        if (in.peek() == '"') {
+            in.next();
+            int c;
+            while ((c = in.next()) != EOF) {
+                if (c == '"') {
+                    if (in.peek() != '"') break;
+                    in.next(); // escaped quote
+                }
+                appendToken(c);
+            }
+
+        } else {
+            while (!isFieldSeparator(in.peek()) && !isLineEnd(in.peek())) {
+                appendToken(in.next());
+            }
+        }
+    }
+
+    /**
+     * parses a part of the token buffer as a decimal number of the form {@code [-]digits[.digits][e[-]digits]} without
+     * creating a String.
+     * @param start the first byte of the number
+     * @param end   the end of the number, exclusive
+     * @return the value of the number, or NaN if it is not a number
+     */
+    private float parseFloat(int start, int end) {
+        int i = start;
+        boolean negative = false;
+        if (i < end && (token[i] == '-' || token[i] == '+')) negative = (token[i++] == '-');
+
+        double value = 0;
+        int digits = 0;
+        while (i < end && token[i] >= '0' && token[i] <= '9') {
+            value = value * 10 + (token[i++] - '0');
+            digits++;
+        }
+
+        if (i < end && token[i] == '.') {
+            i++;
+            double scale = 0.1;
+            while (i < end && token[i] >= '0' && token[i] <= '9') {
+                value += (token[i++] - '0') * scale;
+                scale *= 0.1;
+                digits++;
+            }
+        }
+        if (digits == 0) return Float.NaN;
+
+        if (i < end && (token[i] == 'e' || token[i] == 'E')) {
+            i++;
+            boolean negativeExponent = false;
+            if (i < end && (token[i] == '-' || token[i] == '+')) negativeExponent = (token[i++] == '-');
+
+            int exponent = 0;
+            while (i < end && token[i] >= '0' && token[i] <= '9') {
+                exponent = exponent * 10 + (token[i++] - '0');
+            }
+            value *= Math.pow(10, negativeExponent ? -exponent : exponent);
+        }
+
+        if (i != end) return Float.NaN;
+        return (float) (negative ? -value : value);
+    }
+
+    private void skipLine() throws IOException {
+        int c;
+        do {
+            c = in.next();
+        } while (c != '\n' && c != EOF);
+    }
+
+    /// GRAPHML ///
+
+    private void parseGraphML() throws IOException {
+        int c;
+        while ((c = in.next()) != EOF) {
+            if (c != '<') continue;
+
+            c = in.peek();
+            if (c == '!') {
+                in.next();
+                if (in.peek() == '-') {
+                    skipUntil("-->");
+                } else if (in.peek() == '[') {
+                    skipUntil("]]>");
+                } else {
+                    skipUntil(">");
+                }
+
+            } else if (c == '?' || c == '/') {
+                skipUntil(">");
+
+            } else {
+                readXMLName();
+                if (tokenEquals("node")) {
+                    parseXMLNode();
+
+                } else if (tokenEquals("edge")) {
+                    parseXMLEdge();
+
+                } else {
+                    skipXMLAttributes();
+                }
+            }
+        }
+    }
+
+    private void parseXMLNode() throws IOException {
+        while (readXMLAttribute()) {
+            if (secondaryEquals("id")) internToken();
+        }
+    }
+
+    private void parseXMLEdge() throws IOException {
+        int source = -1;
+        int target = -1;
+
+        while (readXMLAttribute()) {
+            if (secondaryEquals("source")) {
+                source = internToken();
+            } else if (secondaryEquals("target")) {
+                target = internToken();
+            }
+        }
+
+        if (source < 0 || target < 0) {
+            throw new IOException("GraphML edge without source or target");
+        }
+        addEdge(source, target);
+    }
+
+    /** reads an element or attribute name into the token buffer */
+    private void readXMLName() throws IOException {
+        tokenLength = 0;
+        int c = in.peek();
+        while (c != EOF && c != '>' && c != '/' && c != '=' && !Character.isWhitespace(c)) {
+            appendToken(in.next());
+            c = in.peek();
+        }
+    }
+
+    /**
+     * reads the next attribute of the current element, leaving the attribute name in the secondary buffer and the
+     * value in the token buffer. If the element ends instead, the end of the element is consumed.
+     * @return true iff an attribute was read
+     */
+    private boolean readXMLAttribute() throws IOException {
+        skipWhitespace();
+
+        int c = in.peek();
+        if (c == '/' || c == '>' || c == EOF) {
+            skipUntil(">");
+            return false;
+        }
+
+        readXMLName();
+        swapTokens();
+        skipWhitespace();
+        if (in.next() != '=') throw new IOException("Malformed XML attribute " + new String(secondary, 0, secondaryLength, StandardCharsets.UTF_8));
+        skipWhitespace();
+
+        int quote = in.next();
+        if (quote != '"' && quote != '\'') throw new IOException("Unquoted XML attribute value");
+
+        tokenLength = 0;
+        while ((c = in.next()) != quote) {
+            if (c == EOF) throw new IOException("Unexpected end of file in attribute value");
+            appendToken(c);
+        }
+
+        return true;
+    }
+
+    private void skipXMLAttributes() throws IOException {
+        //noinspection StatementWithEmptyBody
+        while (readXMLAttribute()) ;
+    }
+
+    private void skipWhitespace() throws IOException {
+        while (in.peek() != EOF && Character.isWhitespace(in.peek())) in.next();
+    }
+
+    /** skips bytes up to and including the given ascii sequence */
+    private void skipUntil(String ascii) throws IOException {
+        int matched = 0;
+        int c;
+        while ((c = in.next()) != EOF) {
+            if (c == ascii.charAt(matched)) {
+                matched++;
+                if (matched == ascii.length()) return;
+
+            } else {
+                matched = (c == ascii.charAt(0)) ? 1 : 0;
+            }
+        }
+    }
+
+    /// DOT ///
+
+    private enum DotToken {
+        ID, QUOTED_ID, EDGE_OP, EQUALS, COLON, OPEN_BRACKET, OPEN_BRACE, STATEMENT_END, END
+    }
+
+    private void parseDOT() throws IOException {
+        boolean hasPending = false; // whether the secondary buffer holds an unresolved id
+        boolean edgeOpSeen = false;
+        boolean skipNextId = false;
+        int previousNode = -1;
+
+        while (true) {
+            DotToken type = nextDotToken();
+
+            // an id is only a node once we know it is not an attribute key
+            if (hasPending && type != DotToken.EQUALS) {
+                swapTokens();
+                int node = internToken();
+                swapTokens();
+
+                if (edgeOpSeen && previousNode >= 0) addEdge(previousNode, node);
+                edgeOpSeen = false;
+                previousNode = node;
+            }
+            hasPending = false;
+
+            switch (type) {
+                case ID:
+                    if (isDotKeyword()) {
+                        // the name of a (sub)graph is not a node
+                        skipNextId = tokenEquals("graph") || tokenEquals("digraph") || tokenEquals("subgraph");
+                        previousNode = -1;
+                        edgeOpSeen = false;
+                        break;
+                    }
+                    hasPending = holdDotId(skipNextId);
+                    skipNextId = false;
+                    break;
+                case QUOTED_ID:
+                    hasPending = holdDotId(skipNextId);
+                    skipNextId = false;
+                    break;
+                case EDGE_OP:
+                    edgeOpSeen = true;
+                    break;
+                case EQUALS:
+                case COLON:
+                    // skip the value of an attribute or the port of a node
+                    skipNextId = true;
+                    break;
+                case OPEN_BRACKET:
+                    // attributes of a keyword, as in 'graph [rankdir=LR]'
+                    skipNextId = false;
+                    skipDotAttributes();
+                    break;
+                case OPEN_BRACE:
+                    // edges to subgraphs are not supported
+                    skipNextId = false;
+                    edgeOpSeen = false;
+                    previousNode = -1;
+                    break;
+                case STATEMENT_END:
+                    skipNextId = false;
+                    edgeOpSeen = false;
+                    previousNode = -1;
+                    break;
+                case END:
+                    return;
+            }
+        }
+    }
+
+    /**
+     * keeps the id in the token buffer as the pending id, unless it should be skipped
+     * @param skip whether the id is the name of a graph, the value of an attribute or a port
+     * @return true if the id is pending in the secondary buffer
+     */
+    private boolean holdDotId(boolean skip) {
+        if (skip) return false;
+        swapTokens();
+        return true;
+    }
+
+    private boolean isDotKeyword() {
+        if (tokenLength > 8) return false;
+        String word = new String(token, 0, tokenLength, StandardCharsets.US_ASCII).toLowerCase(Locale.ROOT);
+        switch (word) {
+            case "graph":
+            case "digraph":
+            case "subgraph":
+            case "strict":
+            case "node":
+            case "edge":
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    private DotToken nextDotToken() throws IOException {
+        while (true) {
+            skipWhitespace();
+            int c = in.next();
+
+            switch (c) {
+                case EOF:
+                    return DotToken.END;
+                case '#':
+                    skipLine();
+                    continue;
+                case '/':
+                    if (in.peek() == '/') {
+                        skipLine();
+                    } else if (in.peek() == '*') {
+                        skipUntil("*/");
+                    }
+                    continue;
+                case '-':
+                    if (in.peek() == '>' || in.peek() == '-') {
+                        in.next();
+                        return DotToken.EDGE_OP;
+                    }
+                    break; // negative number
+                case '=':
+                    return DotToken.EQUALS;
+                case ':':
+                    return DotToken.COLON;
+                case '[':
+                    return DotToken.OPEN_BRACKET;
+                case '{':
+                    return DotToken.OPEN_BRACE;
+                case '}':
+                case ';':
+                case ',':
+                    return DotToken.STATEMENT_END;
+                case '"':
+                    readDotQuoted();
+                    return DotToken.QUOTED_ID;
+                case '<':
+                    readDotHTML();
+                    return DotToken.QUOTED_ID;
+            }
+
+            tokenLength = 0;
+            appendToken(c);
+            while (isDotIdByte(in.peek())) {
+                appendToken(in.next());
+            }
+            return DotToken.ID;
+        }
+    }
+
+    private static boolean isDotIdByte(int c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9')
+                || c == '_' || c == '.' || c >= 0x80;
+    }
+
+    private void readDotQuoted() throws IOException {
+        tokenLength = 0;
+        int c;
+        while ((c = in.next()) != '"' && c != EOF) {
+            if (c == '\\' && in.peek() == '"') c = in.next();
+            appendToken(c);
+        }
+    }
+
+    private void readDotHTML() throws IOException {
+        tokenLength = 0;
+        int depth = 1;
+        int c;
+        while ((c = in.next()) != EOF) {
+            if (c == '<') depth++;
+            if (c == '>' && --depth == 0) return;
+            appendToken(c);
+        }
+    }
+
+    private void skipDotAttributes() throws IOException {
+        int c;
+        while ((c = in.next()) != ']' && c != EOF) {
+            if (c == '"') readDotQuoted();
+        }
+    }
+
+    /** an unsynchronized buffered stream with single-byte lookahead */
+    private static class ByteStream {
+        private final InputStream source;
+        private final byte[] buffer = new byte[BUFFER_SIZE];
+        private int position = 0;
+        private int limit = 0;
+
+        ByteStream(InputStream source) {
+            this.source = source;
+        }
+
+        /** @return the next byte as unsigned value, or EOF if the stream has ended */
+        int next() throws IOException {
+            if (position == limit && !fill()) return EOF;
+            return buffer[position++] & 0xFF;
+        }
+
+        /** @return the value that the next call to {@link #next()} will return */
+        int peek() throws IOException {
+            if (position == limit && !fill()) return EOF;
+            return buffer[position] & 0xFF;
+        }
+
+        private boolean fill() throws IOException {
+            int read = source.read(buffer, 0, buffer.length);
+            if (read <= 0) return false;
+            position = 0;
+            limit = read;
+            return true;
+        }
+    }
+}
@@ -0,0 +1,302 @@
+package NG.Graph.Layout;
+
+import NG.Core.AbstractGameLoop;
+import NG.DataStructures.Generic.IntList;
+import NG.DataStructures.Generic.TripleBuffer;
+import NG.Graph.Graph;
+import NG.Settings.Settings;
+import org.joml.FrustumIntersection;
+
+import java.nio.FloatBuffer;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.IntStream;
+
+/**
+ * A force-directed layout of a {@link Graph} in the plane z = 0. Every iteration computes the new position of all nodes
+ * in parallel; neighbours attract each other, and every node is repelled by a random sample of all other nodes.
+ * <p>
+ * Positions are stored as {@link #STRIDE} floats per node, in order of node id, such that they can be uploaded to the
+ * GPU without conversion. Every iteration is published as a {@link Snapshot} through a {@link TripleBuffer}, such that
+ * the render thread reads the most recent positions without ever blocking the layout, or being blocked by it. Every
+ * snapshot has its own {@link SpatialGrid}, which is updated with the positions of the snapshot.
+ * <p>
+ * As repulsion is sampled at random, nodes never come to a complete rest. Once no node has moved more than {@link
+ * #CONVERGED_DISPLACEMENT} edge lengths for {@link #CONVERGED_ITERATIONS} iterations, the layout is considered
+ * converged: the loop pauses and no new versions are published, such that on-demand rendering goes idle. Call {@link
+ * #wake()} after changing the edge weights of the graph or the layout settings to continue.
+ */
+public class GraphLayout extends AbstractGameLoop {
+    /** number of floats per node: x, y, z, 1 */
+    public static final int STRIDE = 4;
+    private static final int REPULSION_SAMPLES = 16;
+    private static final float MIN_TEMPERATURE = 0.01f;
+    private static final float COOLING = 0.995f;
+    /** size of a grid cell relative to the edge length */
+    private static final float GRID_CELL_SCALE = 4f;
+    /** largest displacement of any node, relative to the edge length, that counts as standing still */
+    private static final float CONVERGED_DISPLACEMENT = 0.02f;
+    /** number of consecutive iterations without movement after which the layout pauses */
+    private static final int CONVERGED_ITERATIONS = 50;
+    /** temperature relative to the edge length to which the layout is reheated when woken */
+    private static final float WAKE_TEMPERATURE = 1f;
+
+    private final Graph graph;
+    private final Settings settings;
+    private final TripleBuffer<Snapshot> snapshots;
+    /** guards pausing on convergence against a concurrent {@link #wake()} */
+    private final Object wakeLock = new Object();
+
+    /** the snapshot published last, only accessed by the layout thread */
+    private Snapshot published;
+    private float edgeLength;
+    private float temperature;
+    /** number of consecutive iterations in which no node moved noticeably */
+    private int quietIterations = 0;
+    private volatile boolean wakeRequested = false;
+    private volatile int version = 0;
+
+    /**
+     * creates a new layout of the given graph, with all nodes placed at random
+     * @param graph    the graph to lay out
+     * @param settings the source of layout and timing settings
+     */
+    public GraphLayout(Graph graph, Settings settings) {
+        super("Layout", settings.MAX_ITERATIONS_PER_SECOND);
+        this.graph = graph;
+        this.settings = settings;
+        this.edgeLength = settings.LAYOUT_EDGE_LENGTH;
+
+        int nrOfNodes = graph.nodeCount();
+        float[] initial = new float[nrOfNodes * STRIDE];
+
+        float size = (float) Math.sqrt(nrOfNodes) * edgeLength;
+        this.temperature = size / 10;
+
+        Random random = new Random(nrOfNodes);
+        for (int i = 0; i < nrOfNodes; i++) {
+            initial[i * STRIDE] = (random.nextFloat() - 0.5f) * size;
+            initial[i * STRIDE + 1] = (random.nextFloat() - 0.5f) * size;
+            initial[i * STRIDE + 2] = 0;
+            initial[i * STRIDE + 3] = 1;
+        }
+
+        float cellSize = edgeLength * GRID_CELL_SCALE;
+        snapshots = new TripleBuffer<>(() -> new Snapshot(initial.clone(), cellSize, nrOfNodes));
+        // the layout reads from its own copy, as all three buffers may be written
+        published = new Snapshot(initial, cellSize, nrOfNodes);
+    }
+
+    @Override
+    protected void update(float deltaTime) {
+        if (wakeRequested) {
+            wakeRequested = false;
+            edgeLength = settings.LAYOUT_EDGE_LENGTH;
+            temperature = Math.max(temperature, WAKE_TEMPERATURE * edgeLength);
+            quietIterations = 0;
+        }
+
+        int nrOfNodes = graph.nodeCount();
+        if (nrOfNodes < 2) {
+            sleep();
+            return;
+        }
+
+        float[] source = published.positions;
+        Snapshot target = snapshots.getWriteBuffer();
+        float[] targetPositions = target.positions;
+        float maxStep = temperature;
+
+        double maxDisplacement = IntStream.range(0, nrOfNodes).parallel()
+                .mapToDouble(i -> step(i, source, targetPositions, maxStep))
+                .max().orElse(0);
+
+        target.grid.update(targetPositions);
+        target.version = published.version + 1;
+        snapshots.publish();
+        published = target;
+        version = target.version;
+
+        temperature = Math.max(temperature * COOLING, MIN_TEMPERATURE * edgeLength);
+
+        if (maxDisplacement < CONVERGED_DISPLACEMENT * edgeLength) {
+            quietIterations++;
+            if (quietIterations >= CONVERGED_ITERATIONS) sleep();
+
+        } else {
+            quietIterations = 0;
+        }
+    }
+
+    /** pauses this loop after the current iteration, unless a wake-up was requested in the meantime */
+    private void sleep() {
+        synchronized (wakeLock) {
+            if (!wakeRequested) pause();
+        }
+    }
+
+    /**
+     * resumes a converged layout, for instance after the edge weights of the graph or {@link
+     * Settings#LAYOUT_EDGE_LENGTH} changed. The layout is reheated, such that nodes can move over a distance in the
+     * order of an edge length. May be called from any thread.
+     */
+    public void wake() {
+        synchronized (wakeLock) {
+            wakeRequested = true;
+            unPause();
+        }
+    }
+
+    /**
+     * computes the new position of node i from the positions in source, and writes it to target
+     * @return the distance node i moved
+     */
+    private float step(int i, float[] source, float[] target, float maxStep) {
+        float k = edgeLength;
+        float x = source[i * STRIDE];
+        float y = source[i * STRIDE + 1];
+        float fx = 0;
+        float fy = 0;
+
+        // attraction over all edges, regardless of direction
+        for (int e = graph.offsets[i]; e < graph.offsets[i + 1]; e++) {
+            int j = graph.targets[e];
+            float dx = source[j * STRIDE] - x;
+            float dy = source[j * STRIDE + 1] - y;
+            float magnitude = attraction(dx, dy, k * graph.weightOf(e));
+            fx += dx * magnitude;
+            fy += dy * magnitude;
+        }
+        for (int p = graph.reverseOffsets[i]; p < graph.reverseOffsets[i + 1]; p++) {
+            int j = graph.reverseSources[p];
+            float dx = source[j * STRIDE] - x;
+            float dy = source[j * STRIDE + 1] - y;
+            float magnitude = attraction(dx, dy, k * graph.weightOf(graph.reverseEdges[p]));
+            fx += dx * magnitude;
+            fy += dy * magnitude;
+        }
+
+        // sampled repulsion, scaled up to approximate repulsion by all nodes
+        int nrOfNodes = graph.nodeCount();
+        int samples = Math.min(REPULSION_SAMPLES, nrOfNodes - 1);
+        float scale = (float) (nrOfNodes - 1) / samples;
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int s = 0; s < samples; s++) {
+            int j = random.nextInt(nrOfNodes - 1);
+            if (j >= i) j++;
+
+            float dx = x - source[j * STRIDE];
+            float dy = y - source[j * STRIDE + 1];
+            float distSq = Math.max(dx * dx + dy * dy, 1e-4f);
+            float magnitude = scale * k * k / distSq;
+            fx += dx * magnitude;
+            fy += dy * magnitude;
+        }
+
+        // cap the displacement on the current temperature
+        float length = (float) Math.sqrt(fx * fx + fy * fy);
+        float factor = length > maxStep ? maxStep / length : 1;
+
+        target[i * STRIDE] = x + fx * factor;
+        target[i * STRIDE + 1] = y + fy * factor;
+        target[i * STRIDE + 2] = 0;
+        target[i * STRIDE + 3] = 1;
+
+        return length * factor;
+    }
+
+    /**
+     * @param dx the x distance from a node to its neighbour
+     * @param dy the y distance from a node to its neighbour
+     * @param k  the ideal edge length
+     * @return the factor to multiply (dx, dy) with to get the attracting force
+     */
+    private static float attraction(float dx, float dy, float k) {
+        float dist = (float) Math.sqrt(dx * dx + dy * dy);
+        // the force is dist^2 / k, along the normalized direction
+        return dist / k;
+    }
+
+    /** @return a number that changes whenever the positions change. May be called from any thread */
+    public int getVersion() {
+        return version;
+    }
+
+    public Graph getGraph() {
+        return graph;
+    }
+
+    /**
+     * returns the positions of the most recent iteration. The snapshot is not changed until the next call to this
+     * method, and must not be used after that. Must only be called on the render thread.
+     * @return the most recent snapshot of the layout
+     */
+    public Snapshot latest() {
+        return snapshots.read();
+    }
+
+    @Override
+    public void cleanup() {
+    }
+
+    /**
+     * The positions of all nodes after one iteration of the layout, with a spatial grid over these positions. A
+     * snapshot must not be modified outside the layout.
+     */
+    public static class Snapshot {
+        private final float[] positions;
+        private final SpatialGrid grid;
+        private int version = 0;
+
+        private Snapshot(float[] positions, float cellSize, int nrOfNodes) {
+            this.positions = positions;
+            this.grid = new SpatialGrid(cellSize, positions, nrOfNodes);
+        }
+
+        /** @return the version of the layout when this snapshot was taken */
+        public int getVersion() {
+            return version;
+        }
+
+        /**
+         * @return the positions of all nodes, {@link #STRIDE} floats per node. The array must not be modified or
+         * retained.
+         */
+        public float[] getPositions() {
+            return positions;
+        }
+
+        /**
+         * copies the positions into the given buffer, starting at its current position. The buffer must have room for
+         * {@code STRIDE * graph.nodeCount()} floats. Its position is not changed.
+         */
+        public void copyPositions(FloatBuffer buffer) {
+            buffer.put(buffer.position(), positions);
+        }
+
+        /**
+         * copies the positions into the given array, which must have a length of at least {@code STRIDE *
+         * graph.nodeCount()}
+         */
+        public void copyPositions(float[] target) {
+            System.arraycopy(positions, 0, target, 0, positions.length);
+        }
+
+        /**
+         * collects the ids of all nodes that are possibly visible in the given frustum
+         * @param frustum the view frustum
+         * @param radius  the radius of a node
+         * @param result  the list to add the node ids to
+         */
+        public void queryVisible(FrustumIntersection frustum, float radius, IntList result) {
+            grid.query(frustum, positions, radius, result);
+        }
+
+        /**
+         * @return a copy of the position of the given node as {x, y, z}
+         */
+        public float[] getPosition(int node) {
+            return new float[]{positions[node * STRIDE], positions[node * STRIDE + 1], positions[node * STRIDE + 2]};
+        }
+    }
+}
@@ -0,0 +1,241 @@
+package NG.Graph.Layout;
+
+import NG.DataStructures.Generic.IntList;
+import org.joml.FrustumIntersection;
+
+import java.util.stream.IntStream;
+
+/**
+ * A uniform grid over the node positions of a layout in the plane z = 0. Only occupied cells are stored, in a hash table
+ * on the primitive cell key, hence the grid is unbounded. The grid is updated incrementally: only nodes that moved to
+ * another cell are relocated.
+ * <p>
+ * This class is not thread safe; every {@link GraphLayout.Snapshot} has a grid of its own.
+ */
+public class SpatialGrid {
+    private final float cellSize;
+    private final CellTable cells = new CellTable();
+    /** the key of the cell of each node */
+    private final long[] cellOf;
+    /** the index of each node in the list of its cell */
+    private final int[] slotOf;
+    /** buffer for new keys, reused between updates */
+    private final long[] newKeys;
+
+    /**
+     * creates a grid containing all given nodes
+     * @param cellSize  the width and height of a cell
+     * @param positions the position of every node, {@link GraphLayout#STRIDE} floats per node
+     * @param nrOfNodes the number of nodes
+     */
+    public SpatialGrid(float cellSize, float[] positions, int nrOfNodes) {
+        this.cellSize = cellSize;
+        this.cellOf = new long[nrOfNodes];
+        this.slotOf = new int[nrOfNodes];
+        this.newKeys = new long[nrOfNodes];
+
+        for (int i = 0; i < nrOfNodes; i++) {
+            long key = keyOf(positions[i * GraphLayout.STRIDE], positions[i * GraphLayout.STRIDE + 1]);
+            insert(i, key);
+        }
+    }
+
+    /**
+     * moves all nodes of which the cell changed. Finding these nodes is done in parallel.
+     * @param positions the new positions of the nodes
+     * @return the number of nodes that moved to another cell
+     */
+    public int update(float[] positions) {
+        int nrOfNodes = cellOf.length;
+        IntStream.range(0, nrOfNodes).parallel().forEach(i ->
+                newKeys[i] = keyOf(positions[i * GraphLayout.STRIDE], positions[i * GraphLayout.STRIDE + 1])
+        );
+
+        int moved = 0;
+        for (int i = 0; i < nrOfNodes; i++) {
+            if (newKeys[i] != cellOf[i]) {
+                remove(i);
+                insert(i, newKeys[i]);
+                moved++;
+            }
+        }
+        return moved;
+    }
+
+    /**
+     * collects all nodes that are possibly visible in the given frustum. Cells that are entirely inside the frustum are
+     * added without testing the individual nodes.
+     * @param frustum   the view frustum
+     * @param positions the positions of the nodes, which must match the last update of this grid
+     * @param radius    the radius of a node
+     * @param result    the list to add the visible node ids to
+     */
+    public void query(FrustumIntersection frustum, float[] positions, float radius, IntList result) {
+        for (int slot = 0; slot < cells.capacity(); slot++) {
+            IntList nodes = cells.valueAt(slot);
+            if (nodes == null) continue;
+
+            long key = cells.keyAt(slot);
+            float minX = cellX(key) * cellSize - radius;
+            float minY = cellY(key) * cellSize - radius;
+            float maxX = minX + cellSize + 2 * radius;
+            float maxY = minY + cellSize + 2 * radius;
+
+            int intersection = frustum.intersectAab(minX, minY, -radius, maxX, maxY, radius);
+            if (intersection == FrustumIntersection.INSIDE) {
+                for (int j = 0; j < nodes.size(); j++) {
+                    result.add(nodes.get(j));
+                }
+
+            } else if (intersection == FrustumIntersection.INTERSECT) {
+                for (int j = 0; j < nodes.size(); j++) {
+                    int node = nodes.get(j);
+                    float x = positions[node * GraphLayout.STRIDE];
+                    float y = positions[node * GraphLayout.STRIDE + 1];
+                    float z = positions[node * GraphLayout.STRIDE + 2];
+                    if (frustum.testSphere(x, y, z, radius)) result.add(node);
+                }
+            }
+        }
+    }
+
+    /** @return the number of occupied cells */
+    public int nrOfCells() {
+        return cells.size();
+    }
+
+    private void insert(int node, long key) {
+        IntList list = cells.getOrCreate(key);
+        cellOf[node] = key;
+        slotOf[node] = list.size();
+        list.add(node);
+    }
+
+    private void remove(int node) {
+        IntList list = cells.get(cellOf[node]);
+        int slot = slotOf[node];
+        int last = list.removeLast();
+
+        if (last != node) {
+            list.set(slot, last);
+            slotOf[last] = slot;
+        }
+        if (list.isEmpty()) cells.remove(cellOf[node]);
+    }
+
+    private long keyOf(float x, float y) {
+        int cx = (int) Math.floor(x / cellSize);
+        int cy = (int) Math.floor(y / cellSize);
+        return ((long) cx << 32) | (cy & 0xFFFFFFFFL);
+    }
+
+    private static int cellX(long key) {
+        return (int) (key >> 32);
+    }
+
+    private static int cellY(long key) {
+        return (int) key;
+    }
+
+    /**
+     * A hash table from cell keys to the nodes in that cell, using open addressing with linear probing. Removal shifts
+     * the entries after the removed one back, such that no tombstones are needed.
+     */
+    private static final class CellTable {
+        private long[] keys = new long[16];
+        private IntList[] values = new IntList[16];
+        private int size = 0;
+
+        /** @return the nodes in the cell of the given key, or null if the cell is empty */
+        IntList get(long key) {
+            int slot = slotOf(key);
+            return values[slot];
+        }
+
+        /** @return the nodes in the cell of the given key, which is created if it is empty */
+        IntList getOrCreate(long key) {
+            int slot = slotOf(key);
+            if (values[slot] == null) {
+                if (2 * (size + 1) > keys.length) {
+                    grow();
+                    slot = slotOf(key);
+                }
+                keys[slot] = key;
+                values[slot] = new IntList(4);
+                size++;
+            }
+            return values[slot];
+        }
+
+        void remove(long key) {
+            int mask = keys.length - 1;
+            int slot = slotOf(key);
+            if (values[slot] == null) return;
+
+            values[slot] = null;
+            size--;
+
+            // move every following entry of the cluster to the free slot, if its home slot allows it
+            int free = slot;
+            int next = (slot + 1) & mask;
+            while (values[next] != null) {
+                int home = hash(keys[next]) & mask;
+                // the entry may move if its home is not in the cyclic range (free, next]
+                if (((next - home) & mask) >= ((next - free) & mask)) {
+                    keys[free] = keys[next];
+                    values[free] = values[next];
+                    values[next] = null;
+                    free = next;
+                }
+                next = (next + 1) & mask;
+            }
+        }
+
+        int size() {
+            return size;
+        }
+
+        /** @return the number of slots, for iterating with {@link #keyAt(int)} and {@link #valueAt(int)} */
+        int capacity() {
+            return keys.length;
+        }
+
+        long keyAt(int slot) {
+            return keys[slot];
+        }
+
+        /** @return the nodes in the given slot, or null if the slot is free */
+        IntList valueAt(int slot) {
+            return values[slot];
+        }
+
+        /** @return the slot holding the given key, or the free slot where it would be inserted */
+        private int slotOf(long key) {
+            int mask = keys.length - 1;
+            int slot = hash(key) & mask;
+            while (values[slot] != null && keys[slot] != key) {
+                slot = (slot + 1) & mask;
+            }
+            return slot;
+        }
+
+        private void grow() {
+            long[] oldKeys = keys;
+            IntList[] oldValues = values;
+            keys = new long[oldKeys.length * 2];
+            values = new IntList[oldKeys.length * 2];
+
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldValues[i] == null) continue;
+                int slot = slotOf(oldKeys[i]);
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+
+        private static int hash(long key) {
+            long mixed = key * 0x9E3779B97F4A7C15L;
+            return (int) (mixed ^ (mixed >>> 32));
+        }
+    }
+}
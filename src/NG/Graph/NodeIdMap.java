@@ -0,0 +1,134 @@
+package NG.Graph;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Interns node names into dense integer ids, in order of first appearance. Names are stored as UTF-8 bytes in a single
+ * pool, such that looking up a name that has been seen before does not allocate. Strings are only created by {@link
+ * #toNames()}, once per unique node.
+ */
+public class NodeIdMap {
+    private static final int EMPTY = -1;
+
+    /** all name bytes, concatenated */
+    private byte[] pool = new byte[1 << 12];
+    private int poolSize = 0;
+    /** start of the name of node i in pool, with nameStart[i + 1] the end */
+    private int[] nameStart = new int[1 << 8];
+    private int[] hashes = new int[1 << 8];
+    private int size = 0;
+
+    /** open addressing table of node ids, with EMPTY for unused slots */
+    private int[] table;
+    private int mask;
+
+    public NodeIdMap() {
+        table = new int[1 << 10];
+        Arrays.fill(table, EMPTY);
+        mask = table.length - 1;
+    }
+
+    /**
+     * returns the id of the name given by the bytes in {@code source[offset ... offset + length]}, adding it if it was
+     * not present yet.
+     * @return the id of the name, which is the number of unique names interned before it was first added.
+     */
+    public int intern(byte[] source, int offset, int length) {
+        int hash = hash(source, offset, length);
+        int slot = hash & mask;
+
+        while (true) {
+            int id = table[slot];
+            if (id == EMPTY) break;
+            if (hashes[id] == hash && equalsName(id, source, offset, length)) return id;
+            slot = (slot + 1) & mask;
+        }
+
+        int id = add(source, offset, length, hash);
+        table[slot] = id;
+
+        // keep the load factor below 0.5
+        if (size * 2 > table.length) rehash();
+        return id;
+    }
+
+    /** @see #intern(byte[], int, int) */
+    public int intern(String name) {
+        byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+        return intern(bytes, 0, bytes.length);
+    }
+
+    /** @return the number of unique names interned */
+    public int size() {
+        return size;
+    }
+
+    /** @return the name of the node with the given id */
+    public String getName(int id) {
+        assert id < size : id;
+        int start = nameStart[id];
+        return new String(pool, start, nameStart[id + 1] - start, StandardCharsets.UTF_8);
+    }
+
+    /** @return an array with the name of node i on index i */
+    public String[] toNames() {
+        String[] names = new String[size];
+        for (int i = 0; i < size; i++) {
+            names[i] = getName(i);
+        }
+        return names;
+    }
+
+    private int add(byte[] source, int offset, int length, int hash) {
+        if (size + 2 > nameStart.length) {
+            nameStart = Arrays.copyOf(nameStart, nameStart.length * 2);
+            hashes = Arrays.copyOf(hashes, hashes.length * 2);
+        }
+        if (poolSize + length > pool.length) {
+            pool = Arrays.copyOf(pool, Math.max(pool.length * 2, poolSize + length));
+        }
+
+        System.arraycopy(source, offset, pool, poolSize, length);
+        int id = size++;
+        hashes[id] = hash;
+        nameStart[id] = poolSize;
+        poolSize += length;
+        nameStart[id + 1] = poolSize;
+        return id;
+    }
+
+    private boolean equalsName(int id, byte[] source, int offset, int length) {
+        int start = nameStart[id];
+        if (nameStart[id + 1] - start != length) return false;
+
+        return Arrays.equals(pool, start, start + length, source, offset, offset + length);
+    }
+
+    private void rehash() {
+        table = new int[table.length * 2];
+        Arrays.fill(table, EMPTY);
+        mask = table.length - 1;
+
+        for (int id = 0; id < size; id++) {
+            int slot = hashes[id] & mask;
+            while (table[slot] != EMPTY) {
+                slot = (slot + 1) & mask;
+            }
+            table[slot] = id;
+        }
+    }
+
+    private static int hash(byte[] source, int offset, int length) {
+        // FNV-1a, followed by a finalizer to spread the lower bits
+        int h = 0x811C9DC5;
+        for (int i = offset; i < offset + length; i++) {
+            h ^= source[i];
+            h *= 0x01000193;
+        }
+        h ^= (h >>> 16);
+        h *= 0x85EBCA6B;
+        h ^= (h >>> 13);
+        return h;
+    }
+}
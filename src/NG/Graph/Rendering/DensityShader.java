@@ -0,0 +1,67 @@
+package NG.Graph.Rendering;
+
+import NG.Core.Main;
+import NG.Rendering.Shaders.AbstractShader;
+import NG.Tools.Directory;
+import org.joml.Vector4f;
+import org.joml.Vector4fc;
+
+import java.io.IOException;
+
+import static org.lwjgl.opengl.GL11.glDepthMask;
+
+/**
+ * Draws a {@link DensityTiles} texture as a single quad in the plane of the layout. Density tiles are not pickable, and
+ * do not write depth, such that they never hide nodes.
+ */
+public class DensityShader extends AbstractShader {
+    /** texture unit where the density texture must be bound */
+    public static final int DENSITY_UNIT = 0;
+    private static final String SHADER_DIR = "density";
+
+    public DensityShader() throws IOException {
+        super(
+                Directory.shaders.getPath(SHADER_DIR, "vertex.vert"),
+                null,
+                Directory.shaders.getPath(SHADER_DIR, "fragment.frag")
+        );
+
+        createUniform("bounds");
+        createUniform("density");
+        createUniform("maxDensity");
+        createUniform("edgeColor");
+        createUniform("doUniqueColor");
+    }
+
+    @Override
+    public void bind() {
+        super.bind();
+        glDepthMask(false);
+    }
+
+    @Override
+    public void unbind() {
+        glDepthMask(true);
+        super.unbind();
+    }
+
+    @Override
+    public void initialize(Main root) {
+        setUniform("density", DENSITY_UNIT);
+    }
+
+    /** sets the area covered by the density map, and the value that is drawn fully opaque */
+    public void setDensityMap(float minX, float minY, float maxX, float maxY, float maxDensity) {
+        setUniform("bounds", new Vector4f(minX, minY, maxX, maxY));
+        setUniform("maxDensity", Math.max(maxDensity, 1f));
+    }
+
+    public void setEdgeColor(Vector4fc color) {
+        setUniform("edgeColor", color);
+    }
+
+    @Override
+    public void setClickShading(boolean setTrue) {
+        setUniform("doUniqueColor", setTrue);
+    }
+}
@@ -0,0 +1,254 @@
+package NG.Graph.Rendering;
+
+import NG.Graph.Graph;
+import NG.Graph.Layout.GraphLayout;
+import NG.Rendering.Mesh;
+import NG.Rendering.Shaders.SGL;
+import NG.Tools.Logger;
+import org.lwjgl.system.MemoryUtil;
+
+import java.nio.FloatBuffer;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.IntStream;
+
+import static org.lwjgl.opengl.GL11.*;
+import static org.lwjgl.opengl.GL12.GL_CLAMP_TO_EDGE;
+import static org.lwjgl.opengl.GL13.GL_TEXTURE0;
+import static org.lwjgl.opengl.GL13.glActiveTexture;
+import static org.lwjgl.opengl.GL30.*;
+
+/**
+ * Aggregates all edges into a grid of tiles, where each tile holds the total length of edges passing through it. The
+ * grid is computed on worker threads whenever the layout changes, and uploaded as a single-channel float texture on the
+ * render thread. Drawing the tiles costs one quad, regardless of the number of edges.
+ * <p>
+ * The source of every edge, a copy of the positions and one grid per worker are allocated once and reused by every
+ * computation, as computations may follow the layout at its full iteration rate.
+ */
+public class DensityTiles implements Mesh {
+    private final Graph graph;
+    private final GraphLayout layout;
+    private final ForkJoinPool workers;
+    private final int resolution;
+    private final AtomicBoolean isComputing = new AtomicBoolean(false);
+    /** the source node of every edge, as the structure of the graph never changes */
+    private final int[] sources;
+    /** the positions of the computation in progress, only accessed while {@link #isComputing} is set */
+    private final float[] positions;
+    /** one grid for every slice of the edges, only accessed while {@link #isComputing} is set */
+    private final float[][] grids;
+
+    private final int texture;
+    private final int vao;
+
+    private volatile Result latest = null;
+    private Result uploaded = null;
+    private int requestedVersion = -1;
+
+    /**
+     * @param layout     the positions of the nodes
+     * @param workers    the threads used to compute the tiles
+     * @param resolution the number of tiles along each axis
+     */
+    public DensityTiles(GraphLayout layout, ForkJoinPool workers, int resolution) {
+        this.graph = layout.getGraph();
+        this.layout = layout;
+        this.workers = workers;
+        this.resolution = resolution;
+        this.sources = graph.edgeSources();
+        this.positions = new float[graph.nodeCount() * GraphLayout.STRIDE];
+        this.grids = new float[workers.getParallelism()][resolution * resolution];
+
+        texture = glGenTextures();
+        glBindTexture(GL_TEXTURE_2D, texture);
+        glTexParameteri(GL_TEXTURE_2D, GL_TEXTURE_MIN_FILTER, GL_LINEAR);
+        glTexParameteri(GL_TEXTURE_2D, GL_TEXTURE_MAG_FILTER, GL_LINEAR);
+        glTexParameteri(GL_TEXTURE_2D, GL_TEXTURE_WRAP_S, GL_CLAMP_TO_EDGE);
+        glTexParameteri(GL_TEXTURE_2D, GL_TEXTURE_WRAP_T, GL_CLAMP_TO_EDGE);
+        glBindTexture(GL_TEXTURE_2D, 0);
+
+        // the quad is generated from gl_VertexID
+        vao = glGenVertexArrays();
+    }
+
+    /**
+     * starts computing new tiles if the layout changed since the last computation, and no computation is running.
+     * Returns immediately.
+     */
+    public void requestUpdate() {
+        if (layout.getVersion() == requestedVersion || !isComputing.compareAndSet(false, true)) return;
+        GraphLayout.Snapshot snapshot = layout.latest();
+        requestedVersion = snapshot.getVersion();
+
+        snapshot.copyPositions(positions);
+
+        workers.execute(() -> {
+            try {
+                latest = compute(graph, sources, positions, grids, resolution);
+            } catch (Exception ex) {
+                Logger.ERROR.print(ex);
+            } finally {
+                isComputing.set(false);
+            }
+        });
+    }
+
+    /**
+     * uploads the most recent tiles if these have not been uploaded yet. Must be called on the render thread.
+     * @return the tiles that are currently in the texture, or null if none have been computed yet
+     */
+    public Result upload() {
+        Result result = latest;
+        if (result != null && result != uploaded) {
+            FloatBuffer buffer = MemoryUtil.memAllocFloat(result.density.length);
+            buffer.put(0, result.density);
+
+            glBindTexture(GL_TEXTURE_2D, texture);
+            glTexImage2D(GL_TEXTURE_2D, 0, GL_R32F, result.resolution, result.resolution, 0, GL_RED, GL_FLOAT, buffer);
+            glBindTexture(GL_TEXTURE_2D, 0);
+
+            MemoryUtil.memFree(buffer);
+            uploaded = result;
+        }
+        return uploaded;
+    }
+
+    @Override
+    public void render(SGL.Painter lock) {
+        glActiveTexture(GL_TEXTURE0 + DensityShader.DENSITY_UNIT);
+        glBindTexture(GL_TEXTURE_2D, texture);
+        glBindVertexArray(vao);
+        glDrawArrays(GL_TRIANGLE_STRIP, 0, 4);
+        glBindVertexArray(0);
+        glBindTexture(GL_TEXTURE_2D, 0);
+    }
+
+    @Override
+    public void dispose() {
+        glDeleteTextures(texture);
+        glDeleteVertexArrays(vao);
+    }
+
+    /**
+     * computes the density tiles of the given graph. The edges are split in one slice per grid, and the slices are
+     * binned in parallel, each into its own grid, after which the grids are summed. When called from a fork-join
+     * worker, the work is executed on the pool of that worker.
+     * @param graph      the graph
+     * @param sources    the source of every edge, as given by {@link Graph#edgeSources()}
+     * @param positions  the position of every node, {@link GraphLayout#STRIDE} floats per node
+     * @param grids      at least one array of {@code resolution * resolution} floats, of which the contents are
+     *                   overwritten
+     * @param resolution the number of tiles along each axis
+     * @return the tiles covering the bounding box of all nodes
+     */
+    static Result compute(Graph graph, int[] sources, float[] positions, float[][] grids, int resolution) {
+        int nrOfNodes = graph.nodeCount();
+        int nrOfEdges = graph.edgeCount();
+
+        float minX = Float.POSITIVE_INFINITY, minY = Float.POSITIVE_INFINITY;
+        float maxX = Float.NEGATIVE_INFINITY, maxY = Float.NEGATIVE_INFINITY;
+        for (int i = 0; i < nrOfNodes; i++) {
+            float x = positions[i * GraphLayout.STRIDE];
+            float y = positions[i * GraphLayout.STRIDE + 1];
+            minX = Math.min(minX, x);
+            minY = Math.min(minY, y);
+            maxX = Math.max(maxX, x);
+            maxY = Math.max(maxY, y);
+        }
+        if (nrOfNodes == 0) {
+            minX = minY = maxX = maxY = 0;
+        }
+
+        // make the area square and slightly larger than the nodes
+        float size = Math.max(Math.max(maxX - minX, maxY - minY), 1f) * 1.01f;
+        float centerX = (minX + maxX) / 2;
+        float centerY = (minY + maxY) / 2;
+        float originX = centerX - size / 2;
+        float originY = centerY - size / 2;
+        float tilesPerUnit = resolution / size;
+
+        int nrOfSlices = grids.length;
+        IntStream.range(0, nrOfSlices).parallel().forEach(slice -> {
+            float[] grid = grids[slice];
+            Arrays.fill(grid, 0);
+
+            int start = (int) ((long) nrOfEdges * slice / nrOfSlices);
+            int end = (int) ((long) nrOfEdges * (slice + 1) / nrOfSlices);
+            for (int e = start; e < end; e++) {
+                int a = sources[e] * GraphLayout.STRIDE;
+                int c = graph.targets[e] * GraphLayout.STRIDE;
+                binSegment(
+                        grid, resolution,
+                        (positions[a] - originX) * tilesPerUnit, (positions[a + 1] - originY) * tilesPerUnit,
+                        (positions[c] - originX) * tilesPerUnit, (positions[c + 1] - originY) * tilesPerUnit
+                );
+            }
+        });
+
+        // the result is read by the render thread while the grids are reused, hence it gets an array of its own
+        float[] density = new float[resolution * resolution];
+        IntStream.range(0, resolution).parallel().forEach(row -> {
+            int end = (row + 1) * resolution;
+            for (float[] grid : grids) {
+                for (int i = row * resolution; i < end; i++) {
+                    density[i] += grid[i];
+                }
+            }
+        });
+
+        float max = 0;
+        for (float value : density) {
+            max = Math.max(max, value);
+        }
+
+        return new Result(density, resolution, originX, originY, originX + size, originY + size, max);
+    }
+
+    /**
+     * adds a line segment in tile coordinates to the grid, by sampling it once per tile length. Each sample adds its
+     * share of the segment length to the tile it falls in.
+     */
+    private static void binSegment(float[] grid, int resolution, float ax, float ay, float cx, float cy) {
+        float dx = cx - ax;
+        float dy = cy - ay;
+        float length = (float) Math.sqrt(dx * dx + dy * dy);
+        int samples = Math.max(1, (int) Math.ceil(length));
+        float weight = Math.max(length, 1f) / samples;
+
+        for (int s = 0; s < samples; s++) {
+            float t = (s + 0.5f) / samples;
+            int x = (int) (ax + dx * t);
+            int y = (int) (ay + dy * t);
+            if (x < 0 || y < 0 || x >= resolution || y >= resolution) continue;
+            grid[y * resolution + x] += weight;
+        }
+    }
+
+    /**
+     * The density of one computation. Tile (x, y) is on index {@code y * resolution + x} and covers the area {@code
+     * [minX + x * size, minY + y * size]} with size {@code (maxX - minX) / resolution}.
+     */
+    public static class Result {
+        public final float[] density;
+        public final int resolution;
+        public final float minX;
+        public final float minY;
+        public final float maxX;
+        public final float maxY;
+        public final float maxDensity;
+
+        Result(
+                float[] density, int resolution, float minX, float minY, float maxX, float maxY, float maxDensity
+        ) {
+            this.density = density;
+            this.resolution = resolution;
+            this.minX = minX;
+            this.minY = minY;
+            this.maxX = maxX;
+            this.maxY = maxY;
+            this.maxDensity = maxDensity;
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package NG.Graph.Rendering;
+
+import NG.Core.Main;
+import NG.Rendering.Shaders.AbstractShader;
+import NG.Settings.Settings;
+import NG.Tools.Directory;
+
+import java.io.IOException;
+
+/**
+ * Draws every edge as an arrow between two nodes. The vertex with index {@code e} is the edge with id {@code e}, and
+ * its end points are read from the node position buffer bound to {@link #NODE_POSITION_UNIT}. The number of sections
+ * of each arrow is chosen by the level of detail.
+ */
+public class EdgeShader extends AbstractShader {
+    /** texture unit where the node positions must be bound as a buffer texture */
+    public static final int NODE_POSITION_UNIT = 0;
+    private static final String SHADER_DIR = "edges";
+    private final LevelOfDetail lod;
+
+    public EdgeShader(LevelOfDetail lod) throws IOException {
+        super(
+                Directory.shaders.getPath(SHADER_DIR, "vertex.vert"),
+                Directory.shaders.getPath(SHADER_DIR, "geometry.glsl"),
+                Directory.shaders.getPath(SHADER_DIR, "fragment.frag")
+        );
+
+        createUniform("nodeRadius");
+        createUniform("edgeSize");
+        createUniform("headSize");
+        createUniform("doUniqueColor");
+        createUniform("doGradient");
+        createUniform("numTailSections");
+        createUniform("numHeadSections");
+        createUniform("edgeIndexOffset");
+        createUniform("nodePositions");
+        this.lod = lod;
+    }
+
+    @Override
+    public void initialize(Main root) {
+        Settings settings = root.settings();
+
+        setUniform("nodeRadius", settings.NODE_RADIUS);
+        setUniform("edgeSize", settings.EDGE_SIZE);
+        setUniform("headSize", settings.HEAD_SIZE);
+        setUniform("doGradient", false);
+        setUniform("numTailSections", lod.getTailSections());
+        setUniform("numHeadSections", lod.getHeadSections());
+        setUniform("nodePositions", NODE_POSITION_UNIT);
+    }
+
+    /**
+     * sets the id of the first edge, such that edges are distinguishable from nodes by the click shader
+     * @param offset the number of ids in use by other elements, usually the number of nodes
+     */
+    public void setEdgeIndexOffset(int offset) {
+        setUniform("edgeIndexOffset", offset);
+    }
+
+    @Override
+    public void setClickShading(boolean setTrue) {
+        setUniform("doUniqueColor", setTrue);
+    }
+}
@@ -0,0 +1,546 @@
+package NG.Graph.Rendering;
+
+import NG.Core.Main;
+import NG.Core.ToolElement;
+import NG.DataStructures.Generic.IntList;
+import NG.Graph.Graph;
+import NG.Graph.Layout.GraphLayout;
+import NG.Rendering.Mesh;
+import NG.Rendering.RenderLoop;
+import NG.Rendering.Shaders.ClickShader;
+import NG.Rendering.Shaders.SGL;
+import NG.Settings.Settings;
+import NG.Tools.Logger;
+import org.joml.Matrix4f;
+import org.joml.Vector4f;
+import org.joml.Vector4fc;
+import org.lwjgl.system.MemoryUtil;
+
+import java.io.IOException;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Supplier;
+
+import static org.lwjgl.opengl.GL11.*;
+import static org.lwjgl.opengl.GL13.GL_TEXTURE0;
+import static org.lwjgl.opengl.GL13.glActiveTexture;
+import static org.lwjgl.opengl.GL15.*;
+import static org.lwjgl.opengl.GL20.*;
+import static org.lwjgl.opengl.GL30.*;
+import static org.lwjgl.opengl.GL31.GL_TEXTURE_BUFFER;
+import static org.lwjgl.opengl.GL31.glDrawArraysInstanced;
+import static org.lwjgl.opengl.GL31.glTexBuffer;
+import static org.lwjgl.opengl.GL33.glVertexAttribDivisor;
+
+/**
+ * Renders the currently opened graph. Node {@code i} is drawn as vertex {@code i}, and edge {@code e} as vertex {@code
+ * e} of the edge pass with an index offset of {@code nodeCount}, such that the result of {@link
+ * RenderLoop#getClickShaderResult()} is a node id when it is in [0, nodeCount), and {@code nodeCount} plus an edge id
+ * when it is in [nodeCount, nodeCount + edgeCount).
+ * <p>
+ * When zoomed out such that nodes are only a few pixels large, nodes are drawn as point sprites, and edges are replaced
+ * by {@link DensityTiles}. See {@link LevelOfDetail}.
+ * <p>
+ * Only nodes and edges within the view frustum are drawn. Their ids are compacted into an index buffer, which keeps
+ * {@code gl_VertexID} equal to the id of the element. See {@link VisibilityCulling}.
+ * <p>
+ * If {@link Settings#INSTANCED_RENDERING} is set, nodes and edges are drawn as instances by {@link InstancedNodeShader}
+ * and {@link InstancedEdgeShader} instead of being expanded by geometry shaders. The same index buffers then provide
+ * the element id of every instance. The setting is read every frame.
+ */
+public class GraphRenderer implements ToolElement {
+    private static final int BORDER_LOCATION = 2;
+    private static final int EDGE_COLOR_LOCATION = 3;
+    private static final Vector4fc EDGE_COLOR = new Vector4f(0.2f, 0.2f, 0.2f, 0.8f);
+    private static final int NODE_LAYER = 0;
+    private static final int DETAIL_LAYER = 1;
+    private static final int OVERLAY_LAYER = 2;
+
+    private final LevelOfDetail lod = new LevelOfDetail();
+    private VisibilityCulling culling = new VisibilityCulling();
+    private Main root;
+    private NodeShader nodeShader;
+    private EdgeShader edgeShader;
+    private PointShader pointShader;
+    private DensityShader densityShader;
+    private InstancedNodeShader instancedNodeShader;
+    private InstancedEdgeShader instancedEdgeShader;
+    private ForkJoinPool workers;
+    private Supplier<String> hoverPrint;
+    /** incremented whenever the graph is replaced */
+    private volatile int graphVersion = 0;
+
+    /** only accessed on the render thread */
+    private NodeMesh nodes = null;
+    private EdgeMesh edges = null;
+    private DensityTiles densityTiles = null;
+    private InstancedNodes instancedNodes = null;
+    private InstancedEdges instancedEdges = null;
+
+    @Override
+    public void init(Main root) throws IOException {
+        if (this.root != null) return;
+        this.root = root;
+
+        nodeShader = new NodeShader(lod);
+        edgeShader = new EdgeShader(lod);
+        pointShader = new PointShader(lod);
+        densityShader = new DensityShader();
+        instancedNodeShader = new InstancedNodeShader();
+        instancedEdgeShader = new InstancedEdgeShader(lod);
+        workers = new ForkJoinPool(root.settings().NUM_WORKER_THREADS);
+    }
+
+    /**
+     * adds the render sequences of nodes and edges to the given render loop. Nodes are drawn before the edges, such
+     * that edges do not overlap nodes. The node shader must be in the first layer, as it updates the level of detail.
+     * Density tiles do not write depth, and are drawn last.
+     */
+    public void addTo(RenderLoop renderLoop) {
+        renderLoop.renderSequence(nodeShader).setLayer(NODE_LAYER).add(this::drawNodes);
+        renderLoop.renderSequence(instancedNodeShader).setLayer(NODE_LAYER).add(this::drawInstancedNodes);
+        renderLoop.renderSequence(pointShader).setLayer(DETAIL_LAYER).add(this::drawPoints);
+        renderLoop.renderSequence(edgeShader).setLayer(DETAIL_LAYER).add(this::drawEdges);
+        renderLoop.renderSequence(instancedEdgeShader).setLayer(DETAIL_LAYER).add(this::drawInstancedEdges);
+        renderLoop.renderSequence(densityShader).setLayer(OVERLAY_LAYER).add(this::drawDensity);
+
+        renderLoop.addSceneVersion(this::getSceneVersion);
+
+        hoverPrint = () -> describe(renderLoop.getClickShaderResult());
+        Logger.printOnline(hoverPrint);
+    }
+
+    /**
+     * replaces the displayed graph. Must be called on the render thread.
+     * @param layout the layout of the new graph, or null to clear the display
+     */
+    public void setGraph(GraphLayout layout) {
+        if (nodes != null) {
+            instancedNodes.dispose();
+            instancedEdges.dispose();
+            nodes.dispose();
+            edges.dispose();
+            densityTiles.dispose();
+            nodes = null;
+            edges = null;
+            densityTiles = null;
+            instancedNodes = null;
+            instancedEdges = null;
+        }
+        graphVersion++;
+        if (layout == null) return;
+
+        Graph graph = layout.getGraph();
+        if ((long) graph.nodeCount() + graph.edgeCount() > ClickShader.MAX_VALUE) {
+            Logger.WARN.print(String.format(
+                    "%s has more elements than can be picked; elements after id %d cannot be selected",
+                    graph, ClickShader.MAX_VALUE - 1
+            ));
+        }
+
+        nodes = new NodeMesh(layout);
+        edges = new EdgeMesh(layout.getGraph(), nodes);
+        culling = new VisibilityCulling();
+        densityTiles = new DensityTiles(layout, workers, root.settings().LOD_DENSITY_RESOLUTION);
+        instancedNodes = new InstancedNodes(nodes);
+        instancedEdges = new InstancedEdges(edges);
+    }
+
+    private void drawNodes(SGL gl, Main root) {
+        if (nodes == null) return;
+        // also update positions when drawing points, as the edges use the node positions
+        nodes.update();
+
+        Matrix4f viewProjection = root.camera().getViewProjection(root.window());
+        boolean withEdges = !lod.isFar();
+        if (culling.update(viewProjection, nodes.layout, root.settings().NODE_RADIUS, withEdges)) {
+            nodes.setVisible(culling.getVisibleNodes());
+            if (withEdges) edges.setVisible(culling.getVisibleEdges());
+        }
+
+        if (lod.isFar() || root.settings().INSTANCED_RENDERING) return;
+        gl.render(nodes);
+    }
+
+    private void drawInstancedNodes(SGL gl, Main root) {
+        if (nodes == null || lod.isFar() || !root.settings().INSTANCED_RENDERING) return;
+        gl.render(instancedNodes);
+    }
+
+    private void drawPoints(SGL gl, Main root) {
+        if (nodes == null || !lod.isFar()) return;
+        gl.render(nodes);
+    }
+
+    private void drawEdges(SGL gl, Main root) {
+        if (edges == null || lod.isFar() || root.settings().INSTANCED_RENDERING) return;
+        edgeShader.setEdgeIndexOffset(nodes.nrOfNodes);
+        gl.render(edges);
+    }
+
+    private void drawInstancedEdges(SGL gl, Main root) {
+        if (edges == null || lod.isFar() || !root.settings().INSTANCED_RENDERING) return;
+        instancedEdgeShader.setEdgeIndexOffset(nodes.nrOfNodes);
+        instancedEdges.verticesPerEdge = instancedEdgeShader.getVerticesPerEdge();
+        gl.render(instancedEdges);
+    }
+
+    private void drawDensity(SGL gl, Main root) {
+        if (densityTiles == null || !lod.isFar()) return;
+        densityTiles.requestUpdate();
+
+        DensityTiles.Result tiles = densityTiles.upload();
+        if (tiles == null) return;
+
+        densityShader.setDensityMap(tiles.minX, tiles.minY, tiles.maxX, tiles.maxY, tiles.maxDensity);
+        densityShader.setEdgeColor(EDGE_COLOR);
+        gl.render(densityTiles);
+    }
+
+    /** @return a number that changes whenever the displayed graph or its layout changes */
+    private int getSceneVersion() {
+        NodeMesh current = nodes;
+        int layoutVersion = current == null ? 0 : current.layout.getVersion();
+        return 31 * graphVersion + layoutVersion;
+    }
+
+    /** @return a description of the element with the given click shader id */
+    private String describe(int id) {
+        Graph graph = root.graph();
+        if (graph == null || id < 0) return "";
+
+        int nrOfNodes = graph.nodeCount();
+        if (id < nrOfNodes) return "Node " + graph.getLabel(id);
+
+        int edge = id - nrOfNodes;
+        if (edge < graph.edgeCount()) {
+            return "Edge " + graph.getLabel(graph.sourceOf(edge)) + " -> " + graph.getLabel(graph.targetOf(edge));
+        }
+        return "";
+    }
+
+    @Override
+    public void cleanup() {
+        setGraph(null);
+        if (hoverPrint != null) Logger.removeOnlinePrint(hoverPrint);
+        nodeShader.cleanup();
+        edgeShader.cleanup();
+        pointShader.cleanup();
+        densityShader.cleanup();
+        instancedNodeShader.cleanup();
+        instancedEdgeShader.cleanup();
+        workers.shutdown();
+    }
+
+    /**
+     * The positions and colors of all nodes. The position buffer doubles as a buffer texture, such that the edge shader
+     * can look up the positions of its end points by node id.
+     */
+    private static class NodeMesh implements Mesh {
+        private final GraphLayout layout;
+        private final Graph graph;
+        private final int nrOfNodes;
+        private final int vao;
+        private final int positionVBO;
+        private final int colorVBO;
+        private final int positionTexture;
+        private final int colorTexture;
+        private final IndexBuffer visible;
+        /** staging memory for uploads, kept for the lifetime of the mesh as positions change every frame */
+        private final FloatBuffer positionStaging;
+        private final IntBuffer colorStaging;
+        private int layoutVersion = -1;
+        private int colorVersion = -1;
+
+        NodeMesh(GraphLayout layout) {
+            this.layout = layout;
+            this.graph = layout.getGraph();
+            this.nrOfNodes = graph.nodeCount();
+
+            vao = glGenVertexArrays();
+            glBindVertexArray(vao);
+
+            positionVBO = glGenBuffers();
+            glBindBuffer(GL_ARRAY_BUFFER, positionVBO);
+            glBufferData(GL_ARRAY_BUFFER, (long) nrOfNodes * GraphLayout.STRIDE * Float.BYTES, GL_DYNAMIC_DRAW);
+            glVertexAttribPointer(0, 3, GL_FLOAT, false, GraphLayout.STRIDE * Float.BYTES, 0);
+            glEnableVertexAttribArray(0);
+
+            colorVBO = glGenBuffers();
+            glBindBuffer(GL_ARRAY_BUFFER, colorVBO);
+            glBufferData(GL_ARRAY_BUFFER, (long) nrOfNodes * Integer.BYTES, GL_DYNAMIC_DRAW);
+            glVertexAttribPointer(1, 4, GL_UNSIGNED_BYTE, true, 0, 0);
+            glEnableVertexAttribArray(1);
+
+            visible = new IndexBuffer();
+            positionStaging = MemoryUtil.memAllocFloat(nrOfNodes * GraphLayout.STRIDE);
+            colorStaging = MemoryUtil.memAllocInt(nrOfNodes);
+
+            glBindBuffer(GL_ARRAY_BUFFER, 0);
+            glBindVertexArray(0);
+
+            positionTexture = glGenTextures();
+            glBindTexture(GL_TEXTURE_BUFFER, positionTexture);
+            glTexBuffer(GL_TEXTURE_BUFFER, GL_RGBA32F, positionVBO);
+
+            colorTexture = glGenTextures();
+            glBindTexture(GL_TEXTURE_BUFFER, colorTexture);
+            glTexBuffer(GL_TEXTURE_BUFFER, GL_RGBA8, colorVBO);
+            glBindTexture(GL_TEXTURE_BUFFER, 0);
+        }
+
+        /** uploads positions and colors that have changed since the last call */
+        void update() {
+            GraphLayout.Snapshot snapshot = layout.latest();
+            if (snapshot.getVersion() != layoutVersion) {
+                layoutVersion = snapshot.getVersion();
+                snapshot.copyPositions(positionStaging);
+                glBindBuffer(GL_ARRAY_BUFFER, positionVBO);
+                glBufferSubData(GL_ARRAY_BUFFER, 0, positionStaging);
+            }
+
+            int newColorVersion = graph.getColorVersion();
+            if (newColorVersion != colorVersion) {
+                colorVersion = newColorVersion;
+                colorStaging.put(0, graph.nodeColors);
+                glBindBuffer(GL_ARRAY_BUFFER, colorVBO);
+                glBufferSubData(GL_ARRAY_BUFFER, 0, colorStaging);
+            }
+
+            glBindBuffer(GL_ARRAY_BUFFER, 0);
+        }
+
+        @Override
+        public void render(SGL.Painter lock) {
+            glVertexAttrib4f(BORDER_LOCATION, 0, 0, 0, 1);
+            glBindVertexArray(vao);
+            visible.draw();
+            glBindVertexArray(0);
+        }
+
+        void setVisible(IntList nodes) {
+            glBindVertexArray(vao);
+            visible.upload(nodes);
+            glBindVertexArray(0);
+        }
+
+        @Override
+        public void dispose() {
+            visible.dispose();
+            glDeleteTextures(positionTexture);
+            glDeleteTextures(colorTexture);
+            glDeleteBuffers(positionVBO);
+            glDeleteBuffers(colorVBO);
+            glDeleteVertexArrays(vao);
+            MemoryUtil.memFree(positionStaging);
+            MemoryUtil.memFree(colorStaging);
+        }
+    }
+
+    /**
+     * The source and target node id of every edge, in order of edge id
+     */
+    private static class EdgeMesh implements Mesh {
+        private final NodeMesh nodes;
+        private final int vao;
+        private final int sourceVBO;
+        private final int targetVBO;
+        private final int sourceTexture;
+        private final int targetTexture;
+        private final IndexBuffer visible;
+
+        EdgeMesh(Graph graph, NodeMesh nodes) {
+            this.nodes = nodes;
+
+            vao = glGenVertexArrays();
+            glBindVertexArray(vao);
+
+            sourceVBO = glGenBuffers();
+            glBindBuffer(GL_ARRAY_BUFFER, sourceVBO);
+            glBufferData(GL_ARRAY_BUFFER, graph.edgeSources(), GL_STATIC_DRAW);
+            glVertexAttribIPointer(0, 1, GL_INT, 0, 0);
+            glEnableVertexAttribArray(0);
+
+            targetVBO = glGenBuffers();
+            glBindBuffer(GL_ARRAY_BUFFER, targetVBO);
+            glBufferData(GL_ARRAY_BUFFER, graph.targets, GL_STATIC_DRAW);
+            glVertexAttribIPointer(1, 1, GL_INT, 0, 0);
+            glEnableVertexAttribArray(1);
+
+            visible = new IndexBuffer();
+
+            glBindBuffer(GL_ARRAY_BUFFER, 0);
+            glBindVertexArray(0);
+
+            sourceTexture = glGenTextures();
+            glBindTexture(GL_TEXTURE_BUFFER, sourceTexture);
+            glTexBuffer(GL_TEXTURE_BUFFER, GL_R32I, sourceVBO);
+
+            targetTexture = glGenTextures();
+            glBindTexture(GL_TEXTURE_BUFFER, targetTexture);
+            glTexBuffer(GL_TEXTURE_BUFFER, GL_R32I, targetVBO);
+            glBindTexture(GL_TEXTURE_BUFFER, 0);
+        }
+
+        @Override
+        public void render(SGL.Painter lock) {
+            glVertexAttrib4f(EDGE_COLOR_LOCATION, EDGE_COLOR.x(), EDGE_COLOR.y(), EDGE_COLOR.z(), EDGE_COLOR.w());
+            glActiveTexture(GL_TEXTURE0 + EdgeShader.NODE_POSITION_UNIT);
+            glBindTexture(GL_TEXTURE_BUFFER, nodes.positionTexture);
+
+            glBindVertexArray(vao);
+            visible.draw();
+            glBindVertexArray(0);
+
+            glBindTexture(GL_TEXTURE_BUFFER, 0);
+        }
+
+        void setVisible(IntList edges) {
+            glBindVertexArray(vao);
+            visible.upload(edges);
+            glBindVertexArray(0);
+        }
+
+        @Override
+        public void dispose() {
+            visible.dispose();
+            glDeleteTextures(sourceTexture);
+            glDeleteTextures(targetTexture);
+            glDeleteBuffers(sourceVBO);
+            glDeleteBuffers(targetVBO);
+            glDeleteVertexArrays(vao);
+        }
+    }
+
+    /**
+     * The visible nodes of a {@link NodeMesh} as instances of a quad, for the {@link InstancedNodeShader}
+     */
+    private static class InstancedNodes implements Mesh {
+        private final NodeMesh nodes;
+        private final int vao;
+
+        InstancedNodes(NodeMesh nodes) {
+            this.nodes = nodes;
+            vao = glGenVertexArrays();
+            glBindVertexArray(vao);
+            nodes.visible.bindAsInstanceAttribute(0);
+            glBindVertexArray(0);
+        }
+
+        @Override
+        public void render(SGL.Painter lock) {
+            glVertexAttrib4f(BORDER_LOCATION, 0, 0, 0, 1);
+            glActiveTexture(GL_TEXTURE0 + InstancedNodeShader.NODE_POSITION_UNIT);
+            glBindTexture(GL_TEXTURE_BUFFER, nodes.positionTexture);
+            glActiveTexture(GL_TEXTURE0 + InstancedNodeShader.NODE_COLOR_UNIT);
+            glBindTexture(GL_TEXTURE_BUFFER, nodes.colorTexture);
+
+            glBindVertexArray(vao);
+            glDrawArraysInstanced(GL_TRIANGLE_STRIP, 0, InstancedNodeShader.VERTICES_PER_NODE, nodes.visible.count);
+            glBindVertexArray(0);
+
+            glBindTexture(GL_TEXTURE_BUFFER, 0);
+            glActiveTexture(GL_TEXTURE0 + InstancedNodeShader.NODE_POSITION_UNIT);
+            glBindTexture(GL_TEXTURE_BUFFER, 0);
+        }
+
+        @Override
+        public void dispose() {
+            glDeleteVertexArrays(vao);
+        }
+    }
+
+    /**
+     * The visible edges of an {@link EdgeMesh} as instances of an arrow, for the {@link InstancedEdgeShader}
+     */
+    private static class InstancedEdges implements Mesh {
+        private final EdgeMesh edges;
+        private final int vao;
+        /** the number of vertices of every instance, which depends on the level of detail */
+        private int verticesPerEdge = 0;
+
+        InstancedEdges(EdgeMesh edges) {
+            this.edges = edges;
+            vao = glGenVertexArrays();
+            glBindVertexArray(vao);
+            edges.visible.bindAsInstanceAttribute(0);
+            glBindVertexArray(0);
+        }
+
+        @Override
+        public void render(SGL.Painter lock) {
+            glVertexAttrib4f(EDGE_COLOR_LOCATION, EDGE_COLOR.x(), EDGE_COLOR.y(), EDGE_COLOR.z(), EDGE_COLOR.w());
+            glActiveTexture(GL_TEXTURE0 + InstancedEdgeShader.NODE_POSITION_UNIT);
+            glBindTexture(GL_TEXTURE_BUFFER, edges.nodes.positionTexture);
+            glActiveTexture(GL_TEXTURE0 + InstancedEdgeShader.EDGE_SOURCE_UNIT);
+            glBindTexture(GL_TEXTURE_BUFFER, edges.sourceTexture);
+            glActiveTexture(GL_TEXTURE0 + InstancedEdgeShader.EDGE_TARGET_UNIT);
+            glBindTexture(GL_TEXTURE_BUFFER, edges.targetTexture);
+
+            glBindVertexArray(vao);
+            glDrawArraysInstanced(GL_TRIANGLE_STRIP, 0, verticesPerEdge, edges.visible.count);
+            glBindVertexArray(0);
+
+            glBindTexture(GL_TEXTURE_BUFFER, 0);
+            glActiveTexture(GL_TEXTURE0 + InstancedEdgeShader.EDGE_SOURCE_UNIT);
+            glBindTexture(GL_TEXTURE_BUFFER, 0);
+            glActiveTexture(GL_TEXTURE0 + InstancedEdgeShader.NODE_POSITION_UNIT);
+            glBindTexture(GL_TEXTURE_BUFFER, 0);
+        }
+
+        @Override
+        public void dispose() {
+            glDeleteVertexArrays(vao);
+        }
+    }
+
+    /**
+     * An element array buffer of element ids, which must be created and uploaded while the vertex array object it
+     * belongs to is bound. The buffer storage is reused as long as it is large enough.
+     */
+    private static class IndexBuffer {
+        private final int ibo;
+        private int capacity = 0;
+        private int count = 0;
+
+        IndexBuffer() {
+            ibo = glGenBuffers();
+            glBindBuffer(GL_ELEMENT_ARRAY_BUFFER, ibo);
+        }
+
+        void upload(IntList indices) {
+            count = indices.size();
+            glBindBuffer(GL_ELEMENT_ARRAY_BUFFER, ibo);
+            if (count > capacity) {
+                capacity = Math.max(count, capacity + (capacity >> 1));
+                glBufferData(GL_ELEMENT_ARRAY_BUFFER, (long) capacity * Integer.BYTES, GL_STREAM_DRAW);
+            }
+
+            IntBuffer buffer = MemoryUtil.memAllocInt(count);
+            buffer.put(0, indices.backingArray(), 0, count);
+            glBufferSubData(GL_ELEMENT_ARRAY_BUFFER, 0, buffer);
+            MemoryUtil.memFree(buffer);
+        }
+
+        void draw() {
+            glDrawElements(GL_POINTS, count, GL_UNSIGNED_INT, 0);
+        }
+
+        /**
+         * uses the ids in this buffer as a per-instance integer attribute of the currently bound vertex array object
+         * @param location the attribute location
+         */
+        void bindAsInstanceAttribute(int location) {
+            glBindBuffer(GL_ARRAY_BUFFER, ibo);
+            glVertexAttribIPointer(location, 1, GL_INT, 0, 0);
+            glVertexAttribDivisor(location, 1);
+            glEnableVertexAttribArray(location);
+            glBindBuffer(GL_ARRAY_BUFFER, 0);
+        }
+
+        void dispose() {
+            glDeleteBuffers(ibo);
+        }
+    }
+}
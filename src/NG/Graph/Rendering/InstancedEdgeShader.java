@@ -0,0 +1,75 @@
+package NG.Graph.Rendering;
+
+import NG.Core.Main;
+import NG.Rendering.Shaders.AbstractShader;
+import NG.Settings.Settings;
+import NG.Tools.Directory;
+
+import java.io.IOException;
+
+/**
+ * Draws every edge as an instanced triangle strip in the shape of an arrow. This is an alternative to the {@link
+ * EdgeShader} that avoids geometry shaders. Instance {@code i} reads its edge id from the per-instance attribute, and
+ * looks up its end points in buffer textures. Every instance has {@link #getVerticesPerEdge()} vertices.
+ */
+public class InstancedEdgeShader extends AbstractShader {
+    /** texture unit where the node positions must be bound as a buffer texture */
+    public static final int NODE_POSITION_UNIT = 0;
+    /** texture unit where the source node of every edge must be bound as an integer buffer texture */
+    public static final int EDGE_SOURCE_UNIT = 1;
+    /** texture unit where the target node of every edge must be bound as an integer buffer texture */
+    public static final int EDGE_TARGET_UNIT = 2;
+    private static final String SHADER_DIR = "instanced_edges";
+    private final LevelOfDetail lod;
+
+    public InstancedEdgeShader(LevelOfDetail lod) throws IOException {
+        super(
+                Directory.shaders.getPath(SHADER_DIR, "vertex.vert"),
+                null,
+                Directory.shaders.getPath("edges", "fragment.frag")
+        );
+
+        createUniform("nodeRadius");
+        createUniform("edgeSize");
+        createUniform("headSize");
+        createUniform("doUniqueColor");
+        createUniform("doGradient");
+        createUniform("numTailSections");
+        createUniform("numHeadSections");
+        createUniform("edgeIndexOffset");
+        createUniform("nodePositions");
+        createUniform("edgeSources");
+        createUniform("edgeTargets");
+        this.lod = lod;
+    }
+
+    @Override
+    public void initialize(Main root) {
+        Settings settings = root.settings();
+
+        setUniform("nodeRadius", settings.NODE_RADIUS);
+        setUniform("edgeSize", settings.EDGE_SIZE);
+        setUniform("headSize", settings.HEAD_SIZE);
+        setUniform("doGradient", false);
+        setUniform("numTailSections", lod.getTailSections());
+        setUniform("numHeadSections", lod.getHeadSections());
+        setUniform("nodePositions", NODE_POSITION_UNIT);
+        setUniform("edgeSources", EDGE_SOURCE_UNIT);
+        setUniform("edgeTargets", EDGE_TARGET_UNIT);
+    }
+
+    /** @return the number of vertices of the triangle strip of one edge, at the current level of detail */
+    public int getVerticesPerEdge() {
+        return 2 * (lod.getTailSections() + lod.getHeadSections() + 1) + 1;
+    }
+
+    /** @see EdgeShader#setEdgeIndexOffset(int) */
+    public void setEdgeIndexOffset(int offset) {
+        setUniform("edgeIndexOffset", offset);
+    }
+
+    @Override
+    public void setClickShading(boolean setTrue) {
+        setUniform("doUniqueColor", setTrue);
+    }
+}
@@ -0,0 +1,47 @@
+package NG.Graph.Rendering;
+
+import NG.Core.Main;
+import NG.Rendering.Shaders.AbstractShader;
+import NG.Tools.Directory;
+
+import java.io.IOException;
+
+/**
+ * Draws every node as an instanced quad, on which the fragment shader cuts out a circle with a border. This is an
+ * alternative to the {@link NodeShader} that avoids geometry shaders. Instance {@code i} reads its node id from the
+ * per-instance attribute, and looks up position and color in buffer textures.
+ */
+public class InstancedNodeShader extends AbstractShader {
+    /** texture unit where the node positions must be bound as a buffer texture */
+    public static final int NODE_POSITION_UNIT = 0;
+    /** texture unit where the node colors must be bound as a buffer texture */
+    public static final int NODE_COLOR_UNIT = 1;
+    /** number of vertices of every instance */
+    public static final int VERTICES_PER_NODE = 4;
+    private static final String SHADER_DIR = "instanced_nodes";
+
+    public InstancedNodeShader() throws IOException {
+        super(
+                Directory.shaders.getPath(SHADER_DIR, "vertex.vert"),
+                null,
+                Directory.shaders.getPath(SHADER_DIR, "fragment.frag")
+        );
+
+        createUniform("nodeRadius");
+        createUniform("doUniqueColor");
+        createUniform("nodePositions");
+        createUniform("nodeColors");
+    }
+
+    @Override
+    public void initialize(Main root) {
+        setUniform("nodeRadius", root.settings().NODE_RADIUS);
+        setUniform("nodePositions", NODE_POSITION_UNIT);
+        setUniform("nodeColors", NODE_COLOR_UNIT);
+    }
+
+    @Override
+    public void setClickShading(boolean setTrue) {
+        setUniform("doUniqueColor", setTrue);
+    }
+}
@@ -0,0 +1,98 @@
+package NG.Graph.Rendering;
+
+import NG.Camera.Camera;
+import NG.Core.Main;
+import NG.Rendering.GLFWWindow;
+import NG.Settings.Settings;
+import org.joml.Matrix4f;
+import org.joml.Matrix4fc;
+
+/**
+ * Chooses how detailed nodes and edges are drawn, based on the size of a node on screen. Nearby nodes are drawn as
+ * 16-sided circles with full arrows. As the camera moves away, circles get fewer sides and arrows fewer sections, until
+ * nodes are drawn as point sprites and edges are aggregated into density tiles.
+ * <p>
+ * {@link #update(Main)} must be called once per frame before the values are read.
+ */
+public class LevelOfDetail {
+    private final Matrix4f projection = new Matrix4f();
+
+    private float nodePixelRadius = Float.POSITIVE_INFINITY;
+    private boolean isFar = false;
+    private int nodeSegments = 16;
+    private int tailSections = 1;
+    private int headSections = 1;
+
+    /** recomputes the level of detail from the current camera and window */
+    public void update(Main root) {
+        Settings settings = root.settings();
+        Camera camera = root.camera();
+        long windowSize = root.window().getSize();
+        int height = GLFWWindow.heightOf(windowSize);
+        float ratio = (float) GLFWWindow.widthOf(windowSize) / height;
+
+        camera.getProjectionMatrix(ratio, projection);
+        float distance = camera.vectorToFocus().length();
+        nodePixelRadius = projectedSize(
+                settings.NODE_RADIUS, projection, camera.isIsometric(), distance, height
+        );
+
+        isFar = nodePixelRadius < settings.LOD_POINT_RADIUS_PIXELS;
+        nodeSegments = circleSegments(nodePixelRadius);
+        tailSections = sections(nodePixelRadius, settings.EDGE_TAIL_SECTIONS);
+        headSections = sections(nodePixelRadius, settings.EDGE_HEAD_SECTIONS);
+    }
+
+    /**
+     * computes the size in pixels of an object at the focus of the camera.
+     * @param worldSize    the size of the object in world units
+     * @param projection   the projection matrix of the camera
+     * @param isIsometric  whether the projection is orthographic
+     * @param distance     the distance from the camera to the object
+     * @param windowHeight the height of the viewport in pixels
+     * @return the size of the object in pixels
+     */
+    public static float projectedSize(
+            float worldSize, Matrix4fc projection, boolean isIsometric, float distance, int windowHeight
+    ) {
+        // m11 maps view space y to clip space, where the viewport spans 2 units
+        float pixelsPerUnit = projection.m11() * windowHeight * 0.5f;
+        if (!isIsometric) pixelsPerUnit /= distance;
+        return worldSize * pixelsPerUnit;
+    }
+
+    /** @return the number of sides to draw a circle with the given radius in pixels, a divisor of 16 */
+    public static int circleSegments(float pixelRadius) {
+        if (pixelRadius >= 12) return 16;
+        if (pixelRadius >= 5) return 8;
+        return 4;
+    }
+
+    /** @return the number of sections for an arrow part, for nodes with the given radius in pixels */
+    public static int sections(float pixelRadius, int maximum) {
+        int sections = (int) (pixelRadius / 3);
+        return Math.max(1, Math.min(sections, maximum));
+    }
+
+    /** @return the radius of a node in pixels */
+    public float getNodePixelRadius() {
+        return nodePixelRadius;
+    }
+
+    /** @return true if nodes should be drawn as points, and edges as density tiles */
+    public boolean isFar() {
+        return isFar;
+    }
+
+    public int getNodeSegments() {
+        return nodeSegments;
+    }
+
+    public int getTailSections() {
+        return tailSections;
+    }
+
+    public int getHeadSections() {
+        return headSections;
+    }
+}
@@ -0,0 +1,42 @@
+package NG.Graph.Rendering;
+
+import NG.Core.Main;
+import NG.Rendering.Shaders.AbstractShader;
+import NG.Tools.Directory;
+
+import java.io.IOException;
+
+/**
+ * Draws every node as a filled circle with a border. The vertex with index {@code i} is the node with id {@code i}.
+ * The number of sides of the circle is chosen by the level of detail, which is updated when this shader is
+ * initialized.
+ */
+public class NodeShader extends AbstractShader {
+    private static final String SHADER_DIR = "nodes";
+    private final LevelOfDetail lod;
+
+    public NodeShader(LevelOfDetail lod) throws IOException {
+        super(
+                Directory.shaders.getPath(SHADER_DIR, "vertex.vert"),
+                Directory.shaders.getPath(SHADER_DIR, "geometry.glsl"),
+                Directory.shaders.getPath(SHADER_DIR, "fragment.frag")
+        );
+
+        createUniform("nodeRadius");
+        createUniform("doUniqueColor");
+        createUniform("nodeSegments");
+        this.lod = lod;
+    }
+
+    @Override
+    public void initialize(Main root) {
+        lod.update(root);
+        setUniform("nodeRadius", root.settings().NODE_RADIUS);
+        setUniform("nodeSegments", lod.getNodeSegments());
+    }
+
+    @Override
+    public void setClickShading(boolean setTrue) {
+        setUniform("doUniqueColor", setTrue);
+    }
+}
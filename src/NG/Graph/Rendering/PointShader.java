@@ -0,0 +1,59 @@
+package NG.Graph.Rendering;
+
+import NG.Core.Main;
+import NG.Rendering.Shaders.AbstractShader;
+import NG.Tools.Directory;
+
+import java.io.IOException;
+
+import static org.lwjgl.opengl.GL11.glDisable;
+import static org.lwjgl.opengl.GL11.glEnable;
+import static org.lwjgl.opengl.GL32.GL_PROGRAM_POINT_SIZE;
+
+/**
+ * Draws every node as a single point sprite, for when nodes are only a few pixels large. Uses the same vertex layout
+ * and ids as the {@link NodeShader}.
+ */
+public class PointShader extends AbstractShader {
+    private static final String SHADER_DIR = "points";
+    /** points smaller than this are drawn as squares */
+    private static final float MIN_ROUND_SIZE = 3f;
+    private final LevelOfDetail lod;
+
+    public PointShader(LevelOfDetail lod) throws IOException {
+        super(
+                Directory.shaders.getPath(SHADER_DIR, "vertex.vert"),
+                null,
+                Directory.shaders.getPath(SHADER_DIR, "fragment.frag")
+        );
+
+        createUniform("pointSize");
+        createUniform("doRound");
+        createUniform("doUniqueColor");
+        this.lod = lod;
+    }
+
+    @Override
+    public void bind() {
+        super.bind();
+        glEnable(GL_PROGRAM_POINT_SIZE);
+    }
+
+    @Override
+    public void unbind() {
+        glDisable(GL_PROGRAM_POINT_SIZE);
+        super.unbind();
+    }
+
+    @Override
+    public void initialize(Main root) {
+        float size = Math.max(1f, 2 * lod.getNodePixelRadius());
+        setUniform("pointSize", size);
+        setUniform("doRound", size >= MIN_ROUND_SIZE);
+    }
+
+    @Override
+    public void setClickShading(boolean setTrue) {
+        setUniform("doUniqueColor", setTrue);
+    }
+}
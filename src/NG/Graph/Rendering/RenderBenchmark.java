@@ -0,0 +1,81 @@
+package NG.Graph.Rendering;
+
+import NG.Core.Main;
+import NG.Rendering.RenderLoop;
+import NG.Settings.Settings;
+import NG.Tools.Logger;
+
+import static org.lwjgl.opengl.GL11.glFinish;
+
+/**
+ * Compares the frame times of the geometry shader path and the instanced path of the {@link GraphRenderer}. Each path
+ * is rendered for a fixed number of frames without frame limit, waiting for the GPU at the end of every frame, after
+ * which the average frame times are logged and the render loop is stopped. To measure on Mesa's software rasterizer,
+ * run with the environment variable {@code LIBGL_ALWAYS_SOFTWARE=1}.
+ * <p>
+ * When nodes are far enough away to be drawn as points, both paths draw the same, and the results are equal.
+ */
+public class RenderBenchmark {
+    private static final String[] PATH_NAMES = {"Geometry shaders", "Instanced"};
+    private static final int WARMUP_FRAMES = 30;
+    private static final int UNLIMITED_FPS = 10_000;
+
+    private final Settings settings;
+    private final RenderLoop renderLoop;
+    private final int framesPerPath;
+    private final long[] totalNanos = new long[PATH_NAMES.length];
+
+    private int path = 0;
+    private int frame = 0;
+    private long lastFrameEnd;
+
+    /**
+     * @param root          the tool to benchmark, of which the graph must already be loaded
+     * @param framesPerPath the number of measured frames for each path
+     */
+    public RenderBenchmark(Main root, int framesPerPath) {
+        this.settings = root.settings();
+        this.renderLoop = root.renderer();
+        this.framesPerPath = framesPerPath;
+    }
+
+    /** starts the benchmark with the next frame of the render loop */
+    public void start() {
+        Logger.INFO.print("Benchmarking render paths with " + framesPerPath + " frames each");
+        settings.INSTANCED_RENDERING = false;
+        renderLoop.setTPS(UNLIMITED_FPS);
+        lastFrameEnd = System.nanoTime();
+        renderLoop.defer(this::onFrameEnd);
+    }
+
+    /** is executed on the render thread after every frame */
+    private void onFrameEnd() {
+        glFinish();
+        long now = System.nanoTime();
+        if (frame >= WARMUP_FRAMES) totalNanos[path] += now - lastFrameEnd;
+        lastFrameEnd = now;
+        frame++;
+
+        if (frame == WARMUP_FRAMES + framesPerPath) {
+            frame = 0;
+            path++;
+
+            if (path == PATH_NAMES.length) {
+                report();
+                renderLoop.stopLoop();
+                return;
+            }
+
+            settings.INSTANCED_RENDERING = (path == 1);
+        }
+
+        renderLoop.defer(this::onFrameEnd);
+    }
+
+    private void report() {
+        for (int i = 0; i < PATH_NAMES.length; i++) {
+            double millis = totalNanos[i] / 1e6 / framesPerPath;
+            Logger.INFO.printf("%-18s: %7.3f ms per frame", PATH_NAMES[i], millis);
+        }
+    }
+}
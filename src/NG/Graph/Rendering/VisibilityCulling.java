@@ -0,0 +1,141 @@
+package NG.Graph.Rendering;
+
+import NG.DataStructures.Generic.IntList;
+import NG.Graph.Graph;
+import NG.Graph.Layout.GraphLayout;
+import org.joml.FrustumIntersection;
+import org.joml.Matrix4f;
+import org.joml.Matrix4fc;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Computes which nodes and edges are within the view frustum. Nodes are found with the spatial grid of the layout. An
+ * edge is visible if either end point is visible, or if the bounding box of its end points intersects the frustum;
+ * the latter is tested in parallel over all edges.
+ * <p>
+ * This class uses no OpenGL, and can be used with any view-projection matrix, e.g. from {@link
+ * NG.Camera.Camera#getViewProjection}.
+ */
+public class VisibilityCulling {
+    private static final int EDGES_PER_CHUNK = 1 << 14;
+
+    private final FrustumIntersection frustum = new FrustumIntersection();
+    private final Matrix4f lastViewProjection = new Matrix4f();
+    private final IntList visibleNodes = new IntList();
+    private final IntList visibleEdges = new IntList();
+    private long[] nodeVisible = new long[0];
+    private int lastLayoutVersion = -1;
+    private boolean edgesValid = false;
+
+    /**
+     * recomputes the visible nodes and edges if the view or the layout changed since the last call.
+     * @param viewProjection the view-projection matrix of the camera
+     * @param layout         the layout of the graph
+     * @param radius         the radius of a node
+     * @param withEdges      if false, only the visible nodes are computed
+     * @return true if the visible nodes or edges have been recomputed
+     */
+    public boolean update(Matrix4fc viewProjection, GraphLayout layout, float radius, boolean withEdges) {
+        GraphLayout.Snapshot snapshot = layout.latest();
+        int layoutVersion = snapshot.getVersion();
+        boolean viewChanged = layoutVersion != lastLayoutVersion || !lastViewProjection.equals(viewProjection);
+        if (!viewChanged && (edgesValid || !withEdges)) return false;
+
+        lastLayoutVersion = layoutVersion;
+        lastViewProjection.set(viewProjection);
+        frustum.set(viewProjection);
+
+        Graph graph = layout.getGraph();
+        int nrOfNodes = graph.nodeCount();
+        if (nodeVisible.length * 64 < nrOfNodes) nodeVisible = new long[(nrOfNodes + 63) / 64];
+
+        if (viewChanged) {
+            visibleNodes.clear();
+            snapshot.queryVisible(frustum, radius, visibleNodes);
+        }
+
+        if (withEdges) {
+            Arrays.fill(nodeVisible, 0);
+            for (int i = 0; i < visibleNodes.size(); i++) {
+                int node = visibleNodes.get(i);
+                nodeVisible[node >> 6] |= 1L << node;
+            }
+            visibleEdges(graph, snapshot.getPositions(), nodeVisible, frustum, visibleEdges);
+        }
+
+        edgesValid = withEdges;
+        return true;
+    }
+
+    /**
+     * collects all edges that are possibly visible. Runs in parallel over all edges.
+     * @param graph       the graph
+     * @param positions   the position of every node, {@link GraphLayout#STRIDE} floats per node
+     * @param nodeVisible a bitset with a one for every visible node
+     * @param frustum     the view frustum
+     * @param result      the list that is replaced by the visible edges, in increasing order
+     */
+    public static void visibleEdges(
+            Graph graph, float[] positions, long[] nodeVisible, FrustumIntersection frustum, IntList result
+    ) {
+        int nrOfEdges = graph.edgeCount();
+        int nrOfChunks = (nrOfEdges + EDGES_PER_CHUNK - 1) / EDGES_PER_CHUNK;
+
+        List<IntList> chunks = IntStream.range(0, nrOfChunks).parallel()
+                .mapToObj(chunk -> {
+                    IntList edges = new IntList();
+                    int end = Math.min(nrOfEdges, (chunk + 1) * EDGES_PER_CHUNK);
+                    int source = graph.sourceOf(chunk * EDGES_PER_CHUNK);
+
+                    for (int e = chunk * EDGES_PER_CHUNK; e < end; e++) {
+                        while (graph.offsets[source + 1] <= e) source++;
+                        int target = graph.targets[e];
+
+                        if (isSet(nodeVisible, source) || isSet(nodeVisible, target)) {
+                            edges.add(e);
+                            continue;
+                        }
+
+                        int a = source * GraphLayout.STRIDE;
+                        int c = target * GraphLayout.STRIDE;
+                        boolean isVisible = frustum.testAab(
+                                Math.min(positions[a], positions[c]),
+                                Math.min(positions[a + 1], positions[c + 1]),
+                                Math.min(positions[a + 2], positions[c + 2]),
+                                Math.max(positions[a], positions[c]),
+                                Math.max(positions[a + 1], positions[c + 1]),
+                                Math.max(positions[a + 2], positions[c + 2])
+                        );
+                        if (isVisible) edges.add(e);
+                    }
+                    return edges;
+                })
+                .collect(Collectors.toList());
+
+        result.clear();
+        for (IntList chunk : chunks) {
+            result.ensureCapacity(result.size() + chunk.size());
+            for (int i = 0; i < chunk.size(); i++) {
+                result.add(chunk.get(i));
+            }
+        }
+    }
+
+    private static boolean isSet(long[] bitset, int index) {
+        return (bitset[index >> 6] & (1L << index)) != 0;
+    }
+
+    /** @return the nodes found by the last update. Only valid until the next update */
+    public IntList getVisibleNodes() {
+        return visibleNodes;
+    }
+
+    /** @return the edges found by the last update that included edges. Only valid until the next update */
+    public IntList getVisibleEdges() {
+        return visibleEdges;
+    }
+}
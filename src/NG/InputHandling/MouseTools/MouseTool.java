@@ -1,8 +1,10 @@
 package NG.InputHandling.MouseTools;
 
+import NG.Camera.Camera;
 import NG.GUIMenu.Components.SToggleButton;
 import NG.GUIMenu.FrameManagers.UIFrameManager;
 import NG.GUIMenu.SComponentProperties;
+import NG.InputHandling.MouseDragListener;
 import NG.InputHandling.MouseListener;
 import NG.InputHandling.MouseReleaseListener;
 import NG.Rendering.GLFWWindow;
@@ -14,16 +16,19 @@ import org.joml.Vector2i;
  */
 public abstract class MouseTool implements MouseListener {
     private MouseReleaseListener releaseListener = (b) -> {};
+    private MouseDragListener dragListener = null;
     private Runnable onCancel = null;
 
     private UIFrameManager gui;
     private GLFWWindow window;
     private MouseToolCallbacks inputHandling;
+    private Camera camera;
 
-    public MouseTool(UIFrameManager gui, GLFWWindow window, MouseToolCallbacks inputHandling) {
+    public MouseTool(UIFrameManager gui, GLFWWindow window, MouseToolCallbacks inputHandling, Camera camera) {
         this.gui = gui;
         this.window = window;
         this.inputHandling = inputHandling;
+        this.camera = camera;
     }
 
     public SToggleButton button(String buttonText, SComponentProperties properties) {
@@ -39,6 +44,29 @@ public abstract class MouseTool implements MouseListener {
             releaseListener = gui;
             return;
         }
+
+        if (onWorldClick(button, x, y)) return;
+
+        camera.onClick(button, x, y);
+        releaseListener = camera;
+    }
+
+    /**
+     * is called when the mouse is clicked outside the gui. By default, all clicks go to the camera.
+     * @return true if this click has been handled, false if it should be forwarded to the camera
+     */
+    protected boolean onWorldClick(int button, int x, int y) {
+        return false;
+    }
+
+    /**
+     * sends all mouse movements to the given drag listener until the mouse is released
+     * @param drag    receives the mouse movements while dragging
+     * @param release receives the release that ends the drag
+     */
+    protected void startDrag(MouseDragListener drag, MouseReleaseListener release) {
+        dragListener = drag;
+        releaseListener = release;
     }
 
     public void disableThis() {
@@ -57,6 +85,7 @@ public abstract class MouseTool implements MouseListener {
             releaseListener.onRelease(button);
             releaseListener = null;
         }
+        dragListener = null;
     }
 
     @Override
@@ -67,6 +96,8 @@ public abstract class MouseTool implements MouseListener {
             gui.onScroll(value);
             return;
         }
+
+        camera.onScroll(value);
     }
 
     @Override
@@ -76,8 +107,15 @@ public abstract class MouseTool implements MouseListener {
 
     @Override
     public final void onMouseMove(int xDelta, int yDelta, float xPos, float yPos) {
+        if (dragListener != null) {
+            dragListener.onMouseDrag(xDelta, yDelta, xPos, yPos);
+            return;
+        }
+
         gui.onMouseMove(xDelta, yDelta, xPos, yPos);
         if (gui.covers((int) xPos, (int) yPos)) return;
+
+        camera.onMouseMove(xDelta, yDelta, xPos, yPos);
     }
 
     /**
@@ -32,7 +32,7 @@ public class MouseToolCallbacks implements ToolElement {
         if (this.root != null) return;
         this.root = root;
 
-        DEFAULT_MOUSE_TOOL = new MouseTool(root.gui(), root.window(), root.inputHandling()) {};
+        DEFAULT_MOUSE_TOOL = new MouseTool(root.gui(), root.window(), root.inputHandling(), root.camera()) {};
         currentTool = DEFAULT_MOUSE_TOOL;
 
         GLFWWindow target = root.window();
@@ -79,6 +79,10 @@ public class MouseToolCallbacks implements ToolElement {
                 // Look at the second element of the stack trace
                 Logger.ERROR.print(ex);
                 Toolbox.display(ex);
+
+            } finally {
+                // show the effect of the input
+                root.renderer().requestRender();
             }
         });
     }
@@ -0,0 +1,114 @@
+package NG.InputHandling.MouseTools;
+
+import NG.Core.Main;
+import NG.DataStructures.Generic.Color4f;
+import NG.DataStructures.Generic.ConcurrentBitSet;
+import NG.DataStructures.Generic.IntList;
+import NG.GUIMenu.Rendering.NVGOverlay;
+import NG.Graph.Graph;
+import NG.Tools.Logger;
+import org.joml.Vector2i;
+
+import static org.lwjgl.glfw.GLFW.GLFW_MOUSE_BUTTON_LEFT;
+
+/**
+ * Selects all nodes inside a rectangle that is dragged with the left mouse button. The rectangle is read from the click
+ * buffer, such that exactly the visible nodes are selected. Selected nodes are highlighted until the next selection.
+ * Other buttons control the camera as usual.
+ */
+public class RegionSelectTool extends MouseTool {
+    private static final Color4f SELECTION_FILL = new Color4f(Color4f.BLUE, 0.2f);
+    private static final Color4f SELECTION_STROKE = Color4f.BLUE;
+    private static final Color4f SELECTED_NODE_COLOR = Color4f.ORANGE;
+
+    private final Main root;
+    private final Vector2i dragStart = new Vector2i();
+    private final Vector2i dragEnd = new Vector2i();
+    private volatile boolean isDragging = false;
+
+    /** the currently selected nodes, only accessed on the rendering thread */
+    private final IntList selection = new IntList();
+    /** the colors of the selected nodes before they were selected */
+    private final IntList originalColors = new IntList();
+    private Graph selectionGraph = null;
+
+    public RegionSelectTool(Main root) {
+        super(root.gui(), root.window(), root.inputHandling(), root.camera());
+        this.root = root;
+        root.renderer().addHudItem(this::drawRectangle);
+    }
+
+    @Override
+    protected boolean onWorldClick(int button, int x, int y) {
+        if (button != GLFW_MOUSE_BUTTON_LEFT) return false;
+
+        dragStart.set(x, y);
+        dragEnd.set(x, y);
+        isDragging = true;
+        startDrag(
+                (xDelta, yDelta, xPos, yPos) -> dragEnd.set((int) xPos, (int) yPos),
+                b -> select()
+        );
+        return true;
+    }
+
+    private void select() {
+        isDragging = false;
+        Graph graph = root.graph();
+        if (graph == null) return;
+
+        root.renderer().requestRegion(
+                dragStart.x, dragStart.y, dragEnd.x, dragEnd.y,
+                values -> setSelection(graph, values)
+        );
+    }
+
+    /** replaces the selection by the nodes in the given set of click shader indices */
+    private void setSelection(Graph graph, ConcurrentBitSet values) {
+        restoreColors();
+        // the graph may have been replaced while the region was read
+        if (graph != root.graph()) return;
+
+        int nrOfNodes = graph.nodeCount();
+        int selectedColor = SELECTED_NODE_COLOR.toABGR();
+        // edges are indexed after the nodes
+        for (int i = values.nextSetBit(0); i >= 0 && i < nrOfNodes; i = values.nextSetBit(i + 1)) {
+            selection.add(i);
+            originalColors.add(graph.nodeColors[i]);
+            graph.nodeColors[i] = selectedColor;
+        }
+
+        selectionGraph = graph;
+        graph.markColorsChanged();
+        Logger.INFO.print("Selected " + selection.size() + " nodes");
+    }
+
+    private void restoreColors() {
+        if (selectionGraph != null) {
+            for (int i = 0; i < selection.size(); i++) {
+                selectionGraph.nodeColors[selection.get(i)] = originalColors.get(i);
+            }
+            selectionGraph.markColorsChanged();
+            selectionGraph = null;
+        }
+
+        selection.clear();
+        originalColors.clear();
+    }
+
+    private void drawRectangle(NVGOverlay.Painter painter) {
+        if (!isDragging) return;
+
+        int x = Math.min(dragStart.x, dragEnd.x);
+        int y = Math.min(dragStart.y, dragEnd.y);
+        int width = Math.abs(dragEnd.x - dragStart.x);
+        int height = Math.abs(dragEnd.y - dragStart.y);
+        painter.rectangle(x, y, width, height, SELECTION_FILL, SELECTION_STROKE, 1);
+    }
+
+    @Override
+    public void dispose() {
+        isDragging = false;
+        root.executeOnRenderThread(this::restoreColors);
+    }
+}
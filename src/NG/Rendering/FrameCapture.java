@@ -0,0 +1,289 @@
+package NG.Rendering;
+
+import NG.Tools.Logger;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static org.lwjgl.opengl.GL11.*;
+import static org.lwjgl.opengl.GL12.GL_BGRA;
+import static org.lwjgl.opengl.GL12.GL_UNSIGNED_INT_8_8_8_8_REV;
+import static org.lwjgl.opengl.GL15.*;
+import static org.lwjgl.opengl.GL21.GL_PIXEL_PACK_BUFFER;
+import static org.lwjgl.opengl.GL30.*;
+import static org.lwjgl.opengl.GL32.*;
+
+/**
+ * Captures completed frames of a framebuffer and writes them to png files. Frames are read into a ring of reused pixel
+ * buffer objects, guarded by fences, and collected in a later frame once the GPU is done, such that reading rarely
+ * stalls rendering. The pixels are read as packed BGRA integers, which is the layout of an RGB {@link BufferedImage},
+ * so every row is copied into the image raster with one bulk copy. Images are encoded on a bounded pool of threads.
+ * <p>
+ * Besides single frames, all frames can be recorded to a numbered sequence of files. A recording never drops frames:
+ * when encoding can not keep up, rendering waits for the encoder instead.
+ */
+public class FrameCapture {
+    private static final int RING_SIZE = 3;
+    private static final int PIXEL_BYTES = 4;
+    private static final int ENCODE_QUEUE_SIZE = 8;
+    private static final long WAIT_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+    private static final String RECORDING_FORMAT = "frame%05d.png";
+
+    private final int framebuffer;
+    private final int readBuffer;
+
+    private final int[] pixelBuffers = new int[RING_SIZE];
+    private final int[] bufferSizes = new int[RING_SIZE];
+    private final long[] fences = new long[RING_SIZE];
+    private final File[] targets = new File[RING_SIZE];
+    private final int[] widths = new int[RING_SIZE];
+    private final int[] heights = new int[RING_SIZE];
+    private int writeIndex = 0;
+    private int readIndex = 0;
+    private int pending = 0;
+    private ByteBuffer mappedPixels = null;
+
+    private final Queue<File> requests = new ConcurrentLinkedQueue<>();
+    private volatile File recordDirectory = null;
+    private int recordedFrames = 0;
+
+    private final ThreadPoolExecutor encoder;
+    /** images that are done encoding, available for reuse */
+    private final BlockingQueue<BufferedImage> freeImages = new ArrayBlockingQueue<>(ENCODE_QUEUE_SIZE);
+
+    /**
+     * creates the pixel buffers on the current OpenGL context
+     * @param framebuffer the framebuffer to read from
+     * @param readBuffer  the color buffer of the framebuffer that holds the completed frame when {@link #update(int,
+     *                    int)} is called
+     */
+    public FrameCapture(int framebuffer, int readBuffer) {
+        this.framebuffer = framebuffer;
+        this.readBuffer = readBuffer;
+
+        for (int i = 0; i < RING_SIZE; i++) {
+            pixelBuffers[i] = glGenBuffers();
+        }
+
+        int nrOfThreads = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        encoder = new ThreadPoolExecutor(
+                nrOfThreads, nrOfThreads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(ENCODE_QUEUE_SIZE),
+                task -> {
+                    Thread thread = new Thread(task, "Frame encoder");
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                FrameCapture::waitForQueue
+        );
+    }
+
+    /**
+     * requests the next completed frame to be written to the given file. May be called from any thread.
+     * @param file the file to write to. Missing parent directories are created
+     */
+    public void capture(File file) {
+        requests.add(file);
+    }
+
+    /**
+     * starts writing every completed frame to a numbered file in the given directory, until {@link #stopRecording()}
+     * is called. May be called from any thread.
+     */
+    public void startRecording(File directory) {
+        Logger.INFO.print("Recording frames to " + directory);
+        recordDirectory = directory;
+    }
+
+    /** stops a recording started with {@link #startRecording(File)}. Frames that have been read are still written */
+    public void stopRecording() {
+        recordDirectory = null;
+    }
+
+    public boolean isRecording() {
+        return recordDirectory != null;
+    }
+
+    /**
+     * @return true if a frame is requested or recorded, or if frames are still being read. Must be called on the
+     * rendering thread.
+     */
+    public boolean isBusy() {
+        return recordDirectory != null || !requests.isEmpty() || pending > 0;
+    }
+
+    /**
+     * collects the frames of which reading has completed, and starts reading the current frame if it is requested.
+     * Must be called on the rendering thread after the frame is drawn, and before the buffers are swapped.
+     * @param width  the width of the framebuffer
+     * @param height the height of the framebuffer
+     */
+    public void update(int width, int height) {
+        while (pending > 0) {
+            if (!collect(false)) break;
+        }
+        // a minimized window has no frame
+        if (width == 0 || height == 0) return;
+
+        File directory = recordDirectory;
+        if (directory == null) {
+            recordedFrames = 0;
+        } else {
+            read(new File(directory, String.format(RECORDING_FORMAT, recordedFrames++)), width, height);
+        }
+
+        File request;
+        while ((request = requests.poll()) != null) {
+            read(request, width, height);
+        }
+    }
+
+    /** starts reading the current frame into the next pixel buffer */
+    private void read(File target, int width, int height) {
+        // every requested frame must be written
+        if (pending == RING_SIZE) collect(true);
+
+        int size = width * height * PIXEL_BYTES;
+        glBindBuffer(GL_PIXEL_PACK_BUFFER, pixelBuffers[writeIndex]);
+        if (size > bufferSizes[writeIndex]) {
+            glBufferData(GL_PIXEL_PACK_BUFFER, size, GL_STREAM_READ);
+            bufferSizes[writeIndex] = size;
+        }
+
+        glBindFramebuffer(GL_READ_FRAMEBUFFER, framebuffer);
+        glReadBuffer(readBuffer);
+        glReadPixels(0, 0, width, height, GL_BGRA, GL_UNSIGNED_INT_8_8_8_8_REV, 0L);
+        fences[writeIndex] = glFenceSync(GL_SYNC_GPU_COMMANDS_COMPLETE, 0);
+        glBindBuffer(GL_PIXEL_PACK_BUFFER, 0);
+
+        targets[writeIndex] = target;
+        widths[writeIndex] = width;
+        heights[writeIndex] = height;
+        writeIndex = (writeIndex + 1) % RING_SIZE;
+        pending++;
+    }
+
+    /**
+     * copies the oldest pending frame into an image and starts encoding it
+     * @param wait if true, waits for the frame to be read. If false, returns immediately when it is not
+     * @return true if a frame was collected
+     */
+    private boolean collect(boolean wait) {
+        int status;
+        do {
+            status = glClientWaitSync(fences[readIndex], GL_SYNC_FLUSH_COMMANDS_BIT, wait ? WAIT_NANOS : 0);
+        } while (wait && status == GL_TIMEOUT_EXPIRED);
+
+        if (status != GL_ALREADY_SIGNALED && status != GL_CONDITION_SATISFIED) return false;
+        glDeleteSync(fences[readIndex]);
+        fences[readIndex] = 0;
+
+        int width = widths[readIndex];
+        int height = heights[readIndex];
+        File target = targets[readIndex];
+        targets[readIndex] = null;
+
+        BufferedImage image = obtainImage(width, height);
+        int[] raster = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+
+        glBindBuffer(GL_PIXEL_PACK_BUFFER, pixelBuffers[readIndex]);
+        // passing the previous buffer allows lwjgl to reuse the buffer object
+        mappedPixels = glMapBufferRange(GL_PIXEL_PACK_BUFFER, 0, bufferSizes[readIndex], GL_MAP_READ_BIT, mappedPixels);
+        if (mappedPixels != null) {
+            IntBuffer pixels = mappedPixels.order(ByteOrder.nativeOrder()).asIntBuffer();
+            // OpenGL rows start at the bottom, image rows at the top
+            for (int row = 0; row < height; row++) {
+                pixels.get(row * width, raster, (height - 1 - row) * width, width);
+            }
+            glUnmapBuffer(GL_PIXEL_PACK_BUFFER);
+        }
+        glBindBuffer(GL_PIXEL_PACK_BUFFER, 0);
+
+        readIndex = (readIndex + 1) % RING_SIZE;
+        pending--;
+
+        if (mappedPixels == null) {
+            Logger.ERROR.print("Could not map the pixels of " + target);
+        } else {
+            encoder.execute(() -> write(image, target));
+        }
+        return true;
+    }
+
+    /** @return an image of the given size, reused from an earlier frame if possible */
+    private BufferedImage obtainImage(int width, int height) {
+        BufferedImage image;
+        while ((image = freeImages.poll()) != null) {
+            if (image.getWidth() == width && image.getHeight() == height) return image;
+        }
+        return new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+    }
+
+    /** is executed on an encoder thread */
+    private void write(BufferedImage image, File file) {
+        try {
+            File directory = file.getAbsoluteFile().getParentFile();
+            if (!directory.exists() && !directory.mkdirs()) {
+                Logger.ERROR.print("Could not create directories", directory);
+                return;
+            }
+            ImageIO.write(image, "png", file);
+
+        } catch (IOException e) {
+            Logger.ERROR.print(e);
+
+        } finally {
+            // if the pool is full, the image is discarded
+            freeImages.offer(image);
+        }
+    }
+
+    /** blocks the submitting thread until the encoder queue has space, instead of dropping the frame */
+    private static void waitForQueue(Runnable task, ThreadPoolExecutor executor) {
+        if (executor.isShutdown()) throw new RejectedExecutionException("Frame encoder has been shut down");
+        try {
+            executor.getQueue().put(task);
+
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RejectedExecutionException(e);
+        }
+    }
+
+    /**
+     * stops recording, writes all frames that are being read, and waits for all encoding to finish. Must be called on
+     * the rendering thread.
+     */
+    public void cleanup() {
+        recordDirectory = null;
+        while (pending > 0) {
+            collect(true);
+        }
+
+        encoder.shutdown();
+        try {
+            if (!encoder.awaitTermination(1, TimeUnit.MINUTES)) {
+                Logger.WARN.print("Not all frames have been written");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        for (int pixelBuffer : pixelBuffers) {
+            glDeleteBuffers(pixelBuffer);
+        }
+    }
+}
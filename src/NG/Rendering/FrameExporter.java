@@ -0,0 +1,53 @@
+package NG.Rendering;
+
+import NG.Tools.Logger;
+
+import java.io.File;
+
+/**
+ * Records the frames of a render loop to numbered png files, and stops the loop after a given number of frames. Frames
+ * are read after they have been completed, which works both for a visible window and in headless mode.
+ * @see GLFWWindow#startRecording(File)
+ */
+public class FrameExporter {
+    private final RenderLoop renderLoop;
+    private final GLFWWindow window;
+    private final File directory;
+    private final int nrOfFrames;
+    private int frame = 0;
+
+    /**
+     * @param renderLoop the loop that renders the frames
+     * @param window     the window that is rendered to
+     * @param directory  the directory to write the files to
+     * @param nrOfFrames the number of frames to export
+     */
+    public FrameExporter(RenderLoop renderLoop, GLFWWindow window, File directory, int nrOfFrames) {
+        this.renderLoop = renderLoop;
+        this.window = window;
+        this.directory = directory;
+        this.nrOfFrames = nrOfFrames;
+    }
+
+    /** starts exporting with the next frame of the render loop */
+    public void start() {
+        Logger.INFO.print("Exporting " + nrOfFrames + " frames");
+        window.startRecording(directory);
+        renderLoop.defer(this::onFrameEnd);
+    }
+
+    /** is executed on the render thread after every frame */
+    private void onFrameEnd() {
+        // the frame has been read when the window presented it
+        frame++;
+
+        if (frame == nrOfFrames) {
+            // the remaining frames are written when the window is cleaned up
+            window.stopRecording();
+            renderLoop.stopLoop();
+
+        } else {
+            renderLoop.defer(this::onFrameEnd);
+        }
+    }
+}
@@ -7,22 +7,19 @@ import org.joml.Vector2i;
 import org.lwjgl.BufferUtils;
 import org.lwjgl.glfw.*;
 import org.lwjgl.opengl.GL;
-import org.lwjgl.opengl.GL11;
+import org.lwjgl.opengl.GLCapabilities;
 import org.lwjgl.opengl.GLUtil;
+import org.lwjgl.system.Callback;
 
-import javax.imageio.ImageIO;
-import java.awt.image.BufferedImage;
 import java.io.File;
-import java.io.IOException;
-import java.nio.ByteBuffer;
 import java.nio.DoubleBuffer;
-import java.nio.file.Files;
 import java.util.ArrayList;
 import java.util.List;
 
 import static org.lwjgl.glfw.Callbacks.glfwFreeCallbacks;
 import static org.lwjgl.glfw.GLFW.*;
 import static org.lwjgl.opengl.GL11.*;
+import static org.lwjgl.opengl.GL30.*;
 import static org.lwjgl.system.MemoryUtil.NULL;
 
 enum CursorMode {VISIBLE, HIDDEN_FREE, HIDDEN_CAPTURED}
@@ -31,6 +28,14 @@ enum CursorMode {VISIBLE, HIDDEN_FREE, HIDDEN_CAPTURED}
  * @author Jorren Hendriks & Geert van Ieperen
  * <p>
  * A window which initializes GLFW and manages it.
+ * <p>
+ * In headless mode, GLFW uses its null platform, which needs no display, with a surfaceless EGL context, or OSMesa if
+ * EGL is not available. Such a context has no usable default framebuffer, so everything is rendered into an offscreen
+ * framebuffer of the window size instead. See {@link #getFramebuffer()}.
+ * <p>
+ * Events are processed on the thread that created the window, the event thread. The OpenGL context may be moved to
+ * another thread with {@link #releaseContext()} and {@link #makeContextCurrent()}, in which case the event thread
+ * should call {@link #waitEvents(double)} in a loop, and {@link #update()} only swaps the buffers.
  */
 public class GLFWWindow {
     private final String title;
@@ -42,17 +47,35 @@ public class GLFWWindow {
 
     private long primaryMonitor;
     private long window;
-    private int width;
-    private int height;
+    /**
+     * the size of the framebuffer, written by the resize callback on the event thread and read by the rendering
+     * thread. Width and height are packed in one value such that they are never read from different resizes.
+     */
+    private volatile long size;
     private boolean fullScreen = false;
     private boolean mouseIsCaptured;
     private List<ResizeListener> sizeChangeListeners = new ArrayList<>();
-    private Thread glContext;
+    private volatile Thread glContext;
+    private GLCapabilities capabilities;
+    private final Thread eventThread;
+    /** the last known cursor position, such that it can be read from any thread */
+    private volatile double cursorX;
+    private volatile double cursorY;
+    /** the callbacks that are wrapped, and must be freed when the window is destroyed */
+    private final List<Callback> wrappedCallbacks = new ArrayList<>();
+    private final boolean headless;
+    private int offscreenFramebuffer = 0;
+    private int offscreenColor = 0;
+    private int offscreenDepth = 0;
+    private final FrameCapture capture;
+    private volatile boolean refreshRequested = false;
 
     public GLFWWindow(String title, Settings settings) {
         this.title = title;
         this.resizable = settings.resizable;
         this.settings = settings;
+        this.headless = settings.headless;
+        this.eventThread = Thread.currentThread();
 
         this.mousePosX = BufferUtils.createDoubleBuffer(1);
         this.mousePosY = BufferUtils.createDoubleBuffer(1);
@@ -61,6 +84,7 @@ public class GLFWWindow {
         GLFWErrorCallback.createPrint(Logger.ERROR.getPrintStream()).set();
 
         // Initialize GLFW
+        if (headless) glfwInitHint(GLFW_PLATFORM, GLFW_PLATFORM_NULL);
         if (!glfwInit()) {
             throw new RuntimeException("Unable to initialize GLFW");
         }
@@ -75,50 +99,67 @@ public class GLFWWindow {
         glfwWindowHint(GLFW_OPENGL_PROFILE, GLFW_OPENGL_COMPAT_PROFILE);
         glfwWindowHint(GLFW_OPENGL_FORWARD_COMPAT, GLFW_TRUE); // req for MacOS
 
-        if (settings.antialiasLevel > 0) {
+        if (headless) {
+            glfwWindowHint(GLFW_CONTEXT_CREATION_API, GLFW_EGL_CONTEXT_API);
+
+        } else if (settings.antialiasLevel > 0) {
             glfwWindowHint(GLFW_STENCIL_BITS, settings.antialiasLevel);
             glfwWindowHint(GLFW_SAMPLES, settings.antialiasLevel);
         }
 
         // Create window
-        width = settings.windowWidth;
-        height = settings.windowHeight;
+        int width = settings.windowWidth;
+        int height = settings.windowHeight;
+        size = packSize(width, height);
         window = glfwCreateWindow(width, height, title, NULL, NULL);
+        if (window == NULL && headless) {
+            Logger.WARN.print("Could not create an EGL context, trying OSMesa");
+            glfwWindowHint(GLFW_CONTEXT_CREATION_API, GLFW_OSMESA_CONTEXT_API);
+            window = glfwCreateWindow(width, height, title, NULL, NULL);
+        }
         if (window == NULL) {
             throw new RuntimeException("Failed to create the GLFW window");
         }
 
 //        glfwSetWindowIcon(newWindow, null); // icon
-        if (resizable) {
+        if (resizable && !headless) {
             // Setup resize callback
             glfwSetFramebufferSizeCallback(window, (w, newWidth, newHeight) -> {
-                width = newWidth;
-                height = newHeight;
+                size = packSize(newWidth, newHeight);
                 sizeChangeListeners.forEach(l -> l.onChange(newWidth, newHeight));
             });
         }
+        // the contents of the window were damaged, for instance by being covered by another window
+        glfwSetWindowRefreshCallback(window, w -> refreshRequested = true);
 
         // Make GL context current
         glfwMakeContextCurrent(window);
         primaryMonitor = glfwGetPrimaryMonitor();
 
-        if (settings.fullscreen) {
+        if (headless) {
+            // the size of the offscreen framebuffer is fixed
+
+        } else if (settings.fullscreen) {
             setFullScreen(settings);
+            glfwMaximizeWindow(window);
+
         } else {
             setWindowed(settings);
+            glfwMaximizeWindow(window);
         }
 
-        glfwMaximizeWindow(window);
-
         if (settings.vSync) {
             // Turn on vSync
             glfwSwapInterval(1);
         }
 
-        GL.createCapabilities();
+        capabilities = GL.createCapabilities();
         glContext = Thread.currentThread();
         Logger.DEBUG.print("OpenGL version: " + glGetString(GL_VERSION));
 
+        if (headless) createOffscreenFramebuffer();
+        capture = new FrameCapture(offscreenFramebuffer, headless ? GL_COLOR_ATTACHMENT0 : GL_BACK);
+
         // debug message callbacks
         if (settings.glDebugMessages) {
             glfwWindowHint(GLFW_OPENGL_DEBUG_CONTEXT, GLFW_TRUE);
@@ -128,62 +169,161 @@ public class GLFWWindow {
         Toolbox.checkGLError("window");
     }
 
+    private void createOffscreenFramebuffer() {
+        long size = this.size;
+        int width = widthOf(size);
+        int height = heightOf(size);
+
+        offscreenFramebuffer = glGenFramebuffers();
+        glBindFramebuffer(GL_FRAMEBUFFER, offscreenFramebuffer);
+
+        offscreenColor = glGenRenderbuffers();
+        glBindRenderbuffer(GL_RENDERBUFFER, offscreenColor);
+        glRenderbufferStorage(GL_RENDERBUFFER, GL_RGBA8, width, height);
+        glFramebufferRenderbuffer(GL_FRAMEBUFFER, GL_COLOR_ATTACHMENT0, GL_RENDERBUFFER, offscreenColor);
+
+        // the gui requires a stencil buffer
+        offscreenDepth = glGenRenderbuffers();
+        glBindRenderbuffer(GL_RENDERBUFFER, offscreenDepth);
+        glRenderbufferStorage(GL_RENDERBUFFER, GL_DEPTH24_STENCIL8, width, height);
+        glFramebufferRenderbuffer(GL_FRAMEBUFFER, GL_DEPTH_STENCIL_ATTACHMENT, GL_RENDERBUFFER, offscreenDepth);
+        glBindRenderbuffer(GL_RENDERBUFFER, 0);
+
+        int status = glCheckFramebufferStatus(GL_FRAMEBUFFER);
+        if (status != GL_FRAMEBUFFER_COMPLETE) {
+            throw new RuntimeException("Could not create offscreen framebuffer : error " + Toolbox.asHex(status));
+        }
+        glReadBuffer(GL_COLOR_ATTACHMENT0);
+    }
+
+    /**
+     * @return the framebuffer that represents the window: 0 for the default framebuffer, or an offscreen framebuffer
+     * in headless mode. Anything that binds another framebuffer must restore this one.
+     */
+    public int getFramebuffer() {
+        return offscreenFramebuffer;
+    }
+
+    /** @return true if this window has no display, and renders into an offscreen framebuffer */
+    public boolean isHeadless() {
+        return headless;
+    }
+
     /**
      * update the {@link GLFWWindow}. This will deal with basic OpenGL formalities. Besides it will also poll for events
      * which occurred on the window.
+     * @param width  the width of the completed frame, as read from {@link #getSize()} at the start of the frame
+     * @param height the height of the completed frame
      */
-    public void update() {
+    public void update(int width, int height) {
+        // read the completed frame before it is presented
+        capture.update(width, height);
+
         // Swap buffers
         glfwSwapBuffers(window);
 
-        // Poll for events
-        glfwPollEvents();
+        // Poll for events, unless the event thread does so
+        if (isEventThread()) glfwPollEvents();
+    }
+
+    /**
+     * makes the OpenGL context of this window current on the calling thread. The context must not be current on any
+     * other thread.
+     * @return true if the context was not yet current on this thread
+     * @see #releaseContext()
+     */
+    public boolean makeContextCurrent() {
+        if (glContext == Thread.currentThread()) return false;
+        glfwMakeContextCurrent(window);
+        GL.setCapabilities(capabilities);
+        glContext = Thread.currentThread();
+        return true;
+    }
+
+    /**
+     * detaches the OpenGL context from the calling thread, such that another thread can make it current.
+     * @see #makeContextCurrent()
+     */
+    public void releaseContext() {
+        glfwMakeContextCurrent(NULL);
+        GL.setCapabilities(null);
+        glContext = null;
+    }
+
+    /** @return true if the calling thread processes the events of this window */
+    public boolean isEventThread() {
+        return Thread.currentThread() == eventThread;
     }
 
     /**
-     * saves a copy of the front buffer (the display) to disc
-     * @param dir          directory to store the image to
-     * @param filename     the file to save to
-     * @param bufferToRead the GL buffer to read, usually one of {@link GL11#GL_FRONT} or {@link GL11#GL_BACK}
+     * processes the events that occurred on the window, and if there are none, waits until an event occurs or the
+     * timeout expires. Must be called on the event thread.
+     * @param timeoutSeconds the maximum time to wait in seconds
+     * @see #wakeUp()
      */
-    public void printScreen(Directory dir, String filename, int bufferToRead) {
-        glReadBuffer(bufferToRead);
-        int bpp = 4; // Assuming a 32-bit display with a byte each for red, green, blue, and alpha.
-        ByteBuffer buffer = BufferUtils.createByteBuffer(width * height * bpp);
-        glReadPixels(0, 0, width, height, GL11.GL_RGBA, GL11.GL_UNSIGNED_BYTE, buffer);
-
-        new Thread(() -> {
-            String format = "png";
-            BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
-
-            for (int x = 0; x < width; x++) {
-                for (int y = 0; y < height; y++) {
-                    int i = (x + (width * y)) * bpp;
-                    int r = buffer.get(i) & 0xFF;
-                    int g = buffer.get(i + 1) & 0xFF;
-                    int b = buffer.get(i + 2) & 0xFF;
-                    image.setRGB(x, height - (y + 1), (0xFF << 24) | (r << 16) | (g << 8) | b);
-                }
-            }
-
-            try {
-                File file = dir.getFile(filename + "." + format); // The file to save to.
-                if (file.exists()) {
-                    Files.delete(file.toPath());
-                } else {
-                    boolean success = file.mkdirs();
-                    if (!success) {
-                        Logger.ERROR.print("Could not create directories", file);
-                        return;
-                    }
-                }
-                ImageIO.write(image, format, file);
-
-            } catch (IOException e) {
-                Logger.ERROR.print(e);
-            }
-        }, "Writing frame to disc").start();
+    public void waitEvents(double timeoutSeconds) {
+        glfwWaitEventsTimeout(timeoutSeconds);
+    }
 
+    /**
+     * makes a thread that waits in {@link #waitEvents(double)} return immediately. May be called from any thread.
+     */
+    public void wakeUp() {
+        glfwPostEmptyEvent();
+    }
+
+    /**
+     * @return true if the window system asked for the contents of the window to be drawn again since the last call to
+     * this method
+     */
+    public boolean pollRefreshRequest() {
+        boolean requested = refreshRequested;
+        refreshRequested = false;
+        return requested;
+    }
+
+    /**
+     * saves a copy of the next completed frame to disc
+     * @param dir      directory to store the image to
+     * @param filename the name of the file, without extension
+     * @see #printScreen(File)
+     */
+    public void printScreen(Directory dir, String filename) {
+        printScreen(dir.getFile(filename + ".png"));
+    }
+
+    /**
+     * saves a copy of the next completed frame to disc as a png image. The frame is read when it is presented, and
+     * written on a background thread. May be called from any thread.
+     * @param file the file to save to. Missing parent directories are created
+     */
+    public void printScreen(File file) {
+        capture.capture(file);
+    }
+
+    /**
+     * writes every frame that is presented to a numbered png file in the given directory, until {@link
+     * #stopRecording()} is called. May be called from any thread.
+     * @see FrameCapture#startRecording(File)
+     */
+    public void startRecording(File directory) {
+        capture.startRecording(directory);
+    }
+
+    public void stopRecording() {
+        capture.stopRecording();
+    }
+
+    public boolean isRecording() {
+        return capture.isRecording();
+    }
+
+    /**
+     * @return true if frames must be rendered for a screenshot or a recording. Must be called on the rendering thread.
+     * @see FrameCapture#isBusy()
+     */
+    public boolean isCapturing() {
+        return capture.isBusy();
     }
 
     /**
@@ -194,6 +334,7 @@ public class GLFWWindow {
     }
 
     public void open() {
+        if (headless) return;
         // Show window
         glfwShowWindow(window);
         glfwFocusWindow(window);
@@ -204,7 +345,14 @@ public class GLFWWindow {
      */
     public void cleanup() {
         sizeChangeListeners.clear();
+        capture.cleanup();
+        if (headless) {
+            glDeleteFramebuffers(offscreenFramebuffer);
+            glDeleteRenderbuffers(offscreenColor);
+            glDeleteRenderbuffers(offscreenDepth);
+        }
         glfwFreeCallbacks(window);
+        wrappedCallbacks.forEach(Callback::free);
         glfwDestroyWindow(window);
         glfwTerminate();
         glfwSetErrorCallback(null).free();
@@ -230,13 +378,18 @@ public class GLFWWindow {
     }
 
     /**
-     * Get the current position of the mouse.
+     * Get the current position of the mouse. On the event thread, the position is queried. On any other thread, this
+     * returns the position of the last processed event.
      * @return the position of the cursor, in screen coordinates, relative to the upper-left corner of the client area
      * of the specified window
      */
     public Vector2i getMousePosition() {
-        glfwGetCursorPos(window, mousePosX, mousePosY);
-        return new Vector2i((int) mousePosX.get(0), (int) mousePosY.get(0));
+        if (isEventThread()) {
+            glfwGetCursorPos(window, mousePosX, mousePosY);
+            cursorX = mousePosX.get(0);
+            cursorY = mousePosY.get(0);
+        }
+        return new Vector2i((int) cursorX, (int) cursorY);
     }
 
     /**
@@ -248,19 +401,42 @@ public class GLFWWindow {
     }
 
     /**
-     * Get the width of the window.
+     * Get the width of the window. Use {@link #getSize()} when both the width and the height are needed.
      * @return The width of the window.
      */
     public int getWidth() {
-        return width;
+        return widthOf(size);
     }
 
     /**
-     * Get the height of the window.
+     * Get the height of the window. Use {@link #getSize()} when both the width and the height are needed.
      * @return The height of the window.
      */
     public int getHeight() {
-        return height;
+        return heightOf(size);
+    }
+
+    /**
+     * returns the width and height of the window as one value, such that both belong to the same resize. May be called
+     * from any thread.
+     * @return the size of the window, to be unpacked with {@link #widthOf(long)} and {@link #heightOf(long)}
+     */
+    public long getSize() {
+        return size;
+    }
+
+    /** @return the width of a size returned by {@link #getSize()} */
+    public static int widthOf(long size) {
+        return (int) (size >>> 32);
+    }
+
+    /** @return the height of a size returned by {@link #getSize()} */
+    public static int heightOf(long size) {
+        return (int) size;
+    }
+
+    private static long packSize(int width, int height) {
+        return ((long) width << 32) | (height & 0xFFFFFFFFL);
     }
 
     /**
@@ -286,11 +462,12 @@ public class GLFWWindow {
     public void setWindowed(Settings settings) {
         // Get primary display resolution
         GLFWVidMode vidmode = glfwGetVideoMode(primaryMonitor);
+        long size = this.size;
         // Center window on display
         glfwSetWindowPos(
                 window,
-                (vidmode.width() - width) / 2,
-                (vidmode.height() - height) / 2
+                (vidmode.width() - widthOf(size)) / 2,
+                (vidmode.height() - heightOf(size)) / 2
         );
         fullScreen = false;
     }
@@ -327,7 +504,15 @@ public class GLFWWindow {
     ) {
         if (key != null) glfwSetKeyCallback(window, key);
         if (mousePress != null) glfwSetMouseButtonCallback(window, mousePress);
-        if (mouseMove != null) glfwSetCursorPosCallback(window, mouseMove);
+        if (mouseMove != null) {
+            // keep track of the cursor for other threads
+            glfwSetCursorPosCallback(window, (w, xPos, yPos) -> {
+                cursorX = xPos;
+                cursorY = yPos;
+                mouseMove.invoke(w, xPos, yPos);
+            });
+            if (mouseMove instanceof Callback) wrappedCallbacks.add((Callback) mouseMove);
+        }
         if (mouseScroll != null) glfwSetScrollCallback(window, mouseScroll);
     }
 
@@ -347,6 +532,7 @@ public class GLFWWindow {
         }
     }
 
+    /** @return the thread on which the OpenGL context is current, or null if it is not current on any thread */
     public Thread getOpenGLThread() {
         return glContext;
     }
@@ -364,10 +550,11 @@ public class GLFWWindow {
         final int targetFPS;
         final boolean fullscreen;
         final boolean cullFace;
+        final boolean headless;
         public boolean resizable;
 
         public Settings() {
-            this(false, 1, false, 800, 600, false, 60, false, true);
+            this(false, 1, false, 800, 600, false, 60, false, true, false);
         }
 
         public Settings(NG.Settings.Settings s) {
@@ -375,13 +562,13 @@ public class GLFWWindow {
                     false,
                     s.ANTIALIAS_LEVEL, false,
                     s.WINDOW_WIDTH, s.WINDOW_HEIGHT,
-                    s.V_SYNC, s.TARGET_FPS, true, true
+                    s.V_SYNC, s.TARGET_FPS, true, true, s.HEADLESS
             );
         }
 
         public Settings(
                 boolean glDebugMessages, int antialiasLevel, boolean fullscreen, int windowWidth,
-                int windowHeight, boolean vSync, int targetFPS, boolean cullFace, boolean resizable
+                int windowHeight, boolean vSync, int targetFPS, boolean cullFace, boolean resizable, boolean headless
         ) {
             this.glDebugMessages = glDebugMessages;
             this.antialiasLevel = antialiasLevel;
@@ -392,6 +579,7 @@ public class GLFWWindow {
             this.targetFPS = targetFPS;
             this.cullFace = cullFace;
             this.resizable = resizable;
+            this.headless = headless;
         }
     }
 }
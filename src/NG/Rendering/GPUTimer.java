@@ -0,0 +1,126 @@
+package NG.Rendering;
+
+import NG.DataStructures.Generic.IntList;
+import NG.Tools.TimeObserver;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.lwjgl.opengl.GL15.*;
+import static org.lwjgl.opengl.GL33.GL_TIME_ELAPSED;
+import static org.lwjgl.opengl.GL33.glGetQueryObjecti64;
+
+/**
+ * Measures how long the GPU spends on sections of a frame, using {@code GL_TIME_ELAPSED} queries. The queries of a
+ * frame are kept in a ring of {@link #RING_SIZE} frames, and are read in a later frame once their results are
+ * available, such that measuring never waits for the GPU. When the GPU is more than the ring behind, frames are not
+ * measured until a slot is free.
+ * <p>
+ * Results are reported to a {@link TimeObserver} as measurements of the identifier prefixed with {@value #PREFIX}.
+ * Sections must not overlap, as only one time query can be active at a time. All methods must be called on the thread
+ * of the OpenGL context.
+ */
+public class GPUTimer {
+    public static final String PREFIX = "GPU ";
+    private static final int RING_SIZE = 4;
+
+    private final TimeObserver observer;
+    private final Frame[] frames = new Frame[RING_SIZE];
+    private int writeIndex = 0;
+    private int readIndex = 0;
+    private int pending = 0;
+    /** the frame that is being measured, or null if this frame is skipped */
+    private Frame current = null;
+
+    /**
+     * @param observer receives the results
+     */
+    public GPUTimer(TimeObserver observer) {
+        this.observer = observer;
+        for (int i = 0; i < RING_SIZE; i++) {
+            frames[i] = new Frame();
+        }
+    }
+
+    /**
+     * reports the results of earlier frames that are available, and starts measuring a new frame if there is room.
+     */
+    public void startFrame() {
+        while (pending > 0 && frames[readIndex].isAvailable()) {
+            frames[readIndex].report(observer);
+            readIndex = (readIndex + 1) % RING_SIZE;
+            pending--;
+        }
+
+        if (pending == RING_SIZE) {
+            current = null;
+
+        } else {
+            current = frames[writeIndex];
+            current.clear();
+        }
+    }
+
+    /** starts measuring the section with the given identifier */
+    public void startTiming(String identifier) {
+        if (current != null) current.begin(identifier);
+    }
+
+    /** ends measuring the current section */
+    public void endTiming() {
+        if (current != null) glEndQuery(GL_TIME_ELAPSED);
+    }
+
+    /** ends measuring this frame. The results are reported in a later call to {@link #startFrame()} */
+    public void endFrame() {
+        if (current == null || current.size == 0) return;
+        writeIndex = (writeIndex + 1) % RING_SIZE;
+        pending++;
+        current = null;
+    }
+
+    public void cleanup() {
+        for (Frame frame : frames) {
+            frame.dispose();
+        }
+    }
+
+    /**
+     * The queries of one frame. Query objects are reused between frames.
+     */
+    private static class Frame {
+        final IntList queries = new IntList();
+        final List<String> identifiers = new ArrayList<>();
+        int size = 0;
+
+        void clear() {
+            identifiers.clear();
+            size = 0;
+        }
+
+        void begin(String identifier) {
+            if (size == queries.size()) queries.add(glGenQueries());
+            identifiers.add(identifier);
+            glBeginQuery(GL_TIME_ELAPSED, queries.get(size++));
+        }
+
+        /** @return true if the results of all queries can be read without waiting */
+        boolean isAvailable() {
+            // queries complete in order
+            return glGetQueryObjecti(queries.get(size - 1), GL_QUERY_RESULT_AVAILABLE) == GL_TRUE;
+        }
+
+        void report(TimeObserver observer) {
+            for (int i = 0; i < size; i++) {
+                long nanos = glGetQueryObjecti64(queries.get(i), GL_QUERY_RESULT);
+                observer.addMeasurement(PREFIX + identifiers.get(i), nanos);
+            }
+        }
+
+        void dispose() {
+            for (int i = 0; i < queries.size(); i++) {
+                glDeleteQueries(queries.get(i));
+            }
+        }
+    }
+}
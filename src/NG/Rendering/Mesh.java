@@ -105,10 +105,16 @@ public interface Mesh {
             int[] tex = new int[nrOfVerices];
 
             for (int i = 0; i < nrOfVerices; i++) {
-                String[] indices = tokens[i + 1].split("/");
-                vert[i] = readSymbol(indices[0]);
-                tex[i] = readSymbol(indices[1]);
-                norm[i] = readSymbol(indices[2]);
+                // of the form v, v/t, v//n or v/t/n
+                String token = tokens[i + 1];
+                int firstSlash = token.indexOf('/');
+                int secondSlash = firstSlash < 0 ? -1 : token.indexOf('/', firstSlash + 1);
+                int vertexEnd = firstSlash < 0 ? token.length() : firstSlash;
+                int textureEnd = secondSlash < 0 ? token.length() : secondSlash;
+
+                vert[i] = readSymbol(token, 0, vertexEnd);
+                tex[i] = firstSlash < 0 ? -1 : readSymbol(token, firstSlash + 1, textureEnd);
+                norm[i] = secondSlash < 0 ? -1 : readSymbol(token, secondSlash + 1, token.length());
             }
 
             return new Face(vert, norm, tex, null);
@@ -129,8 +135,8 @@ public interface Mesh {
             return new Face(indices, indices, indices, indices);
         }
 
-        private static int readSymbol(String index) {
-            return index.isEmpty() ? -1 : Integer.parseInt(index) - 1;
+        private static int readSymbol(String token, int begin, int end) {
+            return begin == end ? -1 : Integer.parseInt(token, begin, end, 10) - 1;
         }
 
     }
@@ -0,0 +1,849 @@
+package NG.Rendering;
+
+import NG.Core.Main;
+import NG.DataStructures.Generic.IntList;
+import NG.Tools.Logger;
+import NG.Tools.Toolbox;
+import org.lwjgl.system.MemoryUtil;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Consumer;
+
+/**
+ * Loads OBJ and PLY files into {@link VertexArrayMesh} objects. Files are memory-mapped and tokenized directly from
+ * their bytes, and vertices and indices are collected in off-heap buffers that are uploaded without copying, such that
+ * no objects are created per vertex or face. Corners of OBJ faces that share the same position, texture coordinate and
+ * normal are merged into one vertex using a hash table of primitive keys.
+ * <p>
+ * Parsing does not require an OpenGL context. Use {@link #loadAsync(Main, File, Consumer)} to parse on a worker thread
+ * and upload on the rendering thread. Polygons are triangulated as a fan; PLY files may be ascii or binary, and
+ * properties other than positions, normals and texture coordinates are ignored.
+ * <p>
+ * No part of the application loads meshes yet; this loader and {@link VertexArrayMesh} are the pipeline for when it
+ * does.
+ */
+public final class MeshLoader {
+    /** file filter for the file dialog */
+    public static final String FILE_FILTER = "*.obj;*.ply";
+    private static final int INITIAL_CAPACITY = 1 << 12;
+    private static final int EOF = -1;
+    /** the index of a missing texture coordinate or normal */
+    private static final int NONE = -1;
+
+    public enum Format {
+        OBJ, PLY;
+
+        /** guesses the format of a file based on its extension, defaulting to OBJ */
+        public static Format of(File file) {
+            String name = file.getName().toLowerCase(Locale.ROOT);
+            if (name.endsWith(".ply")) return PLY;
+            return OBJ;
+        }
+    }
+
+    private final ByteBuffer data;
+    private final int limit;
+    private int position = 0;
+    private int line = 1;
+    private boolean isBinary = false;
+
+    private final OffHeapFloats vertices = new OffHeapFloats(INITIAL_CAPACITY * VertexArrayMesh.FLOATS_PER_VERTEX);
+    private final OffHeapInts indices = new OffHeapInts(INITIAL_CAPACITY * 3);
+    private int nrOfVertices = 0;
+    /** the vertex indices of the current face */
+    private final IntList face = new IntList();
+
+    private MeshLoader(ByteBuffer data) {
+        this.data = data;
+        this.limit = data.limit();
+    }
+
+    /**
+     * loads the given file, deducing the format from its extension
+     * @param file an OBJ or PLY file
+     * @return the mesh described by the file, not yet uploaded
+     * @throws IOException if the file could not be read or is malformed
+     */
+    public static MeshData load(File file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) throw new IOException(file + " is too large to be mapped");
+            // the mapping remains valid after the channel is closed
+            return load(channel.map(FileChannel.MapMode.READ_ONLY, 0, size), Format.of(file));
+        }
+    }
+
+    /**
+     * parses a mesh from the bytes of the given buffer, from position 0 to its limit. The byte order of the buffer may
+     * be changed.
+     * @param data   the contents of a file
+     * @param format the format of the contents
+     * @return the mesh described by the data, not yet uploaded
+     * @throws IOException if the data is malformed
+     */
+    public static MeshData load(ByteBuffer data, Format format) throws IOException {
+        MeshLoader loader = new MeshLoader(data);
+
+        try {
+            switch (format) {
+                case OBJ:
+                    loader.parseOBJ();
+                    break;
+                case PLY:
+                    loader.parsePLY();
+                    break;
+                default:
+                    throw new IllegalArgumentException(String.valueOf(format));
+            }
+
+            return new MeshData(loader.vertices.release(), loader.indices.release(), loader.nrOfVertices);
+
+        } catch (IOException | RuntimeException e) {
+            loader.vertices.free();
+            loader.indices.free();
+            throw e;
+        }
+    }
+
+    /**
+     * parses the given file on a new thread, and uploads the result on the rendering thread
+     * @param root   the source of the rendering thread
+     * @param file   an OBJ or PLY file
+     * @param action is executed on the rendering thread with the uploaded mesh. Errors are displayed instead.
+     */
+    public static void loadAsync(Main root, File file, Consumer<Mesh> action) {
+        new Thread(() -> {
+            try {
+                long startTime = System.currentTimeMillis();
+                MeshData mesh = load(file);
+                Logger.INFO.printf(
+                        "Parsed %s in %d ms: %d vertices, %d triangles", file.getName(),
+                        System.currentTimeMillis() - startTime, mesh.nrOfVertices(), mesh.nrOfTriangles()
+                );
+                root.executeOnRenderThread(() -> action.accept(mesh.upload()));
+
+            } catch (IOException | RuntimeException e) {
+                Toolbox.display(e);
+            }
+        }, "Mesh loader").start();
+    }
+
+    /// OBJ ///
+
+    private void parseOBJ() throws IOException {
+        OffHeapFloats positions = new OffHeapFloats(INITIAL_CAPACITY * 3);
+        OffHeapFloats textures = new OffHeapFloats(INITIAL_CAPACITY * 2);
+        OffHeapFloats normals = new OffHeapFloats(INITIAL_CAPACITY * 3);
+        VertexHash corners = new VertexHash(INITIAL_CAPACITY);
+
+        try {
+            while (position < limit) {
+                skipSpaces();
+                int c = peek();
+
+                if (c == 'v' && isSpace(peek(1))) {
+                    position += 1;
+                    readFloats(positions, 3);
+
+                } else if (c == 'v' && peek(1) == 'n' && isSpace(peek(2))) {
+                    position += 2;
+                    readFloats(normals, 3);
+
+                } else if (c == 'v' && peek(1) == 't' && isSpace(peek(2))) {
+                    position += 2;
+                    // an optional third coordinate is skipped with the rest of the line
+                    readFloats(textures, 2);
+
+                } else if (c == 'f' && isSpace(peek(1))) {
+                    position += 1;
+                    parseOBJFace(positions, textures, normals, corners);
+                }
+
+                // comments, groups, materials and other statements are ignored
+                skipLine();
+            }
+
+        } finally {
+            positions.free();
+            textures.free();
+            normals.free();
+        }
+    }
+
+    private void parseOBJFace(
+            OffHeapFloats positions, OffHeapFloats textures, OffHeapFloats normals, VertexHash corners
+    ) throws IOException {
+        face.clear();
+        skipSpaces();
+
+        while (!isLineEnd(peek())) {
+            int v = resolveOBJIndex(readInt(), positions.size() / 3);
+            int vt = NONE;
+            int vn = NONE;
+
+            if (peek() == '/') {
+                position++;
+                if (peek() != '/') vt = resolveOBJIndex(readInt(), textures.size() / 2);
+                if (peek() == '/') {
+                    position++;
+                    vn = resolveOBJIndex(readInt(), normals.size() / 3);
+                }
+            }
+
+            int index = corners.putIfAbsent(v, vt, vn, nrOfVertices);
+            if (index == nrOfVertices) {
+                vertices.add(positions.get(3 * v), positions.get(3 * v + 1), positions.get(3 * v + 2));
+                if (vn == NONE) {
+                    vertices.add(0, 0, 0);
+                } else {
+                    vertices.add(normals.get(3 * vn), normals.get(3 * vn + 1), normals.get(3 * vn + 2));
+                }
+                if (vt == NONE) {
+                    vertices.add(0, 0);
+                } else {
+                    vertices.add(textures.get(2 * vt), textures.get(2 * vt + 1));
+                }
+                nrOfVertices++;
+            }
+
+            face.add(index);
+            skipSpaces();
+        }
+
+        addFace();
+    }
+
+    /** converts a one-based or negative relative OBJ index to a zero-based index */
+    private int resolveOBJIndex(int index, int count) throws IOException {
+        if (index > 0 && index <= count) return index - 1;
+        if (index < 0 && -index <= count) return count + index;
+        throw error("Index " + index + " refers to an undefined element");
+    }
+
+    /// PLY ///
+
+    private enum Type {
+        INT8(1), UINT8(1), INT16(2), UINT16(2), INT32(4), UINT32(4), FLOAT32(4), FLOAT64(8);
+
+        final int size;
+
+        Type(int size) {
+            this.size = size;
+        }
+
+        boolean isIntegral() {
+            return this != FLOAT32 && this != FLOAT64;
+        }
+
+        /** @return the type of the given name, or null if it is unknown */
+        static Type of(String name) {
+            switch (name) {
+                case "char":
+                case "int8":
+                    return INT8;
+                case "uchar":
+                case "uint8":
+                    return UINT8;
+                case "short":
+                case "int16":
+                    return INT16;
+                case "ushort":
+                case "uint16":
+                    return UINT16;
+                case "int":
+                case "int32":
+                    return INT32;
+                case "uint":
+                case "uint32":
+                    return UINT32;
+                case "float":
+                case "float32":
+                    return FLOAT32;
+                case "double":
+                case "float64":
+                    return FLOAT64;
+                default:
+                    return null;
+            }
+        }
+    }
+
+    private static class Property {
+        final String name;
+        final Type type;
+        /** the type of the number of elements, or null if this property is not a list */
+        final Type countType;
+
+        Property(String name, Type type, Type countType) {
+            this.name = name;
+            this.type = type;
+            this.countType = countType;
+        }
+    }
+
+    private static class Element {
+        final String name;
+        final int count;
+        final List<Property> properties = new ArrayList<>();
+
+        Element(String name, int count) {
+            this.name = name;
+            this.count = count;
+        }
+    }
+
+    private void parsePLY() throws IOException {
+        if (!readWord().equals("ply")) throw error("Missing ply header");
+        skipLine();
+
+        List<Element> elements = new ArrayList<>();
+        int vertexCount = 0;
+
+        while (true) {
+            String keyword = readWord();
+
+            if (keyword.equals("end_header")) {
+                skipLine();
+                break;
+
+            } else if (keyword.equals("format")) {
+                String format = readWord();
+                switch (format) {
+                    case "ascii":
+                        break;
+                    case "binary_little_endian":
+                        isBinary = true;
+                        data.order(ByteOrder.LITTLE_ENDIAN);
+                        break;
+                    case "binary_big_endian":
+                        isBinary = true;
+                        data.order(ByteOrder.BIG_ENDIAN);
+                        break;
+                    default:
+                        throw error("Unknown format " + format);
+                }
+
+            } else if (keyword.equals("element")) {
+                Element element = new Element(readWord(), readInt());
+                if (element.name.equals("vertex")) vertexCount = element.count;
+                elements.add(element);
+
+            } else if (keyword.equals("property")) {
+                if (elements.isEmpty()) throw error("Property without element");
+                String typeName = readWord();
+                Type countType = null;
+                if (typeName.equals("list")) {
+                    countType = readType();
+                    typeName = readWord();
+                }
+                Type type = Type.of(typeName);
+                if (type == null) throw error("Unknown type " + typeName);
+
+                elements.get(elements.size() - 1).properties.add(new Property(readWord(), type, countType));
+
+            } else if (position >= limit) {
+                throw error("Missing end_header");
+            }
+            // comments and obj_info are ignored
+
+            skipLine();
+        }
+
+        for (Element element : elements) {
+            switch (element.name) {
+                case "vertex":
+                    parsePLYVertices(element);
+                    break;
+                case "face":
+                    parsePLYFaces(element, vertexCount);
+                    break;
+                default:
+                    for (int i = 0; i < element.count; i++) {
+                        skipPLYRow(element);
+                    }
+            }
+        }
+    }
+
+    private void parsePLYVertices(Element element) throws IOException {
+        List<Property> properties = element.properties;
+        int[] slots = new int[properties.size()];
+        for (int i = 0; i < slots.length; i++) {
+            slots[i] = vertexSlot(properties.get(i).name);
+        }
+
+        float[] vertex = new float[VertexArrayMesh.FLOATS_PER_VERTEX];
+        for (int n = 0; n < element.count; n++) {
+            for (int i = 0; i < slots.length; i++) {
+                Property property = properties.get(i);
+                if (property.countType != null) {
+                    skipPLYList(property);
+
+                } else {
+                    double value = readPLYValue(property.type);
+                    if (slots[i] != NONE) vertex[slots[i]] = (float) value;
+                }
+            }
+            if (!isBinary) skipLine();
+
+            for (float value : vertex) {
+                vertices.add(value);
+            }
+        }
+        nrOfVertices += element.count;
+    }
+
+    /** @return the index of the vertex attribute with the given name, or {@link #NONE} if it is not used */
+    private static int vertexSlot(String name) {
+        switch (name) {
+            case "x":
+                return 0;
+            case "y":
+                return 1;
+            case "z":
+                return 2;
+            case "nx":
+                return 3;
+            case "ny":
+                return 4;
+            case "nz":
+                return 5;
+            case "u":
+            case "s":
+            case "texture_u":
+                return 6;
+            case "v":
+            case "t":
+            case "texture_v":
+                return 7;
+            default:
+                return NONE;
+        }
+    }
+
+    private void parsePLYFaces(Element element, int vertexCount) throws IOException {
+        for (int n = 0; n < element.count; n++) {
+            face.clear();
+
+            for (Property property : element.properties) {
+                boolean isIndices = property.name.equals("vertex_indices") || property.name.equals("vertex_index");
+                if (property.countType == null) {
+                    readPLYValue(property.type);
+
+                } else if (!isIndices) {
+                    skipPLYList(property);
+
+                } else {
+                    int count = (int) readPLYValue(property.countType);
+                    for (int i = 0; i < count; i++) {
+                        int index = (int) readPLYValue(property.type);
+                        if (index < 0 || index >= vertexCount) {
+                            throw error("Index " + index + " refers to an undefined vertex");
+                        }
+                        face.add(index);
+                    }
+                }
+            }
+            if (!isBinary) skipLine();
+
+            addFace();
+        }
+    }
+
+    private void skipPLYRow(Element element) throws IOException {
+        if (!isBinary) {
+            skipLine();
+            return;
+        }
+
+        for (Property property : element.properties) {
+            if (property.countType == null) {
+                readPLYValue(property.type);
+            } else {
+                skipPLYList(property);
+            }
+        }
+    }
+
+    private void skipPLYList(Property property) throws IOException {
+        int count = (int) readPLYValue(property.countType);
+        for (int i = 0; i < count; i++) {
+            readPLYValue(property.type);
+        }
+    }
+
+    private double readPLYValue(Type type) throws IOException {
+        if (!isBinary) {
+            skipSpaces();
+            return type.isIntegral() ? readInt() : readFloat();
+        }
+
+        if (position + type.size > limit) throw error("Unexpected end of file");
+        int index = position;
+        position += type.size;
+
+        switch (type) {
+            case INT8:
+                return data.get(index);
+            case UINT8:
+                return data.get(index) & 0xFF;
+            case INT16:
+                return data.getShort(index);
+            case UINT16:
+                return data.getShort(index) & 0xFFFF;
+            case INT32:
+                return data.getInt(index);
+            case UINT32:
+                return data.getInt(index) & 0xFFFFFFFFL;
+            case FLOAT32:
+                return data.getFloat(index);
+            case FLOAT64:
+                return data.getDouble(index);
+            default:
+                throw new IllegalArgumentException(String.valueOf(type));
+        }
+    }
+
+    private Type readType() throws IOException {
+        String name = readWord();
+        Type type = Type.of(name);
+        if (type == null) throw error("Unknown type " + name);
+        return type;
+    }
+
+    /// TOKENIZING ///
+
+    /** triangulates the current face as a fan around its first vertex */
+    private void addFace() throws IOException {
+        int size = face.size();
+        if (size < 3) throw error("A face needs at least 3 vertices, but has " + size);
+
+        int first = face.get(0);
+        for (int i = 1; i < size - 1; i++) {
+            indices.add(first, face.get(i), face.get(i + 1));
+        }
+    }
+
+    /** @return the byte at the current position, or EOF */
+    private int peek() {
+        return peek(0);
+    }
+
+    /** @return the byte at the given offset from the current position, or EOF */
+    private int peek(int offset) {
+        int index = position + offset;
+        return index < limit ? data.get(index) & 0xFF : EOF;
+    }
+
+    private static boolean isSpace(int c) {
+        return c == ' ' || c == '\t';
+    }
+
+    private static boolean isLineEnd(int c) {
+        return c == '\n' || c == '\r' || c == '#' || c == EOF;
+    }
+
+    private void skipSpaces() {
+        while (isSpace(peek())) {
+            position++;
+        }
+    }
+
+    /** moves to the start of the next line */
+    private void skipLine() {
+        while (position < limit) {
+            if (data.get(position++) == '\n') {
+                line++;
+                return;
+            }
+        }
+    }
+
+    private void readFloats(OffHeapFloats target, int count) throws IOException {
+        for (int i = 0; i < count; i++) {
+            skipSpaces();
+            target.add(readFloat());
+        }
+    }
+
+    /** reads a word of the header, which are the only strings that are created */
+    private String readWord() {
+        skipSpaces();
+        int start = position;
+        while (!isSpace(peek()) && !isLineEnd(peek())) {
+            position++;
+        }
+
+        byte[] bytes = new byte[position - start];
+        data.get(start, bytes);
+        return new String(bytes, StandardCharsets.US_ASCII);
+    }
+
+    private int readInt() throws IOException {
+        skipSpaces();
+        boolean negative = false;
+        if (peek() == '-' || peek() == '+') negative = (data.get(position++) == '-');
+
+        long value = 0;
+        int digits = 0;
+        for (int c = peek(); c >= '0' && c <= '9'; c = peek()) {
+            value = value * 10 + (c - '0');
+            position++;
+            digits++;
+        }
+
+        if (digits == 0) throw error("Expected an integer");
+        if (digits > 10 || value > Integer.MAX_VALUE) throw error("Integer out of range");
+        return (int) (negative ? -value : value);
+    }
+
+    /**
+     * parses a decimal number of the form {@code [-]digits[.digits][e[-]digits]} without creating a String.
+     */
+    private float readFloat() throws IOException {
+        boolean negative = false;
+        if (peek() == '-' || peek() == '+') negative = (data.get(position++) == '-');
+
+        double value = 0;
+        int digits = 0;
+        for (int c = peek(); c >= '0' && c <= '9'; c = peek()) {
+            value = value * 10 + (c - '0');
+            position++;
+            digits++;
+        }
+
+        if (peek() == '.') {
+            position++;
+            double scale = 0.1;
+            for (int c = peek(); c >= '0' && c <= '9'; c = peek()) {
+                value += (c - '0') * scale;
+                scale *= 0.1;
+                position++;
+                digits++;
+            }
+        }
+        if (digits == 0) throw error("Expected a number");
+
+        if (peek() == 'e' || peek() == 'E') {
+            position++;
+            boolean negativeExponent = false;
+            if (peek() == '-' || peek() == '+') negativeExponent = (data.get(position++) == '-');
+
+            int exponent = 0;
+            for (int c = peek(); c >= '0' && c <= '9'; c = peek()) {
+                exponent = exponent * 10 + (c - '0');
+                position++;
+            }
+            value *= Math.pow(10, negativeExponent ? -exponent : exponent);
+        }
+
+        return (float) (negative ? -value : value);
+    }
+
+    private IOException error(String message) {
+        if (isBinary) return new IOException(message + " at byte " + position);
+        return new IOException(message + " on line " + line);
+    }
+
+    /**
+     * The vertices and indices of a parsed mesh, stored off-heap until they are uploaded.
+     */
+    public static class MeshData {
+        private FloatBuffer vertices;
+        private IntBuffer indices;
+        private final int nrOfVertices;
+
+        private MeshData(FloatBuffer vertices, IntBuffer indices, int nrOfVertices) {
+            this.vertices = vertices;
+            this.indices = indices;
+            this.nrOfVertices = nrOfVertices;
+        }
+
+        public int nrOfVertices() {
+            return nrOfVertices;
+        }
+
+        public int nrOfTriangles() {
+            return indices.limit() / 3;
+        }
+
+        /** @return the interleaved vertices, in the layout of {@link VertexArrayMesh} */
+        public FloatBuffer getVertices() {
+            return vertices;
+        }
+
+        /** @return three vertex indices per triangle */
+        public IntBuffer getIndices() {
+            return indices;
+        }
+
+        /**
+         * uploads this mesh to the GPU and frees the off-heap memory. Must be called exactly once, on the rendering
+         * thread.
+         */
+        public VertexArrayMesh upload() {
+            assert vertices != null : "mesh has already been uploaded";
+            VertexArrayMesh mesh = new VertexArrayMesh(vertices, indices);
+            free();
+            return mesh;
+        }
+
+        /** frees the off-heap memory without uploading */
+        public void free() {
+            MemoryUtil.memFree(vertices);
+            MemoryUtil.memFree(indices);
+            vertices = null;
+            indices = null;
+        }
+    }
+
+    /**
+     * Maps triples of OBJ indices to vertex indices, using open addressing on primitive arrays
+     */
+    private static class VertexHash {
+        private int[] keys;
+        private int[] values;
+        private int size = 0;
+
+        VertexHash(int capacity) {
+            allocate(Integer.highestOneBit(Math.max(capacity, 2) - 1) << 1);
+        }
+
+        private void allocate(int capacity) {
+            keys = new int[3 * capacity];
+            values = new int[capacity];
+            Arrays.fill(values, NONE);
+        }
+
+        /**
+         * @param value a non-negative value to store when the key is new
+         * @return the value stored for the given key, which is the given value if the key was absent
+         */
+        int putIfAbsent(int v, int vt, int vn, int value) {
+            if (2 * (size + 1) > values.length) grow();
+
+            int mask = values.length - 1;
+            int slot = hash(v, vt, vn) & mask;
+            while (values[slot] != NONE) {
+                int k = 3 * slot;
+                if (keys[k] == v && keys[k + 1] == vt && keys[k + 2] == vn) return values[slot];
+                slot = (slot + 1) & mask;
+            }
+
+            keys[3 * slot] = v;
+            keys[3 * slot + 1] = vt;
+            keys[3 * slot + 2] = vn;
+            values[slot] = value;
+            size++;
+            return value;
+        }
+
+        private void grow() {
+            int[] oldKeys = keys;
+            int[] oldValues = values;
+            allocate(2 * oldValues.length);
+            size = 0;
+
+            for (int slot = 0; slot < oldValues.length; slot++) {
+                if (oldValues[slot] == NONE) continue;
+                int k = 3 * slot;
+                putIfAbsent(oldKeys[k], oldKeys[k + 1], oldKeys[k + 2], oldValues[slot]);
+            }
+        }
+
+        private static int hash(int v, int vt, int vn) {
+            int h = v * 0x9E3779B1;
+            h = (h ^ vt) * 0x85EBCA6B;
+            h = (h ^ vn) * 0xC2B2AE35;
+            return h ^ (h >>> 16);
+        }
+    }
+
+    /** A growable list of floats in native memory */
+    private static class OffHeapFloats {
+        private FloatBuffer buffer;
+        private int size = 0;
+
+        OffHeapFloats(int capacity) {
+            buffer = MemoryUtil.memAllocFloat(capacity);
+        }
+
+        void add(float value) {
+            if (size == buffer.capacity()) buffer = MemoryUtil.memRealloc(buffer, 2 * size);
+            buffer.put(size++, value);
+        }
+
+        void add(float a, float b) {
+            add(a);
+            add(b);
+        }
+
+        void add(float a, float b, float c) {
+            add(a);
+            add(b);
+            add(c);
+        }
+
+        float get(int index) {
+            assert index < size : index + " >= " + size;
+            return buffer.get(index);
+        }
+
+        int size() {
+            return size;
+        }
+
+        /** @return the buffer with its limit at the size of this list. The caller becomes responsible for freeing it */
+        FloatBuffer release() {
+            FloatBuffer result = buffer.position(0).limit(size);
+            buffer = null;
+            return result;
+        }
+
+        void free() {
+            MemoryUtil.memFree(buffer);
+            buffer = null;
+        }
+    }
+
+    /** A growable list of integers in native memory */
+    private static class OffHeapInts {
+        private IntBuffer buffer;
+        private int size = 0;
+
+        OffHeapInts(int capacity) {
+            buffer = MemoryUtil.memAllocInt(capacity);
+        }
+
+        void add(int a, int b, int c) {
+            if (size + 3 > buffer.capacity()) buffer = MemoryUtil.memRealloc(buffer, 2 * buffer.capacity() + 3);
+            buffer.put(size++, a);
+            buffer.put(size++, b);
+            buffer.put(size++, c);
+        }
+
+        /** @return the buffer with its limit at the size of this list. The caller becomes responsible for freeing it */
+        IntBuffer release() {
+            IntBuffer result = buffer.position(0).limit(size);
+            buffer = null;
+            return result;
+        }
+
+        void free() {
+            MemoryUtil.memFree(buffer);
+            buffer = null;
+        }
+    }
+}
@@ -3,33 +3,67 @@ package NG.Rendering;
 import NG.Core.AbstractGameLoop;
 import NG.Core.Main;
 import NG.Core.ToolElement;
+import NG.DataStructures.Generic.ConcurrentBitSet;
 import NG.GUIMenu.Rendering.NVGOverlay;
+import NG.Rendering.Shaders.AbstractShader;
+import NG.Rendering.Shaders.CameraUniforms;
 import NG.Rendering.Shaders.ClickShader;
 import NG.Rendering.Shaders.SGL;
 import NG.Rendering.Shaders.ShaderProgram;
+import NG.Rendering.Shaders.ShaderReloader;
 import NG.Settings.Settings;
+import NG.Tools.Directory;
 import NG.Tools.Logger;
 import NG.Tools.TimeObserver;
 import NG.Tools.Toolbox;
+import org.joml.Matrix4f;
 
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.BiConsumer;
+import java.util.function.BooleanSupplier;
 import java.util.function.Consumer;
+import java.util.function.IntSupplier;
 
 import static org.lwjgl.opengl.GL11.*;
+import static org.lwjgl.opengl.GL30.GL_FRAMEBUFFER;
+import static org.lwjgl.opengl.GL30.glBindFramebuffer;
 
 /**
- * Repeatedly renders a frame of the main camera of the game given by {@link #init(Main)}
+ * Repeatedly renders a frame of the main camera of the game given by {@link #init(Main)}.
+ * <p>
+ * With {@link Settings#ON_DEMAND_RENDERING}, a frame is only rendered when something changed: input arrived, a
+ * deferred action is queued, a scene version changed, the gui reports damage, the window was resized or damaged, or an
+ * animation is active. Otherwise, the loop waits for window events, up to {@link #IDLE_TIMEOUT_SECONDS} between checks
+ * for changes that are not reported with {@link #requestRender()}.
+ * <p>
+ * This loop may run on the thread that processes the window events, or with {@link Thread#start()} on a thread of its
+ * own, in which case it takes over the OpenGL context of the window while it runs.
  * @author Geert van Ieperen. Created on 13-9-2018.
  */
 public class RenderLoop extends AbstractGameLoop implements ToolElement {
+    private static final double IDLE_TIMEOUT_SECONDS = 0.25;
     public final TimeObserver timer;
+    private final GPUTimer gpuTimer;
     private final NVGOverlay overlay;
     public boolean accurateTiming = true;
-    private final List<RenderBundle> renders;
+    public boolean asyncPicking = true;
+    private final RenderQueue renderQueue;
+    private final RenderQueue.Backend backend = new GLBackend();
     private final ClickShader clickShader;
+    private final CameraUniforms cameraUniforms;
+    private final List<IntSupplier> sceneVersions = new ArrayList<>();
+    private final Matrix4f lastViewProjection = new Matrix4f();
+    private int cameraVersion = 0;
+    private final AtomicBoolean renderRequested = new AtomicBoolean(true);
+    private final List<BooleanSupplier> animations = new CopyOnWriteArrayList<>();
+    private int renderedSceneVersion = 0;
+    private int renderedWidth = 0;
+    private int renderedHeight = 0;
+    private ShaderReloader shaderReloader = null;
     private Main root;
     private int clickShaderResult;
 
@@ -40,10 +74,12 @@ public class RenderLoop extends AbstractGameLoop implements ToolElement {
     public RenderLoop(int targetFPS) {
         super("Renderloop", targetFPS);
         overlay = new NVGOverlay();
-        renders = new ArrayList<>();
+        renderQueue = new RenderQueue();
         clickShader = new ClickShader();
+        cameraUniforms = new CameraUniforms();
 
         timer = new TimeObserver((targetFPS / 4) + 1, true);
+        gpuTimer = new GPUTimer(timer);
     }
 
     public void init(Main root) throws IOException {
@@ -53,87 +89,129 @@ public class RenderLoop extends AbstractGameLoop implements ToolElement {
         Settings settings = root.settings();
 
         accurateTiming = settings.ACCURATE_RENDER_TIMING;
+        asyncPicking = settings.ASYNC_PICKING;
         overlay.init(settings.ANTIALIAS_LEVEL);
+        overlay.getImages().setBudget(settings.IMAGE_MEMORY_BUDGET_MB * (1L << 20));
+        // decoded images are uploaded, and uploaded images are drawn, in the next frame
+        overlay.getImages().addLoadListener(this::requestRender);
         overlay.addHudItem((hud) -> {
-            if (root.settings().PRINT_ROLL) {
-                Logger.putOnlinePrint(hud::printRoll);
-            }
+            if (root.settings().PRINT_ROLL) hud.printRoll();
         });
-        Logger.printOnline(() -> "Index: " + clickShader.getValue());
+        Logger.printOnline(() -> "Index: " + clickShaderResult);
+        // requested and recorded frames must be rendered
+        addAnimation(root.window()::isCapturing);
+        root.window().addResizeListener((width, height) -> requestRender());
+
+        if (settings.SHADER_HOT_RELOAD) {
+            try {
+                shaderReloader = new ShaderReloader(Directory.shaders.getPath(), this::requestRender);
+            } catch (IOException e) {
+                Logger.WARN.print("Shaders are not reloaded: " + e.getMessage());
+            }
+        }
     }
 
     /**
      * generates a new render bundle, which allows adding rendering actions which are executed in order on the given
-     * shader. There is no guarantee on execution order between shaders
-     * @param shader the shader used, or null to use a basic Phong shading
+     * shader. Bundles are drawn in order of their layer; within a layer, there is no guarantee on execution order
+     * between shaders
+     * @param shader the shader used
      * @return a bundle that allows adding rendering options.
      */
     public RenderBundle renderSequence(ShaderProgram shader) {
-        RenderBundle r = new RenderBundle(shader);
-        renders.add(r);
-        return r;
+        return new RenderBundle(shader);
+    }
+
+    @Override
+    public void run() {
+        GLFWWindow window = root.window();
+        boolean acquired = window.makeContextCurrent();
+        try {
+            super.run();
+
+        } finally {
+            if (acquired) window.releaseContext();
+            // the event thread may be waiting for this loop to end
+            window.wakeUp();
+        }
     }
 
     @Override
     protected void update(float deltaTime) {
+        GLFWWindow window = root.window();
+        if (root.settings().ON_DEMAND_RENDERING && !needsRender(window)) {
+            waitForChanges(window);
+            if (window.shouldClose()) stopLoop();
+            if (!needsRender(window)) return;
+        }
+        // requests made while rendering this frame are handled in the next frame
+        renderRequested.set(false);
+        if (shaderReloader != null) shaderReloader.reloadChanged();
+
         Toolbox.checkGLError("Pre-loop");
         timer.startNewLoop();
         // cache value of accurateTiming for this loop
         boolean accurateTimingThisLoop = this.accurateTiming;
 
-        if (accurateTimingThisLoop) timer.startTiming("loop init");
+        if (accurateTimingThisLoop) {
+            gpuTimer.startFrame();
+            timer.startTiming("loop init");
+        }
 
-        GLFWWindow window = root.window();
-        if (window.getWidth() == 0 || window.getHeight() == 0) {
-            window.update();
+        // the window may be resized while rendering; this frame uses the size at its start
+        long windowSize = window.getSize();
+        int windowWidth = GLFWWindow.widthOf(windowSize);
+        int windowHeight = GLFWWindow.heightOf(windowSize);
+
+        if (windowWidth == 0 || windowHeight == 0) {
+            window.update(windowWidth, windowHeight);
             return;
         }
 
         // restore window state
+        glBindFramebuffer(GL_FRAMEBUFFER, window.getFramebuffer());
         glEnable(GL_DEPTH_TEST);
 
         glClearColor(1f, 1f, 1f, 0f); // white
         glClear(GL_COLOR_BUFFER_BIT | GL_DEPTH_BUFFER_BIT);
 
-        glViewport(0, 0, window.getWidth(), window.getHeight());
+        glViewport(0, 0, windowWidth, windowHeight);
         glPolygonMode(GL_FRONT_AND_BACK, GL_FILL);
 
         glEnable(GL_BLEND);
         glBlendFunc(GL_SRC_ALPHA, GL_ONE_MINUS_SRC_ALPHA);
         Toolbox.checkGLError(window.toString());
 
-        clickShader.init(root);
+        cameraUniforms.update(root.camera(), (float) windowWidth / windowHeight);
+        int sceneVersion = getSceneVersion(window);
+        boolean doClickPass = clickShader.init(root, sceneVersion, windowWidth, windowHeight);
+        renderedSceneVersion = sceneVersion;
+        renderedWidth = windowWidth;
+        renderedHeight = windowHeight;
 
         if (accurateTimingThisLoop) timer.endTiming("loop init");
-        for (RenderBundle renderBundle : renders) {
-            String identifier = renderBundle.shader.getClass().getSimpleName();
-            if (accurateTimingThisLoop) timer.startTiming(identifier);
+        renderQueue.submit(root, backend, doClickPass, accurateTimingThisLoop ? timer : null);
 
-            renderBundle.draw();
+        int clickValue = asyncPicking ? clickShader.pollValue(doClickPass) : clickShader.getValue(doClickPass);
+        clickShaderResult = clickValue - 1;
+        clickShader.pollRegion();
 
-            if (accurateTimingThisLoop) {
-                glFinish();
-                timer.endTiming(identifier);
-            }
-            Toolbox.checkGLError(identifier);
+        if (accurateTimingThisLoop) {
+            timer.startTiming("GUI");
+            gpuTimer.startTiming("GUI");
         }
-
-        clickShaderResult = clickShader.getValue() - 1;
-
-        int windowWidth = window.getWidth();
-        int windowHeight = window.getHeight();
-        if (accurateTimingThisLoop) timer.startTiming("GUI");
         overlay.draw(windowWidth, windowHeight, 10, 10, 12);
 
         if (accurateTimingThisLoop) {
-            glFinish();
+            gpuTimer.endTiming();
+            gpuTimer.endFrame();
             timer.endTiming("GUI");
         }
         Toolbox.checkGLError(overlay.toString());
 
         timer.startTiming("GPU Update");
         // update window
-        window.update();
+        window.update(windowWidth, windowHeight);
         timer.endTiming("GPU Update");
 
         // loop clean
@@ -141,10 +219,118 @@ public class RenderLoop extends AbstractGameLoop implements ToolElement {
         if (window.shouldClose()) stopLoop();
     }
 
+    /**
+     * @return true if the frame would differ from the last rendered frame
+     */
+    private boolean needsRender(GLFWWindow window) {
+        long windowSize = window.getSize();
+        int width = GLFWWindow.widthOf(windowSize);
+        int height = GLFWWindow.heightOf(windowSize);
+        // a minimized window shows nothing
+        if (width == 0 || height == 0) return false;
+        if (renderRequested.get() || hasDeferredActions() || window.pollRefreshRequest()) return true;
+        if (width != renderedWidth || height != renderedHeight) return true;
+        if (getSceneVersion(window) != renderedSceneVersion) return true;
+        if (!root.gui().getDamage().isEmpty()) return true;
+
+        for (BooleanSupplier animation : animations) {
+            if (animation.getAsBoolean()) return true;
+        }
+        return false;
+    }
+
+    /**
+     * blocks until a render is requested, or until {@link #IDLE_TIMEOUT_SECONDS} passed. On the event thread, window
+     * events are processed while waiting.
+     */
+    private void waitForChanges(GLFWWindow window) {
+        if (window.isEventThread()) {
+            window.waitEvents(IDLE_TIMEOUT_SECONDS);
+            return;
+        }
+
+        synchronized (renderRequested) {
+            try {
+                if (!renderRequested.get()) renderRequested.wait((long) (IDLE_TIMEOUT_SECONDS * 1000));
+
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * requests a new frame to be rendered, also when on-demand rendering finds no changes. May be called from any
+     * thread.
+     */
+    public void requestRender() {
+        if (!renderRequested.getAndSet(true)) wake();
+    }
+
+    /** interrupts {@link #waitForChanges(GLFWWindow)} */
+    private void wake() {
+        synchronized (renderRequested) {
+            renderRequested.notifyAll();
+        }
+        if (root != null) root.window().wakeUp();
+    }
+
+    @Override
+    public void stopLoop() {
+        super.stopLoop();
+        wake();
+    }
+
+    /**
+     * adds an animation, which makes this loop render every frame while it is active, also when on-demand rendering
+     * finds no changes.
+     * @param isActive a supplier that returns true while the animation is running. May be called every frame.
+     */
+    public void addAnimation(BooleanSupplier isActive) {
+        animations.add(isActive);
+    }
+
+    @Override
+    public void defer(Runnable action) {
+        super.defer(action);
+        requestRender();
+    }
+
+    /**
+     * adds a source of the scene version. The click shader pass is skipped when the mouse did not move, the camera did
+     * not change and none of the scene versions changed.
+     * @param version a supplier of a number that changes whenever anything drawn by this loop moves
+     */
+    public void addSceneVersion(IntSupplier version) {
+        sceneVersions.add(version);
+    }
+
+    private int getSceneVersion(GLFWWindow window) {
+        Matrix4f viewProjection = root.camera().getViewProjection(window);
+        if (!viewProjection.equals(lastViewProjection)) {
+            lastViewProjection.set(viewProjection);
+            cameraVersion++;
+        }
+
+        int version = cameraVersion;
+        for (IntSupplier source : sceneVersions) {
+            version = 31 * version + source.getAsInt();
+        }
+        return version;
+    }
+
     public void addHudItem(Consumer<NVGOverlay.Painter> draw) {
         overlay.addHudItem(draw);
     }
 
+    /**
+     * requests the indices of everything drawn in the given rectangle of the window. May be called from any thread.
+     * @see ClickShader#requestRegion(int, int, int, int, Consumer)
+     */
+    public void requestRegion(int x1, int y1, int x2, int y2, Consumer<ConcurrentBitSet> action) {
+        clickShader.requestRegion(x1, y1, x2, y2, action);
+    }
+
     public int getClickShaderResult() {
         // the background is black, thus entities start at index 1
         return clickShaderResult;
@@ -152,53 +338,88 @@ public class RenderLoop extends AbstractGameLoop implements ToolElement {
 
     @Override
     public void cleanup() {
+        if (shaderReloader != null) shaderReloader.cleanup();
         overlay.cleanup();
+        cameraUniforms.cleanup();
+        gpuTimer.cleanup();
     }
 
     public class RenderBundle {
         private final ShaderProgram shader;
-        private final List<BiConsumer<SGL, Main>> targets;
+        private int layer = 0;
+        private boolean blend = true;
 
         private RenderBundle(ShaderProgram shader) {
             this.shader = shader;
-            this.targets = new ArrayList<>();
+            if (shaderReloader != null && shader instanceof AbstractShader) {
+                shaderReloader.add((AbstractShader) shader);
+            }
         }
 
         /**
-         * appends the given consumer to the end of the render sequence
+         * sets the layer of the drawables that are added after this call. Lower layers are drawn first. The default
+         * layer is 0.
          * @return this
          */
-        public RenderBundle add(BiConsumer<SGL, Main> drawable) {
-            targets.add(drawable);
+        public RenderBundle setLayer(int layer) {
+            this.layer = layer;
+            return this;
+        }
+
+        /**
+         * sets whether blending is enabled for the drawables that are added after this call. Blending is enabled by
+         * default.
+         * @return this
+         */
+        public RenderBundle setBlending(boolean blend) {
+            this.blend = blend;
             return this;
         }
 
         /**
-         * executes the given drawables in order
+         * appends the given consumer to the end of the render sequence
+         * @return this
          */
-        public void draw() {
-            shader.bind();
-            {
-                shader.initialize(root);
-
-                SGL gl = shader.getGL(root);
-                shader.setClickShading(false);
-                // draw everything on screen
-                for (BiConsumer<SGL, Main> tgt : targets) {
-                    tgt.accept(gl, root);
-                }
-
-                clickShader.bind();
-                {
-                    shader.setClickShading(true);
-                    // draw everything in frame buffer
-                    for (BiConsumer<SGL, Main> tgt : targets) {
-                        tgt.accept(gl, root);
-                    }
-                }
-                clickShader.unbind();
+        public RenderBundle add(BiConsumer<SGL, Main> drawable) {
+            renderQueue.add(shader, layer, blend, drawable);
+            return this;
+        }
+    }
+
+    /** executes the state changes of the render queue on the OpenGL context of this loop */
+    private class GLBackend implements RenderQueue.Backend {
+        @Override
+        public void setBlend(boolean enabled) {
+            if (enabled) {
+                glEnable(GL_BLEND);
+            } else {
+                glDisable(GL_BLEND);
             }
-            shader.unbind();
+        }
+
+        @Override
+        public void bindClickBuffer() {
+            clickShader.bind();
+        }
+
+        @Override
+        public void unbindClickBuffer() {
+            clickShader.unbind();
+        }
+
+        @Override
+        public void startTiming(String identifier) {
+            gpuTimer.startTiming(identifier);
+        }
+
+        @Override
+        public void endTiming(String identifier) {
+            gpuTimer.endTiming();
+        }
+
+        @Override
+        public void checkErrors(String identifier) {
+            Toolbox.checkGLError(identifier);
         }
     }
 }
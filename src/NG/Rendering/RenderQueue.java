@@ -0,0 +1,207 @@
+package NG.Rendering;
+
+import NG.Core.Main;
+import NG.Rendering.Shaders.SGL;
+import NG.Rendering.Shaders.ShaderProgram;
+import NG.Tools.TimeObserver;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+/**
+ * Collects the draw commands of all render sequences, and submits them in order of a sort key. The key orders commands
+ * by layer, then draws unblended commands before blended commands, and then groups commands by shader program, in the
+ * order in which the programs were first added.
+ * Commands with equal keys keep the order in which they were added.
+ * <p>
+ * Commands are submitted through a state cache: consecutive commands of the same program are drawn without unbinding
+ * the program, every program is initialized at most once per frame, and the blend state is only changed when it
+ * differs. All graphics calls outside of shaders and drawables go through a {@link Backend}, such that the order of
+ * submission can be verified without a GPU, by using a recording backend and shaders that record their calls.
+ */
+public class RenderQueue {
+    private static final int LAYER_SHIFT = 32;
+    private static final int BLEND_SHIFT = 31;
+    private static final long PROGRAM_MASK = (1L << BLEND_SHIFT) - 1;
+    private static final int UNKNOWN = -1;
+
+    private final List<Command> commands = new ArrayList<>();
+    private final Map<ShaderProgram, Integer> programIndices = new IdentityHashMap<>();
+    private boolean isSorted = true;
+
+    /** for every program index, the frame in which the program was last initialized */
+    private int[] initializedFrame = new int[0];
+    private int frame = 0;
+    private ShaderProgram boundProgram = null;
+    private int blendState = UNKNOWN;
+
+    /**
+     * adds a draw command to this queue
+     * @param shader the shader to draw with
+     * @param layer  commands of lower layers are drawn first, regardless of shader
+     * @param blend  whether blending is enabled while drawing. Within a layer, unblended commands are drawn first
+     * @param target the action that executes the draw calls
+     */
+    public void add(ShaderProgram shader, int layer, boolean blend, BiConsumer<SGL, Main> target) {
+        assert layer >= 0 : layer;
+        int programIndex = programIndices.computeIfAbsent(shader, s -> programIndices.size());
+        if (programIndex >= initializedFrame.length) {
+            initializedFrame = Arrays.copyOf(initializedFrame, programIndex + 1);
+            initializedFrame[programIndex] = frame - 1;
+        }
+
+        long key = ((long) layer << LAYER_SHIFT) | ((blend ? 1L : 0L) << BLEND_SHIFT) | programIndex;
+        commands.add(new Command(key, shader, blend, target));
+        isSorted = false;
+    }
+
+    /** @return the commands of this queue, in order of submission */
+    public List<Command> getCommands() {
+        sort();
+        return Collections.unmodifiableList(commands);
+    }
+
+    private void sort() {
+        if (isSorted) return;
+        // stable sort, such that equal keys keep their insertion order
+        commands.sort(Comparator.comparingLong(c -> c.key));
+        isSorted = true;
+    }
+
+    /**
+     * draws all commands of this queue in order. Every run of commands with the same key is drawn as one group, which
+     * is repeated in the click pass if requested.
+     * @param root        the object passed to shaders and drawables
+     * @param backend     executes the state changes that are not part of a shader
+     * @param doClickPass if true, every group is also drawn into the click buffer
+     * @param timer       if not null, the submission of every group is timed separately, and the backend is asked to
+     *                    time the execution of every group
+     */
+    public void submit(Main root, Backend backend, boolean doClickPass, TimeObserver timer) {
+        sort();
+        frame++;
+        // the state may have been changed since the previous frame
+        blendState = UNKNOWN;
+
+        int nrOfCommands = commands.size();
+        int start = 0;
+        while (start < nrOfCommands) {
+            Command first = commands.get(start);
+            int end = start + 1;
+            while (end < nrOfCommands && commands.get(end).key == first.key) {
+                end++;
+            }
+
+            ShaderProgram shader = first.shader;
+            String identifier = shader.getClass().getSimpleName();
+            if (timer != null) {
+                timer.startTiming(identifier);
+                backend.startTiming(identifier);
+            }
+
+            setBlend(backend, first.blend);
+            useProgram(root, shader, (int) (first.key & PROGRAM_MASK));
+
+            SGL gl = shader.getGL(root);
+            shader.setClickShading(false);
+            for (int i = start; i < end; i++) {
+                commands.get(i).target.accept(gl, root);
+            }
+
+            if (doClickPass) {
+                backend.bindClickBuffer();
+                shader.setClickShading(true);
+                for (int i = start; i < end; i++) {
+                    commands.get(i).target.accept(gl, root);
+                }
+                backend.unbindClickBuffer();
+                // the click buffer has its own blend state
+                blendState = UNKNOWN;
+            }
+
+            if (timer != null) {
+                backend.endTiming(identifier);
+                timer.endTiming(identifier);
+            }
+            backend.checkErrors(identifier);
+
+            start = end;
+        }
+
+        if (boundProgram != null) {
+            boundProgram.unbind();
+            boundProgram = null;
+        }
+    }
+
+    private void useProgram(Main root, ShaderProgram shader, int programIndex) {
+        if (shader != boundProgram) {
+            if (boundProgram != null) boundProgram.unbind();
+            shader.bind();
+            boundProgram = shader;
+        }
+
+        // uniforms are stored in the program, and remain valid when the program is bound again
+        if (initializedFrame[programIndex] != frame) {
+            initializedFrame[programIndex] = frame;
+            shader.initialize(root);
+        }
+    }
+
+    private void setBlend(Backend backend, boolean blend) {
+        int newState = blend ? 1 : 0;
+        if (newState != blendState) {
+            backend.setBlend(blend);
+            blendState = newState;
+        }
+    }
+
+    /**
+     * The graphics calls of a {@link RenderQueue} that are not part of a shader
+     */
+    public interface Backend {
+        /** enables or disables blending */
+        void setBlend(boolean enabled);
+
+        /** redirects drawing to the click buffer */
+        void bindClickBuffer();
+
+        /** redirects drawing back to the screen */
+        void unbindClickBuffer();
+
+        /** starts measuring the execution time of the following graphics calls */
+        void startTiming(String identifier);
+
+        /** stops measuring the execution time started with {@link #startTiming(String)} */
+        void endTiming(String identifier);
+
+        /**
+         * checks for errors in the preceding graphics calls
+         * @param identifier a description of the preceding calls
+         */
+        void checkErrors(String identifier);
+    }
+
+    /**
+     * A draw command with its sort key
+     */
+    public static class Command {
+        public final long key;
+        public final ShaderProgram shader;
+        public final boolean blend;
+        public final BiConsumer<SGL, Main> target;
+
+        private Command(long key, ShaderProgram shader, boolean blend, BiConsumer<SGL, Main> target) {
+            this.key = key;
+            this.shader = shader;
+            this.blend = blend;
+            this.target = target;
+        }
+    }
+}
@@ -0,0 +1,280 @@
+package NG.Rendering.Shaders;
+
+import NG.Core.Main;
+import NG.Tools.Logger;
+import org.joml.Matrix4fc;
+import org.joml.Vector3fc;
+import org.joml.Vector4fc;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.lwjgl.opengl.GL20.*;
+import static org.lwjgl.opengl.GL31.*;
+import static org.lwjgl.opengl.GL32.GL_GEOMETRY_SHADER;
+
+/**
+ * A shader program that is compiled from a vertex shader, an optional geometry shader and a fragment shader. Uniforms
+ * are resolved once with {@link #createUniform(String)}, and are set by name. The last value of every uniform is
+ * remembered, and setting a uniform to the value it already has does not call OpenGL. If the program declares the
+ * {@link CameraUniforms} block, it is bound to the shared camera buffer.
+ * <p>
+ * Linked programs are stored in the {@link ProgramCache} if the driver supports it, such that later starts skip
+ * compilation. A program can be rebuilt from its source files with {@link #reload()}.
+ */
+public abstract class AbstractShader implements ShaderProgram {
+    private final Map<String, Uniform> uniforms;
+    /** scratch space for comparing matrices */
+    private final float[] matrixValues = new float[16];
+    private final Path vertexPath;
+    private final Path geometryPath;
+    private final Path fragmentPath;
+    private int programId;
+    private final SGL gl;
+
+    /**
+     * compiles and links the given shaders, or loads the program from the cache if these sources have been linked
+     * before
+     * @param vertexPath   path to the vertex shader
+     * @param geometryPath path to the geometry shader, or null if no geometry shader is used
+     * @param fragmentPath path to the fragment shader
+     * @throws IOException     if any of the files could not be read
+     * @throws ShaderException if the shaders could not be compiled or linked
+     */
+    public AbstractShader(Path vertexPath, Path geometryPath, Path fragmentPath) throws IOException {
+        this.uniforms = new HashMap<>();
+        this.vertexPath = vertexPath;
+        this.geometryPath = geometryPath;
+        this.fragmentPath = fragmentPath;
+        this.programId = createProgram();
+        gl = new BaseSGL(this);
+    }
+
+    /** @return a new, linked program of the current source files */
+    private int createProgram() throws IOException {
+        String vertexSource = ShaderProgram.loadText(vertexPath);
+        String geometrySource = geometryPath == null ? null : ShaderProgram.loadText(geometryPath);
+        String fragmentSource = ShaderProgram.loadText(fragmentPath);
+
+        int program = glCreateProgram();
+        if (program == 0) {
+            throw new ShaderException("OpenGL error: Could not create Shader");
+        }
+
+        try {
+            boolean useCache = ProgramCache.isSupported();
+            String key = useCache ? ProgramCache.keyOf(vertexSource, geometrySource, fragmentSource) : null;
+
+            if (useCache && ProgramCache.load(program, key)) {
+                Logger.DEBUG.print("Loaded " + this + " from the program cache");
+
+            } else {
+                int vertexShaderId = ShaderProgram.createShader(program, GL_VERTEX_SHADER, vertexSource);
+                int geometryShaderId = geometrySource == null ? 0 :
+                        ShaderProgram.createShader(program, GL_GEOMETRY_SHADER, geometrySource);
+                int fragmentShaderId = ShaderProgram.createShader(program, GL_FRAGMENT_SHADER, fragmentSource);
+
+                if (useCache) ProgramCache.prepare(program);
+                link(program, vertexShaderId, geometryShaderId, fragmentShaderId);
+                if (useCache) ProgramCache.store(program, key);
+            }
+
+        } catch (ShaderException e) {
+            glDeleteProgram(program);
+            throw e;
+        }
+
+        bindCameraBlock(program);
+        return program;
+    }
+
+    /** links the program and deletes the shaders, which are not needed after linking */
+    private static void link(int program, int... shaders) throws ShaderException {
+        glLinkProgram(program);
+
+        for (int shader : shaders) {
+            if (shader == 0) continue;
+            glDetachShader(program, shader);
+            glDeleteShader(shader);
+        }
+
+        if (glGetProgrami(program, GL_LINK_STATUS) == 0) {
+            throw new ShaderException("Error linking Shader code: " + glGetProgramInfoLog(program, 1024));
+        }
+
+        glValidateProgram(program);
+        if (glGetProgrami(program, GL_VALIDATE_STATUS) == 0) {
+            Logger.WARN.print("Warning validating Shader code: " + glGetProgramInfoLog(program, 1024));
+        }
+    }
+
+    private static void bindCameraBlock(int program) {
+        int blockIndex = glGetUniformBlockIndex(program, CameraUniforms.BLOCK_NAME);
+        if (blockIndex != GL_INVALID_INDEX) {
+            glUniformBlockBinding(program, blockIndex, CameraUniforms.BINDING);
+        }
+    }
+
+    /**
+     * compiles the source files of this shader again, and replaces the program if this succeeds. All uniforms are
+     * resolved again, and uploaded on their next set. If compiling fails, the current program remains in use.
+     * @throws IOException     if any of the files could not be read
+     * @throws ShaderException if the shaders could not be compiled or linked
+     */
+    public void reload() throws IOException {
+        int newProgram = createProgram();
+        glDeleteProgram(programId);
+        programId = newProgram;
+
+        // the locations and values of the uniforms belong to the old program
+        for (Map.Entry<String, Uniform> entry : uniforms.entrySet()) {
+            entry.setValue(new Uniform(glGetUniformLocation(programId, entry.getKey())));
+        }
+    }
+
+    /** @return the source files of this shader, without the missing geometry shader */
+    public List<Path> getSourcePaths() {
+        List<Path> paths = new ArrayList<>(3);
+        paths.add(vertexPath);
+        if (geometryPath != null) paths.add(geometryPath);
+        paths.add(fragmentPath);
+        return paths;
+    }
+
+    /**
+     * resolves the location of the given uniform. Uniforms that are not used by the shader are optimized away by the
+     * driver, and are silently ignored when set.
+     * @param uniformName the name of the uniform as written in the shader source
+     */
+    protected void createUniform(String uniformName) {
+        int location = glGetUniformLocation(programId, uniformName);
+        if (location < 0) {
+            Logger.DEBUG.print("Uniform " + uniformName + " is not used by " + this);
+        }
+        uniforms.put(uniformName, new Uniform(location));
+    }
+
+    private Uniform uniform(String uniformName) {
+        Uniform uniform = uniforms.get(uniformName);
+        if (uniform == null) {
+            throw new ShaderException("Uniform " + uniformName + " has not been created in " + this);
+        }
+        return uniform;
+    }
+
+    protected void setUniform(String uniformName, Matrix4fc value) {
+        Uniform uniform = uniform(uniformName);
+        value.get(matrixValues);
+        if (uniform.update(matrixValues, 16)) {
+            glUniformMatrix4fv(uniform.location, false, matrixValues);
+        }
+    }
+
+    protected void setUniform(String uniformName, Vector3fc value) {
+        Uniform uniform = uniform(uniformName);
+        if (uniform.update(value.x(), value.y(), value.z(), 0)) {
+            glUniform3f(uniform.location, value.x(), value.y(), value.z());
+        }
+    }
+
+    protected void setUniform(String uniformName, Vector4fc value) {
+        Uniform uniform = uniform(uniformName);
+        if (uniform.update(value.x(), value.y(), value.z(), value.w())) {
+            glUniform4f(uniform.location, value.x(), value.y(), value.z(), value.w());
+        }
+    }
+
+    protected void setUniform(String uniformName, float value) {
+        Uniform uniform = uniform(uniformName);
+        if (uniform.update(value, 0, 0, 0)) {
+            glUniform1f(uniform.location, value);
+        }
+    }
+
+    protected void setUniform(String uniformName, int value) {
+        Uniform uniform = uniform(uniformName);
+        if (uniform.update(value)) {
+            glUniform1i(uniform.location, value);
+        }
+    }
+
+    protected void setUniform(String uniformName, boolean value) {
+        setUniform(uniformName, value ? 1 : 0);
+    }
+
+    @Override
+    public void bind() {
+        glUseProgram(programId);
+    }
+
+    @Override
+    public void unbind() {
+        glUseProgram(0);
+    }
+
+    @Override
+    public SGL getGL(Main root) {
+        return gl;
+    }
+
+    @Override
+    public void cleanup() {
+        unbind();
+        glDeleteProgram(programId);
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName();
+    }
+
+    /**
+     * The location of a uniform with the last value that was uploaded to it. Uniforms that are not used by the shader
+     * are never uploaded.
+     */
+    private static class Uniform {
+        final int location;
+        final float[] floats = new float[16];
+        int intValue;
+        boolean isSet = false;
+
+        Uniform(int location) {
+            this.location = location;
+        }
+
+        /** @return true if the first count values differ from the cached values, which are then replaced */
+        boolean update(float[] values, int count) {
+            if (location < 0) return false;
+            if (isSet && Arrays.equals(floats, 0, count, values, 0, count)) return false;
+            System.arraycopy(values, 0, floats, 0, count);
+            isSet = true;
+            return true;
+        }
+
+        /** @see #update(float[], int) */
+        boolean update(float x, float y, float z, float w) {
+            if (location < 0) return false;
+            if (isSet && floats[0] == x && floats[1] == y && floats[2] == z && floats[3] == w) return false;
+            floats[0] = x;
+            floats[1] = y;
+            floats[2] = z;
+            floats[3] = w;
+            isSet = true;
+            return true;
+        }
+
+        /** @see #update(float[], int) */
+        boolean update(int value) {
+            if (location < 0) return false;
+            if (isSet && intValue == value) return false;
+            intValue = value;
+            isSet = true;
+            return true;
+        }
+    }
+}
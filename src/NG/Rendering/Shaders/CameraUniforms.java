@@ -0,0 +1,71 @@
+package NG.Rendering.Shaders;
+
+import NG.Camera.Camera;
+import org.joml.Matrix4f;
+import org.lwjgl.system.MemoryStack;
+
+import java.nio.FloatBuffer;
+
+import static org.lwjgl.opengl.GL15.*;
+import static org.lwjgl.opengl.GL30.glBindBufferBase;
+import static org.lwjgl.opengl.GL31.GL_UNIFORM_BUFFER;
+
+/**
+ * A uniform buffer with the view and projection matrix of the camera, shared by all shader programs. Programs that
+ * declare the uniform block {@value #BLOCK_NAME} are bound to it by {@link AbstractShader}. The buffer is uploaded at
+ * most once per frame, and only when the camera or the window changed.
+ * <p>
+ * The block must be declared with the std140 layout as {@code mat4 viewMatrix; mat4 projectionMatrix;}.
+ */
+public class CameraUniforms {
+    /** the name of the uniform block in the shaders */
+    public static final String BLOCK_NAME = "Camera";
+    /** the uniform buffer binding point of the camera block */
+    public static final int BINDING = 0;
+    private static final int MATRIX_FLOATS = 16;
+
+    private final int ubo;
+    private final Matrix4f viewMatrix = new Matrix4f();
+    private final Matrix4f projectionMatrix = new Matrix4f();
+    /** the matrices of the current frame, before comparing them to the uploaded matrices */
+    private final Matrix4f newView = new Matrix4f();
+    private final Matrix4f newProjection = new Matrix4f();
+    private boolean isUploaded = false;
+
+    public CameraUniforms() {
+        ubo = glGenBuffers();
+        glBindBuffer(GL_UNIFORM_BUFFER, ubo);
+        glBufferData(GL_UNIFORM_BUFFER, 2L * MATRIX_FLOATS * Float.BYTES, GL_DYNAMIC_DRAW);
+        glBindBuffer(GL_UNIFORM_BUFFER, 0);
+        glBindBufferBase(GL_UNIFORM_BUFFER, BINDING, ubo);
+    }
+
+    /**
+     * uploads the matrices of the given camera, if these changed since the last call
+     * @param camera      the camera to view from
+     * @param aspectRatio the width of the viewport divided by its height
+     */
+    public void update(Camera camera, float aspectRatio) {
+        camera.getProjectionMatrix(aspectRatio, newProjection);
+        camera.getViewMatrix(newView.identity());
+
+        if (isUploaded && newView.equals(viewMatrix) && newProjection.equals(projectionMatrix)) return;
+        viewMatrix.set(newView);
+        projectionMatrix.set(newProjection);
+        isUploaded = true;
+
+        try (MemoryStack stack = MemoryStack.stackPush()) {
+            FloatBuffer buffer = stack.mallocFloat(2 * MATRIX_FLOATS);
+            viewMatrix.get(0, buffer);
+            projectionMatrix.get(MATRIX_FLOATS, buffer);
+
+            glBindBuffer(GL_UNIFORM_BUFFER, ubo);
+            glBufferSubData(GL_UNIFORM_BUFFER, 0, buffer);
+            glBindBuffer(GL_UNIFORM_BUFFER, 0);
+        }
+    }
+
+    public void cleanup() {
+        glDeleteBuffers(ubo);
+    }
+}
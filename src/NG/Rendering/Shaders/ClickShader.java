@@ -1,6 +1,7 @@
 package NG.Rendering.Shaders;
 
 import NG.Core.Main;
+import NG.DataStructures.Generic.ConcurrentBitSet;
 import NG.Rendering.GLFWWindow;
 import NG.Tools.Toolbox;
 import org.joml.Vector2i;
@@ -9,24 +10,76 @@ import org.lwjgl.BufferUtils;
 import org.lwjgl.opengl.GL11;
 
 import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
 
 import static org.lwjgl.opengl.GL11.*;
 import static org.lwjgl.opengl.GL20.GL_DEPTH_COMPONENT16;
+import static org.lwjgl.opengl.GL15.*;
+import static org.lwjgl.opengl.GL21.GL_PIXEL_PACK_BUFFER;
 import static org.lwjgl.opengl.GL30.*;
+import static org.lwjgl.opengl.GL32.*;
 
 /**
+ * Renders unique colors of elements into an off-screen framebuffer, and reads the color under the mouse to find the
+ * element that is hovered.
+ * <p>
+ * In asynchronous mode, the pixel is read into one of a ring of pixel buffer objects, guarded by a fence. The result is
+ * collected in a later frame once the fence is signaled, such that reading never stalls the pipeline. Results are
+ * delivered one or two frames late.
+ * <p>
+ * Only a small square around the mouse is rendered, using a scissor rectangle. When neither the mouse nor the scene
+ * changed since the last pass, the pass is skipped entirely and the previous value is kept.
+ * <p>
+ * A rectangular region can be requested with {@link #requestRegion(int, int, int, int, Consumer)}. The next pass then
+ * also covers that region, which is read asynchronously into a separate pixel buffer. Once its fence is signaled, the
+ * mapped pixels are decoded in parallel into a reused {@link ConcurrentBitSet}.
  * @author Geert van Ieperen created on 7-1-2019.
  */
-@SuppressWarnings("Duplicates")
 public class ClickShader {
     private final int frameBuffer;
     private final int colorBuffer;
     private final int depthBuffer;
+    private static final int RING_SIZE = 3;
+    private static final int PIXEL_BYTES = 4;
+    /** the highest value that can be encoded. Values are ids plus one, as 0 is the background */
+    public static final int MAX_VALUE = (1 << 24) - 1;
+    /** number of pixels rendered on each side of the mouse */
+    private static final int SCISSOR_RADIUS = 2;
+    private final int[] pixelBuffers = new int[RING_SIZE];
+    private final long[] fences = new long[RING_SIZE];
+    /** index of the next pixel buffer to write to */
+    private int writeIndex = 0;
+    /** index of the oldest pixel buffer that is being read */
+    private int readIndex = 0;
+    private int pending = 0;
+    private int lastValue = 0;
+    /** reused buffer for the result of one read */
+    private final ByteBuffer pixel = BufferUtils.createByteBuffer(PIXEL_BYTES);
 
     private int windowWidth = 0;
+    /** the framebuffer of the window, which is restored after using the click buffer */
+    private int screenFramebuffer = 0;
     private int windowHeight = 0;
 
-    private Vector2i mousePosition;
+    private Vector2i mousePosition = new Vector2i();
+    private final Vector2i lastMousePosition = new Vector2i(-1, -1);
+    private int lastSceneVersion = 0;
+    private boolean isValid = false;
+
+    /** the region requested by the input thread, not yet drawn */
+    private volatile Region requestedRegion = null;
+    /** the region that is included in the current pass */
+    private Region drawnRegion = null;
+    /** the region that is being read into the region buffer */
+    private Region readingRegion = null;
+    private final int regionBuffer;
+    private int regionBufferSize = 0;
+    private long regionFence = 0;
+    private ByteBuffer regionPixels = null;
+    /** the values of the last region, minus one. Reused between regions */
+    private final ConcurrentBitSet regionValues = new ConcurrentBitSet(MAX_VALUE);
 
     public ClickShader() {
         frameBuffer = glGenFramebuffers();
@@ -48,26 +101,62 @@ public class ClickShader {
         Toolbox.checkGLError(this.toString());
 
         glBindFramebuffer(GL_FRAMEBUFFER, 0);
+
+        for (int i = 0; i < RING_SIZE; i++) {
+            pixelBuffers[i] = glGenBuffers();
+            glBindBuffer(GL_PIXEL_PACK_BUFFER, pixelBuffers[i]);
+            glBufferData(GL_PIXEL_PACK_BUFFER, PIXEL_BYTES, GL_STREAM_READ);
+        }
+        regionBuffer = glGenBuffers();
+        glBindBuffer(GL_PIXEL_PACK_BUFFER, 0);
     }
 
+    /**
+     * binds the click framebuffer, restricting rendering to the area around the mouse. Blending is disabled, as blended
+     * colors do not decode to valid ids.
+     */
     public void bind() {
         glBindFramebuffer(GL_FRAMEBUFFER, frameBuffer);
+        glDisable(GL_BLEND);
+        glEnable(GL_SCISSOR_TEST);
+
+        int xMin = mousePosition.x - SCISSOR_RADIUS;
+        int yMin = windowHeight - mousePosition.y - SCISSOR_RADIUS;
+        int xMax = xMin + 2 * SCISSOR_RADIUS + 1;
+        int yMax = yMin + 2 * SCISSOR_RADIUS + 1;
+
+        if (drawnRegion != null) {
+            xMin = Math.min(xMin, drawnRegion.x);
+            yMin = Math.min(yMin, drawnRegion.y);
+            xMax = Math.max(xMax, drawnRegion.x + drawnRegion.width);
+            yMax = Math.max(yMax, drawnRegion.y + drawnRegion.height);
+        }
+
+        glScissor(xMin, yMin, xMax - xMin, yMax - yMin);
     }
 
     public void unbind() {
-        glBindFramebuffer(GL_FRAMEBUFFER, 0);
+        glEnable(GL_BLEND);
+        glDisable(GL_SCISSOR_TEST);
+        glBindFramebuffer(GL_FRAMEBUFFER, screenFramebuffer);
     }
 
-    public void init(Main game) {
-        // TODO only render where the mouse is
-
+    /**
+     * prepares the click framebuffer for a new pass, if one is needed
+     * @param game         the source of the window
+     * @param sceneVersion a number that changes whenever anything that is drawn in the click pass moves
+     * @param newWidth     the width of the window in this frame
+     * @param newHeight    the height of the window in this frame
+     * @return true if the click pass must be rendered, false if the result of the previous pass is still valid
+     */
+    public boolean init(Main game, int sceneVersion, int newWidth, int newHeight) {
         GLFWWindow window = game.window();
         mousePosition = window.getMousePosition();
+        screenFramebuffer = window.getFramebuffer();
 
         // if the screen size changed, resize buffers to match the new dimensions
-        int newWidth = window.getWidth();
-        int newHeight = window.getHeight();
         if (newWidth != windowWidth || newHeight != windowHeight) {
+            isValid = false;
             windowWidth = newWidth;
             windowHeight = newHeight;
             glBindRenderbuffer(GL_RENDERBUFFER, colorBuffer);
@@ -77,74 +166,260 @@ public class ClickShader {
             glBindRenderbuffer(GL_RENDERBUFFER, 0);
         }
 
+        // only one region is read at a time
+        Region request = requestedRegion;
+        if (request != null && drawnRegion == null && readingRegion == null) {
+            requestedRegion = null;
+            drawnRegion = request.toGLCoordinates(windowWidth, windowHeight);
+        }
+
+        if (drawnRegion == null && isValid
+                && mousePosition.equals(lastMousePosition) && sceneVersion == lastSceneVersion) {
+            return false;
+        }
+        isValid = true;
+        lastMousePosition.set(mousePosition);
+        lastSceneVersion = sceneVersion;
+
+        bind();
         int status = glCheckFramebufferStatus(GL_FRAMEBUFFER);
         if (status != GL_FRAMEBUFFER_COMPLETE) {
             throw new ShaderException("ClickShader could not init FrameBuffer : error " + Toolbox.asHex(status));
         }
 
-        glBindFramebuffer(GL_FRAMEBUFFER, frameBuffer);
         glClearColor(0f, 0f, 0f, 0f); // black
         glClear(GL_COLOR_BUFFER_BIT | GL_DEPTH_BUFFER_BIT);
-        glBindFramebuffer(GL_FRAMEBUFFER, 0);
+        unbind();
         Toolbox.checkGLError(this.toString());
+        return true;
     }
 
-    public int getValue() {
+    /**
+     * reads the value under the mouse, waiting for the GPU to finish rendering the click buffer
+     * @param isNewPass false if the click pass was skipped this frame, in which case the previous value is returned
+     * @return the value of the pixel under the mouse, or 0 if the mouse is outside the window
+     */
+    public int getValue(boolean isNewPass) {
+        if (!isNewPass) return lastValue;
+        if (!isMouseInWindow()) return lastValue = 0;
+
         glBindFramebuffer(GL_FRAMEBUFFER, frameBuffer);
-        ByteBuffer buffer = BufferUtils.createByteBuffer(3); // one for each color
-        glReadPixels(mousePosition.x, windowHeight - mousePosition.y, 1, 1, GL_RGB, GL11.GL_UNSIGNED_BYTE, buffer);
-
-        int r = Byte.toUnsignedInt(buffer.get(0));
-        int g = Byte.toUnsignedInt(buffer.get(1));
-        int b = Byte.toUnsignedInt(buffer.get(2));
-        assert !(r < 0 || g < 0 || b < 0) : String.format("got (%d, %d, %d)", r, g, b);
-        buffer.clear();
-        glBindFramebuffer(GL_FRAMEBUFFER, 0);
+        glReadPixels(mousePosition.x, windowHeight - mousePosition.y, 1, 1, GL_RGBA, GL11.GL_UNSIGNED_BYTE, pixel);
+        glBindFramebuffer(GL_FRAMEBUFFER, screenFramebuffer);
 
-        // convert to local
-        return colorToNumber(new Vector3i(r, g, b));
+        return lastValue = decodePixel();
     }
 
-    public void cleanup() {
-        glDeleteFramebuffers(frameBuffer);
-        glDeleteRenderbuffers(colorBuffer);
-        glDeleteRenderbuffers(depthBuffer);
+    /**
+     * starts reading the value under the mouse into a pixel buffer, and collects the results of earlier reads that
+     * have completed. Never waits for the GPU; when all pixel buffers are in use, no new read is started.
+     * @param isNewPass false if the click pass was skipped this frame, in which case no new read is started
+     * @return the most recent value that has been read, or 0 if no read has completed yet
+     */
+    public int pollValue(boolean isNewPass) {
+        // collect all reads that are done
+        while (pending > 0) {
+            int status = glClientWaitSync(fences[readIndex], 0, 0);
+            if (status != GL_ALREADY_SIGNALED && status != GL_CONDITION_SATISFIED) break;
+
+            glDeleteSync(fences[readIndex]);
+            fences[readIndex] = 0;
+
+            glBindBuffer(GL_PIXEL_PACK_BUFFER, pixelBuffers[readIndex]);
+            glGetBufferSubData(GL_PIXEL_PACK_BUFFER, 0, pixel);
+            lastValue = decodePixel();
+
+            readIndex = (readIndex + 1) % RING_SIZE;
+            pending--;
+        }
+
+        if (!isNewPass) {
+            // the previous read covers the current state
+
+        } else if (!isMouseInWindow()) {
+            lastValue = 0;
+
+        } else if (pending == RING_SIZE) {
+            // this pass can not be read, so it must be rendered again next frame
+            isValid = false;
+
+        } else {
+            glBindFramebuffer(GL_FRAMEBUFFER, frameBuffer);
+            glBindBuffer(GL_PIXEL_PACK_BUFFER, pixelBuffers[writeIndex]);
+            glReadPixels(mousePosition.x, windowHeight - mousePosition.y, 1, 1, GL_RGBA, GL11.GL_UNSIGNED_BYTE, 0L);
+            fences[writeIndex] = glFenceSync(GL_SYNC_GPU_COMMANDS_COMPLETE, 0);
+            glBindFramebuffer(GL_FRAMEBUFFER, screenFramebuffer);
+
+            writeIndex = (writeIndex + 1) % RING_SIZE;
+            pending++;
+        }
+
+        glBindBuffer(GL_PIXEL_PACK_BUFFER, 0);
+        return lastValue;
     }
 
-    private static Vector3i numberToColor(int i) {
-        assert i < (1 << 18);
-        final int bitSize = (1 << 6);
-        int r = (i % bitSize) << 2;
-        int g = (((i >> 6) % bitSize) << 2);
-        int b = (((i >> 12) % bitSize) << 2);
+    /**
+     * requests the values of all pixels in the given rectangle of window coordinates. The region is drawn in the next
+     * click pass, and the action is executed on the rendering thread once the region has been read, which is
+     * typically one or two frames later. When a region is requested before the previous request has been drawn, the
+     * previous request is dropped. May be called from any thread.
+     * @param x1     the x coordinate of one corner
+     * @param y1     the y coordinate of one corner, from the top of the window
+     * @param x2     the x coordinate of the opposite corner
+     * @param y2     the y coordinate of the opposite corner, from the top of the window
+     * @param action receives the set of all values in the region, each minus one, excluding the background. The set is
+     *               reused for the next region, and must not be kept after the action returns
+     */
+    public void requestRegion(int x1, int y1, int x2, int y2, Consumer<ConcurrentBitSet> action) {
+        int x = Math.min(x1, x2);
+        int y = Math.min(y1, y2);
+        requestedRegion = new Region(x, y, Math.abs(x2 - x1) + 1, Math.abs(y2 - y1) + 1, action);
+    }
+
+    /**
+     * starts reading the region that was drawn in this frame, if any, and collects a previous region read once it has
+     * completed. Must be called after the click pass of every frame.
+     */
+    public void pollRegion() {
+        if (readingRegion != null) {
+            int status = glClientWaitSync(regionFence, 0, 0);
+            if (status == GL_ALREADY_SIGNALED || status == GL_CONDITION_SATISFIED) {
+                glDeleteSync(regionFence);
+                regionFence = 0;
+
+                Region region = readingRegion;
+                readingRegion = null;
+                decodeRegion(region);
+                region.action.accept(regionValues);
+            }
+        }
+
+        if (drawnRegion != null) {
+            Region region = drawnRegion;
+            drawnRegion = null;
+
+            int size = region.width * region.height * PIXEL_BYTES;
+            glBindBuffer(GL_PIXEL_PACK_BUFFER, regionBuffer);
+            if (size > regionBufferSize) {
+                glBufferData(GL_PIXEL_PACK_BUFFER, size, GL_STREAM_READ);
+                regionBufferSize = size;
+            }
 
-        return new Vector3i(r, g, b);
+            glBindFramebuffer(GL_FRAMEBUFFER, frameBuffer);
+            glReadPixels(region.x, region.y, region.width, region.height, GL_RGBA, GL11.GL_UNSIGNED_BYTE, 0L);
+            regionFence = glFenceSync(GL_SYNC_GPU_COMMANDS_COMPLETE, 0);
+            glBindFramebuffer(GL_FRAMEBUFFER, screenFramebuffer);
+            glBindBuffer(GL_PIXEL_PACK_BUFFER, 0);
+
+            readingRegion = region;
+        }
     }
 
-    private static int colorToNumber(Vector3i value) {
-        int i = 0;
-        i += nearest(value.x) >> 2;
-        i += nearest(value.y) << 4;
-        i += nearest(value.z) << 10;
+    /** maps the region buffer and decodes every pixel of the region into the region values, one row per task */
+    private void decodeRegion(Region region) {
+        regionValues.clear();
+        if (region.width == 0 || region.height == 0) return;
+
+        glBindBuffer(GL_PIXEL_PACK_BUFFER, regionBuffer);
+        // passing the previous buffer allows lwjgl to reuse the buffer object
+        regionPixels = glMapBufferRange(GL_PIXEL_PACK_BUFFER, 0, regionBufferSize, GL_MAP_READ_BIT, regionPixels);
+
+        if (regionPixels != null) {
+            ByteBuffer pixels = regionPixels.order(ByteOrder.LITTLE_ENDIAN);
+            int rowBytes = region.width * PIXEL_BYTES;
+
+            IntStream.range(0, region.height).parallel().forEach(row -> {
+                int previous = 0;
+                int end = (row + 1) * rowBytes;
+                for (int i = row * rowBytes; i < end; i += PIXEL_BYTES) {
+                    // little endian: red is the lowest byte, alpha is ignored
+                    int value = pixels.getInt(i) & MAX_VALUE;
+                    // neighbouring pixels often belong to the same element
+                    if (value != 0 && value != previous) regionValues.set(value - 1);
+                    previous = value;
+                }
+            });
 
-//        Logger.DEBUG.printf("%s -> %d", Vectors.toString(value), i);
-        return i;
+            glUnmapBuffer(GL_PIXEL_PACK_BUFFER);
+        }
+
+        glBindBuffer(GL_PIXEL_PACK_BUFFER, 0);
+    }
+
+    private boolean isMouseInWindow() {
+        return mousePosition.x >= 0 && mousePosition.y > 0
+                && mousePosition.x < windowWidth && mousePosition.y <= windowHeight;
+    }
+
+    /** converts the first three bytes of the pixel buffer into the number it encodes */
+    private int decodePixel() {
+        int r = Byte.toUnsignedInt(pixel.get(0));
+        int g = Byte.toUnsignedInt(pixel.get(1));
+        int b = Byte.toUnsignedInt(pixel.get(2));
+
+        return colorToNumber(r, g, b);
+    }
+
+    public void cleanup() {
+        for (int i = 0; i < RING_SIZE; i++) {
+            if (fences[i] != 0) glDeleteSync(fences[i]);
+            glDeleteBuffers(pixelBuffers[i]);
+        }
+        if (regionFence != 0) glDeleteSync(regionFence);
+        glDeleteBuffers(regionBuffer);
+        glDeleteFramebuffers(frameBuffer);
+        glDeleteRenderbuffers(colorBuffer);
+        glDeleteRenderbuffers(depthBuffer);
     }
 
     /**
-     * if the number is not divisible by 4, move the number up or down such that it is
+     * encodes an id as a color with 8 bits per channel, red holding the lowest bits. Numbers outside [0, {@link
+     * #MAX_VALUE}] are encoded as 0, the value of the background, such that elements with such an id cannot be picked
+     * rather than being mistaken for another element. This must match the {@code numberToColor} function of the
+     * shaders.
      * @param i a number
-     * @return the closest value divisible by 4
+     * @return the color as (red, green, blue), each in [0, 255]
      */
-    private static int nearest(int i) {
-        int mod = i % 4;
-        if (mod == 1) {
-            i -= 1;
-        } else if (mod == 3) {
-            i += 1;
-        } else if (mod == 2) {
-            i -= 2;
+    public static Vector3i numberToColor(int i) {
+        if (i < 0 || i > MAX_VALUE) i = 0;
+        return new Vector3i(i & 0xFF, (i >> 8) & 0xFF, (i >> 16) & 0xFF);
+    }
+
+    /**
+     * decodes a color read from the click buffer. This is the exact inverse of {@link #numberToColor(int)}.
+     * @return the number encoded by the given channels, each in [0, 255]
+     */
+    public static int colorToNumber(int red, int green, int blue) {
+        return red | (green << 8) | (blue << 16);
+    }
+
+    /** a rectangle of pixels, with the action that receives its values */
+    private static class Region {
+        final int x;
+        final int y;
+        final int width;
+        final int height;
+        final Consumer<ConcurrentBitSet> action;
+
+        Region(int x, int y, int width, int height, Consumer<ConcurrentBitSet> action) {
+            this.x = x;
+            this.y = y;
+            this.width = width;
+            this.height = height;
+            this.action = action;
+        }
+
+        /**
+         * converts this region from window coordinates, measured from the top, to OpenGL coordinates, measured from
+         * the bottom, and restricts it to the window. Uses the same conversion as the mouse position.
+         */
+        Region toGLCoordinates(int windowWidth, int windowHeight) {
+            int xMin = Math.max(x, 0);
+            int xMax = Math.min(x + width, windowWidth);
+            int yMin = Math.max(windowHeight - (y + height - 1), 0);
+            int yMax = Math.min(windowHeight - y + 1, windowHeight);
+
+            return new Region(xMin, yMin, Math.max(xMax - xMin, 0), Math.max(yMax - yMin, 0), action);
         }
-        return i;
     }
 }
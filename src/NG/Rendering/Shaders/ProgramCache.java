@@ -0,0 +1,168 @@
+package NG.Rendering.Shaders;
+
+import NG.Tools.Directory;
+import NG.Tools.Logger;
+import org.lwjgl.opengl.GL;
+import org.lwjgl.system.MemoryStack;
+import org.lwjgl.system.MemoryUtil;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+import static org.lwjgl.opengl.ARBGetProgramBinary.*;
+import static org.lwjgl.opengl.GL11.*;
+import static org.lwjgl.opengl.GL20.GL_LINK_STATUS;
+import static org.lwjgl.opengl.GL20.glGetProgrami;
+
+/**
+ * Stores linked shader programs as driver-specific binaries in {@link Directory#shaderCache}, such that a program can
+ * be restored without compiling its sources. A binary is identified by a hash of the sources of the program and the
+ * vendor, renderer and version of the driver, hence changing either gives a new entry. A binary that the driver rejects,
+ * for instance after a driver update that kept the version string, is deleted and the program is compiled instead.
+ * <p>
+ * Every file consists of the binary format as a native-order int, followed by the binary itself. All methods must be
+ * called on the thread of the OpenGL context.
+ */
+public final class ProgramCache {
+    private static final String EXTENSION = ".bin";
+
+    private ProgramCache() {
+    }
+
+    /** @return true if the driver supports retrieving program binaries */
+    public static boolean isSupported() {
+        return GL.getCapabilities().GL_ARB_get_program_binary && glGetInteger(GL_NUM_PROGRAM_BINARY_FORMATS) > 0;
+    }
+
+    /**
+     * @param sources the sources of all stages of a program, with null for a missing stage
+     * @return a name that identifies the program with these sources on the current driver
+     */
+    public static String keyOf(String... sources) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(glGetString(GL_VENDOR).getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            digest.update(glGetString(GL_RENDERER).getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            digest.update(glGetString(GL_VERSION).getBytes(StandardCharsets.UTF_8));
+
+            for (String source : sources) {
+                // the separator distinguishes a missing stage from an empty one
+                digest.update((byte) (source == null ? 1 : 2));
+                if (source != null) digest.update(source.getBytes(StandardCharsets.UTF_8));
+            }
+
+            StringBuilder key = new StringBuilder();
+            for (byte b : digest.digest()) {
+                key.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            }
+            return key.toString();
+
+        } catch (NoSuchAlgorithmException e) {
+            // every java platform supports SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * prepares the given program to be stored after linking. Must be called before the program is linked.
+     * @param programId a program that has not been linked
+     */
+    public static void prepare(int programId) {
+        glProgramParameteri(programId, GL_PROGRAM_BINARY_RETRIEVABLE_HINT, GL_TRUE);
+    }
+
+    /**
+     * loads the binary of the given key into the given program
+     * @param programId a new program without shaders
+     * @param key       the key of the program, as given by {@link #keyOf(String...)}
+     * @return true if the program has been linked from the cache, false if it must be compiled
+     */
+    public static boolean load(int programId, String key) {
+        Path file = Directory.shaderCache.getPath(key + EXTENSION);
+        if (!Files.exists(file)) return false;
+
+        ByteBuffer data = null;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            int size = (int) channel.size();
+            if (size <= Integer.BYTES) throw new IOException("File is truncated");
+
+            data = MemoryUtil.memAlloc(size);
+            while (data.hasRemaining()) {
+                if (channel.read(data) < 0) throw new IOException("File is truncated");
+            }
+            data.flip();
+
+            int format = data.getInt();
+            glProgramBinary(programId, format, data);
+
+        } catch (IOException e) {
+            Logger.WARN.print("Could not read cached program " + file + ": " + e.getMessage());
+            return false;
+
+        } finally {
+            if (data != null) MemoryUtil.memFree(data);
+        }
+
+        if (glGetProgrami(programId, GL_LINK_STATUS) == 0) {
+            Logger.DEBUG.print("Driver rejected cached program " + key);
+            delete(file);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * writes the binary of the given linked program to the cache. Failures are logged, and otherwise ignored.
+     * @param programId a program that has been linked after {@link #prepare(int)}
+     * @param key       the key of the program, as given by {@link #keyOf(String...)}
+     */
+    public static void store(int programId, String key) {
+        int length = glGetProgrami(programId, GL_PROGRAM_BINARY_LENGTH);
+        if (length <= 0) return;
+
+        ByteBuffer data = MemoryUtil.memAlloc(Integer.BYTES + length);
+        try (MemoryStack stack = MemoryStack.stackPush()) {
+            IntBuffer written = stack.mallocInt(1);
+            IntBuffer format = stack.mallocInt(1);
+            glGetProgramBinary(programId, written, format, data.position(Integer.BYTES));
+            data.putInt(0, format.get(0));
+            data.position(0).limit(Integer.BYTES + written.get(0));
+
+            Path file = Directory.shaderCache.getPath(key + EXTENSION);
+            Files.createDirectories(file.getParent());
+            // another instance may read the file while it is written
+            Path temporary = Files.createTempFile(file.getParent(), key, ".tmp");
+            try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.WRITE)) {
+                while (data.hasRemaining()) {
+                    channel.write(data);
+                }
+            }
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        } catch (IOException e) {
+            Logger.WARN.print("Could not cache program " + key + ": " + e.getMessage());
+
+        } finally {
+            MemoryUtil.memFree(data);
+        }
+    }
+
+    private static void delete(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            Logger.WARN.print(e);
+        }
+    }
+}
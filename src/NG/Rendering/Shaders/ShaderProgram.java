@@ -3,12 +3,11 @@ package NG.Rendering.Shaders;
 import NG.Core.Main;
 import NG.Rendering.Mesh;
 
-import java.io.FileInputStream;
-import java.io.FileNotFoundException;
 import java.io.IOException;
-import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
-import java.util.Scanner;
 
 import static org.lwjgl.opengl.GL20.*;
 
@@ -100,16 +99,11 @@ public interface ShaderProgram {
      * @throws IOException if the path does not point to a valid, readable file
      */
     static String loadText(Path path) throws IOException {
-        String result;
-        try (
-                InputStream in = new FileInputStream(path.toFile());
-                Scanner scanner = new Scanner(in, "UTF8")
-        ) {
-            result = scanner.useDelimiter("\\A").next();
-
-        } catch (FileNotFoundException e) {
+        try {
+            return new String(Files.readAllBytes(path), StandardCharsets.UTF_8);
+
+        } catch (NoSuchFileException e) {
             throw new IOException("Resource not found: " + path);
         }
-        return result;
     }
 }
@@ -0,0 +1,113 @@
+package NG.Rendering.Shaders;
+
+import NG.Tools.Logger;
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+import static java.nio.file.StandardWatchEventKinds.*;
+
+/**
+ * Watches a directory of shader sources, and reloads the shaders of which a source file changed. Files are watched on
+ * a background thread, while shaders are reloaded on the rendering thread with {@link #reloadChanged()}. A shader that
+ * fails to compile keeps its previous program, such that a typo does not stop the tool.
+ */
+public class ShaderReloader {
+    private final List<AbstractShader> shaders = new ArrayList<>();
+    private final Set<Path> changedFiles = ConcurrentHashMap.newKeySet();
+    private final WatchService watcher;
+    private final Thread watchThread;
+    private final Runnable onChange;
+
+    /**
+     * starts watching the given directory and all of its subdirectories
+     * @param directory the root directory of the shader sources
+     * @param onChange  is executed on the watching thread whenever a file changed
+     * @throws IOException if the directory could not be watched
+     */
+    public ShaderReloader(Path directory, Runnable onChange) throws IOException {
+        this.onChange = onChange;
+        this.watcher = directory.getFileSystem().newWatchService();
+
+        try (Stream<Path> tree = Files.walk(directory)) {
+            for (Path path : (Iterable<Path>) tree.filter(Files::isDirectory)::iterator) {
+                path.register(watcher, ENTRY_CREATE, ENTRY_MODIFY);
+            }
+        }
+
+        watchThread = new Thread(this::watch, "Shader watcher");
+        watchThread.setDaemon(true);
+        watchThread.start();
+        Logger.INFO.print("Watching " + directory + " for shader changes");
+    }
+
+    /** reloads the given shader whenever one of its source files changes */
+    public void add(AbstractShader shader) {
+        shaders.add(shader);
+    }
+
+    private void watch() {
+        try {
+            while (true) {
+                WatchKey key = watcher.take();
+                Path directory = (Path) key.watchable();
+
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    if (event.kind() == OVERFLOW) continue;
+                    Path file = directory.resolve((Path) event.context());
+                    changedFiles.add(file.toAbsolutePath().normalize());
+                }
+                key.reset();
+                onChange.run();
+            }
+
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // stopped by cleanup
+        }
+    }
+
+    /**
+     * reloads every shader of which a source file changed since the last call. Must be called on the rendering thread,
+     * while no shader is bound.
+     */
+    public void reloadChanged() {
+        if (changedFiles.isEmpty()) return;
+
+        List<Path> changed = new ArrayList<>();
+        Iterator<Path> iterator = changedFiles.iterator();
+        while (iterator.hasNext()) {
+            changed.add(iterator.next());
+            iterator.remove();
+        }
+
+        for (AbstractShader shader : shaders) {
+            boolean isChanged = shader.getSourcePaths().stream()
+                    .map(path -> path.toAbsolutePath().normalize())
+                    .anyMatch(changed::contains);
+            if (!isChanged) continue;
+
+            try {
+                shader.reload();
+                Logger.INFO.print("Reloaded " + shader);
+
+            } catch (IOException | ShaderException e) {
+                Logger.ERROR.print("Could not reload " + shader + ": " + e.getMessage());
+            }
+        }
+    }
+
+    public void cleanup() {
+        watchThread.interrupt();
+        try {
+            watcher.close();
+        } catch (IOException e) {
+            Logger.WARN.print(e);
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package NG.Rendering;
+
+import NG.Rendering.Shaders.SGL;
+
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+
+import static org.lwjgl.opengl.GL11.*;
+import static org.lwjgl.opengl.GL15.*;
+import static org.lwjgl.opengl.GL20.glEnableVertexAttribArray;
+import static org.lwjgl.opengl.GL20.glVertexAttribPointer;
+import static org.lwjgl.opengl.GL30.*;
+
+/**
+ * An indexed triangle mesh stored on the GPU in a vertex array object. Every vertex consists of {@link
+ * #FLOATS_PER_VERTEX} interleaved floats: a position, a normal and a texture coordinate, bound to the attribute
+ * locations {@link #POSITION_LOCATION}, {@link #NORMAL_LOCATION} and {@link #TEXTURE_LOCATION}.
+ * @see MeshLoader
+ */
+public class VertexArrayMesh implements Mesh {
+    public static final int POSITION_LOCATION = 0;
+    public static final int NORMAL_LOCATION = 1;
+    public static final int TEXTURE_LOCATION = 2;
+    public static final int FLOATS_PER_VERTEX = 3 + 3 + 2;
+
+    private final int vao;
+    private final int vertexVBO;
+    private final int indexVBO;
+    private final int nrOfIndices;
+
+    /**
+     * uploads the given vertices and indices. Must be called on the rendering thread.
+     * @param vertices the interleaved vertex data, from position 0 to the limit of the buffer
+     * @param indices  three indices per triangle, from position 0 to the limit of the buffer
+     */
+    public VertexArrayMesh(FloatBuffer vertices, IntBuffer indices) {
+        this.nrOfIndices = indices.limit();
+        int stride = FLOATS_PER_VERTEX * Float.BYTES;
+
+        vao = glGenVertexArrays();
+        glBindVertexArray(vao);
+
+        vertexVBO = glGenBuffers();
+        glBindBuffer(GL_ARRAY_BUFFER, vertexVBO);
+        glBufferData(GL_ARRAY_BUFFER, vertices, GL_STATIC_DRAW);
+        glVertexAttribPointer(POSITION_LOCATION, 3, GL_FLOAT, false, stride, 0);
+        glEnableVertexAttribArray(POSITION_LOCATION);
+        glVertexAttribPointer(NORMAL_LOCATION, 3, GL_FLOAT, false, stride, 3 * Float.BYTES);
+        glEnableVertexAttribArray(NORMAL_LOCATION);
+        glVertexAttribPointer(TEXTURE_LOCATION, 2, GL_FLOAT, false, stride, 6 * Float.BYTES);
+        glEnableVertexAttribArray(TEXTURE_LOCATION);
+
+        // the element buffer binding is part of the vertex array
+        indexVBO = glGenBuffers();
+        glBindBuffer(GL_ELEMENT_ARRAY_BUFFER, indexVBO);
+        glBufferData(GL_ELEMENT_ARRAY_BUFFER, indices, GL_STATIC_DRAW);
+
+        glBindVertexArray(0);
+        glBindBuffer(GL_ARRAY_BUFFER, 0);
+        glBindBuffer(GL_ELEMENT_ARRAY_BUFFER, 0);
+    }
+
+    @Override
+    public void render(SGL.Painter lock) {
+        glBindVertexArray(vao);
+        glDrawElements(GL_TRIANGLES, nrOfIndices, GL_UNSIGNED_INT, 0);
+        glBindVertexArray(0);
+    }
+
+    /** @return the number of triangles of this mesh */
+    public int nrOfTriangles() {
+        return nrOfIndices / 3;
+    }
+
+    @Override
+    public void dispose() {
+        glDeleteBuffers(vertexVBO);
+        glDeleteBuffers(indexVBO);
+        glDeleteVertexArrays(vao);
+    }
+}
@@ -26,12 +26,51 @@ public class Settings {
     public float MAX_CAMERA_DIST = Z_FAR * 0.75f;
     public float MIN_CAMERA_DIST = Z_NEAR * 2f;
 
+    // graph settings
+    public float NODE_RADIUS = 0.5f;
+    public float EDGE_SIZE = 0.1f;
+    public float HEAD_SIZE = 0.3f;
+    /** number of sections of the edge body and the arrow head. The edge geometry shader supports 10 sections total */
+    public int EDGE_TAIL_SECTIONS = 6;
+    public int EDGE_HEAD_SECTIONS = 4;
+    public float LAYOUT_EDGE_LENGTH = 3f;
+    /** projected node radius in pixels below which nodes are drawn as points and edges as density tiles */
+    public float LOD_POINT_RADIUS_PIXELS = 1.5f;
+    /** number of density tiles along each axis */
+    public int LOD_DENSITY_RESOLUTION = 256;
+    /** draw nodes and edges as instances rather than with geometry shaders. May be changed at runtime */
+    public volatile boolean INSTANCED_RENDERING = false;
+    /** cache the gui in images, which are only drawn again when their content changes */
+    public volatile boolean RETAINED_GUI = true;
+    /** texture memory for images in the gui in megabytes, after which the least recently drawn images are released */
+    public int IMAGE_MEMORY_BUDGET_MB = 64;
+    /** only render a frame when the input, the scene, the gui or an animation changed. May be changed at runtime */
+    public volatile boolean ON_DEMAND_RENDERING = true;
+    /** render on a separate thread, while the main thread only processes input events */
+    public boolean RENDER_THREAD = false;
+
     // other
     public boolean PRINT_ROLL = false;
+    /** time every render pass on both the CPU and the GPU, using GPU timer queries that never stall the frame */
     public boolean ACCURATE_RENDER_TIMING = false;
+    /** reload shaders when their source files change */
+    public boolean SHADER_HOT_RELOAD = false;
+    /** read the click shader without stalling, delivering the hovered element one or two frames late */
+    public boolean ASYNC_PICKING = true;
     public boolean ADVANCED_MANIPULATION = false;
     public int MAX_ITERATIONS_PER_SECOND = 200;
     public int NUM_WORKER_THREADS = 8;
     public boolean RANDOM_LAYOUT = false;
     public Path DATA_COLLECTION_PATH = null;
+    /** render into an offscreen framebuffer without a display */
+    public boolean HEADLESS = false;
+    /** if not null, this graph is opened at startup */
+    public Path GRAPH_FILE = null;
+    /** if not null, the first {@link #EXPORT_FRAMES} frames are written to this directory, after which the tool quits */
+    public Path EXPORT_DIRECTORY = null;
+    public int EXPORT_FRAMES = 1;
+    /** if not null, this graph is loaded at startup and the render paths are benchmarked, after which the tool quits */
+    public Path BENCHMARK_GRAPH = null;
+    /** number of measured frames of every render path when benchmarking */
+    public int BENCHMARK_FRAMES = 300;
 }
@@ -12,7 +12,9 @@ import java.nio.file.Paths;
  */
 public enum Directory {
     shaders(true, "res", "shaders"),
-    fonts(true, "res", "fonts");
+    fonts(true, "res", "fonts"),
+    screenshots(false, "Screenshots"),
+    shaderCache(false, "cache", "shaders");
 
     private final Path directory; // relative path
     private static Path workingDirectory = null;
@@ -93,6 +93,17 @@ public class TimeObserver {
         currentStart = currentTime;
     }
 
+    /**
+     * adds a duration that was measured outside this observer to the current loop, for instance a measurement of the
+     * GPU. Such a duration does not count towards the duration of the loop, and may overlap other measurements.
+     * @param identifier the name of the measurement
+     * @param nanos      the measured duration in nanoseconds
+     */
+    public void addMeasurement(String identifier, long nanos) {
+        long current = thisLoopMeasures.getOrDefault(identifier, 0);
+        thisLoopMeasures.put(identifier, (int) Math.min(current + nanos, Integer.MAX_VALUE));
+    }
+
     public float secondsSinceLoopStart() {
         long currentTime = System.nanoTime();
         float loopDurationNanos = (currentTime - thisLoopStart);
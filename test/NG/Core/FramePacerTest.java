@@ -0,0 +1,209 @@
+package NG.Core;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class FramePacerTest {
+    private static final float FPS = 60;
+    private static final long SPIN_STEP_NANOS = 1_000;
+
+    /** a clock that only advances when the pacer waits, or when the test does work */
+    private static class FakeTime implements FramePacer.Waiter {
+        long now = 1_000_000_000L;
+        /** how much later than requested a sleep ends */
+        long oversleepNanos = 0;
+        int sleeps = 0;
+        int parks = 0;
+
+        long get() {
+            return now;
+        }
+
+        void work(long nanos) {
+            now += nanos;
+        }
+
+        @Override
+        public void sleep(long nanos) {
+            assertTrue(nanos > 0);
+            now += nanos + oversleepNanos;
+            sleeps++;
+        }
+
+        @Override
+        public void park(long nanos) {
+            assertTrue(nanos > 0);
+            now += nanos;
+            parks++;
+        }
+
+        @Override
+        public void spin() {
+            now += SPIN_STEP_NANOS;
+        }
+    }
+
+    @Test
+    public void coarseSleepStopsAtTheMargin() {
+        FakeTime time = new FakeTime();
+        FramePacer pacer = new FramePacer(FPS, time::get, time);
+        long deadline = pacer.getDeadline();
+        long margin = pacer.getSleepMarginNanos();
+
+        assertEquals(deadline - time.now - margin, pacer.coarseSleepNanos(time.now));
+        assertEquals(0, pacer.coarseSleepNanos(deadline - margin));
+        assertEquals(0, pacer.coarseSleepNanos(deadline - margin / 2));
+        assertEquals(0, pacer.coarseSleepNanos(deadline + 1_000_000));
+    }
+
+    @Test
+    public void deadlinesDoNotDriftOverManyFrames() throws InterruptedException {
+        FakeTime time = new FakeTime();
+        time.oversleepNanos = 1_500_000;
+        FramePacer pacer = new FramePacer(FPS, time::get, time);
+        long period = pacer.getPeriodNanos();
+        long start = pacer.getDeadline() - period;
+        Random random = new Random(1);
+
+        int frames = 10_000;
+        for (int i = 1; i <= frames; i++) {
+            // work takes up to 90% of a period
+            time.work((long) (random.nextFloat() * 0.9f * period));
+            long end = pacer.await();
+
+            assertEquals(time.now, end);
+            long lastDrift = pacer.getLastDriftNanos();
+            assertTrue("frame " + i + " ended early by " + -lastDrift, lastDrift >= 0);
+            assertTrue("frame " + i + " ended late by " + lastDrift, lastDrift <= SPIN_STEP_NANOS);
+            // every deadline is a whole number of periods after the start
+            assertEquals(start + (i + 1) * period, pacer.getDeadline());
+        }
+
+        assertTrue(pacer.getAverageDriftNanos() <= SPIN_STEP_NANOS);
+        assertTrue("the pacer never slept coarsely", time.sleeps > frames / 2);
+    }
+
+    @Test
+    public void lateFrameKeepsTheSchedule() throws InterruptedException {
+        FakeTime time = new FakeTime();
+        FramePacer pacer = new FramePacer(FPS, time::get, time);
+        long period = pacer.getPeriodNanos();
+        long deadline = pacer.getDeadline();
+
+        // late by less than a period: the next frame is shorter instead of the schedule shifting
+        time.work(period + period / 2);
+        long end = pacer.await();
+        assertEquals(deadline + period / 2, end);
+        assertEquals(period / 2, pacer.getLastDriftNanos());
+        assertEquals(deadline + period, pacer.getDeadline());
+
+        pacer.await();
+        assertEquals(deadline + period, time.now, SPIN_STEP_NANOS);
+    }
+
+    @Test
+    public void missedDeadlineRestartsTheSchedule() throws InterruptedException {
+        FakeTime time = new FakeTime();
+        FramePacer pacer = new FramePacer(FPS, time::get, time);
+        long period = pacer.getPeriodNanos();
+        long deadline = pacer.getDeadline();
+
+        // a frame that takes more than two periods does not wait, and does not rush the frames after it
+        time.work(3 * period);
+        int sleeps = time.sleeps;
+        int parks = time.parks;
+        long end = pacer.await();
+
+        assertEquals(deadline + 2 * period, end);
+        assertEquals(sleeps, time.sleeps);
+        assertEquals(parks, time.parks);
+        assertEquals(2 * period, pacer.getLastDriftNanos());
+        assertEquals(end + period, pacer.getDeadline());
+
+        // the next frame gets a full period again
+        time.work(period / 4);
+        long next = pacer.await();
+        assertEquals(end + period, next, SPIN_STEP_NANOS);
+        assertTrue(pacer.getLastDriftNanos() >= 0);
+    }
+
+    @Test
+    public void restartStartsFromNow() {
+        FakeTime time = new FakeTime();
+        FramePacer pacer = new FramePacer(FPS, time::get, time);
+
+        time.work(10_000_000_000L);
+        pacer.restart();
+        assertEquals(time.now + pacer.getPeriodNanos(), pacer.getDeadline());
+        assertEquals(pacer.getPeriodNanos(), pacer.remainingNanos());
+    }
+
+    @Test
+    public void marginGrowsImmediatelyAndShrinksSlowly() {
+        FakeTime time = new FakeTime();
+        FramePacer pacer = new FramePacer(FPS, time::get, time);
+
+        pacer.adaptMargin(5_000_000);
+        assertEquals(7_500_000, pacer.getSleepMarginNanos());
+
+        // a single quick wake only takes a sixteenth of the difference
+        pacer.adaptMargin(0);
+        long margin = pacer.getSleepMarginNanos();
+        assertTrue(margin < 7_500_000);
+        assertTrue(margin > 7_000_000);
+
+        long previous = margin;
+        for (int i = 0; i < 200; i++) {
+            pacer.adaptMargin(0);
+            long current = pacer.getSleepMarginNanos();
+            assertTrue(current <= previous);
+            previous = current;
+        }
+        assertEquals(FramePacer.MIN_SLEEP_MARGIN_NANOS, pacer.getSleepMarginNanos());
+
+        // a late wake raises the margin at once again
+        pacer.adaptMargin(2_000_000);
+        assertEquals(3_000_000, pacer.getSleepMarginNanos());
+    }
+
+    @Test
+    public void marginIsClamped() {
+        FakeTime time = new FakeTime();
+        FramePacer pacer = new FramePacer(FPS, time::get, time);
+
+        pacer.adaptMargin(1_000_000_000);
+        assertEquals(FramePacer.MAX_SLEEP_MARGIN_NANOS, pacer.getSleepMarginNanos());
+
+        for (int i = 0; i < 1000; i++) {
+            pacer.adaptMargin(-1_000_000);
+        }
+        assertEquals(FramePacer.MIN_SLEEP_MARGIN_NANOS, pacer.getSleepMarginNanos());
+    }
+
+    @Test
+    public void awaitAdaptsTheMarginToOversleeping() throws InterruptedException {
+        FakeTime time = new FakeTime();
+        FramePacer pacer = new FramePacer(FPS, time::get, time);
+
+        // a sleep that ends 4 ms late overshoots the initial margin of 2 ms
+        time.oversleepNanos = 4_000_000;
+        pacer.await();
+        assertEquals(6_000_000, pacer.getSleepMarginNanos());
+        assertEquals(4_000_000 - 2 * FramePacer.MIN_SLEEP_MARGIN_NANOS, pacer.getLastDriftNanos());
+
+        // the next late wake is absorbed by the grown margin
+        pacer.await();
+        assertTrue(pacer.getLastDriftNanos() >= 0);
+        assertTrue(pacer.getLastDriftNanos() <= SPIN_STEP_NANOS);
+
+        // once sleeps are accurate, the margin shrinks back over the following frames
+        time.oversleepNanos = 0;
+        for (int i = 0; i < 200; i++) {
+            pacer.await();
+        }
+        assertEquals(FramePacer.MIN_SLEEP_MARGIN_NANOS, pacer.getSleepMarginNanos());
+    }
+}
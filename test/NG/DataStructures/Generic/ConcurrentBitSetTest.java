@@ -0,0 +1,183 @@
+package NG.DataStructures.Generic;
+
+import org.junit.Test;
+
+import java.util.BitSet;
+import java.util.Random;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+public class ConcurrentBitSetTest {
+    private static final int THREADS = 8;
+
+    /** asserts that iterating the given set gives exactly the elements of the reference */
+    private static void assertSameElements(BitSet expected, ConcurrentBitSet actual) {
+        int i = actual.nextSetBit(0);
+        int j = expected.nextSetBit(0);
+        while (j >= 0) {
+            assertEquals(j, i);
+            assertTrue(actual.get(i));
+            i = actual.nextSetBit(i + 1);
+            j = expected.nextSetBit(j + 1);
+        }
+        assertEquals(-1, i);
+        assertEquals(expected.cardinality(), actual.cardinality());
+    }
+
+    @Test
+    public void nextSetBitAcrossWordBoundaries() {
+        ConcurrentBitSet set = new ConcurrentBitSet(200);
+        int[] elements = {0, 63, 64, 65, 127, 128, 191, 199};
+        for (int element : elements) {
+            set.set(element);
+        }
+
+        assertEquals(0, set.nextSetBit(0));
+        assertEquals(63, set.nextSetBit(1));
+        assertEquals(63, set.nextSetBit(63));
+        assertEquals(64, set.nextSetBit(64));
+        assertEquals(127, set.nextSetBit(66));
+        assertEquals(128, set.nextSetBit(128));
+        assertEquals(191, set.nextSetBit(129));
+        assertEquals(199, set.nextSetBit(192));
+        assertEquals(elements.length, set.cardinality());
+    }
+
+    @Test
+    public void nextSetBitSkipsEmptyWords() {
+        ConcurrentBitSet set = new ConcurrentBitSet(64 * 10);
+        set.set(3);
+        set.set(64 * 9 + 5);
+
+        assertEquals(64 * 9 + 5, set.nextSetBit(4));
+        assertEquals(-1, set.nextSetBit(64 * 9 + 6));
+    }
+
+    @Test
+    public void nextSetBitAtCapacity() {
+        ConcurrentBitSet set = new ConcurrentBitSet(130);
+        set.set(129);
+
+        assertEquals(129, set.nextSetBit(129));
+        assertEquals(-1, set.nextSetBit(130));
+        assertEquals(-1, set.nextSetBit(1000));
+        assertEquals(130, set.capacity());
+
+        // a capacity that is a whole number of words
+        ConcurrentBitSet full = new ConcurrentBitSet(128);
+        full.set(127);
+        assertEquals(127, full.nextSetBit(64));
+        assertEquals(-1, full.nextSetBit(128));
+    }
+
+    @Test
+    public void emptySet() {
+        ConcurrentBitSet set = new ConcurrentBitSet(100);
+        assertEquals(-1, set.nextSetBit(0));
+        assertEquals(0, set.cardinality());
+        assertFalse(set.get(50));
+
+        ConcurrentBitSet none = new ConcurrentBitSet(0);
+        assertEquals(-1, none.nextSetBit(0));
+        assertEquals(0, none.cardinality());
+    }
+
+    @Test
+    public void settingTwiceCountsOnce() {
+        ConcurrentBitSet set = new ConcurrentBitSet(10);
+        set.set(4);
+        set.set(4);
+        assertEquals(1, set.cardinality());
+    }
+
+    @Test
+    public void clearRemovesEverything() {
+        ConcurrentBitSet set = new ConcurrentBitSet(1000);
+        for (int i = 0; i < 1000; i += 7) {
+            set.set(i);
+        }
+        set.clear();
+        assertEquals(0, set.cardinality());
+        assertEquals(-1, set.nextSetBit(0));
+        assertEquals(1000, set.capacity());
+
+        // the set remains usable
+        set.set(999);
+        assertEquals(999, set.nextSetBit(0));
+        assertEquals(1, set.cardinality());
+    }
+
+    @Test
+    public void matchesBitSetForRandomElements() {
+        Random random = new Random(0);
+        int capacity = 5000;
+        ConcurrentBitSet set = new ConcurrentBitSet(capacity);
+        BitSet reference = new BitSet(capacity);
+
+        for (int i = 0; i < 2000; i++) {
+            int element = random.nextInt(capacity);
+            set.set(element);
+            reference.set(element);
+        }
+        assertSameElements(reference, set);
+
+        for (int i = 0; i < 200; i++) {
+            int from = random.nextInt(capacity + 10);
+            assertEquals(reference.nextSetBit(from), set.nextSetBit(from));
+        }
+    }
+
+    /**
+     * several threads set overlapping elements, most of which share a word with elements set by other threads, such
+     * that compare-and-exchange failures are frequent. No element may be lost.
+     */
+    @Test(timeout = 60_000)
+    public void concurrentSetsMatchBitSet() throws Exception {
+        int capacity = 1 << 16;
+        int rounds = 20;
+        ConcurrentBitSet set = new ConcurrentBitSet(capacity);
+
+        for (int round = 0; round < rounds; round++) {
+            set.clear();
+            BitSet reference = new BitSet(capacity);
+            int[][] elements = new int[THREADS][];
+            Random random = new Random(round);
+            for (int t = 0; t < THREADS; t++) {
+                elements[t] = new int[capacity / 4];
+                for (int i = 0; i < elements[t].length; i++) {
+                    // interleave threads within words
+                    int element = random.nextInt(capacity / THREADS) * THREADS + t;
+                    if (i % 16 == 0) element = random.nextInt(capacity);
+                    elements[t][i] = element;
+                    reference.set(element);
+                }
+            }
+
+            CyclicBarrier start = new CyclicBarrier(THREADS);
+            AtomicReference<Throwable> failure = new AtomicReference<>();
+            Thread[] threads = new Thread[THREADS];
+            for (int t = 0; t < THREADS; t++) {
+                int[] mine = elements[t];
+                threads[t] = new Thread(() -> {
+                    try {
+                        start.await();
+                        for (int element : mine) {
+                            set.set(element);
+                        }
+                    } catch (Throwable ex) {
+                        failure.set(ex);
+                    }
+                });
+                threads[t].start();
+            }
+            for (Thread thread : threads) {
+                thread.join();
+            }
+
+            if (failure.get() != null) throw new AssertionError(failure.get());
+            assertSameElements(reference, set);
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package NG.DataStructures.Generic;
+
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+public class TripleBufferTest {
+    private static final int SLOTS = 64;
+    private static final int VALUES = 2_000_000;
+
+    @Test
+    public void readReturnsTheLatestPublishedValue() {
+        TripleBuffer<int[]> buffer = new TripleBuffer<>(() -> new int[1]);
+        assertFalse(buffer.hasNewValue());
+        assertEquals(0, buffer.read()[0]);
+
+        buffer.getWriteBuffer()[0] = 1;
+        buffer.publish();
+        assertTrue(buffer.hasNewValue());
+        buffer.getWriteBuffer()[0] = 2;
+        buffer.publish();
+
+        // the consumer skips the value that was overwritten before it read
+        assertEquals(2, buffer.read()[0]);
+        assertFalse(buffer.hasNewValue());
+        assertEquals(2, buffer.read()[0]);
+    }
+
+    @Test
+    public void threeDistinctBuffers() {
+        TripleBuffer<int[]> buffer = new TripleBuffer<>(() -> new int[1]);
+        int[] read = buffer.read();
+        int[] write = buffer.getWriteBuffer();
+        assertNotSame(read, write);
+
+        buffer.publish();
+        int[] nextWrite = buffer.getWriteBuffer();
+        assertNotSame(write, nextWrite);
+        assertNotSame(read, nextWrite);
+
+        // the published buffer is what the consumer gets
+        assertSame(write, buffer.read());
+    }
+
+    /**
+     * A producer fills every slot of the write buffer with the same sequence number and publishes it, while a consumer
+     * checks that every buffer it reads is complete, stays unchanged while it holds it, and is never older than the
+     * buffer it read before.
+     */
+    @Test(timeout = 60_000)
+    public void concurrentReadsAreConsistentAndMonotonic() throws InterruptedException {
+        TripleBuffer<long[]> buffer = new TripleBuffer<>(() -> new long[SLOTS]);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+
+        Thread producer = new Thread(() -> {
+            for (long n = 1; n <= VALUES; n++) {
+                long[] values = buffer.getWriteBuffer();
+                for (int i = 0; i < SLOTS; i++) {
+                    values[i] = n;
+                }
+                buffer.publish();
+            }
+        }, "producer");
+
+        Thread consumer = new Thread(() -> {
+            try {
+                long last = 0;
+                int reads = 0;
+                while (last < VALUES) {
+                    long[] values = buffer.read();
+                    long n = values[0];
+                    for (int i = 1; i < SLOTS; i++) {
+                        assertEquals("torn buffer at slot " + i, n, values[i]);
+                    }
+                    assertTrue("went back from " + last + " to " + n, n >= last);
+
+                    // the buffer must not change while the consumer holds it
+                    Thread.onSpinWait();
+                    for (int i = 0; i < SLOTS; i++) {
+                        assertEquals("buffer changed while held", n, values[i]);
+                    }
+
+                    last = n;
+                    reads++;
+                }
+                assertTrue(reads > 0);
+
+            } catch (Throwable t) {
+                failure.set(t);
+            }
+        }, "consumer");
+
+        consumer.start();
+        producer.start();
+        producer.join();
+        consumer.join();
+
+        if (failure.get() != null) throw new AssertionError(failure.get());
+        assertFalse(buffer.hasNewValue());
+        assertEquals(VALUES, buffer.read()[SLOTS - 1]);
+    }
+}
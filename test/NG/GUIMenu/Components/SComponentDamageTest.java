@@ -0,0 +1,158 @@
+package NG.GUIMenu.Components;
+
+import NG.GUIMenu.DirtyRegion;
+import NG.GUIMenu.Rendering.SFrameLookAndFeel;
+import org.joml.Vector2ic;
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+public class SComponentDamageTest {
+
+    /** a component without appearance of its own */
+    private static class Box extends SComponent {
+        @Override
+        public int minWidth() {
+            return 0;
+        }
+
+        @Override
+        public int minHeight() {
+            return 0;
+        }
+
+        @Override
+        public void draw(SFrameLookAndFeel design, Vector2ic screenPosition) {
+        }
+    }
+
+    /** @return the damage collected by the given root component since the last call */
+    private static DirtyRegion collect(SComponent root) {
+        DirtyRegion region = new DirtyRegion();
+        root.collectDamage(region);
+        return region;
+    }
+
+    private static void assertRegion(DirtyRegion region, int x, int y, int width, int height) {
+        assertFalse(region.isEmpty());
+        assertEquals(x, region.getX());
+        assertEquals(y, region.getY());
+        assertEquals(width, region.getWidth());
+        assertEquals(height, region.getHeight());
+    }
+
+    @Test
+    public void rootReportsItsOwnArea() {
+        Box root = new Box();
+        root.setPosition(10, 20);
+        root.setSize(30, 40);
+        collect(root);
+
+        root.markDirty();
+        assertRegion(collect(root), 10, 20, 30, 40);
+        assertTrue(collect(root).isEmpty());
+    }
+
+    @Test
+    public void damageIsOffsetByAllParents() {
+        Box child = new Box();
+        SPanel middle = new SPanel(child);
+        SPanel root = new SPanel(middle);
+
+        root.setPosition(100, 200);
+        middle.setPosition(10, 20);
+        child.setPosition(1, 2);
+        child.setSize(5, 6);
+        middle.setSize(50, 60);
+        root.setSize(500, 600);
+        collect(root);
+
+        child.markDirty();
+        assertRegion(collect(root), 111, 222, 5, 6);
+
+        // only the root collects damage
+        child.markDirty();
+        assertTrue(collect(child).isEmpty());
+        assertTrue(collect(middle).isEmpty());
+        assertRegion(collect(root), 111, 222, 5, 6);
+    }
+
+    @Test
+    public void movingReportsOldAndNewArea() {
+        Box child = new Box();
+        SPanel root = new SPanel(child);
+        root.setSize(500, 600);
+        child.setSize(10, 10);
+        child.setPosition(0, 0);
+        collect(root);
+
+        child.setPosition(20, 30);
+        assertRegion(collect(root), 0, 0, 30, 40);
+
+        // setting the same position reports nothing
+        child.setPosition(20, 30);
+        assertTrue(collect(root).isEmpty());
+    }
+
+    @Test
+    public void invisibleSizeReportsNothing() {
+        Box child = new Box();
+        SPanel root = new SPanel(child);
+        root.setSize(100, 100);
+        collect(root);
+
+        child.markDirty();
+        assertTrue(collect(root).isEmpty());
+    }
+
+    @Test
+    public void reparentedComponentReportsToNewRoot() {
+        Box child = new Box();
+        child.setSize(10, 10);
+        SPanel first = new SPanel(child);
+        first.setSize(100, 100);
+        SPanel second = new SPanel();
+        second.setPosition(50, 50);
+        second.setSize(100, 100);
+        collect(first);
+        collect(second);
+
+        child.setParent(second);
+        child.markDirty();
+        assertTrue(collect(first).isEmpty());
+        assertRegion(collect(second), 50 + child.getX(), 50 + child.getY(), 10, 10);
+    }
+
+    @Test
+    public void activeTextAreaReportsChangedText() {
+        AtomicReference<String> text = new AtomicReference<>("first");
+        SActiveTextArea area = new SActiveTextArea(text::get, 20);
+        SPanel root = new SPanel(area);
+        root.setPosition(5, 5);
+        root.setSize(200, 100);
+        area.setPosition(3, 4);
+        area.setSize(100, 20);
+        collect(root);
+
+        // the first check always reports, as nothing has been drawn yet
+        root.checkForChanges();
+        assertRegion(collect(root), 8, 9, 100, 20);
+
+        root.checkForChanges();
+        assertTrue(collect(root).isEmpty());
+
+        text.set("second");
+        root.checkForChanges();
+        assertRegion(collect(root), 8, 9, 100, 20);
+
+        text.set(new String("second"));
+        root.checkForChanges();
+        assertTrue("equal text must not report damage", collect(root).isEmpty());
+
+        text.set(null);
+        root.checkForChanges();
+        assertFalse(collect(root).isEmpty());
+    }
+}
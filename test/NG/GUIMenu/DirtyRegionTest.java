@@ -0,0 +1,116 @@
+package NG.GUIMenu;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class DirtyRegionTest {
+
+    private static void assertRegion(DirtyRegion region, int x, int y, int width, int height) {
+        assertFalse(region.isEmpty());
+        assertEquals(x, region.getX());
+        assertEquals(y, region.getY());
+        assertEquals(width, region.getWidth());
+        assertEquals(height, region.getHeight());
+    }
+
+    @Test
+    public void newRegionIsEmpty() {
+        DirtyRegion region = new DirtyRegion();
+        assertTrue(region.isEmpty());
+        assertEquals(0, region.getWidth());
+        assertEquals(0, region.getHeight());
+        assertFalse(region.intersects(Integer.MIN_VALUE / 2, Integer.MIN_VALUE / 2, Integer.MAX_VALUE, Integer.MAX_VALUE));
+    }
+
+    @Test
+    public void emptyRectanglesAreIgnored() {
+        DirtyRegion region = new DirtyRegion();
+        region.add(10, 10, 0, 5);
+        region.add(10, 10, 5, 0);
+        region.add(10, 10, -5, 5);
+        assertTrue(region.isEmpty());
+
+        region.add(0, 0, 1, 1);
+        region.add(100, 100, 0, 0);
+        assertRegion(region, 0, 0, 1, 1);
+    }
+
+    @Test
+    public void addIsTheBoundingBox() {
+        DirtyRegion region = new DirtyRegion();
+        region.add(10, 20, 5, 5);
+        assertRegion(region, 10, 20, 5, 5);
+
+        region.add(30, 5, 10, 2);
+        assertRegion(region, 10, 5, 30, 20);
+
+        // a rectangle inside the region changes nothing
+        region.add(12, 10, 3, 3);
+        assertRegion(region, 10, 5, 30, 20);
+
+        region.add(-5, -5, 1, 1);
+        assertRegion(region, -5, -5, 45, 30);
+    }
+
+    @Test
+    public void addRegionKeepsTheOther() {
+        DirtyRegion a = new DirtyRegion();
+        DirtyRegion b = new DirtyRegion();
+        a.add(0, 0, 10, 10);
+        b.add(20, 20, 10, 10);
+
+        a.add(b);
+        assertRegion(a, 0, 0, 30, 30);
+        assertRegion(b, 20, 20, 10, 10);
+
+        // adding an empty region changes nothing
+        a.add(new DirtyRegion());
+        assertRegion(a, 0, 0, 30, 30);
+    }
+
+    @Test
+    public void takeClearsTheOther() {
+        DirtyRegion a = new DirtyRegion();
+        DirtyRegion b = new DirtyRegion();
+        b.add(5, 5, 10, 10);
+
+        a.take(b);
+        assertRegion(a, 5, 5, 10, 10);
+        assertTrue(b.isEmpty());
+
+        // taking again adds nothing
+        a.take(b);
+        assertRegion(a, 5, 5, 10, 10);
+
+        b.add(0, 0, 1, 1);
+        a.take(b);
+        assertRegion(a, 0, 0, 15, 15);
+        assertTrue(b.isEmpty());
+    }
+
+    @Test
+    public void intersectsExcludesTouchingEdges() {
+        DirtyRegion region = new DirtyRegion();
+        region.add(10, 10, 10, 10);
+
+        assertTrue(region.intersects(15, 15, 1, 1));
+        assertTrue(region.intersects(0, 0, 11, 11));
+        assertTrue(region.intersects(19, 19, 10, 10));
+        assertFalse(region.intersects(0, 0, 10, 10));
+        assertFalse(region.intersects(20, 10, 5, 5));
+        assertFalse(region.intersects(10, 20, 5, 5));
+    }
+
+    @Test
+    public void clearMakesEmpty() {
+        DirtyRegion region = new DirtyRegion();
+        region.add(1, 2, 3, 4);
+        region.clear();
+        assertTrue(region.isEmpty());
+        assertFalse(region.intersects(1, 2, 3, 4));
+
+        region.add(7, 8, 1, 1);
+        assertRegion(region, 7, 8, 1, 1);
+    }
+}
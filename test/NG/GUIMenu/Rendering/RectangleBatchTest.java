@@ -0,0 +1,56 @@
+package NG.GUIMenu.Rendering;
+
+import NG.DataStructures.Generic.Color4f;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class RectangleBatchTest {
+    @Test
+    public void equalColorsShareOneFill() {
+        NVGOverlay.RectangleBatch batch = new NVGOverlay.RectangleBatch();
+        // distinct instances, as a grid would create them per cell
+        batch.add(0, 0, 10, 10, new Color4f(0.2f, 0.4f, 0.6f));
+        batch.add(10, 0, 10, 10, new Color4f(0.2f, 0.4f, 0.6f));
+        batch.add(20, 0, 10, 10, new Color4f(0.2f, 0.4f, 0.6f, 1f));
+
+        assertEquals(3, batch.size());
+        assertEquals(1, batch.colorCount());
+    }
+
+    @Test
+    public void differentColorsAreSeparateFills() {
+        NVGOverlay.RectangleBatch batch = new NVGOverlay.RectangleBatch();
+        batch.add(0, 0, 10, 10, new Color4f(1, 0, 0));
+        batch.add(10, 0, 10, 10, new Color4f(0, 1, 0));
+        batch.add(20, 0, 10, 10, new Color4f(1, 0, 0));
+        batch.add(30, 0, 10, 10, new Color4f(1, 0, 0, 0.5f));
+
+        assertEquals(4, batch.size());
+        assertEquals(3, batch.colorCount());
+    }
+
+    @Test
+    public void clearKeepsColorsThatWereUsed() {
+        NVGOverlay.RectangleBatch batch = new NVGOverlay.RectangleBatch();
+        batch.add(0, 0, 10, 10, new Color4f(1, 0, 0));
+        batch.add(10, 0, 10, 10, new Color4f(0, 1, 0));
+
+        batch.clear();
+        assertEquals(0, batch.size());
+        assertEquals(0, batch.colorCount());
+        assertEquals(2, batch.groupCount());
+
+        // one color is reused, the other is dropped on the next clear
+        batch.add(0, 0, 5, 5, new Color4f(1, 0, 0));
+        assertEquals(1, batch.size());
+        assertEquals(1, batch.colorCount());
+        assertEquals(2, batch.groupCount());
+
+        batch.clear();
+        assertEquals(1, batch.groupCount());
+
+        batch.clear();
+        assertEquals(0, batch.groupCount());
+    }
+}
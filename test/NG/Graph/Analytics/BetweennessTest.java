@@ -0,0 +1,86 @@
+package NG.Graph.Analytics;
+
+import NG.Graph.Graph;
+import NG.Graph.GraphBuilder;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class BetweennessTest {
+    private static final double EPSILON = 1e-9;
+
+    /** @return a directed grid with edges to the right and downwards, where node (x, y) has id y * size + x */
+    private static Graph directedGrid(int size) {
+        GraphBuilder builder = new GraphBuilder();
+        for (int i = 0; i < size * size; i++) {
+            builder.node("n" + i);
+        }
+        for (int y = 0; y < size; y++) {
+            for (int x = 0; x < size; x++) {
+                int node = y * size + x;
+                if (x + 1 < size) builder.addEdge(node, node + 1);
+                if (y + 1 < size) builder.addEdge(node, node + size);
+            }
+        }
+        return builder.build();
+    }
+
+    @Test
+    public void pathGraph() {
+        GraphBuilder builder = new GraphBuilder();
+        int a = builder.node("a");
+        int b = builder.node("b");
+        int c = builder.node("c");
+        builder.addEdge(a, b);
+        builder.addEdge(b, c);
+
+        double[] centrality = Betweenness.approximate(builder.build(), 3, 0);
+        assertArrayEquals(new double[]{0, 1, 0}, centrality, EPSILON);
+    }
+
+    @Test
+    public void parallelShortestPathsShareTheDependency() {
+        GraphBuilder builder = new GraphBuilder();
+        int a = builder.node("a");
+        int b = builder.node("b");
+        int c = builder.node("c");
+        int d = builder.node("d");
+        builder.addEdge(a, b);
+        builder.addEdge(a, c);
+        builder.addEdge(b, d);
+        builder.addEdge(c, d);
+
+        double[] centrality = Betweenness.approximate(builder.build(), 4, 0);
+        assertArrayEquals(new double[]{0, 0.5, 0.5, 0}, centrality, EPSILON);
+    }
+
+    @Test
+    public void smallGridMatchesPathCounting() {
+        // the fraction of shortest paths through the middle node (1, 1), from each possible source to each target
+        int size = 3;
+        double[] centrality = Betweenness.approximate(directedGrid(size), size * size, 0);
+        double fromCorner = 4.0 / 6 + 2.0 / 3 + 2.0 / 3; // to (2, 2), (2, 1) and (1, 2)
+        double fromEdge = 2.0 / 3 + 1.0 / 2 + 1; // from (1, 0) to (2, 2), (2, 1) and (1, 2), and symmetric from (0, 1)
+        assertEquals(fromCorner + 2 * fromEdge, centrality[4], EPSILON);
+    }
+
+    @Test
+    public void largeGridDoesNotOverflow() {
+        // the number of shortest paths from a corner to the opposite corner of a 40 x 40 grid is C(78, 39) > 2^63
+        int size = 40;
+        double[] centrality = Betweenness.approximate(directedGrid(size), size * size, 0);
+
+        for (int y = 0; y < size; y++) {
+            for (int x = 0; x < size; x++) {
+                double value = centrality[y * size + x];
+                assertTrue("centrality of (" + x + ", " + y + ") is " + value, value >= 0 && Double.isFinite(value));
+                // the grid is symmetric in its diagonal
+                assertEquals(value, centrality[x * size + y], 1e-9 * Math.max(1, value));
+            }
+        }
+
+        // corners are on no path between other nodes
+        assertEquals(0, centrality[0], EPSILON);
+        assertEquals(0, centrality[size * size - 1], EPSILON);
+    }
+}
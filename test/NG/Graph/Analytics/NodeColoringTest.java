@@ -0,0 +1,75 @@
+package NG.Graph.Analytics;
+
+import NG.Graph.Graph;
+import NG.Graph.GraphBuilder;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class NodeColoringTest {
+
+    private static Graph nodes(int count) {
+        GraphBuilder builder = new GraphBuilder();
+        for (int i = 0; i < count; i++) {
+            builder.node("n" + i);
+        }
+        return builder.build();
+    }
+
+    private static int gradient(float fraction) {
+        return NodeColoring.LOW.interpolateTo(NodeColoring.HIGH, fraction).toABGR();
+    }
+
+    @Test
+    public void linearScale() {
+        Graph graph = nodes(3);
+        NodeColoring.byValue(graph, new double[]{0, 5, 10}, false);
+        assertArrayEquals(new int[]{gradient(0), gradient(0.5f), gradient(1)}, graph.nodeColors);
+    }
+
+    @Test
+    public void logarithmicScaleSpreadsSmallValues() {
+        // ranks summing to about 1, spanning four orders of magnitude
+        Graph graph = nodes(5);
+        NodeColoring.byValue(graph, new double[]{1e-5, 1e-4, 1e-3, 1e-2, 0.9889}, true);
+
+        int[] colors = graph.nodeColors;
+        assertEquals(gradient(0), colors[0]);
+        assertEquals(gradient(1), colors[4]);
+        // every decade gets about a quarter of the gradient
+        assertEquals(gradient((float) (Math.log(10) / Math.log(0.9889 / 1e-5))), colors[1]);
+        assertEquals(gradient((float) (Math.log(100) / Math.log(0.9889 / 1e-5))), colors[2]);
+        assertNotEquals(colors[1], colors[2]);
+        assertNotEquals(colors[2], colors[3]);
+    }
+
+    @Test
+    public void logarithmicScaleDoesNotDependOnMagnitude() {
+        Graph small = nodes(3);
+        Graph large = nodes(3);
+        NodeColoring.byValue(small, new double[]{1e-6, 1e-5, 1e-4}, true);
+        NodeColoring.byValue(large, new double[]{1, 10, 100}, true);
+
+        assertArrayEquals(large.nodeColors, small.nodeColors);
+        assertEquals(gradient(0.5f), small.nodeColors[1]);
+    }
+
+    @Test
+    public void logarithmicScaleOfZeroAndEqualValues() {
+        Graph graph = nodes(4);
+        NodeColoring.byValue(graph, new double[]{0, 0.25, 0.25, Double.NaN}, true);
+        int low = gradient(0);
+        assertArrayEquals(new int[]{low, low, low, NodeColoring.UNDEFINED.toABGR()}, graph.nodeColors);
+
+        NodeColoring.byValue(graph, new double[]{0, 0, 0, 0}, true);
+        assertArrayEquals(new int[]{low, low, low, low}, graph.nodeColors);
+    }
+
+    @Test
+    public void negativeValuesAreUndefined() {
+        Graph graph = nodes(2);
+        NodeColoring.byValue(graph, new double[]{-1, 1}, false);
+        assertEquals(NodeColoring.UNDEFINED.toABGR(), graph.nodeColors[0]);
+        assertEquals(gradient(1), graph.nodeColors[1]);
+    }
+}
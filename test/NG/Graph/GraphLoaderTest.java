@@ -0,0 +1,117 @@
+package NG.Graph;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.*;
+
+public class GraphLoaderTest {
+
+    private static Graph load(String text, GraphLoader.Format format) throws IOException {
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        return GraphLoader.load(new ByteArrayInputStream(bytes), format);
+    }
+
+    private static int nodeOf(Graph graph, String label) {
+        for (int i = 0; i < graph.nodeCount(); i++) {
+            if (graph.getLabel(i).equals(label)) return i;
+        }
+        fail("no node " + label + " in " + graph);
+        return -1;
+    }
+
+    private static void assertEdge(Graph graph, String source, String target) {
+        int edge = graph.findEdge(nodeOf(graph, source), nodeOf(graph, target));
+        assertTrue("no edge " + source + " -> " + target, edge >= 0);
+    }
+
+    @Test
+    public void dotGraphAttributesDoNotHideNextStatement() throws IOException {
+        Graph graph = load("digraph G { graph [rankdir=LR]; a -> b; }", GraphLoader.Format.DOT);
+
+        assertEquals(2, graph.nodeCount());
+        assertEquals(1, graph.edgeCount());
+        assertEdge(graph, "a", "b");
+    }
+
+    @Test
+    public void dotKeywordStatementDoesNotHideNextStatement() throws IOException {
+        Graph graph = load("digraph G { node; a -> b -> c }", GraphLoader.Format.DOT);
+
+        assertEquals(3, graph.nodeCount());
+        assertEdge(graph, "a", "b");
+        assertEdge(graph, "b", "c");
+    }
+
+    @Test
+    public void dotSkipsGraphNamesAndAttributeValues() throws IOException {
+        Graph graph = load("strict digraph \"name\" {\n rankdir = LR\n a -> \"b\" [label=x]\n subgraph s { c }\n}",
+                GraphLoader.Format.DOT
+        );
+
+        assertEquals(3, graph.nodeCount());
+        assertEquals(1, graph.edgeCount());
+        assertEdge(graph, "a", "b");
+    }
+
+    @Test
+    public void edgeListWeights() throws IOException {
+        Graph graph = load("a b 2.5\nb\tc\n# comment\nc;a;-1e1\n", GraphLoader.Format.EDGE_LIST);
+
+        assertEquals(3, graph.nodeCount());
+        assertEquals(3, graph.edgeCount());
+        int ab = graph.findEdge(nodeOf(graph, "a"), nodeOf(graph, "b"));
+        assertEquals(2.5f, graph.weightOf(ab), 0f);
+        int bc = graph.findEdge(nodeOf(graph, "b"), nodeOf(graph, "c"));
+        assertEquals(1f, graph.weightOf(bc), 0f);
+        int ca = graph.findEdge(nodeOf(graph, "c"), nodeOf(graph, "a"));
+        assertEquals(-10f, graph.weightOf(ca), 0f);
+    }
+
+    @Test
+    public void edgeListEmptyFieldsKeepTheirPosition() throws IOException {
+        Graph graph = load("a,,3\nb,c,\n,d,1\n", GraphLoader.Format.EDGE_LIST);
+
+        // the first and last line miss a node, rather than shifting the weight into the target column
+        assertEquals(1, graph.edgeCount());
+        assertEdge(graph, "b", "c");
+        assertEquals(1f, graph.weightOf(0), 0f);
+    }
+
+    @Test
+    public void edgeListSpacesAroundSeparators() throws IOException {
+        Graph graph = load("a ,  b , 4\n\"c d\",\"e\"\"\"\r\n", GraphLoader.Format.EDGE_LIST);
+
+        assertEquals(2, graph.edgeCount());
+        assertEquals(4f, graph.weightOf(graph.findEdge(nodeOf(graph, "a"), nodeOf(graph, "b"))), 0f);
+        assertEdge(graph, "c d", "e\"");
+    }
+
+    @Test
+    public void edgeListSkipsHeader() throws IOException {
+        Graph graph = load("Source,Target,Weight\na,b,2\n", GraphLoader.Format.EDGE_LIST);
+
+        assertEquals(2, graph.nodeCount());
+        assertEquals(1, graph.edgeCount());
+        assertEdge(graph, "a", "b");
+    }
+
+    @Test
+    public void edgeListHeaderWithOnlyWeightName() throws IOException {
+        Graph graph = load("x\ty\tweight\na\tb\t2\n", GraphLoader.Format.EDGE_LIST);
+
+        assertEquals(1, graph.edgeCount());
+        assertEdge(graph, "a", "b");
+    }
+
+    @Test
+    public void edgeListFirstLineIsDataWithoutHeaderNames() throws IOException {
+        Graph graph = load("a,b\nb,c\n", GraphLoader.Format.EDGE_LIST);
+
+        assertEquals(2, graph.edgeCount());
+        assertEdge(graph, "a", "b");
+    }
+}
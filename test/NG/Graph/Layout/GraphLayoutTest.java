@@ -0,0 +1,85 @@
+package NG.Graph.Layout;
+
+import NG.Graph.Graph;
+import NG.Graph.GraphBuilder;
+import NG.Settings.Settings;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class GraphLayoutTest {
+    private static final long TIMEOUT_MILLIS = 30_000;
+    /** time without a new version after which the layout is assumed to be paused */
+    private static final long IDLE_MILLIS = 300;
+
+    private static Graph ring(int nrOfNodes) {
+        GraphBuilder builder = new GraphBuilder();
+        for (int i = 0; i < nrOfNodes; i++) {
+            builder.addEdge(builder.node("n" + i), builder.node("n" + ((i + 1) % nrOfNodes)));
+        }
+        return builder.build();
+    }
+
+    /** @return the version at which the layout stopped publishing, or fails after the timeout */
+    private static int awaitIdle(GraphLayout layout) throws InterruptedException {
+        long end = System.currentTimeMillis() + TIMEOUT_MILLIS;
+        int version = layout.getVersion();
+        long lastChange = System.currentTimeMillis();
+
+        while (System.currentTimeMillis() < end) {
+            Thread.sleep(10);
+            int newVersion = layout.getVersion();
+            if (newVersion != version) {
+                version = newVersion;
+                lastChange = System.currentTimeMillis();
+
+            } else if (System.currentTimeMillis() - lastChange > IDLE_MILLIS) {
+                return version;
+            }
+        }
+
+        fail("layout did not converge within " + TIMEOUT_MILLIS + " ms, at version " + version);
+        return version;
+    }
+
+    @Test
+    public void layoutStopsPublishingWhenConvergedAndResumesOnWake() throws InterruptedException {
+        Settings settings = new Settings();
+        settings.MAX_ITERATIONS_PER_SECOND = 2000;
+        GraphLayout layout = new GraphLayout(ring(20), settings);
+        layout.start();
+
+        try {
+            int idleVersion = awaitIdle(layout);
+            assertTrue("layout should have iterated", idleVersion > 0);
+
+            Thread.sleep(IDLE_MILLIS);
+            assertEquals(idleVersion, layout.getVersion());
+
+            settings.LAYOUT_EDGE_LENGTH *= 2;
+            layout.wake();
+            int wokenVersion = awaitIdle(layout);
+            assertTrue(wokenVersion > idleVersion);
+
+        } finally {
+            layout.stopLoop();
+            layout.join(TIMEOUT_MILLIS);
+        }
+    }
+
+    @Test
+    public void graphWithoutPairsDoesNotIterate() throws InterruptedException {
+        GraphBuilder builder = new GraphBuilder();
+        builder.node("alone");
+        GraphLayout layout = new GraphLayout(builder.build(), new Settings());
+        layout.start();
+
+        try {
+            assertEquals(0, awaitIdle(layout));
+
+        } finally {
+            layout.stopLoop();
+            layout.join(TIMEOUT_MILLIS);
+        }
+    }
+}
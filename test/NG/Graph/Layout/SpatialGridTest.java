@@ -0,0 +1,150 @@
+package NG.Graph.Layout;
+
+import NG.DataStructures.Generic.IntList;
+import org.joml.FrustumIntersection;
+import org.joml.Matrix4f;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import static NG.Graph.Layout.GraphLayout.STRIDE;
+import static org.junit.Assert.*;
+
+public class SpatialGridTest {
+    private static final float CELL_SIZE = 4f;
+    private static final float RADIUS = 0.5f;
+
+    private static float[] randomPositions(Random random, int nrOfNodes, float size) {
+        float[] positions = new float[nrOfNodes * STRIDE];
+        for (int i = 0; i < nrOfNodes; i++) {
+            positions[i * STRIDE] = (random.nextFloat() - 0.5f) * size;
+            positions[i * STRIDE + 1] = (random.nextFloat() - 0.5f) * size;
+            positions[i * STRIDE + 3] = 1;
+        }
+        return positions;
+    }
+
+    private static FrustumIntersection frustum(float x, float y, float distance) {
+        Matrix4f viewProjection = new Matrix4f()
+                .perspective((float) Math.toRadians(40), 1.5f, 1f, 1000f)
+                .lookAt(x, y - distance / 2, distance, x, y, 0, 0, 0, 1);
+        return new FrustumIntersection(viewProjection);
+    }
+
+    private static int[] query(SpatialGrid grid, FrustumIntersection frustum, float[] positions) {
+        IntList result = new IntList();
+        grid.query(frustum, positions, RADIUS, result);
+
+        int[] nodes = new int[result.size()];
+        for (int i = 0; i < nodes.length; i++) {
+            nodes[i] = result.get(i);
+        }
+        Arrays.sort(nodes);
+        return nodes;
+    }
+
+    private static int[] bruteForce(FrustumIntersection frustum, float[] positions) {
+        IntList result = new IntList();
+        for (int i = 0; i < positions.length / STRIDE; i++) {
+            float x = positions[i * STRIDE];
+            float y = positions[i * STRIDE + 1];
+            float z = positions[i * STRIDE + 2];
+            if (frustum.testSphere(x, y, z, RADIUS)) result.add(i);
+        }
+
+        int[] nodes = new int[result.size()];
+        for (int i = 0; i < nodes.length; i++) {
+            nodes[i] = result.get(i);
+        }
+        return nodes;
+    }
+
+    private static int distinctCells(float[] positions) {
+        Set<Long> cells = new HashSet<>();
+        for (int i = 0; i < positions.length / STRIDE; i++) {
+            long cx = (long) Math.floor(positions[i * STRIDE] / CELL_SIZE);
+            long cy = (long) Math.floor(positions[i * STRIDE + 1] / CELL_SIZE);
+            cells.add(cx << 32 | (cy & 0xFFFFFFFFL));
+        }
+        return cells.size();
+    }
+
+    @Test
+    public void queryMatchesBruteForce() {
+        Random random = new Random(1);
+        float[] positions = randomPositions(random, 5000, 400);
+        SpatialGrid grid = new SpatialGrid(CELL_SIZE, positions, 5000);
+
+        int partial = 0;
+        for (int i = 0; i < 20; i++) {
+            float x = random.nextFloat() * 300 - 150;
+            float y = random.nextFloat() * 300 - 150;
+            FrustumIntersection frustum = frustum(x, y, 50 + random.nextFloat() * 400);
+            int[] expected = bruteForce(frustum, positions);
+            assertArrayEquals(expected, query(grid, frustum, positions));
+            if (expected.length > 0 && expected.length < 5000) partial++;
+        }
+        // the frustums must cut through the grid to test anything
+        assertTrue(partial > 10);
+    }
+
+    @Test
+    public void updateMatchesBruteForce() {
+        Random random = new Random(2);
+        int nrOfNodes = 3000;
+        float[] positions = randomPositions(random, nrOfNodes, 200);
+        SpatialGrid grid = new SpatialGrid(CELL_SIZE, positions, nrOfNodes);
+
+        for (int iteration = 0; iteration < 50; iteration++) {
+            // most nodes move a little, some jump far away, and the whole layout contracts
+            for (int i = 0; i < nrOfNodes; i++) {
+                if (random.nextInt(20) == 0) {
+                    positions[i * STRIDE] = (random.nextFloat() - 0.5f) * 400;
+                    positions[i * STRIDE + 1] = (random.nextFloat() - 0.5f) * 400;
+                } else {
+                    positions[i * STRIDE] = positions[i * STRIDE] * 0.98f + random.nextFloat() - 0.5f;
+                    positions[i * STRIDE + 1] = positions[i * STRIDE + 1] * 0.98f + random.nextFloat() - 0.5f;
+                }
+            }
+            grid.update(positions);
+
+            assertEquals(distinctCells(positions), grid.nrOfCells());
+            FrustumIntersection frustum = frustum(random.nextFloat() * 100 - 50, random.nextFloat() * 100 - 50, 100);
+            assertArrayEquals(bruteForce(frustum, positions), query(grid, frustum, positions));
+        }
+    }
+
+    @Test
+    public void everyNodeIsFoundOnce() {
+        Random random = new Random(3);
+        float[] positions = randomPositions(random, 1000, 100);
+        SpatialGrid grid = new SpatialGrid(CELL_SIZE, positions, 1000);
+
+        // a frustum that sees everything
+        int[] nodes = query(grid, frustum(0, 0, 800), positions);
+        assertEquals(1000, nodes.length);
+        for (int i = 0; i < nodes.length; i++) {
+            assertEquals(i, nodes[i]);
+        }
+    }
+
+    @Test
+    public void updateReportsMovedNodes() {
+        float[] positions = {1, 1, 0, 1, 2, 2, 0, 1, 9, 9, 0, 1};
+        SpatialGrid grid = new SpatialGrid(CELL_SIZE, positions, 3);
+        assertEquals(2, grid.nrOfCells());
+
+        positions[0] = 3; // same cell
+        positions[8] = -1; // another cell
+        assertEquals(1, grid.update(positions));
+        assertEquals(2, grid.nrOfCells());
+
+        positions[9] = 1; // into the cell of the others
+        positions[8] = 1;
+        assertEquals(1, grid.update(positions));
+        assertEquals(1, grid.nrOfCells());
+    }
+}
@@ -0,0 +1,95 @@
+package NG.Graph.Rendering;
+
+import NG.Graph.Graph;
+import NG.Graph.GraphBuilder;
+import NG.Graph.Layout.GraphLayout;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class DensityTilesTest {
+    private static final int RESOLUTION = 32;
+
+    private static Graph randomGraph(int nrOfNodes, int nrOfEdges, Random random) {
+        GraphBuilder builder = new GraphBuilder();
+        for (int i = 0; i < nrOfNodes; i++) {
+            builder.node("n" + i);
+        }
+        for (int e = 0; e < nrOfEdges; e++) {
+            builder.addEdge(random.nextInt(nrOfNodes), random.nextInt(nrOfNodes));
+        }
+        return builder.build();
+    }
+
+    private static float[] randomPositions(int nrOfNodes, Random random) {
+        float[] positions = new float[nrOfNodes * GraphLayout.STRIDE];
+        for (int i = 0; i < nrOfNodes; i++) {
+            positions[i * GraphLayout.STRIDE] = random.nextFloat() * 100;
+            positions[i * GraphLayout.STRIDE + 1] = random.nextFloat() * 50;
+            positions[i * GraphLayout.STRIDE + 3] = 1;
+        }
+        return positions;
+    }
+
+    private static float[][] grids(int count) {
+        return new float[count][RESOLUTION * RESOLUTION];
+    }
+
+    @Test
+    public void resultDoesNotDependOnTheNumberOfGrids() {
+        Random random = new Random(3);
+        Graph graph = randomGraph(500, 5000, random);
+        int[] sources = graph.edgeSources();
+        float[] positions = randomPositions(500, random);
+
+        DensityTiles.Result single = DensityTiles.compute(graph, sources, positions, grids(1), RESOLUTION);
+        for (int nrOfGrids : new int[]{2, 3, 7, 16}) {
+            DensityTiles.Result split = DensityTiles.compute(graph, sources, positions, grids(nrOfGrids), RESOLUTION);
+            for (int i = 0; i < single.density.length; i++) {
+                assertEquals(single.density[i], split.density[i], 1e-3f * Math.max(1, single.density[i]));
+            }
+            assertEquals(single.maxDensity, split.maxDensity, 1e-3f * single.maxDensity);
+        }
+    }
+
+    @Test
+    public void reusedGridsAreCleared() {
+        Random random = new Random(4);
+        Graph graph = randomGraph(100, 300, random);
+        int[] sources = graph.edgeSources();
+        float[] positions = randomPositions(100, random);
+
+        DensityTiles.Result fresh = DensityTiles.compute(graph, sources, positions, grids(4), RESOLUTION);
+
+        float[][] dirty = grids(4);
+        for (float[] grid : dirty) {
+            Arrays.fill(grid, 1000f);
+        }
+        DensityTiles.Result reused = DensityTiles.compute(graph, sources, positions, dirty, RESOLUTION);
+        assertArrayEquals(fresh.density, reused.density, 1e-3f);
+
+        // the result does not share an array with the grids that are reused by the next computation
+        for (float[] grid : dirty) {
+            assertNotSame(grid, reused.density);
+        }
+    }
+
+    @Test
+    public void moreGridsThanEdges() {
+        GraphBuilder builder = new GraphBuilder();
+        builder.addEdge(builder.node("a"), builder.node("b"));
+        Graph graph = builder.build();
+        float[] positions = {0, 0, 0, 1, 10, 0, 0, 1};
+
+        DensityTiles.Result result = DensityTiles.compute(graph, graph.edgeSources(), positions, grids(8), RESOLUTION);
+        float total = 0;
+        for (float value : result.density) {
+            total += value;
+        }
+        // the edge spans nearly the whole area, which is 1% larger than the bounding box
+        assertEquals(RESOLUTION / 1.01f, total, 0.5f);
+    }
+}
@@ -0,0 +1,283 @@
+package NG.Rendering;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.*;
+
+public class MeshLoaderTest {
+    private static final float EPSILON = 1e-6f;
+    private static final int STRIDE = VertexArrayMesh.FLOATS_PER_VERTEX;
+
+    private static final String PLY_HEADER_PROPERTIES =
+            "element vertex 4\n" +
+                    "property float x\n" +
+                    "property float y\n" +
+                    "property float z\n" +
+                    "property float nx\n" +
+                    "property float ny\n" +
+                    "property float nz\n" +
+                    "element face 1\n" +
+                    "property list uchar int vertex_indices\n" +
+                    "end_header\n";
+
+    private static MeshLoader.MeshData load(String text, MeshLoader.Format format) throws IOException {
+        return MeshLoader.load(ByteBuffer.wrap(text.getBytes(StandardCharsets.US_ASCII)), format);
+    }
+
+    private static int[] indicesOf(MeshLoader.MeshData mesh) {
+        IntBuffer buffer = mesh.getIndices();
+        int[] result = new int[buffer.limit()];
+        buffer.get(0, result);
+        return result;
+    }
+
+    private static void assertVertex(MeshLoader.MeshData mesh, int index, float... expected) {
+        FloatBuffer vertices = mesh.getVertices();
+        for (int i = 0; i < expected.length; i++) {
+            assertEquals("vertex " + index + " float " + i, expected[i], vertices.get(index * STRIDE + i), EPSILON);
+        }
+    }
+
+    private static void assertMalformed(String text, MeshLoader.Format format) {
+        try {
+            MeshLoader.MeshData mesh = load(text, format);
+            mesh.free();
+            fail("Expected an IOException for:\n" + text);
+
+        } catch (IOException expected) {
+            // the loader frees its buffers itself
+        }
+    }
+
+    @Test
+    public void objCornersWithEqualIndicesAreMerged() throws IOException {
+        MeshLoader.MeshData mesh = load(
+                "v 0 0 0\n" +
+                        "v 1 0 0\n" +
+                        "v 1 1 0\n" +
+                        "v 0 1 0\n" +
+                        "vn 0 0 1\n" +
+                        "f 1//1 2//1 3//1\n" +
+                        "f 1//1 3//1 4//1\n",
+                MeshLoader.Format.OBJ
+        );
+
+        try {
+            assertEquals(4, mesh.nrOfVertices());
+            assertEquals(2, mesh.nrOfTriangles());
+            assertArrayEquals(new int[]{0, 1, 2, 0, 2, 3}, indicesOf(mesh));
+            assertVertex(mesh, 2, 1, 1, 0, 0, 0, 1, 0, 0);
+
+        } finally {
+            mesh.free();
+        }
+    }
+
+    @Test
+    public void objCornersWithDifferentAttributesAreKept() throws IOException {
+        MeshLoader.MeshData mesh = load(
+                "v 0 0 0\n" +
+                        "v 1 0 0\n" +
+                        "v 0 1 0\n" +
+                        "vt 0.25 0.5\n" +
+                        "vt 0.75 0.5\n" +
+                        "f 1/1 2/1 3/1\n" +
+                        "f 1/2 3/1 2/1\n",
+                MeshLoader.Format.OBJ
+        );
+
+        try {
+            // only the first corner of the second face has a new texture coordinate
+            assertEquals(4, mesh.nrOfVertices());
+            assertArrayEquals(new int[]{0, 1, 2, 3, 2, 1}, indicesOf(mesh));
+            assertVertex(mesh, 0, 0, 0, 0, 0, 0, 0, 0.25f, 0.5f);
+            assertVertex(mesh, 3, 0, 0, 0, 0, 0, 0, 0.75f, 0.5f);
+
+        } finally {
+            mesh.free();
+        }
+    }
+
+    @Test
+    public void objNegativeIndicesAreRelativeToTheEnd() throws IOException {
+        MeshLoader.MeshData mesh = load(
+                "v 5 5 5\n" +
+                        "v 0 0 0\n" +
+                        "v 1 0 0\n" +
+                        "v 0 1 0\n" +
+                        "vn 0 0 -1\n" +
+                        "f -3//-1 -2//-1 -1//-1\n",
+                MeshLoader.Format.OBJ
+        );
+
+        try {
+            assertEquals(3, mesh.nrOfVertices());
+            assertVertex(mesh, 0, 0, 0, 0, 0, 0, -1);
+            assertVertex(mesh, 1, 1, 0, 0, 0, 0, -1);
+            assertVertex(mesh, 2, 0, 1, 0, 0, 0, -1);
+
+        } finally {
+            mesh.free();
+        }
+    }
+
+    @Test
+    public void objPolygonsAreTriangulatedAsFan() throws IOException {
+        MeshLoader.MeshData mesh = load(
+                "# a pentagon\n" +
+                        "v 0 0 0\n" +
+                        "v 1 0 0\n" +
+                        "v 2 1 0\n" +
+                        "v 1 2 0\n" +
+                        "v 0 1 0\n" +
+                        "g pentagon\n" +
+                        "f 1 2 3 4 5 # trailing comment\n",
+                MeshLoader.Format.OBJ
+        );
+
+        try {
+            assertEquals(5, mesh.nrOfVertices());
+            assertEquals(3, mesh.nrOfTriangles());
+            assertArrayEquals(new int[]{0, 1, 2, 0, 2, 3, 0, 3, 4}, indicesOf(mesh));
+
+        } finally {
+            mesh.free();
+        }
+    }
+
+    @Test
+    public void objNumbersWithSignsAndExponents() throws IOException {
+        MeshLoader.MeshData mesh = load(
+                "v -1.5 +2.25e1 3E-2\r\n" +
+                        "v 1 0 0\r\n" +
+                        "v 0 1 0\r\n" +
+                        "f 1 2 3\r\n",
+                MeshLoader.Format.OBJ
+        );
+
+        try {
+            assertVertex(mesh, 0, -1.5f, 22.5f, 0.03f);
+
+        } finally {
+            mesh.free();
+        }
+    }
+
+    @Test
+    public void asciiPly() throws IOException {
+        MeshLoader.MeshData mesh = load(
+                "ply\n" +
+                        "format ascii 1.0\n" +
+                        "comment a unit square\n" +
+                        PLY_HEADER_PROPERTIES +
+                        "0 0 0 0 0 1\n" +
+                        "1 0 0 0 0 1\n" +
+                        "1 1 0 0 0 1\n" +
+                        "0 1 0 0 0 1\n" +
+                        "4 0 1 2 3\n",
+                MeshLoader.Format.PLY
+        );
+
+        try {
+            assertEquals(4, mesh.nrOfVertices());
+            assertArrayEquals(new int[]{0, 1, 2, 0, 2, 3}, indicesOf(mesh));
+            assertVertex(mesh, 2, 1, 1, 0, 0, 0, 1);
+
+        } finally {
+            mesh.free();
+        }
+    }
+
+    @Test
+    public void binaryLittleEndianPly() throws IOException {
+        assertBinaryPly(ByteOrder.LITTLE_ENDIAN, "binary_little_endian");
+    }
+
+    @Test
+    public void binaryBigEndianPly() throws IOException {
+        assertBinaryPly(ByteOrder.BIG_ENDIAN, "binary_big_endian");
+    }
+
+    private static void assertBinaryPly(ByteOrder order, String formatName) throws IOException {
+        byte[] header = ("ply\nformat " + formatName + " 1.0\n" + PLY_HEADER_PROPERTIES)
+                .getBytes(StandardCharsets.US_ASCII);
+        float[][] vertices = {{0, 0, 0}, {1, 0, 0}, {1, 1, 0}, {0, 1, 0}};
+
+        ByteBuffer data = ByteBuffer.allocate(header.length + 4 * 6 * 4 + 1 + 4 * 4).order(order);
+        data.put(header);
+        for (float[] v : vertices) {
+            data.putFloat(v[0]).putFloat(v[1]).putFloat(v[2]);
+            data.putFloat(0).putFloat(0).putFloat(1);
+        }
+        data.put((byte) 4).putInt(0).putInt(1).putInt(2).putInt(3);
+        data.flip();
+
+        // the loader must not depend on the byte order of the given buffer
+        data.order(order == ByteOrder.BIG_ENDIAN ? ByteOrder.LITTLE_ENDIAN : ByteOrder.BIG_ENDIAN);
+        MeshLoader.MeshData mesh = MeshLoader.load(data, MeshLoader.Format.PLY);
+
+        try {
+            assertEquals(4, mesh.nrOfVertices());
+            assertArrayEquals(new int[]{0, 1, 2, 0, 2, 3}, indicesOf(mesh));
+            for (int i = 0; i < vertices.length; i++) {
+                assertVertex(mesh, i, vertices[i][0], vertices[i][1], vertices[i][2], 0, 0, 1);
+            }
+
+        } finally {
+            mesh.free();
+        }
+    }
+
+    @Test
+    public void malformedObjIsRejected() {
+        // index past the defined vertices
+        assertMalformed("v 0 0 0\nv 1 0 0\nv 0 1 0\nf 1 2 4\n", MeshLoader.Format.OBJ);
+        // index zero is not valid in OBJ
+        assertMalformed("v 0 0 0\nv 1 0 0\nv 0 1 0\nf 0 1 2\n", MeshLoader.Format.OBJ);
+        // negative index before the first vertex
+        assertMalformed("v 0 0 0\nv 1 0 0\nv 0 1 0\nf -4 1 2\n", MeshLoader.Format.OBJ);
+        // too few corners
+        assertMalformed("v 0 0 0\nv 1 0 0\nf 1 2\n", MeshLoader.Format.OBJ);
+        // not a number
+        assertMalformed("v 0 zero 0\n", MeshLoader.Format.OBJ);
+        assertMalformed("v 0 0 0\nv 1 0 0\nv 0 1 0\nf 1 a 3\n", MeshLoader.Format.OBJ);
+    }
+
+    @Test
+    public void malformedPlyIsRejected() {
+        assertMalformed("obj\nformat ascii 1.0\nend_header\n", MeshLoader.Format.PLY);
+        assertMalformed("ply\nformat binary_middle_endian 1.0\nend_header\n", MeshLoader.Format.PLY);
+        assertMalformed("ply\nformat ascii 1.0\nproperty float x\nend_header\n", MeshLoader.Format.PLY);
+        assertMalformed("ply\nformat ascii 1.0\nelement vertex 1\nproperty quad x\nend_header\n", MeshLoader.Format.PLY);
+        assertMalformed("ply\nformat ascii 1.0\nelement vertex 0\n", MeshLoader.Format.PLY);
+        // index past the vertices
+        assertMalformed(
+                "ply\nformat ascii 1.0\n" + PLY_HEADER_PROPERTIES +
+                        "0 0 0 0 0 1\n1 0 0 0 0 1\n1 1 0 0 0 1\n0 1 0 0 0 1\n3 0 1 4\n",
+                MeshLoader.Format.PLY
+        );
+        // binary data that ends halfway a vertex
+        assertMalformed(
+                "ply\nformat binary_little_endian 1.0\n" + PLY_HEADER_PROPERTIES + "\0\0\0\0\0\0",
+                MeshLoader.Format.PLY
+        );
+    }
+
+    @Test
+    public void errorsReportTheLine() {
+        try {
+            load("v 0 0 0\nv 1 0 0\n\nf 1 2 3\n", MeshLoader.Format.OBJ).free();
+            fail();
+
+        } catch (IOException e) {
+            assertTrue(e.getMessage(), e.getMessage().endsWith("on line 4"));
+        }
+    }
+}
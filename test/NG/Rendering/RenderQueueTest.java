@@ -0,0 +1,221 @@
+package NG.Rendering;
+
+import NG.Core.Main;
+import NG.Rendering.Shaders.SGL;
+import NG.Rendering.Shaders.ShaderProgram;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.*;
+
+public class RenderQueueTest {
+    private List<String> log;
+    private RenderQueue queue;
+    private RecordingBackend backend;
+
+    @Before
+    public void setUp() {
+        log = new ArrayList<>();
+        queue = new RenderQueue();
+        backend = new RecordingBackend();
+    }
+
+    /** @return the entries of the log that start with the given prefix, without the prefix */
+    private List<String> entries(String prefix) {
+        return log.stream()
+                .filter(s -> s.startsWith(prefix))
+                .map(s -> s.substring(prefix.length()))
+                .collect(Collectors.toList());
+    }
+
+    private void draw(StubShader shader, int layer, boolean blend, String name) {
+        queue.add(shader, layer, blend, (gl, root) -> log.add("draw " + name + (shader.clickShading ? " click" : "")));
+    }
+
+    @Test
+    public void ordersByLayerThenBlendThenProgram() {
+        StubShader a = new StubShader("A");
+        StubShader b = new StubShader("B");
+
+        draw(b, 1, false, "b1");
+        draw(a, 1, true, "a1 blended");
+        draw(a, 0, true, "a0 blended");
+        draw(b, 0, false, "b0");
+        draw(a, 0, false, "a0");
+        draw(a, 1, false, "a1");
+        queue.submit(null, backend, false, null);
+
+        // within a layer and blend state, B comes first as it was added to the queue first
+        assertEquals(Arrays.asList("b0", "a0", "a0 blended", "b1", "a1", "a1 blended"), entries("draw "));
+    }
+
+    @Test
+    public void equalKeysKeepInsertionOrder() {
+        StubShader a = new StubShader("A");
+        StubShader b = new StubShader("B");
+
+        List<String> expected = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            draw(b, 2, true, "other " + i);
+            draw(a, 1, false, "first " + i);
+            expected.add("first " + i);
+        }
+        for (int i = 0; i < 50; i++) {
+            expected.add("other " + i);
+        }
+        queue.submit(null, backend, false, null);
+
+        assertEquals(expected, entries("draw "));
+    }
+
+    @Test
+    public void initializesEveryProgramOncePerFrame() {
+        StubShader a = new StubShader("A");
+        StubShader b = new StubShader("B");
+
+        // A is used in three separate groups
+        draw(a, 0, false, "1");
+        draw(b, 1, false, "2");
+        draw(a, 1, true, "3");
+        draw(a, 2, false, "4");
+
+        queue.submit(null, backend, false, null);
+        assertEquals(Arrays.asList("A", "B"), entries("initialize "));
+
+        log.clear();
+        queue.submit(null, backend, false, null);
+        assertEquals(Arrays.asList("A", "B"), entries("initialize "));
+    }
+
+    @Test
+    public void bindsConsecutiveGroupsOfOneProgramOnce() {
+        StubShader a = new StubShader("A");
+        draw(a, 0, false, "1");
+        draw(a, 0, true, "2");
+        draw(a, 1, false, "3");
+        queue.submit(null, backend, false, null);
+
+        assertEquals(Collections.singletonList("A"), entries("bind "));
+        assertEquals(Collections.singletonList("A"), entries("unbind "));
+    }
+
+    @Test
+    public void changesBlendStateOnlyWhenItDiffers() {
+        StubShader a = new StubShader("A");
+        StubShader b = new StubShader("B");
+        StubShader c = new StubShader("C");
+
+        draw(a, 0, false, "1");
+        draw(b, 0, false, "2");
+        draw(c, 0, true, "3");
+        draw(a, 0, true, "4");
+        draw(b, 1, true, "5");
+        draw(c, 1, false, "6");
+        queue.submit(null, backend, false, null);
+
+        // layer 1 draws unblended first, then blended
+        assertEquals(Arrays.asList("false", "true", "false", "true"), entries("setBlend "));
+    }
+
+    @Test
+    public void blendStateIsSetAgainInEveryFrame() {
+        StubShader a = new StubShader("A");
+        draw(a, 0, true, "1");
+
+        queue.submit(null, backend, false, null);
+        queue.submit(null, backend, false, null);
+
+        assertEquals(Arrays.asList("true", "true"), entries("setBlend "));
+    }
+
+    @Test
+    public void clickPassRepeatsEveryGroupInTheClickBuffer() {
+        StubShader a = new StubShader("A");
+        StubShader b = new StubShader("B");
+        draw(a, 0, false, "1");
+        draw(a, 0, false, "2");
+        draw(b, 0, false, "3");
+        queue.submit(null, backend, true, null);
+
+        assertEquals(Arrays.asList(
+                "1", "2", "click buffer", "1 click", "2 click", "screen",
+                "3", "click buffer", "3 click", "screen"
+        ), log.stream()
+                .filter(s -> s.startsWith("draw ") || s.equals("click buffer") || s.equals("screen"))
+                .map(s -> s.startsWith("draw ") ? s.substring(5) : s)
+                .collect(Collectors.toList()));
+    }
+
+    private class StubShader implements ShaderProgram {
+        private final String name;
+        boolean clickShading = false;
+
+        StubShader(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public void bind() {
+            log.add("bind " + name);
+        }
+
+        @Override
+        public void unbind() {
+            log.add("unbind " + name);
+        }
+
+        @Override
+        public void cleanup() {
+        }
+
+        @Override
+        public void initialize(Main root) {
+            log.add("initialize " + name);
+        }
+
+        @Override
+        public SGL getGL(Main root) {
+            return new BaseSGL(this);
+        }
+
+        @Override
+        public void setClickShading(boolean setTrue) {
+            clickShading = setTrue;
+        }
+    }
+
+    private class RecordingBackend implements RenderQueue.Backend {
+        @Override
+        public void setBlend(boolean enabled) {
+            log.add("setBlend " + enabled);
+        }
+
+        @Override
+        public void bindClickBuffer() {
+            log.add("click buffer");
+        }
+
+        @Override
+        public void unbindClickBuffer() {
+            log.add("screen");
+        }
+
+        @Override
+        public void startTiming(String identifier) {
+        }
+
+        @Override
+        public void endTiming(String identifier) {
+        }
+
+        @Override
+        public void checkErrors(String identifier) {
+        }
+    }
+}
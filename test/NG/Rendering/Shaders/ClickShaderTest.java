@@ -0,0 +1,106 @@
+package NG.Rendering.Shaders;
+
+import org.joml.Vector3i;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Random;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.*;
+
+public class ClickShaderTest {
+
+    private static void assertRoundTrip(int id) {
+        Vector3i color = ClickShader.numberToColor(id);
+        assertTrue(color.x >= 0 && color.x <= 255);
+        assertTrue(color.y >= 0 && color.y <= 255);
+        assertTrue(color.z >= 0 && color.z <= 255);
+        assertEquals(id, ClickShader.colorToNumber(color.x, color.y, color.z));
+    }
+
+    @Test
+    public void roundTripOfLimits() {
+        assertRoundTrip(0);
+        assertRoundTrip(1);
+        assertRoundTrip(ClickShader.MAX_VALUE);
+        assertEquals((1 << 24) - 1, ClickShader.MAX_VALUE);
+    }
+
+    @Test
+    public void roundTripAtByteBoundaries() {
+        int[] ids = {0xFE, 0xFF, 0x100, 0x101, 0xFFFF, 0x10000, 0x10001, 0xFF00FF, 0x00FF00, 0xFFFFFE};
+        for (int id : ids) {
+            assertRoundTrip(id);
+        }
+    }
+
+    @Test
+    public void roundTripOfRandomIds() {
+        Random random = new Random(0);
+        for (int i = 0; i < 10_000; i++) {
+            assertRoundTrip(random.nextInt(ClickShader.MAX_VALUE + 1));
+        }
+    }
+
+    @Test
+    public void redHoldsTheLowestBits() {
+        assertEquals(new Vector3i(1, 0, 0), ClickShader.numberToColor(1));
+        assertEquals(new Vector3i(0, 1, 0), ClickShader.numberToColor(0x100));
+        assertEquals(new Vector3i(0, 0, 1), ClickShader.numberToColor(0x10000));
+        assertEquals(new Vector3i(255, 255, 255), ClickShader.numberToColor(ClickShader.MAX_VALUE));
+    }
+
+    @Test
+    public void idsThatDoNotFitAreBackground() {
+        Vector3i background = new Vector3i(0, 0, 0);
+        int[] ids = {1 << 24, (1 << 24) + 1, (1 << 24) + 5, 0x1FFFFFF, Integer.MAX_VALUE, -1, Integer.MIN_VALUE};
+        for (int id : ids) {
+            Vector3i color = ClickShader.numberToColor(id);
+            assertEquals("id " + id, background, color);
+            assertEquals(0, ClickShader.colorToNumber(color.x, color.y, color.z));
+        }
+    }
+
+    @Test
+    public void idsPastTheLimitDoNotAlias() {
+        // without the clamp, 2^24 + k would wrap onto k
+        for (int k = 1; k < 1000; k++) {
+            Vector3i color = ClickShader.numberToColor((1 << 24) + k);
+            assertNotEquals(k, ClickShader.colorToNumber(color.x, color.y, color.z));
+        }
+    }
+
+    /** the shaders encode ids themselves, hence each must clamp exactly like {@link ClickShader#numberToColor(int)} */
+    @Test
+    public void everyShaderClampsLikeTheDecoder() throws IOException {
+        Pattern function = Pattern.compile("vec4 numberToColor\\(int i\\) \\{(.*?)\\n}", Pattern.DOTALL);
+        List<Path> shaders;
+        try (Stream<Path> files = Files.walk(Paths.get("res", "shaders"))) {
+            shaders = files.filter(Files::isRegularFile).collect(Collectors.toList());
+        }
+
+        int found = 0;
+        for (Path shader : shaders) {
+            String source = new String(Files.readAllBytes(shader), StandardCharsets.UTF_8);
+            Matcher matcher = function.matcher(source);
+            while (matcher.find()) {
+                found++;
+                String body = matcher.group(1);
+                assertTrue(shader + " does not clamp", body.contains("if (i < 0 || i > 0xFFFFFF) i = 0;"));
+                assertTrue(shader + " encodes differently", body.contains("int r = i & 0xFF;"));
+                assertTrue(shader + " encodes differently", body.contains("int g = (i >> 8) & 0xFF;"));
+                assertTrue(shader + " encodes differently", body.contains("int b = (i >> 16) & 0xFF;"));
+            }
+        }
+        assertTrue("no shader defines numberToColor", found >= 5);
+    }
+}